@@ -31,6 +31,7 @@ import java.io.IOException;
 
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.crawler.data.Cache;
+import net.yacy.crawler.data.ThumbnailCache;
 import net.yacy.data.WorkTables;
 import net.yacy.search.Switchboard;
 import net.yacy.search.SwitchboardConstants;
@@ -62,11 +63,17 @@ public class ConfigHTCache_p {
             final int newProxyCacheSize = Math.max(post.getInt("maxCacheSize", 64), 0);
             env.setConfig(SwitchboardConstants.PROXY_CACHE_SIZE, newProxyCacheSize);
             Cache.setMaxCacheSize(newProxyCacheSize * 1024L * 1024L);
+
+            // thumbnailCacheSize
+            final int newThumbnailCacheSize = Math.max(post.getInt("maxThumbnailCacheSize", 256), 1);
+            env.setConfig(SwitchboardConstants.THUMBNAIL_CACHE_SIZE, newThumbnailCacheSize);
+            ThumbnailCache.setMaxCacheSize(newThumbnailCacheSize * 1024L * 1024L);
         }
 
         if (post != null && post.containsKey("deletecomplete")) {
             if ("on".equals(post.get("deleteCache", ""))) {
                 Cache.clear();
+                ThumbnailCache.clear();
             }
             if ("on".equals(post.get("deleteRobots", ""))) {
                 sb.robots.clear();
@@ -81,6 +88,7 @@ public class ConfigHTCache_p {
         prop.put("actualCacheDocCount", Cache.getActualCacheDocCount());
         prop.put("docSizeAverage", Cache.getActualCacheDocCount() == 0 ? 0 : Cache.getActualCacheSize() / Cache.getActualCacheDocCount() / 1024);
         prop.put("maxCacheSize", env.getConfigLong(SwitchboardConstants.PROXY_CACHE_SIZE, 64));
+        prop.put("maxThumbnailCacheSize", env.getConfigLong(SwitchboardConstants.THUMBNAIL_CACHE_SIZE, 256));
         // return rewrite properties
         return prop;
     }
@@ -150,6 +150,7 @@ public class IndexControlURLs_p {
         if ( post.containsKey("deletecomplete") ) {
             if ( post.get("deleteIndex", "").equals("on") ) {
                 try {segment.fulltext().clearLocalSolr();} catch (final IOException e) {}
+                try {segment.contentDigest().clear();} catch (final IOException e) {}
             }
             if ( post.get("deleteRemoteSolr", "").equals("on")) {
                 try {segment.fulltext().clearRemoteSolr();} catch (final IOException e) {}
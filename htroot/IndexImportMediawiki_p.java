@@ -25,7 +25,10 @@
 import java.io.File;
 
 import net.yacy.cora.protocol.RequestHeader;
+import net.yacy.document.importer.Importer;
 import net.yacy.document.importer.MediawikiImporter;
+import net.yacy.document.importer.SurrogateImporter;
+import net.yacy.document.importer.WarcImporter;
 import net.yacy.search.Switchboard;
 import net.yacy.server.serverObjects;
 import net.yacy.server.serverSwitch;
@@ -80,6 +83,23 @@ public class IndexImportMediawiki_p {
                 }
             }
         }
+
+        // the indexer imports the surrogate files and web archives from DATA/SURROGATES/in, one at a time
+        final Importer surrogates = WarcImporter.job != null && WarcImporter.job.isAlive() ? WarcImporter.job : SurrogateImporter.job;
+        if (surrogates != null && surrogates.isAlive()) {
+            prop.put("surrogates", 1);
+            prop.put("surrogates_file", surrogates.source());
+            prop.put("surrogates_count", surrogates.count());
+            prop.put("surrogates_speed", surrogates.speed());
+            prop.put("surrogates_runningHours", (surrogates.runningTime() / 60) / 60);
+            prop.put("surrogates_runningMinutes", (surrogates.runningTime() / 60) % 60);
+            prop.put("surrogates_remainingHours", (surrogates.remainingTime() / 60) / 60);
+            prop.put("surrogates_remainingMinutes", (surrogates.remainingTime() / 60) % 60);
+            prop.put("surrogates_status", surrogates.status());
+        } else {
+            prop.put("surrogates", 0);
+        }
+        prop.put("refresh", prop.getInt("import", 0) == 1 || prop.getInt("surrogates", 0) == 1 ? 1 : 0);
         return prop;
     }
 }
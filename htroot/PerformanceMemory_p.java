@@ -40,6 +40,7 @@ import net.yacy.kelondro.index.Cache;
 import net.yacy.kelondro.index.RAMIndex;
 import net.yacy.kelondro.table.Table;
 import net.yacy.kelondro.util.Formatter;
+import net.yacy.kelondro.util.MemoryBudget;
 import net.yacy.kelondro.util.MemoryControl;
 import net.yacy.search.Switchboard;
 import net.yacy.search.query.SearchEventCache;
@@ -103,10 +104,24 @@ public class PerformanceMemory_p {
         prop.putNum("memoryUsedAfterInitAGC", (memoryTotalAfterInitAGC - memoryFreeAfterInitAGC) / KB);
         prop.putNum("memoryUsedNow", MemoryControl.used() / MB);
 
+        // write table for the memory budgets of the caches
+        int c = 0;
+        for (final MemoryBudget.Budget budget: MemoryBudget.budgets()) {
+            prop.put("BudgetList_" + c + "_name", budget.name());
+            prop.put("BudgetList_" + c + "_priority", budget.priority() == MemoryBudget.PRIORITY_LOW ? "low" : budget.priority() == MemoryBudget.PRIORITY_MEDIUM ? "medium" : "high");
+            prop.putNum("BudgetList_" + c + "_memory", budget.memory() / KB);
+            prop.putNum("BudgetList_" + c + "_shrinks", budget.shrinks());
+            prop.putNum("BudgetList_" + c + "_released", budget.released() / KB);
+            c++;
+        }
+        prop.put("BudgetList", c);
+        prop.putNum("BudgetTotalMem", MemoryBudget.memory() / (1024d * 1024d));
+        prop.putNum("BudgetNotifications", MemoryBudget.notifications());
+
         
         final Map<String, SolrInfoMBean> solrInfoMBeans = sb.index.fulltext().getSolrInfoBeans();
         final TreeMap<String, Map.Entry<String, SolrInfoMBean>> solrBeanOM = new TreeMap<String, Map.Entry<String, SolrInfoMBean>>();
-        int c = 0;
+        c = 0;
         for (Map.Entry<String, SolrInfoMBean> sc: solrInfoMBeans.entrySet()) solrBeanOM.put(sc.getValue().getName() + "$" + sc.getKey() + "$" + c++, sc);
         c = 0;
         int scc = 0;
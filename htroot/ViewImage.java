@@ -32,6 +32,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.document.id.MultiProtocolURL;
@@ -42,6 +43,7 @@ import net.yacy.cora.protocol.HeaderFramework;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.storage.ConcurrentARC;
 import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.crawler.data.ThumbnailCache;
 import net.yacy.data.URLLicense;
 import net.yacy.document.ImageParser;
 import net.yacy.kelondro.util.FileUtils;
@@ -75,8 +77,8 @@ public class ViewImage {
 
         String urlString = post.get("url", "");
         final String urlLicense = post.get("code", "");
-        boolean isStatic = post.getBoolean("isStatic");
-        String ext = header.get("EXT", null);
+        final boolean isStatic = post.getBoolean("isStatic");
+        final String ext = header.get("EXT", null);
         final boolean quadratic = post.containsKey("quadratic");
         final boolean auth = Domains.isLocalhost(header.get(HeaderFramework.CONNECTION_PROP_CLIENTIP, "")) || sb.verifyAuthentication(header); // handle access rights
 
@@ -99,10 +101,34 @@ public class ViewImage {
 
         if (urlString == null) return null;
 
-        int width = post.getInt("width", 0);
-        int height = post.getInt("height", 0);
-        int maxwidth = post.getInt("maxwidth", 0);
-        int maxheight = post.getInt("maxheight", 0);
+        final int width = post.getInt("width", 0);
+        final int height = post.getInt("height", 0);
+        final int maxwidth = post.getInt("maxwidth", 0);
+        final int maxheight = post.getInt("maxheight", 0);
+
+        // scaled images are stored in the thumbnail cache; icons are held in the iconcache and gif images are not scaled
+        if (ext != null && url != null && !urlString.endsWith(".ico") &&
+            !(auth && (width == 0 || height == 0) && maxwidth == 0 && maxheight == 0) &&
+            !("gif".equals(ext) && "gif".equals(MultiProtocolURL.getFileExtension(url.getFileName())))) {
+            final DigestURL imageURL = url;
+            final String imageURLString = urlString;
+            final String variant = ext + (auth ? " auth" : "") + (quadratic ? " quadratic" : "") + " " + width + "x" + height + " " + maxwidth + "x" + maxheight;
+            final byte[] thumbnail = ThumbnailCache.get(ThumbnailCache.key(url.hash(), variant), new Callable<byte[]>() {
+                @Override
+                public byte[] call() {
+                    final Object image = render(sb, post, imageURL, imageURLString, ext, isStatic, quadratic, auth, width, height, maxwidth, maxheight);
+                    return image instanceof EncodedImage ? ((EncodedImage) image).getImage().getBytes() : null;
+                }
+            });
+            return thumbnail == null ? null : new EncodedImage(thumbnail, ext, isStatic);
+        }
+
+        return render(sb, post, url, urlString, ext, isStatic, quadratic, auth, width, height, maxwidth, maxheight);
+    }
+
+    private static Object render(final Switchboard sb, final serverObjects post, final DigestURL url, final String urlString,
+            final String ext, final boolean isStatic, final boolean quadratic, final boolean auth,
+            int width, int height, int maxwidth, int maxheight) {
 
         // get the image as stream
         if (MemoryControl.shortStatus()) iconcache.clear();
@@ -150,8 +176,8 @@ public class ViewImage {
                 return new ByteArrayInputStream(imgb);
             }
             
-            // read image
-            image = ImageParser.parse(urlString, imgb);
+            // read image; large images are subsampled to the size of the thumbnail
+            image = ImageParser.parse(urlString, imgb, auth ? maxwidth : 96, auth ? maxheight : 96);
             if (image == null) {
                 return null;
             }
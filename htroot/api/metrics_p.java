@@ -0,0 +1,137 @@
+/**
+ *  metrics_p
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+import java.util.Map;
+
+import net.yacy.cora.protocol.HeaderFramework;
+import net.yacy.cora.protocol.RequestHeader;
+import net.yacy.cora.util.Metrics;
+import net.yacy.server.serverObjects;
+import net.yacy.server.serverSwitch;
+
+/**
+ * export of the metrics registry, either as json (metrics_p.json) or in the
+ * Prometheus text exposition format (metrics_p.txt)
+ */
+public class metrics_p {
+
+    private static final double[] QUANTILES = {0.5d, 0.9d, 0.99d, 0.999d};
+    private static final String[] QUANTILE_NAMES = {"p50", "p90", "p99", "p999"};
+
+    public static serverObjects respond(final RequestHeader header, @SuppressWarnings("unused") final serverObjects post, @SuppressWarnings("unused") final serverSwitch env) {
+        final serverObjects prop = new serverObjects();
+        final boolean text = "txt".equals(header.get(HeaderFramework.CONNECTION_PROP_EXT, ""));
+
+        final Map<String, Metrics.Counter> counters = Metrics.counters();
+        final Map<String, Long> gauges = Metrics.gauges();
+        final Map<String, Metrics.Histogram> histograms = Metrics.histograms();
+
+        if (text) {
+            // one entry for each metric with all lines of the metric
+            int c = 0;
+            String lastName = null;
+            for (final Metrics.Counter counter: counters.values()) {
+                final String metric = metricName(counter.name()) + "_total";
+                final StringBuilder sb = new StringBuilder();
+                if (!counter.name().equals(lastName)) sb.append("# TYPE ").append(metric).append(" counter\n");
+                lastName = counter.name();
+                sb.append(metric).append(labelSet(counter.label(), null)).append(' ').append(counter.count()).append('\n');
+                prop.put("metrics_" + c++ + "_text", sb.toString());
+            }
+            for (final Map.Entry<String, Long> gauge: gauges.entrySet()) {
+                final String metric = metricName(gauge.getKey());
+                prop.put("metrics_" + c++ + "_text", "# TYPE " + metric + " gauge\n" + metric + ' ' + gauge.getValue() + '\n');
+            }
+            lastName = null;
+            for (final Metrics.Histogram histogram: histograms.values()) {
+                final String metric = metricName(histogram.name()) + "_seconds";
+                final StringBuilder sb = new StringBuilder();
+                if (!histogram.name().equals(lastName)) sb.append("# TYPE ").append(metric).append(" summary\n");
+                lastName = histogram.name();
+                final long[] q = histogram.quantiles(QUANTILES);
+                for (int i = 0; i < QUANTILES.length; i++) {
+                    sb.append(metric).append(labelSet(histogram.label(), Double.toString(QUANTILES[i]))).append(' ').append(seconds(q[i])).append('\n');
+                }
+                sb.append(metric).append("_sum").append(labelSet(histogram.label(), null)).append(' ').append(seconds(histogram.sum())).append('\n');
+                sb.append(metric).append("_count").append(labelSet(histogram.label(), null)).append(' ').append(histogram.count()).append('\n');
+                prop.put("metrics_" + c++ + "_text", sb.toString());
+            }
+            prop.put("metrics", c);
+            return prop;
+        }
+
+        int c = 0;
+        for (final Metrics.Counter counter: counters.values()) {
+            prop.putJSON("counters_" + c + "_name", counter.name());
+            prop.putJSON("counters_" + c + "_label", counter.label() == null ? "" : counter.label());
+            prop.put("counters_" + c + "_count", counter.count());
+            prop.put("counters_" + c + "_comma", c < counters.size() - 1 ? 1 : 0);
+            c++;
+        }
+        prop.put("counters", c);
+        c = 0;
+        for (final Map.Entry<String, Long> gauge: gauges.entrySet()) {
+            prop.putJSON("gauges_" + c + "_name", gauge.getKey());
+            prop.put("gauges_" + c + "_value", gauge.getValue().longValue());
+            prop.put("gauges_" + c + "_comma", c < gauges.size() - 1 ? 1 : 0);
+            c++;
+        }
+        prop.put("gauges", c);
+        c = 0;
+        for (final Metrics.Histogram histogram: histograms.values()) {
+            final long count = histogram.count();
+            final long[] q = histogram.quantiles(QUANTILES);
+            prop.putJSON("histograms_" + c + "_name", histogram.name());
+            prop.putJSON("histograms_" + c + "_label", histogram.label() == null ? "" : histogram.label());
+            prop.put("histograms_" + c + "_count", count);
+            prop.put("histograms_" + c + "_mean", millis(count == 0 ? 0 : histogram.sum() / count));
+            for (int i = 0; i < QUANTILES.length; i++) prop.put("histograms_" + c + "_" + QUANTILE_NAMES[i], millis(q[i]));
+            prop.put("histograms_" + c + "_max", millis(histogram.max()));
+            prop.put("histograms_" + c + "_comma", c < histograms.size() - 1 ? 1 : 0);
+            c++;
+        }
+        prop.put("histograms", c);
+        return prop;
+    }
+
+    private static String metricName(final String name) {
+        return "yacy_" + name.replace('.', '_').replace('-', '_');
+    }
+
+    private static String labelSet(final String label, final String quantile) {
+        if (label == null && quantile == null) return "";
+        final StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        if (label != null) sb.append("type=\"").append(label.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        if (label != null && quantile != null) sb.append(',');
+        if (quantile != null) sb.append("quantile=\"").append(quantile).append('"');
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private static String seconds(final long nanos) {
+        return Double.toString(nanos / 1000000000d);
+    }
+
+    private static String millis(final long nanos) {
+        return Double.toString((nanos / 1000L) / 1000d);
+    }
+
+}
@@ -29,27 +29,35 @@
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 
 import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.document.encoding.UTF8;
 import net.yacy.cora.document.feed.RSSMessage;
 import net.yacy.cora.federate.yacy.Distribution;
+import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.protocol.HeaderFramework;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.storage.HandleSet;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.Memory;
+import net.yacy.cora.util.Metrics;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
 import net.yacy.kelondro.data.word.WordReferenceRow;
 import net.yacy.kelondro.index.RowHandleSet;
+import net.yacy.kelondro.rwi.ReferenceContainer;
 import net.yacy.kelondro.util.FileUtils;
 import net.yacy.kelondro.util.MemoryControl;
 import net.yacy.peers.EventChannel;
+import net.yacy.peers.IndexTransferFormat;
 import net.yacy.peers.Network;
+import net.yacy.peers.PeerPerformance;
 import net.yacy.peers.Protocol;
 import net.yacy.peers.Seed;
 import net.yacy.repository.Blacklist.BlacklistType;
@@ -115,7 +123,8 @@ public final class transferRWI {
 //      final String key      = (String) post.get("key", "");             // transmission key
         final int wordc       = post.getInt("wordc", 0);                  // number of different words
         final int entryc      = post.getInt("entryc", 0);                 // number of entries in indexes
-        byte[] indexes        = post.get("indexes", "").getBytes();       // the indexes, as list of word entries
+        final boolean binary  = post.getInt("format", 0) == IndexTransferFormat.VERSION; // the indexes are in the binary format
+        byte[] indexes        = binary ? Base64Order.standardCoder.decode(post.get("indexes", "")) : post.get("indexes", "").getBytes(); // the indexes, as list of word entries
         boolean granted       = sb.getConfigBool("allowReceiveIndex", false);
         final boolean blockBlacklist = sb.getConfigBool(SwitchboardConstants.INDEX_RECEIVE_BLOCK_BLACKLIST, false);
         final long cachelimit = sb.getConfigLong(SwitchboardConstants.WORDCACHE_MAX_COUNT, 100000);
@@ -169,80 +178,142 @@ public final class transferRWI {
             // log value status (currently added to find outOfMemory error
             if (sb.getLog().isFine()) sb.getLog().fine("Processing " + indexes.length + " bytes / " + wordc + " words / " + entryc + " entries from " + otherPeerName);
             final long startProcess = System.currentTimeMillis();
+            final long startNanos = System.nanoTime();
 
-            // decode request
-            //System.out.println("STRINGS " + UTF8.String(indexes));
-            final Iterator<String> it = FileUtils.strings(indexes);
-
-            // free memory
-            indexes = null;
-
-            // now parse the Strings in the value-vector and write index entries
-            String estring;
-            int p;
-            String wordHash;
-            byte[] urlHash;
-            WordReferenceRow iEntry;
+            // now parse the index entries and write them to the index
             final HandleSet unknownURL = new RowHandleSet(Word.commonHashLength, Word.commonHashOrder, 0);
             final HandleSet knownURL = new RowHandleSet(Word.commonHashLength, Word.commonHashOrder, 0);
             final ArrayList<String> wordhashes = new ArrayList<String>();
             int received = 0;
             int blocked = 0;
-            int count = 0;
             Set<String> testids = new HashSet<String>();
-            while (it.hasNext()) {
-                estring = it.next();
-                count++;
-                if (count > 1000) break; // protection against flooding
-
-                // check if RWI entry is well-formed
-                p = estring.indexOf('{',0);
-                if (p < 0 || estring.indexOf("x=",0) < 0 || !(estring.indexOf("[B@",0) < 0)) {
-                    blocked++;
-                    continue;
+            if (binary) {
+                // decode request
+                final IndexTransferFormat.Chunk chunk;
+                try {
+                    chunk = IndexTransferFormat.decode(indexes, 10000); // protection against flooding
+                } catch (final IOException e) {
+                    sb.getLog().info("Rejecting RWIs from peer " + otherPeerName + ", cannot decode binary format: " + e.getMessage());
+                    prop.put("result", "wrong_format");
+                    prop.put("pause", 0);
+                    return prop;
                 }
-                wordHash = estring.substring(0, p);
-                wordhashes.add(wordHash);
-                iEntry = new WordReferenceRow(estring.substring(p));
-                urlHash = iEntry.urlhash();
 
-                // block blacklisted entries
-                if ((blockBlacklist) && (Switchboard.urlBlacklist.hashInBlacklistedCache(BlacklistType.DHT, urlHash))) {
-                    Network.log.fine("transferRWI: blocked blacklisted URLHash '" + ASCII.String(urlHash) + "' from peer " + otherPeerName);
-                    blocked++;
-                    continue;
-                }
+                // free memory
+                indexes = null;
 
-                // check if the entry is in our network domain
-                final String urlRejectReason = sb.crawlStacker.urlInAcceptedDomainHash(urlHash);
-                if (urlRejectReason != null) {
-                    Network.log.warn("transferRWI: blocked URL hash '" + ASCII.String(urlHash) + "' (" + urlRejectReason + ") from peer " + otherPeerName + "; peer is suspected to be a spam-peer (or something is wrong)");
-                    //if (yacyCore.log.isFine()) yacyCore.log.logFine("transferRWI: blocked URL hash '" + urlHash + "' (" + urlRejectReason + ") from peer " + otherPeerName);
-                    blocked++;
-                    continue;
-                }
+                blocked += chunk.malformed;
+                final ArrayList<byte[]> rejected = new ArrayList<byte[]>();
+                for (final ReferenceContainer<WordReference> container: chunk.containers) {
+                    rejected.clear();
+                    final Iterator<WordReference> i = container.entries();
+                    while (i.hasNext()) {
+                        final byte[] urlHash = i.next().urlhash();
 
-                // learn entry
-                try {
-                    sb.index.storeRWI(ASCII.getBytes(wordHash), iEntry);
-                } catch (final Exception e) {
-                    ConcurrentLog.logException(e);
+                        // block blacklisted entries
+                        if ((blockBlacklist) && (Switchboard.urlBlacklist.hashInBlacklistedCache(BlacklistType.DHT, urlHash))) {
+                            Network.log.fine("transferRWI: blocked blacklisted URLHash '" + ASCII.String(urlHash) + "' from peer " + otherPeerName);
+                            rejected.add(urlHash);
+                            continue;
+                        }
+
+                        // check if the entry is in our network domain
+                        final String urlRejectReason = sb.crawlStacker.urlInAcceptedDomainHash(urlHash);
+                        if (urlRejectReason != null) {
+                            Network.log.warn("transferRWI: blocked URL hash '" + ASCII.String(urlHash) + "' (" + urlRejectReason + ") from peer " + otherPeerName + "; peer is suspected to be a spam-peer (or something is wrong)");
+                            rejected.add(urlHash);
+                        }
+                    }
+                    for (final byte[] urlHash: rejected) container.removeReference(urlHash);
+                    blocked += rejected.size();
+                    if (container.isEmpty()) continue;
+
+                    // learn the whole container at once
+                    try {
+                        sb.index.storeRWI(container);
+                    } catch (final Exception e) {
+                        ConcurrentLog.logException(e);
+                    }
+                    wordhashes.add(ASCII.String(container.getTermHash()));
+
+                    // check if we need to ask for the corresponding URLs
+                    final Iterator<WordReference> j = container.entries();
+                    while (j.hasNext()) testids.add(ASCII.String(j.next().urlhash()));
+                    received += container.size();
                 }
+                if (chunk.truncated) sb.getLog().info("transferRWI: truncated RWIs from peer " + otherPeerName + " after " + chunk.entries + " entries");
+            } else {
+                // decode request
+                //System.out.println("STRINGS " + UTF8.String(indexes));
+                final Iterator<String> it = FileUtils.strings(indexes);
 
-                // check if we need to ask for the corresponding URL
-                testids.add(ASCII.String(urlHash));
-                received++;
+                // free memory
+                indexes = null;
+
+                // now parse the Strings in the value-vector and write index entries
+                String estring;
+                int p;
+                String wordHash;
+                byte[] urlHash;
+                WordReferenceRow iEntry;
+                int count = 0;
+                while (it.hasNext()) {
+                    estring = it.next();
+                    count++;
+                    if (count > 1000) break; // protection against flooding
+
+                    // check if RWI entry is well-formed
+                    p = estring.indexOf('{',0);
+                    if (p < 0 || estring.indexOf("x=",0) < 0 || !(estring.indexOf("[B@",0) < 0)) {
+                        blocked++;
+                        continue;
+                    }
+                    wordHash = estring.substring(0, p);
+                    wordhashes.add(wordHash);
+                    iEntry = new WordReferenceRow(estring.substring(p));
+                    urlHash = iEntry.urlhash();
+
+                    // block blacklisted entries
+                    if ((blockBlacklist) && (Switchboard.urlBlacklist.hashInBlacklistedCache(BlacklistType.DHT, urlHash))) {
+                        Network.log.fine("transferRWI: blocked blacklisted URLHash '" + ASCII.String(urlHash) + "' from peer " + otherPeerName);
+                        blocked++;
+                        continue;
+                    }
+
+                    // check if the entry is in our network domain
+                    final String urlRejectReason = sb.crawlStacker.urlInAcceptedDomainHash(urlHash);
+                    if (urlRejectReason != null) {
+                        Network.log.warn("transferRWI: blocked URL hash '" + ASCII.String(urlHash) + "' (" + urlRejectReason + ") from peer " + otherPeerName + "; peer is suspected to be a spam-peer (or something is wrong)");
+                        //if (yacyCore.log.isFine()) yacyCore.log.logFine("transferRWI: blocked URL hash '" + urlHash + "' (" + urlRejectReason + ") from peer " + otherPeerName);
+                        blocked++;
+                        continue;
+                    }
+
+                    // learn entry
+                    try {
+                        sb.index.storeRWI(ASCII.getBytes(wordHash), iEntry);
+                    } catch (final Exception e) {
+                        ConcurrentLog.logException(e);
+                    }
+
+                    // check if we need to ask for the corresponding URL
+                    testids.add(ASCII.String(urlHash));
+                    received++;
+                }
+            }
+            // ask the index for all urls at once
+            Map<String, Long> loadTimes;
+            try {
+                loadTimes = sb.index.fulltext().getLoadTimes(testids);
+            } catch (final IOException e) {
+                ConcurrentLog.logException(e);
+                loadTimes = new HashMap<String, Long>(0); // request all urls
             }
             for (String id: testids) {
                 try {
-                    try {
-                        if (sb.index.fulltext().getLoadTime(id) >= 0) {
-                            knownURL.put(ASCII.getBytes(id));
-                        } else {
-                            unknownURL.put(ASCII.getBytes(id));
-                        }
-                    } catch (IOException e) {
-                        ConcurrentLog.logException(e);
+                    if (loadTimes.containsKey(id)) {
+                        knownURL.put(ASCII.getBytes(id));
+                    } else {
                         unknownURL.put(ASCII.getBytes(id));
                     }
                 } catch (final SpaceExceededException e) {
@@ -250,6 +321,7 @@ public final class transferRWI {
                 }
             }
             sb.peers.mySeed().incRI(received);
+            final PeerPerformance.Stats stats = PeerPerformance.receipt(otherPeer.hash, System.currentTimeMillis() - startProcess, received, blocked);
 
             // finally compose the unknownURL hash list
             final Iterator<byte[]> bit = unknownURL.iterator();
@@ -259,15 +331,17 @@ public final class transferRWI {
             }
             if (unknownURLs.length() > 0) { unknownURLs.setLength(unknownURLs.length() - 1); }
             if (wordhashes.isEmpty() || received == 0) {
-                sb.getLog().info("Received 0 RWIs from " + otherPeerName + ", processed in " + (System.currentTimeMillis() - startProcess) + " milliseconds, requesting " + unknownURL.size() + " URLs, blocked " + blocked + " RWIs");
+                sb.getLog().info("Received 0 RWIs from " + otherPeerName + ", processed in " + (System.currentTimeMillis() - startProcess) + " milliseconds, requesting " + unknownURL.size() + " URLs, blocked " + blocked + " RWIs; " + stats.toString());
             } else {
                 final String firstHash = wordhashes.get(0);
                 final String lastHash = wordhashes.get(wordhashes.size() - 1);
                 final long avdist = (Distribution.horizontalDHTDistance(firstHash.getBytes(), ASCII.getBytes(sb.peers.mySeed().hash)) + Distribution.horizontalDHTDistance(lastHash.getBytes(), ASCII.getBytes(sb.peers.mySeed().hash))) / 2;
-                sb.getLog().info("Received " + received + " RWIs, " + wordc + " Words [" + firstHash + " .. " + lastHash + "], processed in " + (System.currentTimeMillis() - startProcess) + " milliseconds, " + avdist + ", blocked " + blocked + ", requesting " + unknownURL.size() + "/" + received+ " URLs from " + otherPeerName);
+                sb.getLog().info("Received " + received + " RWIs, " + wordc + " Words [" + firstHash + " .. " + lastHash + "], processed in " + (System.currentTimeMillis() - startProcess) + " milliseconds, " + avdist + ", blocked " + blocked + ", requesting " + unknownURL.size() + "/" + received+ " URLs from " + otherPeerName + "; " + stats.toString());
                 EventChannel.channels(EventChannel.DHTRECEIVE).addMessage(new RSSMessage("Received " + received + " RWIs, " + wordc + " Words [" + firstHash + " .. " + lastHash + "], processed in " + (System.currentTimeMillis() - startProcess) + " milliseconds, " + avdist + ", blocked " + blocked + ", requesting " + unknownURL.size() + "/" + received + " URLs from " + otherPeerName, "", otherPeer.hash));
             }
             result = "ok";
+            Metrics.histogram("dht.receive").recordSince(startNanos);
+            Metrics.counter("dht.receive.references").add(received);
 
             pause = (int) (sb.index.RWIBufferCount() * 20000 / sb.getConfigLong(SwitchboardConstants.WORDCACHE_MAX_COUNT, 100000)); // estimation of necessary pause time
         }
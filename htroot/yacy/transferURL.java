@@ -42,6 +42,7 @@ import net.yacy.gui.Audio;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
 import net.yacy.peers.EventChannel;
 import net.yacy.peers.Network;
+import net.yacy.peers.PeerPerformance;
 import net.yacy.peers.Protocol;
 import net.yacy.peers.Seed;
 import net.yacy.repository.Blacklist.BlacklistType;
@@ -144,16 +145,17 @@ public final class transferURL {
                 lEm.put(ASCII.String(lEntry.hash()), lEntry);
             }
             
+            // ask the index for all urls at once
+            Map<String, Long> loadTimes;
+            try {
+                loadTimes = sb.index.getLoadTimes(lEm.keySet());
+            } catch (IOException e1) {
+                loadTimes = new HashMap<String, Long>(0);
+                ConcurrentLog.logException(e1);
+            }
             doublecheck = 0;
             for (String id : lEm.keySet()) {
-                long lt = -1;
-                try {
-                    lt = sb.index.getLoadTime(id);
-                } catch (IOException e1) {
-                    lt = -1;
-                    ConcurrentLog.logException(e1);
-                }
-                if (lt < 0) {
+                if (!loadTimes.containsKey(id)) {
                     lEntry = lEm.get(id);
 
                     // write entry to database
@@ -172,9 +174,10 @@ public final class transferURL {
             }
 
             sb.peers.mySeed().incRU(received);
+            final PeerPerformance.Stats stats = PeerPerformance.receipt(iam, System.currentTimeMillis() - start, received, blocked);
 
             // return rewrite properties
-            Network.log.info("Received " + received + " URLs from peer " + otherPeerName + " in " + (System.currentTimeMillis() - start) + " ms, blocked " + blocked + " URLs");
+            Network.log.info("Received " + received + " URLs from peer " + otherPeerName + " in " + (System.currentTimeMillis() - start) + " ms, blocked " + blocked + " URLs; " + stats.toString());
             EventChannel.channels(EventChannel.DHTRECEIVE).addMessage(new RSSMessage("Received " + received + ", blocked " + blocked + " URLs from peer " + otherPeerName, "", otherPeer.hash));
             if (sb.getConfigBool(SwitchboardConstants.DECORATION_AUDIO, false)) Audio.Soundclip.dhtin.play(-10.0f);
             
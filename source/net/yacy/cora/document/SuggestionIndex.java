@@ -0,0 +1,352 @@
+/**
+ *  SuggestionIndex
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.document;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An immutable prefix tree of words with frequency weights, used for autocompletion and spelling suggestions.
+ * The nodes are stored in plain arrays in breadth-first order; the children of a node are consecutive and
+ * ordered by their character. Every node knows the largest weight of a word in its subtree, which makes it
+ * possible to enumerate the k most frequent completions of a prefix without looking at the whole subtree.
+ * Words are stored in lower case; all lookups are case-insensitive.
+ * Because the index cannot be changed, it can be read concurrently without locks. Updates are done by
+ * building a new index and replacing the old one.
+ */
+public class SuggestionIndex {
+
+    public static final SuggestionIndex EMPTY = new SuggestionIndex(new String[0], new int[0]);
+
+    // the longest input for which an edit-distance search is done
+    private static final int MAX_FUZZY_LENGTH = 64;
+
+    private final char[] label;     // the character on the edge from the parent to the node
+    private final int[] parent;     // the parent of the node; -1 for the root
+    private final int[] firstChild; // the first child of the node; the children of node i end where the children of node i + 1 begin
+    private final int[] weight;     // the weight of the word which ends at the node; 0 if no word ends here
+    private final int[] maxWeight;  // the largest weight in the subtree of the node
+    private final int size;         // the number of words
+
+    /**
+     * build a suggestion index
+     * @param words an array of lower-case words in ascending order without duplicates
+     * @param weights the weights of the words; must be greater than zero
+     */
+    public SuggestionIndex(final String[] words, final int[] weights) {
+        assert words.length == weights.length;
+
+        // count the nodes: every word adds as many nodes as it has characters after the prefix that it shares with the previous word
+        int n = 1;
+        for (int i = 0; i < words.length; i++) {
+            assert i == 0 || words[i - 1].compareTo(words[i]) < 0 : "words not ordered: " + words[i - 1] + ", " + words[i];
+            n += words[i].length() - (i == 0 ? 0 : commonPrefixLength(words[i - 1], words[i]));
+        }
+        this.label = new char[n];
+        this.parent = new int[n];
+        this.firstChild = new int[n + 1];
+        this.weight = new int[n];
+        this.maxWeight = new int[n];
+
+        // breadth-first construction; every node covers the range of words which share the prefix of the node
+        final int[] lo = new int[n], hi = new int[n], depth = new int[n];
+        lo[0] = 0; hi[0] = words.length; depth[0] = 0; this.parent[0] = -1;
+        int next = 1, count = 0;
+        for (int node = 0; node < next; node++) {
+            final int d = depth[node];
+            int i = lo[node];
+            if (i < hi[node] && words[i].length() == d) {
+                this.weight[node] = Math.max(1, weights[i]);
+                count++;
+                i++;
+            }
+            this.firstChild[node] = next;
+            while (i < hi[node]) {
+                final char c = words[i].charAt(d);
+                int j = i + 1;
+                while (j < hi[node] && words[j].charAt(d) == c) j++;
+                this.label[next] = c;
+                this.parent[next] = node;
+                lo[next] = i; hi[next] = j; depth[next] = d + 1;
+                next++;
+                i = j;
+            }
+        }
+        assert next == n;
+        this.firstChild[n] = n;
+        this.size = count;
+
+        // children have larger numbers than their parents, so the maximum can be propagated backwards
+        for (int node = n - 1; node >= 0; node--) {
+            if (this.weight[node] > this.maxWeight[node]) this.maxWeight[node] = this.weight[node];
+            if (node > 0 && this.maxWeight[node] > this.maxWeight[this.parent[node]]) this.maxWeight[this.parent[node]] = this.maxWeight[node];
+        }
+    }
+
+    private static int commonPrefixLength(final String a, final String b) {
+        final int l = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < l && a.charAt(i) == b.charAt(i)) i++;
+        return i;
+    }
+
+    /**
+     * @return the number of words in the index
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return the number of nodes in the index
+     */
+    public int nodes() {
+        return this.label.length;
+    }
+
+    private int child(final int node, final char c) {
+        int l = this.firstChild[node], h = this.firstChild[node + 1] - 1;
+        while (l <= h) {
+            final int m = (l + h) >>> 1;
+            final char x = this.label[m];
+            if (x < c) l = m + 1; else if (x > c) h = m - 1; else return m;
+        }
+        return -1;
+    }
+
+    private int find(final CharSequence s) {
+        int node = 0;
+        for (int i = 0; i < s.length() && node >= 0; i++) node = child(node, Character.toLowerCase(s.charAt(i)));
+        return node;
+    }
+
+    private String word(int node) {
+        final StringBuilder sb = new StringBuilder();
+        while (node > 0) {
+            sb.append(this.label[node]);
+            node = this.parent[node];
+        }
+        return sb.reverse().toString();
+    }
+
+    /**
+     * @param word the word
+     * @return the weight of the word or 0 if the index does not contain the word
+     */
+    public int weight(final CharSequence word) {
+        final int node = find(word);
+        return node < 0 ? 0 : this.weight[node];
+    }
+
+    public boolean contains(final CharSequence word) {
+        return weight(word) > 0;
+    }
+
+    /**
+     * find the most frequent words which start with the given prefix
+     * @param prefix the beginning of the words
+     * @param k the maximum number of words
+     * @return up to k words ordered by descending weight
+     */
+    public List<String> complete(final CharSequence prefix, final int k) {
+        final List<String> result = new ArrayList<String>(Math.min(k, 16));
+        final int node = find(prefix);
+        if (node >= 0) complete(new int[]{node}, k, null, result);
+        return result;
+    }
+
+    /**
+     * find the most frequent words which start with the given prefix or with a string that is similar
+     * to the prefix. Completions of the exact prefix come first, then completions of prefixes with one
+     * edit operation and so on.
+     * @param prefix the beginning of the words
+     * @param maxEdits the maximum number of edit operations (insert, delete, replace, swap) on the prefix
+     * @param k the maximum number of words
+     * @return up to k words ordered by ascending distance of the prefix and descending weight
+     */
+    public List<String> complete(final CharSequence prefix, final int maxEdits, final int k) {
+        if (maxEdits <= 0 || prefix.length() == 0 || prefix.length() > MAX_FUZZY_LENGTH) return complete(prefix, k);
+        final List<List<Integer>> starts = similar(prefix, maxEdits, true);
+        final List<String> result = new ArrayList<String>(Math.min(k, 16));
+        final Set<Integer> done = new HashSet<Integer>();
+        for (int d = 0; d <= maxEdits && result.size() < k; d++) {
+            final int[] nodes = new int[starts.get(d).size()];
+            for (int i = 0; i < nodes.length; i++) nodes[i] = starts.get(d).get(i);
+            complete(nodes, k, done, result);
+        }
+        return result;
+    }
+
+    /**
+     * find the words which are similar to the given word, i.e. to correct a misspelled word
+     * @param word the (misspelled) word
+     * @param maxEdits the maximum number of edit operations (insert, delete, replace, swap)
+     * @param k the maximum number of words
+     * @return up to k words ordered by ascending edit distance and descending weight; the word itself is not included
+     */
+    public List<String> similar(final CharSequence word, final int maxEdits, final int k) {
+        final List<String> result = new ArrayList<String>(Math.min(k, 16));
+        if (word.length() > MAX_FUZZY_LENGTH) return result;
+        final List<List<Integer>> found = similar(word, maxEdits, false);
+        for (int d = 1; d <= maxEdits && result.size() < k; d++) {
+            final Integer[] nodes = found.get(d).toArray(new Integer[found.get(d).size()]);
+            Arrays.sort(nodes, new Comparator<Integer>() {
+                @Override
+                public int compare(final Integer a, final Integer b) {
+                    final int wa = SuggestionIndex.this.weight[a.intValue()], wb = SuggestionIndex.this.weight[b.intValue()];
+                    return wa != wb ? (wa > wb ? -1 : 1) : a.compareTo(b);
+                }
+            });
+            for (int i = 0; i < nodes.length && result.size() < k; i++) result.add(word(nodes[i].intValue()));
+        }
+        return result;
+    }
+
+    /**
+     * walk through the tree and compute the (restricted Damerau-) Levenshtein distance of the input and every node
+     * @param s the input
+     * @param maxEdits the maximum distance
+     * @param prefix if true, the nodes whose path is similar to s are returned, otherwise the words which are similar to s
+     * @return the matching nodes, grouped by their distance
+     */
+    private List<List<Integer>> similar(final CharSequence s, final int maxEdits, final boolean prefix) {
+        final int m = s.length();
+        final char[] in = new char[m];
+        for (int i = 0; i < m; i++) in[i] = Character.toLowerCase(s.charAt(i));
+        final List<List<Integer>> found = new ArrayList<List<Integer>>(maxEdits + 1);
+        for (int d = 0; d <= maxEdits; d++) found.add(new ArrayList<Integer>());
+        // a path cannot be longer than the input plus the number of edits, so the rows of the distance matrix are limited
+        final int[][] rows = new int[m + maxEdits + 2][m + 1];
+        for (int j = 0; j <= m; j++) rows[0][j] = j;
+        final int[] best = new int[rows.length]; // the smallest distance of a start node on the current path
+        best[0] = Integer.MAX_VALUE;
+        int[] stack = new int[Math.max(64, 2 * this.firstChild[1])]; // pairs of (node, depth)
+        int sp = 0;
+        for (int c = this.firstChild[1] - 1; c >= this.firstChild[0]; c--) {stack[sp++] = c; stack[sp++] = 1;}
+        while (sp > 0) {
+            final int depth = stack[--sp];
+            final int node = stack[--sp];
+            final char ch = this.label[node];
+            final int[] row = rows[depth], prev = rows[depth - 1];
+            row[0] = depth;
+            int min = row[0];
+            for (int j = 1; j <= m; j++) {
+                int v = Math.min(prev[j] + 1, row[j - 1] + 1);
+                v = Math.min(v, prev[j - 1] + (in[j - 1] == ch ? 0 : 1));
+                if (depth > 1 && j > 1 && in[j - 1] == this.label[this.parent[node]] && in[j - 2] == ch) v = Math.min(v, rows[depth - 2][j - 2] + 1);
+                row[j] = v;
+                if (v < min) min = v;
+            }
+            final int dist = row[m];
+            best[depth] = best[depth - 1];
+            if (prefix) {
+                // a node is a start of completions if its path matches the whole input; a deeper node is only taken if it matches better
+                if (dist <= maxEdits && dist < best[depth]) {
+                    found.get(dist).add(node);
+                    if (dist == 0) continue;
+                    best[depth] = dist;
+                }
+            } else {
+                if (dist <= maxEdits && this.weight[node] > 0) found.get(dist).add(node);
+            }
+            if (min > maxEdits || depth >= rows.length - 1) continue;
+            final int children = this.firstChild[node + 1] - this.firstChild[node];
+            if (sp + 2 * children > stack.length) stack = Arrays.copyOf(stack, Math.max(2 * stack.length, sp + 2 * children));
+            for (int c = this.firstChild[node + 1] - 1; c >= this.firstChild[node]; c--) {
+                stack[sp++] = c;
+                stack[sp++] = depth + 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * best-first enumeration of the words in the subtrees of the given nodes
+     */
+    private void complete(final int[] nodes, final int k, final Set<Integer> done, final List<String> result) {
+        final LongHeap heap = new LongHeap();
+        for (final int node: nodes) heap.push(entry(this.maxWeight[node], node, false));
+        while (!heap.isEmpty() && result.size() < k) {
+            final long e = heap.pop();
+            final int node = Integer.MAX_VALUE - (int) ((e >>> 1) & 0x7fffffffL);
+            if ((e & 1L) == 1L) {
+                if (done == null || done.add(node)) result.add(word(node));
+                continue;
+            }
+            if (this.weight[node] > 0) heap.push(entry(this.weight[node], node, true));
+            for (int child = this.firstChild[node]; child < this.firstChild[node + 1]; child++) {
+                heap.push(entry(this.maxWeight[child], child, false));
+            }
+        }
+    }
+
+    /**
+     * the order of heap entries: the weight first; then words before subtrees; then smaller node numbers first
+     */
+    private static long entry(final int weight, final int node, final boolean word) {
+        return (((long) weight) << 32) | (((long) (Integer.MAX_VALUE - node)) << 1) | (word ? 1L : 0L);
+    }
+
+    /**
+     * a binary max-heap of primitive long values
+     */
+    private static class LongHeap {
+        private long[] heap = new long[32];
+        private int size = 0;
+
+        private boolean isEmpty() {
+            return this.size == 0;
+        }
+
+        private void push(final long e) {
+            if (this.size == this.heap.length) this.heap = Arrays.copyOf(this.heap, this.size * 2);
+            int i = this.size++;
+            while (i > 0) {
+                final int p = (i - 1) >>> 1;
+                if (this.heap[p] >= e) break;
+                this.heap[i] = this.heap[p];
+                i = p;
+            }
+            this.heap[i] = e;
+        }
+
+        private long pop() {
+            final long top = this.heap[0];
+            final long e = this.heap[--this.size];
+            int i = 0;
+            final int half = this.size >>> 1;
+            while (i < half) {
+                int c = (i << 1) + 1;
+                if (c + 1 < this.size && this.heap[c + 1] > this.heap[c]) c++;
+                if (this.heap[c] <= e) break;
+                this.heap[i] = this.heap[c];
+                i = c;
+            }
+            if (this.size > 0) this.heap[i] = e;
+            return top;
+        }
+    }
+
+}
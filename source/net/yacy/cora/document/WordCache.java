@@ -29,13 +29,17 @@ import java.io.InputStreamReader;
 import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.zip.GZIPInputStream;
 
 import net.yacy.cora.sorting.OrderedScoreMap;
@@ -54,11 +58,19 @@ public class WordCache {
     private static final int commonWordsMaxSize = 20000;  // maximum size of common word cache
     private static final int commonWordsMinLength = 5;    // words must have that length at minimum
     private static OrderedScoreMap<StringBuilder> commonWords = new OrderedScoreMap<StringBuilder>(StringBuilderComparator.CASE_INSENSITIVE_ORDER);
+    private static final AtomicLong commonWordsChanges = new AtomicLong(0); // counts all changes of the common words
 
     // dictionaries
     private final File dictionaryPath;
     final Map<String, Dictionary> dictionaries;
 
+    // the suggestion index over the dictionaries and the common words; it is rebuilt in the background if words had been learned
+    private static final long suggestionIndexMaxAge = 300000;
+    private volatile SuggestionIndex suggestionIndex = SuggestionIndex.EMPTY;
+    private volatile long suggestionIndexChanges = -1; // the value of commonWordsChanges when the index was built
+    private volatile long suggestionIndexTime = 0;
+    private final AtomicBoolean suggestionIndexing = new AtomicBoolean(false);
+
     public static class Dictionary {
 
         private final TreeSet<StringBuilder> dict; // the word dictionary
@@ -216,6 +228,26 @@ public class WordCache {
             return;
         }
         commonWords.inc(word);
+        commonWordsChanges.incrementAndGet();
+        if (!(commonWords.sizeSmaller(commonWordsMaxSize))) {
+            commonWords.shrinkToMaxSize(commonWordsMaxSize / 2);
+        }
+    }
+
+    /**
+     * add a word to the generic dictionary
+     * @param word
+     * @param count the number of occurrences of the word
+     */
+    public static void learn(final String word, final int count) {
+        if (word == null || count <= 0) {
+            return;
+        }
+        if (word.length() < commonWordsMinLength) {
+            return;
+        }
+        commonWords.inc(new StringBuilder(word), count);
+        commonWordsChanges.addAndGet(count);
         if (!(commonWords.sizeSmaller(commonWordsMaxSize))) {
             commonWords.shrinkToMaxSize(commonWordsMaxSize / 2);
         }
@@ -245,6 +277,69 @@ public class WordCache {
                 }
             }
         }
+        this.suggestionIndexTime = 0;
+        rebuildSuggestionIndex();
+    }
+
+    /**
+     * get the suggestion index of all words in the dictionaries and all common words.
+     * The index is built in the background; if words had been learned since the index was built and the index
+     * is older than the maximum age, a new index is built and the current index is returned meanwhile.
+     * @return the suggestion index, an empty index if it had not been built yet
+     */
+    public SuggestionIndex suggestionIndex() {
+        if (this.suggestionIndexChanges != commonWordsChanges.get() && System.currentTimeMillis() - this.suggestionIndexTime > suggestionIndexMaxAge) {
+            rebuildSuggestionIndex();
+        }
+        return this.suggestionIndex;
+    }
+
+    private void rebuildSuggestionIndex() {
+        if (!this.suggestionIndexing.compareAndSet(false, true)) return;
+        new Thread("WordCache.rebuildSuggestionIndex") {
+            @Override
+            public void run() {
+                try {
+                    buildSuggestionIndex();
+                } catch (final Throwable e) {
+                    log.warn(e);
+                } finally {
+                    WordCache.this.suggestionIndexing.set(false);
+                }
+            }
+        }.start();
+    }
+
+    private void buildSuggestionIndex() {
+        final long start = System.currentTimeMillis();
+        final long changes = commonWordsChanges.get();
+        // every dictionary word has the weight 1; every occurrence as common word adds 1
+        final TreeMap<String, Integer> words = new TreeMap<String, Integer>();
+        for (final Dictionary dict: this.dictionaries.values()) {
+            for (final StringBuilder word: dict.getWords()) words.put(word.toString(), 1);
+        }
+        try {
+            for (final StringBuilder word: commonWords) {
+                final String w = word.toString().toLowerCase(Locale.ROOT);
+                final int c = commonWords.get(word);
+                if (c <= 0) continue;
+                final Integer d = words.get(w);
+                words.put(w, d == null ? c : d.intValue() + c);
+            }
+        } catch (final ConcurrentModificationException e) {
+            // the common words are changed during indexing; they are taken into account next time
+        }
+        final String[] keys = new String[words.size()];
+        final int[] weights = new int[words.size()];
+        int i = 0;
+        for (final Map.Entry<String, Integer> entry: words.entrySet()) {
+            keys[i] = entry.getKey();
+            weights[i++] = entry.getValue().intValue();
+        }
+        this.suggestionIndex = new SuggestionIndex(keys, weights);
+        this.suggestionIndexChanges = changes;
+        this.suggestionIndexTime = System.currentTimeMillis();
+        log.info("built suggestion index with " + keys.length + " words, " + this.suggestionIndex.nodes() + " nodes in " + (this.suggestionIndexTime - start) + " milliseconds");
     }
 
 
@@ -331,6 +426,7 @@ public class WordCache {
     
     public static void clearCommonWords() {
         commonWords.clear();
+        commonWordsChanges.incrementAndGet();
     }
 
     /**
@@ -33,6 +33,7 @@ import java.util.Set;
 import net.yacy.cora.document.analysis.Classification;
 import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.cora.federate.solr.connector.SolrConnector;
+import net.yacy.cora.federate.solr.connector.SolrCursor;
 import net.yacy.cora.federate.yacy.CacheStrategy;
 import net.yacy.cora.storage.Configuration;
 import net.yacy.cora.storage.Configuration.Entry;
@@ -331,12 +332,11 @@ public class FederateSearchManager {
             public void run() {
                 try {
                     boolean doloop = true;
-                    int loopnr = 0;
+                    final SolrCursor cursor = new SolrCursor(connector, webgraphquerystr, null, 20, webgraphqueryfields); // check chunk of 20 result documents
                     Set<String> dblmem = new HashSet<String>(); // temp memory for already checked url
                     while (doloop) {
-                        ConcurrentLog.info("FederateSearchManager", "start Solr query loop at " + Integer.toString(loopnr * 20) + " of " + Long.toString(numfound));
-                        SolrDocumentList docList = connector.getDocumentListByQuery(webgraphquerystr, null, loopnr * 20, 20, webgraphqueryfields); // check chunk of 20 result documents
-                        loopnr++;
+                        ConcurrentLog.info("FederateSearchManager", "start Solr query loop at " + Long.toString(cursor.getCount()) + " of " + Long.toString(numfound));
+                        SolrDocumentList docList = cursor.nextPage();
                         if (stoptime < System.currentTimeMillis()) {// stop after max 1h
                             doloop = false;
                             ConcurrentLog.info("FederateSearchManager", "long running discover task aborted");
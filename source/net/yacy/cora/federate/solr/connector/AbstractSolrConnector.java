@@ -49,6 +49,7 @@ import org.apache.solr.client.solrj.SolrQuery;
 import org.apache.solr.client.solrj.response.FacetField;
 import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.client.solrj.response.FacetField.Count;
+import org.apache.solr.client.solrj.util.ClientUtils;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrDocumentList;
 import org.apache.solr.common.SolrException;
@@ -91,6 +92,7 @@ public abstract class AbstractSolrConnector implements SolrConnector {
         catchSuccessQuery.setStart(0);
     }
     
+    // page sizes for deep iterations with a SolrCursor; each page is a separate request
     protected final static int pagesize_docs = 100;
     protected final static int pagesize_ids = 1000;
     
@@ -143,7 +145,7 @@ public abstract class AbstractSolrConnector implements SolrConnector {
      * The result queue is considered as terminated if AbstractSolrConnector.POISON_DOCUMENT is returned.
      * The method returns immediately and feeds the search results into the queue
      * @param querystring the solr query string
-     * @param sort the solr sort string, may be null to be not used
+     * @param sort the solr sort string, may be null; the results are read with a SolrCursor which appends the id to the sort
      * @param offset first result offset
      * @param maxcount the maximum number of results
      * @param maxtime the maximum time in milliseconds
@@ -174,7 +176,7 @@ public abstract class AbstractSolrConnector implements SolrConnector {
      * The result queue is considered as terminated if AbstractSolrConnector.POISON_DOCUMENT is returned.
      * The method returns immediately and feeds the search results into the queue
      * @param querystrings the list of solr query strings
-     * @param sort the solr sort string, may be null to be not used
+     * @param sort the solr sort string, may be null; the results are read with a SolrCursor which appends the id to the sort
      * @param offset first result offset
      * @param maxcount the maximum number of results
      * @param maxtime the maximum time in milliseconds
@@ -260,21 +262,19 @@ public abstract class AbstractSolrConnector implements SolrConnector {
                 try {
                     for (String querystring: querystrings) {
                         this.setName("AbstractSolrConnector:concurrentDocumentsByQueryNoPrefetch(" + querystring + ")");
-                        int o = offset;
+                        final SolrCursor cursor = new SolrCursor(AbstractSolrConnector.this, querystring, sort, (int) Math.min((long) maxcount + offset, ps), fields);
+                        int skip = offset;
                         int count = 0;
                         int retry = 0;
-                        loop: while (System.currentTimeMillis() < endtime && count < maxcount) {
+                        loop: while (System.currentTimeMillis() < endtime && count < maxcount && !cursor.isExhausted()) {
                             try {
-                                SolrDocumentList sdl = getDocumentListByQuery(querystring, sort, o, Math.min(maxcount, ps), fields);
+                                SolrDocumentList sdl = cursor.nextPage();
                                 for (SolrDocument d: sdl) {
-                                    try {queue.put(d);} catch (final InterruptedException e) {break;}
+                                    if (skip > 0) {skip--; continue;}
+                                    if (count >= maxcount) break loop;
+                                    try {queue.put(d);} catch (final InterruptedException e) {break loop;}
                                     count++;
                                 }
-                                if (sdl.size() < ps) {
-                                    //System.out.println("sdl.size() = " + sdl.size() + ", pagesize = " + pagesize);
-                                    break loop; // finished
-                                }
-                                o += sdl.size();
                                 retry = 0;
                             } catch (final SolrException | IOException e) {
                                 ConcurrentLog.logException(e);
@@ -305,7 +305,7 @@ public abstract class AbstractSolrConnector implements SolrConnector {
      * The result queue is considered as terminated if AbstractSolrConnector.POISON_ID is returned.
      * The method returns immediately and feeds the search results into the queue
      * @param querystring
-     * @param sort the solr sort string, may be null to be not used
+     * @param sort the solr sort string, may be null; the results are read with a SolrCursor which appends the id to the sort
      * @param offset
      * @param maxcount
      * @param buffersize the size of an ArrayBlockingQueue; if <= 0 then a LinkedBlockingQueue is used
@@ -331,7 +331,7 @@ public abstract class AbstractSolrConnector implements SolrConnector {
      * The result queue is considered as terminated if AbstractSolrConnector.POISON_ID is returned.
      * The method returns immediately and feeds the search results into the queue
      * @param querystring a list of query strings
-     * @param sort the solr sort string, may be null to be not used
+     * @param sort the solr sort string, may be null; the results are read with a SolrCursor which appends the id to the sort
      * @param offset common offset of all queries
      * @param maxcount maximum count for each query
      * @param buffersize the size of an ArrayBlockingQueue; if <= 0 then a LinkedBlockingQueue is used
@@ -355,18 +355,18 @@ public abstract class AbstractSolrConnector implements SolrConnector {
                 try {
                     for (String querystring: querystrings) {
                         this.setName("AbstractSolrConnector:concurrentIDsByQueries(" + querystring + ")");
-                        int o = offset;
-                        while (System.currentTimeMillis() < endtime) {
+                        final SolrCursor cursor = new SolrCursor(AbstractSolrConnector.this, querystring, sort, maxcount <= 0 ? pagesize_ids : (int) Math.min((long) maxcount + offset, pagesize_ids), CollectionSchema.id.getSolrFieldName());
+                        int skip = offset;
+                        int count = 0;
+                        loop: while (System.currentTimeMillis() < endtime && (maxcount <= 0 || count < maxcount) && !cursor.isExhausted()) {
                             try {
-                                SolrDocumentList sdl = getDocumentListByQuery(querystring, sort, o, maxcount < 0 ? pagesize_ids : Math.min(maxcount, pagesize_ids), CollectionSchema.id.getSolrFieldName());
-                                int count = 0;
+                                SolrDocumentList sdl = cursor.nextPage();
                                 for (SolrDocument d: sdl) {
-                                    try {queue.put((String) d.getFieldValue(CollectionSchema.id.getSolrFieldName()));} catch (final InterruptedException e) {break;}
+                                    if (skip > 0) {skip--; continue;}
+                                    if (maxcount > 0 && count >= maxcount) break loop;
+                                    try {queue.put((String) d.getFieldValue(CollectionSchema.id.getSolrFieldName()));} catch (final InterruptedException e) {break loop;}
                                     count++;
                                 }
-                                if (count < pagesize_ids) break;
-                                o += count;
-                                if (o > maxcount && maxcount > 0) break;
                             } catch (final SolrException e) {
                                 break;
                             } catch (final IOException e) {
@@ -479,6 +479,39 @@ public abstract class AbstractSolrConnector implements SolrConnector {
         LoadTimeURL md = getLoadTimeURL(doc);
         return md;
     }
+
+    @Override
+    public Map<String, LoadTimeURL> getLoadTimeURLs(final Collection<String> ids) throws IOException {
+        final Map<String, LoadTimeURL> result = new HashMap<String, LoadTimeURL>(ids.size());
+        final Iterator<String> i = ids.iterator();
+        final StringBuilder q = new StringBuilder(ids.size() * 19);
+        while (i.hasNext()) {
+            // ask in pages to stay below the maximum number of boolean clauses in one query
+            q.setLength(0);
+            int c = 0;
+            while (i.hasNext() && c < pagesize_ids) {
+                if (c++ > 0) q.append(" OR ");
+                q.append(ClientUtils.escapeQueryChars(i.next()));
+            }
+            final SolrQuery params = new SolrQuery();
+            params.setQuery(CollectionSchema.id.getSolrFieldName() + ":(" + q.toString() + ")");
+            params.setRows(c);
+            params.setStart(0);
+            params.setFacet(false);
+            params.clearSorts();
+            params.setFields(CollectionSchema.id.getSolrFieldName(), CollectionSchema.sku.getSolrFieldName(), CollectionSchema.load_date_dt.getSolrFieldName());
+            params.setIncludeScore(false);
+
+            // query the server
+            final SolrDocumentList sdl = getDocumentListByParams(params);
+            if (sdl == null) continue;
+            for (final SolrDocument doc: sdl) {
+                final LoadTimeURL md = getLoadTimeURL(doc);
+                if (md != null) result.put((String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName()), md);
+            }
+        }
+        return result;
+    }
     
     /**
      * get the number of results when this query is done.
@@ -21,10 +21,13 @@
 package net.yacy.cora.federate.solr.connector;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 
 import net.yacy.cora.sorting.ReversibleScoreMap;
@@ -32,6 +35,7 @@ import net.yacy.cora.storage.ARC;
 import net.yacy.cora.storage.ConcurrentARC;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.util.MemoryBudget;
 import net.yacy.kelondro.util.MemoryControl;
 import net.yacy.search.schema.CollectionSchema;
 
@@ -69,8 +73,11 @@ public class ConcurrentUpdateSolrConnector implements SolrConnector {
         }
     }
 
+    private static final int METADATA_ENTRY_MEM = 250; // approximate memory of a cache entry: id, url, load date and the map entry
+
     private SolrConnector connector;
     private ARC<String, LoadTimeURL> metadataCache;
+    private final MemoryBudget.Consumer metadataBudget;
     //private final ARH<String> missCache;
     private final LinkedHashMap<String, SolrInputDocument> docBuffer;
     private CommitHandler processHandler;
@@ -86,6 +93,19 @@ public class ConcurrentUpdateSolrConnector implements SolrConnector {
         this.processHandler = null;
         this.commitProcessRunning = true;
         ensureAliveProcessHandler();
+        this.metadataBudget = new MemoryBudget.Consumer() {
+            @Override
+            public long memory() {
+                final ARC<String, LoadTimeURL> cache = ConcurrentUpdateSolrConnector.this.metadataCache;
+                return cache == null ? 0 : (long) cache.size() * METADATA_ENTRY_MEM;
+            }
+            @Override
+            public void shrink(final double fraction) {
+                final ARC<String, LoadTimeURL> cache = ConcurrentUpdateSolrConnector.this.metadataCache;
+                if (cache != null) cache.shrink(fraction);
+            }
+        };
+        MemoryBudget.register("Solr Metadata Cache", MemoryBudget.PRIORITY_MEDIUM, this.metadataBudget);
     }
 
     @Override
@@ -133,10 +153,6 @@ public class ConcurrentUpdateSolrConnector implements SolrConnector {
 
     private void updateCache(final String id, final LoadTimeURL md) {
         if (id == null) return;
-        if (MemoryControl.shortStatus()) {
-            this.metadataCache.clear();
-            //this.missCache.clear();
-        }
         this.metadataCache.put(id, md);
         //this.missCache.delete(id);
     }
@@ -184,6 +200,7 @@ public class ConcurrentUpdateSolrConnector implements SolrConnector {
     
     @Override
     public void close() {
+        MemoryBudget.unregister(this.metadataBudget);
         ensureAliveProcessHandler();
         this.commitProcessRunning = false;
         try {this.processHandler.join();} catch (final InterruptedException e) {}
@@ -256,6 +273,23 @@ public class ConcurrentUpdateSolrConnector implements SolrConnector {
         updateCache(id, md);
         return md;
     }
+
+    @Override
+    public Map<String, LoadTimeURL> getLoadTimeURLs(final Collection<String> ids) throws IOException {
+        final Map<String, LoadTimeURL> result = new HashMap<String, LoadTimeURL>(ids.size());
+        final List<String> uncached = new ArrayList<String>(ids.size());
+        for (final String id: ids) {
+            LoadTimeURL md = this.metadataCache.get(id);
+            if (md == null) md = AbstractSolrConnector.getLoadTimeURL(this.docBuffer.get(id));
+            if (md == null) uncached.add(id); else result.put(id, md);
+        }
+        if (uncached.isEmpty()) return result;
+        for (final Map.Entry<String, LoadTimeURL> entry: this.connector.getLoadTimeURLs(uncached).entrySet()) {
+            updateCache(entry.getKey(), entry.getValue());
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
     
     @Override
     public void add(SolrInputDocument solrdoc) throws IOException, SolrException {
@@ -389,12 +423,14 @@ public class ConcurrentUpdateSolrConnector implements SolrConnector {
     public void update(final SolrInputDocument solrdoc) throws IOException, SolrException {
         commitDocBuffer();
         this.connector.update(solrdoc);
+        this.metadataCache.remove((String) solrdoc.getFieldValue(CollectionSchema.id.getSolrFieldName())); // the load date may have been changed
     }
 
     @Override
     public void update(final Collection<SolrInputDocument> solrdoc) throws IOException, SolrException {
         commitDocBuffer();
-        this.connector.update(solrdoc);        
+        this.connector.update(solrdoc);
+        for (SolrInputDocument doc: solrdoc) this.metadataCache.remove((String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName()));
     }
 
 }
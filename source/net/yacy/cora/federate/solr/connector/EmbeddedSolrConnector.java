@@ -23,6 +23,9 @@ package net.yacy.cora.federate.solr.connector;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
@@ -30,6 +33,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import net.yacy.cora.federate.solr.instance.EmbeddedInstance;
 import net.yacy.cora.federate.solr.instance.SolrInstance;
 import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.Metrics;
 import net.yacy.search.schema.CollectionSchema;
 
 import org.apache.lucene.document.Document;
@@ -202,6 +206,7 @@ public class EmbeddedSolrConnector extends SolrServerConnector implements SolrCo
     
     public SolrQueryResponse query(SolrQueryRequest req) throws SolrException {
         final long startTime = System.currentTimeMillis();
+        final long startNanos = System.nanoTime();
 
         // during the solr query we set the thread name to the query string to get more debugging info in thread dumps
         String q = req.getParams().get(CommonParams.Q);
@@ -224,6 +229,7 @@ public class EmbeddedSolrConnector extends SolrServerConnector implements SolrCo
         int status = exception == null ? 0 : exception instanceof SolrException ? ((SolrException) exception).code() : 500;
         responseHeader.add("status", status);
         responseHeader.add("QTime",(int) (System.currentTimeMillis() - startTime));
+        Metrics.histogram("solr.query", "embedded").recordSince(startNanos);
 
         if (q != null) Thread.currentThread().setName(threadname);
         // return result
@@ -341,8 +347,10 @@ public class EmbeddedSolrConnector extends SolrServerConnector implements SolrCo
             //System.out.println("solr query: q = " + q + (fq == null ? "" : ", " + fqa.toString()) + (fl == null ? "" : ", fl=" + fl));
         }
         QueryResponse rsp;
+        final long startNanos = System.nanoTime();
         try {
             rsp = this.server.query(params);
+            Metrics.histogram("solr.query", "embedded").recordSince(startNanos);
             if (q != null) Thread.currentThread().setName(threadname);
             if (rsp != null) if (log.isFine()) log.fine(rsp.getResults().getNumFound() + " results for q=" + q);
             return rsp;
@@ -451,6 +459,41 @@ public class EmbeddedSolrConnector extends SolrServerConnector implements SolrCo
             if (docListSearcher != null) docListSearcher.close();
         }
     }
+
+    @Override
+    public Map<String, LoadTimeURL> getLoadTimeURLs(final Collection<String> ids) throws IOException {
+        final Map<String, LoadTimeURL> result = new HashMap<String, LoadTimeURL>(ids.size());
+        final Iterator<String> i = ids.iterator();
+        final StringBuilder q = new StringBuilder(ids.size() * 13 + 30);
+        while (i.hasNext()) {
+            // the terms query parser matches a list of ids without scoring
+            q.setLength(0);
+            q.append("{!cache=false terms f=").append(CollectionSchema.id.getSolrFieldName()).append('}');
+            int c = 0;
+            while (i.hasNext() && c < AbstractSolrConnector.pagesize_ids) {
+                if (c++ > 0) q.append(',');
+                q.append(i.next());
+            }
+            DocListSearcher docListSearcher = null;
+            try {
+                docListSearcher = new DocListSearcher(q.toString(), null, 0, c, CollectionSchema.id.getSolrFieldName(), CollectionSchema.load_date_dt.getSolrFieldName());
+                SolrIndexSearcher searcher = docListSearcher.request.getSearcher();
+                DocIterator iterator = docListSearcher.response.iterator();
+                while (iterator.hasNext()) {
+                    Document doc = searcher.doc(iterator.nextDoc(), AbstractSolrConnector.SOLR_ID_and_LOAD_DATE_FIELDS);
+                    LoadTimeURL md = AbstractSolrConnector.getLoadTimeURL(doc);
+                    if (md != null) result.put(doc.get(CollectionSchema.id.getSolrFieldName()), md);
+                }
+            } catch (Throwable e) {
+                ConcurrentLog.logException(e);
+                throw new IOException(e.getMessage());
+            } finally {
+                if (docListSearcher != null) docListSearcher.close();
+            }
+        }
+        return result;
+    }
+
     /*
     @Override
     public BlockingQueue<String> concurrentIDsByQuery(final String querystring, final String sort, final int offset, final int maxcount, final long maxtime, final int buffersize, final int concurrency) {
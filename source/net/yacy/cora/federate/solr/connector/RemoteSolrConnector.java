@@ -27,6 +27,7 @@ import java.util.ArrayList;
 import net.yacy.cora.federate.solr.instance.SolrInstance;
 import net.yacy.cora.federate.solr.instance.RemoteInstance;
 import net.yacy.cora.federate.solr.instance.ShardInstance;
+import net.yacy.cora.util.Metrics;
 
 import org.apache.solr.client.solrj.ResponseParser;
 import org.apache.solr.client.solrj.SolrServer;
@@ -108,6 +109,7 @@ public class RemoteSolrConnector extends SolrServerConnector implements SolrConn
         ResponseParser responseParser = useBinaryResponseWriter ? new BinaryResponseParser() : new XMLResponseParser();
         request.setResponseParser(responseParser);
         long t = System.currentTimeMillis();
+        final long startNanos = System.nanoTime();
         NamedList<Object> result = null;
         try {
             result = this.server.request(request);
@@ -127,6 +129,7 @@ public class RemoteSolrConnector extends SolrServerConnector implements SolrConn
         }
         QueryResponse response = new QueryResponse(result, this.server);
         response.setElapsedTime(System.currentTimeMillis() - t);
+        Metrics.histogram("solr.query", "remote").recordSince(startNanos);
 
         if (q != null) Thread.currentThread().setName(threadname);
         return response;
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 
 import net.yacy.cora.sorting.ReversibleScoreMap;
@@ -125,6 +126,15 @@ public interface SolrConnector extends Iterable<String> /* Iterable of document
      */
     public LoadTimeURL getLoadTimeURL(final String id) throws IOException;
 
+    /**
+     * check if the given documents, identified by url hash as document id, exist.
+     * This is done with one request for many ids and should be used instead of getLoadTimeURL in loops
+     * @param ids the url hashes and document ids
+     * @return the load time metadata of all documents which exist, mapped by their id; ids of documents which do not exist are not contained
+     * @throws IOException
+     */
+    public Map<String, LoadTimeURL> getLoadTimeURLs(final Collection<String> ids) throws IOException;
+
     /**
      * add a solr input document
      * @param solrdoc
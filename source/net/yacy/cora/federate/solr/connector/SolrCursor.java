@@ -0,0 +1,159 @@
+/**
+ *  SolrCursor
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.federate.solr.connector;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.LookAheadIterator;
+import net.yacy.search.schema.CollectionSchema;
+
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.response.QueryResponse;
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.params.CursorMarkParams;
+
+/**
+ * A deep iteration over all results of a solr query using cursor marks.
+ * Paging with an increasing start offset lets solr collect and skip all earlier hits for every page,
+ * which makes a full scan of a large index quadratic. A cursor mark instead encodes the sort values
+ * of the last document of a page, so every page costs the same. This requires a sort which ends with
+ * the unique key; the id is therefore appended to the given sort as tie-breaker.
+ * The cursor can be used either page-wise with nextPage() or as an iterator over single documents.
+ * If the connector does not return cursor marks (i.e. a combination of several connectors) then the
+ * cursor falls back to paging with start offsets.
+ */
+public class SolrCursor extends LookAheadIterator<SolrDocument> {
+
+    private final SolrConnector connector;
+    private final String querystring, sort;
+    private final int pagesize;
+    private final String[] fields;
+    private String cursorMark;
+    private int offset; // used only if the connector does not support cursor marks
+    private long numFound, count;
+    private boolean exhausted;
+    private Iterator<SolrDocument> page;
+
+    /**
+     * @param connector
+     * @param querystring the solr query string
+     * @param sort the solr sort string, may be null; the id is appended if the sort does not contain it
+     * @param pagesize the number of documents which are fetched with one request
+     * @param fields list of fields, may be empty for all fields
+     */
+    public SolrCursor(final SolrConnector connector, final String querystring, final String sort, final int pagesize, final String ... fields) {
+        this.connector = connector;
+        this.querystring = querystring;
+        this.sort = cursorSort(sort);
+        this.pagesize = Math.max(1, pagesize);
+        this.fields = fields;
+        this.cursorMark = CursorMarkParams.CURSOR_MARK_START;
+        this.offset = 0;
+        this.numFound = -1;
+        this.count = 0;
+        this.exhausted = false;
+        this.page = null;
+    }
+
+    /**
+     * add the unique key as last sort criterion, which is required for cursor marks
+     * @param sort a solr sort string or null
+     * @return a sort string which ends with the id
+     */
+    public static String cursorSort(final String sort) {
+        final String id = CollectionSchema.id.getSolrFieldName();
+        if (sort == null || sort.trim().isEmpty()) return id + " asc";
+        for (final String clause: sort.split(",")) {
+            final String field = clause.trim();
+            final int p = field.indexOf(' ');
+            if ((p < 0 ? field : field.substring(0, p)).equals(id)) return sort;
+        }
+        return sort + "," + id + " asc";
+    }
+
+    /**
+     * get the next page of documents
+     * @return the next documents; an empty list if all documents had been read
+     * @throws IOException
+     */
+    public SolrDocumentList nextPage() throws IOException {
+        if (this.exhausted) return new SolrDocumentList();
+        final boolean cursor = this.cursorMark != null;
+        final SolrQuery params = AbstractSolrConnector.getSolrQuery(this.querystring, this.sort, cursor ? 0 : this.offset, this.pagesize, this.fields);
+        if (cursor) params.set(CursorMarkParams.CURSOR_MARK_PARAM, this.cursorMark);
+        final QueryResponse rsp = this.connector.getResponseByParams(params);
+        SolrDocumentList sdl = rsp == null ? null : rsp.getResults();
+        if (sdl == null) sdl = new SolrDocumentList();
+        if (this.numFound < 0) this.numFound = sdl.getNumFound();
+        this.count += sdl.size();
+        this.offset += sdl.size();
+        final String next = rsp == null ? null : rsp.getNextCursorMark();
+        if (cursor && next == null) {
+            // the connector does not know cursor marks: continue with start offsets
+            this.cursorMark = null;
+        } else if (cursor) {
+            if (next.equals(this.cursorMark)) this.exhausted = true;
+            this.cursorMark = next;
+        }
+        if (sdl.size() < this.pagesize) this.exhausted = true; // saves a request which would return nothing
+        return sdl;
+    }
+
+    /**
+     * @return true if all documents had been read
+     */
+    public boolean isExhausted() {
+        return this.exhausted && (this.page == null || !this.page.hasNext());
+    }
+
+    /**
+     * @return the number of documents which had been matched by the query in the first request, -1 if no request had been made yet
+     */
+    public long getNumFound() {
+        return this.numFound;
+    }
+
+    /**
+     * @return the number of documents which had been read so far
+     */
+    public long getCount() {
+        return this.count;
+    }
+
+    @Override
+    protected SolrDocument next0() {
+        while (this.page == null || !this.page.hasNext()) {
+            if (this.exhausted) return null;
+            try {
+                this.page = nextPage().iterator();
+            } catch (final IOException e) {
+                ConcurrentLog.logException(e);
+                this.exhausted = true;
+                return null;
+            }
+        }
+        return this.page.next();
+    }
+
+}
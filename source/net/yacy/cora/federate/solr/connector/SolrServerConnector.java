@@ -28,6 +28,7 @@ import java.util.List;
 
 import net.yacy.cora.federate.solr.instance.ServerShard;
 import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.Metrics;
 import net.yacy.search.schema.CollectionSchema;
 
 import org.apache.lucene.analysis.NumericTokenStream;
@@ -303,7 +304,9 @@ public abstract class SolrServerConnector extends AbstractSolrConnector implemen
         while (retry++ < 10) {
             try {
                 if (q != null) Thread.currentThread().setName("solr query: q = " + q + (fq == null ? "" : ", fq = " + fq) + (sort == null ? "" : ", sort = " + sort) + "; retry = " + retry + "; fl = " + fl); // for debugging in Threaddump
+                final long startNanos = System.nanoTime();
                 rsp = this.server.query(params);
+                Metrics.histogram("solr.query", "remote").recordSince(startNanos);
                 if (q != null) Thread.currentThread().setName(threadname);
                 if (rsp != null) if (log.isFine()) log.fine(rsp.getResults().getNumFound() + " results for q=" + q);
                 return rsp.getResults();
@@ -27,6 +27,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import net.yacy.cora.geo.Locations;
 import net.yacy.cora.lod.vocabulary.Tagging;
@@ -45,6 +46,8 @@ public class AutotaggingLibrary {
     private final File autotaggingPath;
     private final Map<String, Tagging> vocabularies; // mapping from vocabulary name to the tagging vocabulary
     private final Map<String, Object> allTags;
+    private volatile AutotaggingMatcher matcher; // compiled from the vocabularies; null until first use
+    private final AtomicBoolean compiling;       // true while a new matcher is compiled in the background
 
     /**
      * create a Autotagging object:
@@ -59,6 +62,7 @@ public class AutotaggingLibrary {
         this.vocabularies = new ConcurrentHashMap<String, Tagging>();
         this.autotaggingPath = autotaggingPath;
         this.allTags = new ConcurrentHashMap<String, Object>();
+        this.compiling = new AtomicBoolean(false);
         if (this.autotaggingPath == null || !this.autotaggingPath.exists()) {
             return;
         }
@@ -151,6 +155,48 @@ public class AutotaggingLibrary {
     	return 4;
     }
 
+    /**
+     * get a matcher for all synonyms of all vocabularies.
+     * Only the first matcher is compiled by the caller. If the vocabularies have changed since the matcher was compiled,
+     * i.e. because the indexer extends a vocabulary, a new matcher is compiled in the background and the previous matcher
+     * is returned until it is replaced. All changes which happen during a compilation are collected by the next one.
+     * The replacement of the matcher is atomic: a matcher which is in use is not changed.
+     * @return the matcher for the current vocabularies or, while a new matcher is compiled, for the previous vocabularies
+     */
+    public AutotaggingMatcher getMatcher() {
+        AutotaggingMatcher m = this.matcher;
+        if (m == null) synchronized (this) {
+            m = this.matcher;
+            if (m == null) {
+                m = compile();
+                this.matcher = m;
+            }
+            return m;
+        }
+        if (!m.isCurrent(this.vocabularies.values()) && this.compiling.compareAndSet(false, true)) {
+            new Thread("AutotaggingLibrary.compile") {
+                @Override
+                public void run() {
+                    try {
+                        AutotaggingLibrary.this.matcher = compile();
+                    } catch (final Throwable e) {
+                        ConcurrentLog.logException(e);
+                    } finally {
+                        AutotaggingLibrary.this.compiling.set(false);
+                    }
+                }
+            }.start();
+        }
+        return m;
+    }
+
+    private AutotaggingMatcher compile() {
+        final long start = System.currentTimeMillis();
+        final AutotaggingMatcher m = new AutotaggingMatcher(this.vocabularies.values());
+        log.info("compiled autotagging matcher for " + this.vocabularies.size() + " vocabularies in " + (System.currentTimeMillis() - start) + " milliseconds");
+        return m;
+    }
+
     public Tagging.Metatag getTagFromTerm(Set<String> vocabularies, String term) {
         if (this.vocabularies.isEmpty()) return null;
         Tagging.Metatag tag;
@@ -0,0 +1,278 @@
+/**
+ *  AutotaggingMatcher
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.language.synonyms;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+
+import net.yacy.cora.lod.vocabulary.Tagging;
+import net.yacy.cora.util.CommonPattern;
+
+/**
+ * A compiled matcher for the synonyms of a set of vocabularies: an Aho-Corasick automaton over words.
+ * Testing all word combinations of a text against each vocabulary needs a number of map lookups for each word
+ * which grows with the number of vocabularies and the maximum number of words in a term. The automaton reads
+ * each word of a text only once and reports all synonyms which end with that word, of all vocabularies at once.
+ * A matcher is immutable; it must be compiled again if the vocabularies change (see isCurrent()).
+ */
+public final class AutotaggingMatcher {
+
+    private final static Tagging.Metatag[] NO_TAGS = new Tagging.Metatag[0];
+
+    private final Tagging[] vocabularies;
+    private final int[] versions;
+    private final HashMap<String, Integer> wordIDs; // all words which appear in synonyms
+    private final Transitions transitions;
+    private final int[] fail;                       // the state for the longest proper suffix of a state
+    private final Tagging.Metatag[][] tags;         // the tags of all synonyms which end in a state
+
+    /**
+     * compile a matcher
+     * @param vocabularies
+     */
+    public AutotaggingMatcher(final Collection<Tagging> vocabularies) {
+        this.vocabularies = vocabularies.toArray(new Tagging[vocabularies.size()]);
+        this.versions = new int[this.vocabularies.length];
+        this.wordIDs = new HashMap<String, Integer>();
+        this.transitions = new Transitions(1024);
+
+        // build the trie of all synonyms; state 0 is the root
+        final ArrayList<Integer> parent = new ArrayList<Integer>();
+        final ArrayList<Integer> word = new ArrayList<Integer>();
+        final ArrayList<Integer> depth = new ArrayList<Integer>();
+        final ArrayList<List<Tagging.Metatag>> output = new ArrayList<List<Tagging.Metatag>>();
+        parent.add(0); word.add(-1); depth.add(0); output.add(null);
+        int maxDepth = 0;
+        for (int v = 0; v < this.vocabularies.length; v++) {
+            final Tagging vocabulary = this.vocabularies[v];
+            this.versions[v] = vocabulary.version();
+            for (final String synonym: vocabulary.tags()) {
+                final Tagging.Metatag tag = vocabulary.getMetatagFromSynonym(synonym);
+                if (tag == null) continue;
+                int state = 0;
+                for (final String w: CommonPattern.SPACE.split(synonym)) {
+                    if (w.isEmpty()) continue;
+                    Integer id = this.wordIDs.get(w);
+                    if (id == null) {
+                        id = this.wordIDs.size();
+                        this.wordIDs.put(w, id);
+                    }
+                    int next = this.transitions.get(state, id);
+                    if (next < 0) {
+                        next = parent.size();
+                        parent.add(state); word.add(id); depth.add(depth.get(state) + 1); output.add(null);
+                        maxDepth = Math.max(maxDepth, depth.get(next));
+                        this.transitions.put(state, id, next);
+                    }
+                    state = next;
+                }
+                if (state == 0) continue;
+                List<Tagging.Metatag> o = output.get(state);
+                if (o == null) {
+                    o = new ArrayList<Tagging.Metatag>(1);
+                    output.set(state, o);
+                }
+                o.add(tag);
+            }
+        }
+
+        // compute the failure links and the outputs in breadth-first order
+        final int size = parent.size();
+        final int[][] byDepth = new int[maxDepth + 1][];
+        final int[] count = new int[maxDepth + 1];
+        for (int s = 0; s < size; s++) count[depth.get(s)]++;
+        for (int d = 0; d <= maxDepth; d++) {
+            byDepth[d] = new int[count[d]];
+            count[d] = 0;
+        }
+        for (int s = 0; s < size; s++) {
+            final int d = depth.get(s);
+            byDepth[d][count[d]++] = s;
+        }
+        this.fail = new int[size];
+        this.tags = new Tagging.Metatag[size][];
+        this.tags[0] = NO_TAGS;
+        for (int d = 1; d <= maxDepth; d++) {
+            for (final int s: byDepth[d]) {
+                final int id = word.get(s);
+                int f = parent.get(s) == 0 ? -1 : this.fail[parent.get(s)];
+                int target = 0;
+                while (f >= 0) {
+                    final int g = this.transitions.get(f, id);
+                    if (g >= 0) {
+                        target = g;
+                        break;
+                    }
+                    f = f == 0 ? -1 : this.fail[f];
+                }
+                this.fail[s] = target;
+                // a state reports its own synonym and all synonyms which are a suffix of it
+                final List<Tagging.Metatag> own = output.get(s);
+                final Tagging.Metatag[] suffix = this.tags[target];
+                if (own == null) {
+                    this.tags[s] = suffix;
+                } else {
+                    final Tagging.Metatag[] t = new Tagging.Metatag[own.size() + suffix.length];
+                    own.toArray(t);
+                    System.arraycopy(suffix, 0, t, own.size(), suffix.length);
+                    this.tags[s] = t;
+                }
+            }
+        }
+    }
+
+    /**
+     * @param vocabularies the current vocabularies
+     * @return true if the matcher was compiled from the given vocabularies and they were not changed since
+     */
+    public boolean isCurrent(final Collection<Tagging> vocabularies) {
+        if (vocabularies.size() != this.vocabularies.length) return false;
+        vocloop: for (final Tagging vocabulary: vocabularies) {
+            for (int v = 0; v < this.vocabularies.length; v++) {
+                if (this.vocabularies[v] == vocabulary) {
+                    if (this.versions[v] != vocabulary.version()) return false;
+                    continue vocloop;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return this.tags.length <= 1;
+    }
+
+    /**
+     * the start state of a text; a text is matched by calling next() for each word of the text
+     * @return the initial state
+     */
+    public int start() {
+        return 0;
+    }
+
+    /**
+     * read the next word of a text
+     * @param state the state after the previous word
+     * @param word the next word
+     * @return the state after the word; use tags() to get all synonyms which end with that word
+     */
+    public int next(int state, final String word) {
+        final Integer id = this.wordIDs.get(normalize(word));
+        if (id == null) return 0;
+        while (true) {
+            final int g = this.transitions.get(state, id);
+            if (g >= 0) return g;
+            if (state == 0) return 0;
+            state = this.fail[state];
+        }
+    }
+
+    /**
+     * @param state a state returned by next()
+     * @return the tags of all synonyms which end in the given state; an empty array if there are none
+     */
+    public Tagging.Metatag[] tags(final int state) {
+        return this.tags[state];
+    }
+
+    /**
+     * normalize a word in the same way as Tagging.normalizeTerm(), but without a copy of words which are normalized already
+     */
+    private static String normalize(final String word) {
+        for (int i = 0; i < word.length(); i++) {
+            final char c = word.charAt(i);
+            if (Character.isUpperCase(c) || Character.isWhitespace(c) || c == ',' || c == '\u00E4' || c == '\u00F6' || c == '\u00FC' || c == '\u00DF') {
+                return Tagging.normalizeTerm(word);
+            }
+        }
+        return word;
+    }
+
+    /**
+     * the transitions of the automaton: a hash table with open addressing from (state, word) to the next state
+     */
+    private static final class Transitions {
+
+        private long[] keys;
+        private int[] states;
+        private int size;
+
+        private Transitions(final int capacity) {
+            this.keys = new long[capacity];
+            this.states = new int[capacity];
+            this.size = 0;
+            for (int i = 0; i < capacity; i++) this.keys[i] = -1L;
+        }
+
+        private static int hash(final long key) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+
+        private int get(final int state, final int word) {
+            final long key = (((long) state) << 32) | (word & 0xFFFFFFFFL);
+            final int mask = this.keys.length - 1;
+            int p = hash(key) & mask;
+            while (true) {
+                final long k = this.keys[p];
+                if (k == key) return this.states[p];
+                if (k == -1L) return -1;
+                p = (p + 1) & mask;
+            }
+        }
+
+        private void put(final int state, final int word, final int next) {
+            if (2 * (this.size + 1) > this.keys.length) grow();
+            insert((((long) state) << 32) | (word & 0xFFFFFFFFL), next);
+        }
+
+        private void insert(final long key, final int next) {
+            final int mask = this.keys.length - 1;
+            int p = hash(key) & mask;
+            while (this.keys[p] != -1L) {
+                if (this.keys[p] == key) {
+                    this.states[p] = next;
+                    return;
+                }
+                p = (p + 1) & mask;
+            }
+            this.keys[p] = key;
+            this.states[p] = next;
+            this.size++;
+        }
+
+        private void grow() {
+            final long[] oldKeys = this.keys;
+            final int[] oldStates = this.states;
+            this.keys = new long[oldKeys.length * 2];
+            this.states = new int[oldKeys.length * 2];
+            for (int i = 0; i < this.keys.length; i++) this.keys[i] = -1L;
+            this.size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != -1L) insert(oldKeys[i], oldStates[i]);
+            }
+        }
+    }
+
+}
@@ -54,6 +54,7 @@ public class Tagging {
     private final Map<String, String> term2objectlink;
     private File propFile;
     private boolean isFacet; // true if the vocabulary shall generate a navigation facet
+    private volatile int version; // incremented with each change of the synonyms
 
     private String predicate, namespace, objectspace;
 
@@ -257,6 +258,7 @@ public class Tagging {
             }
         } catch (final InterruptedException e) {
         }
+        this.version++;
         long time = Math.max(1, System.currentTimeMillis() - start);
         ConcurrentLog.info("Tagging", "Finished Vocabulary Initialization for " + this.propFile + "; " + count + " lines; " + time + " milliseconds; " + (1000L * count / time) + " lines / second");
     }
@@ -273,6 +275,13 @@ public class Tagging {
         return this.term2objectlink.size();
     }
 
+    /**
+     * @return a number which changes with each change of the synonyms of this vocabulary
+     */
+    public int version() {
+        return this.version;
+    }
+
     public void put(String term, String synonyms, String objectlink) throws IOException {
         if (this.propFile == null) return;
         synchronized (this) {
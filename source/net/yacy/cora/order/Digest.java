@@ -20,11 +20,9 @@
 
 package net.yacy.cora.order;
 
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.RandomAccessFile;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -328,23 +326,27 @@ public class Digest {
         return digest.digest();
     }
 
-    private static byte[] encodeMD5Raw(final byte[] b) {
-        try {
-            final MessageDigest digest = MessageDigest.getInstance("MD5");
-            digest.reset();
-            final InputStream  in = new ByteArrayInputStream(b);
-            final byte[] buf = new byte[2048];
-            int n;
-            while ((n = in.read(buf)) > 0) digest.update(buf, 0, n);
-            in.close();
-            // now compute the hex-representation of the md5 digest
-            return digest.digest();
-        } catch (final java.security.NoSuchAlgorithmException e) {
-            System.out.println("Internal Error at md5:" + e.getMessage());
-        } catch (final java.io.IOException e) {
-            System.out.println("byte[] error: " + e.getMessage());
+    /**
+     * compute the md5 of a byte array using the pooled digest objects
+     * @param b the content
+     * @return the raw md5 digest
+     */
+    public static byte[] encodeMD5Raw(final byte[] b) {
+        MessageDigest digest = digestPool.poll();
+        if (digest == null) {
+            try {
+                digest = MessageDigest.getInstance("MD5");
+            } catch (final NoSuchAlgorithmException e) {
+                System.out.println("Internal Error at md5:" + e.getMessage());
+                return null;
+            }
         }
-        return null;
+        digest.reset();
+        digest.update(b);
+        final byte[] result = digest.digest();
+        digest.reset(); // to be prepared for next
+        digestPool.add(digest);
+        return result;
     }
 
     public static void main(final String[] s) {
@@ -59,7 +59,7 @@ import net.yacy.cora.storage.ConcurrentARC;
 import net.yacy.cora.storage.KeyList;
 import net.yacy.cora.util.CommonPattern;
 import net.yacy.cora.util.ConcurrentLog;
-import net.yacy.kelondro.util.MemoryControl;
+import net.yacy.kelondro.util.MemoryBudget;
 
 import com.google.common.net.InetAddresses;
 import com.google.common.util.concurrent.SimpleTimeLimiter;
@@ -95,6 +95,22 @@ public class Domains {
     private static       List<Pattern> nameCacheNoCachingPatterns = Collections.synchronizedList(new LinkedList<Pattern>());
     public static long cacheHit_Hit = 0, cacheHit_Miss = 0, cacheHit_Insert = 0; // for statistics only; do not write
     public static long cacheMiss_Hit = 0, cacheMiss_Miss = 0, cacheMiss_Insert = 0; // for statistics only; do not write
+    private static final int NAME_CACHE_ENTRY_MEM = 200; // approximate memory of a host name with its address and the map entry
+
+    static {
+        // under memory pressure the dns cache is reduced by the memory budget
+        MemoryBudget.register("DNS Cache", MemoryBudget.PRIORITY_MEDIUM, new MemoryBudget.Consumer() {
+            @Override
+            public long memory() {
+                return (long) (NAME_CACHE_HIT.size() + NAME_CACHE_MISS.size()) * NAME_CACHE_ENTRY_MEM;
+            }
+            @Override
+            public void shrink(final double fraction) {
+                NAME_CACHE_MISS.shrink(fraction);
+                NAME_CACHE_HIT.shrink(fraction);
+            }
+        });
+    }
 
     private static Set<InetAddress> myHostAddresses = new HashSet<InetAddress>();
     private static Set<InetAddress> localHostAddresses = new HashSet<InetAddress>(); // subset of myHostAddresses
@@ -886,11 +902,6 @@ public class Domains {
         if (host0 == null || host0.isEmpty()) return null;
         final String host = host0.toLowerCase().trim();
 
-        if (MemoryControl.shortStatus()) {
-            NAME_CACHE_HIT.clear();
-            NAME_CACHE_MISS.clear();
-        }
-        
         if (host0.endsWith(".yacyh")) {
             // that should not happen here
             return null;
@@ -0,0 +1,90 @@
+/**
+ *  StringScoreMap
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.sorting;
+
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * a lock-striped score map for String keys; used i.e. for the search navigators
+ */
+public class StringScoreMap extends StripedScoreMap<String> {
+
+    public StringScoreMap() {
+        super();
+    }
+
+    public StringScoreMap(final int concurrency) {
+        super(concurrency);
+    }
+
+    @Override
+    protected int keyHash(final String key) {
+        return key.hashCode();
+    }
+
+    @Override
+    protected boolean keyEquals(final String a, final String b) {
+        return a.equals(b);
+    }
+
+    private static long benchmark(final ScoreMap<String> map, final String[] keys, final int threads, final int rounds) throws InterruptedException {
+        final Thread[] t = new Thread[threads];
+        final long start = System.nanoTime();
+        for (int i = 0; i < threads; i++) {
+            final int offset = i;
+            t[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int r = 0; r < rounds; r++) {
+                        for (int j = offset; j < keys.length; j += 7) map.inc(keys[j]);
+                    }
+                }
+            };
+            t[i].start();
+        }
+        for (int i = 0; i < threads; i++) t[i].join();
+        final Iterator<String> i = map.keys(false);
+        for (int k = 0; k < 10 && i.hasNext(); k++) i.next(); // a top-10 navigator
+        return (System.nanoTime() - start) / 1000000;
+    }
+
+    /**
+     * compare the counting performance with the ConcurrentScoreMap and the ClusteredScoreMap
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        final String[] keys = new String[100000];
+        final Random random = new Random(0);
+        for (int i = 0; i < keys.length; i++) keys[i] = "host" + random.nextInt(20000) + ".com";
+        for (final int threads: new int[]{1, 4, 16}) {
+            for (int warmup = 0; warmup < 3; warmup++) {
+                benchmark(new StringScoreMap(), keys, threads, 10);
+                benchmark(new ConcurrentScoreMap<String>(), keys, threads, 10);
+                benchmark(new ClusteredScoreMap<String>(false), keys, threads, 10);
+            }
+            System.out.println("threads = " + threads +
+                    ": StringScoreMap " + benchmark(new StringScoreMap(), keys, threads, 10) + "ms" +
+                    ", ConcurrentScoreMap " + benchmark(new ConcurrentScoreMap<String>(), keys, threads, 10) + "ms" +
+                    ", ClusteredScoreMap " + benchmark(new ClusteredScoreMap<String>(false), keys, threads, 10) + "ms");
+        }
+    }
+
+}
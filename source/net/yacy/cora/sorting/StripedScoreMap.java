@@ -0,0 +1,503 @@
+/**
+ *  StripedScoreMap
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.sorting;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * A score map which is divided into lock stripes. Every stripe is an open-addressing hash table
+ * with linear probing where keys, key hashes and scores are stored in plain arrays; scores are
+ * primitive long values, so counting does not create any objects. Concurrent updates of keys in
+ * different stripes do not block each other.
+ * The keys(up) iterator is lazy: it builds a heap over a snapshot of the map and sorts only as many
+ * entries as are fetched, so getting the top-k entries of a large map costs O(n + k log n).
+ * Subclasses define hashing and equality of the keys, which makes it possible to use i.e. byte[] keys.
+ */
+public abstract class StripedScoreMap<E> extends AbstractScoreMap<E> implements ReversibleScoreMap<E> {
+
+    private static final int DEFAULT_STRIPES = 16;
+    private static final int INITIAL_CAPACITY = 8; // per stripe, must be a power of two
+    private static final int MAX_STRIPES = 256;
+
+    private final Stripe[] stripes;
+    private final int stripeMask;
+
+    public StripedScoreMap() {
+        this(DEFAULT_STRIPES);
+    }
+
+    /**
+     * @param concurrency the expected number of concurrently writing threads; the number of stripes is
+     *   the next power of two of that number
+     */
+    public StripedScoreMap(final int concurrency) {
+        int n = 1;
+        while (n < Math.min(MAX_STRIPES, concurrency)) n <<= 1;
+        this.stripes = newStripes(n);
+        for (int i = 0; i < n; i++) this.stripes[i] = new Stripe();
+        this.stripeMask = n - 1;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Stripe[] newStripes(final int n) {
+        return new StripedScoreMap.Stripe[n]; // an array of an inner class of a generic class cannot be created without a raw type
+    }
+
+    /**
+     * compute the hash code of a key
+     */
+    protected abstract int keyHash(E key);
+
+    /**
+     * compare two keys for equality
+     */
+    protected abstract boolean keyEquals(E a, E b);
+
+    private static int spread(int h) {
+        // mix the bits; the high bits select the stripe, the low bits the slot within the stripe
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        h *= 0xc2b2ae35;
+        h ^= (h >>> 16);
+        return h;
+    }
+
+    private Stripe stripe(final int h) {
+        return this.stripes[(h >>> 24) & this.stripeMask];
+    }
+
+    private static int clamp(final long score) {
+        return score > Integer.MAX_VALUE ? Integer.MAX_VALUE : score < Integer.MIN_VALUE ? Integer.MIN_VALUE : (int) score;
+    }
+
+    private final class Stripe {
+
+        private Object[] keys;
+        private int[] hashes;
+        private long[] scores;
+        private volatile int size;
+
+        private Stripe() {
+            this.keys = new Object[INITIAL_CAPACITY];
+            this.hashes = new int[INITIAL_CAPACITY];
+            this.scores = new long[INITIAL_CAPACITY];
+            this.size = 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        private int find(final E key, final int h) {
+            final int mask = this.keys.length - 1;
+            int i = h & mask;
+            Object k;
+            while ((k = this.keys[i]) != null) {
+                if (this.hashes[i] == h && keyEquals((E) k, key)) return i;
+                i = (i + 1) & mask;
+            }
+            return -1 - i; // the negative insertion point
+        }
+
+        private void grow() {
+            final Object[] oldKeys = this.keys;
+            final int[] oldHashes = this.hashes;
+            final long[] oldScores = this.scores;
+            final int capacity = oldKeys.length << 1;
+            final int mask = capacity - 1;
+            this.keys = new Object[capacity];
+            this.hashes = new int[capacity];
+            this.scores = new long[capacity];
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == null) continue;
+                int i = oldHashes[j] & mask;
+                while (this.keys[i] != null) i = (i + 1) & mask;
+                this.keys[i] = oldKeys[j];
+                this.hashes[i] = oldHashes[j];
+                this.scores[i] = oldScores[j];
+            }
+        }
+
+        private void insert(final int pos, final E key, final int h, final long score) {
+            int i = -1 - pos;
+            if ((this.size + 1) * 4 > this.keys.length * 3) {
+                grow();
+                i = -1 - find(key, h);
+            }
+            this.keys[i] = key;
+            this.hashes[i] = h;
+            this.scores[i] = score;
+            this.size++;
+        }
+
+        private void removeAt(int i) {
+            // backward shift deletion: move following entries of the probe sequence into the gap
+            final int mask = this.keys.length - 1;
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                if (this.keys[j] == null) break;
+                final int k = this.hashes[j] & mask; // the natural position of the entry at j
+                if ((i <= j) ? (i < k && k <= j) : (i < k || k <= j)) continue;
+                this.keys[i] = this.keys[j];
+                this.hashes[i] = this.hashes[j];
+                this.scores[i] = this.scores[j];
+                i = j;
+            }
+            this.keys[i] = null;
+            this.scores[i] = 0;
+            this.size--;
+        }
+
+        private synchronized long add(final E key, final int h, final long delta) {
+            final int i = find(key, h);
+            if (i >= 0) return this.scores[i] += delta;
+            insert(i, key, h, delta);
+            return delta;
+        }
+
+        private synchronized void put(final E key, final int h, final long score) {
+            final int i = find(key, h);
+            if (i >= 0) this.scores[i] = score; else insert(i, key, h, score);
+        }
+
+        private synchronized long get(final E key, final int h) {
+            final int i = find(key, h);
+            return i >= 0 ? this.scores[i] : 0;
+        }
+
+        private synchronized boolean contains(final E key, final int h) {
+            return find(key, h) >= 0;
+        }
+
+        private synchronized long remove(final E key, final int h) {
+            final int i = find(key, h);
+            if (i < 0) return 0;
+            final long score = this.scores[i];
+            removeAt(i);
+            return score;
+        }
+
+        private synchronized void removeSmaller(final long minScore) {
+            int i = 0;
+            while (i < this.keys.length) {
+                // after a removal the slot may be filled with a shifted entry, so it is checked again
+                if (this.keys[i] != null && this.scores[i] < minScore) removeAt(i); else i++;
+            }
+        }
+
+        private synchronized void clear() {
+            this.keys = new Object[INITIAL_CAPACITY];
+            this.hashes = new int[INITIAL_CAPACITY];
+            this.scores = new long[INITIAL_CAPACITY];
+            this.size = 0;
+        }
+
+        private synchronized int snapshot(final Object[] k, final long[] s, int p) {
+            for (int i = 0; i < this.keys.length && p < k.length; i++) {
+                if (this.keys[i] == null) continue;
+                k[p] = this.keys[i];
+                s[p] = this.scores[i];
+                p++;
+            }
+            return p;
+        }
+
+        private synchronized long total() {
+            long t = 0;
+            for (int i = 0; i < this.keys.length; i++) if (this.keys[i] != null) t += this.scores[i];
+            return t;
+        }
+
+        private synchronized long max() {
+            long m = Long.MIN_VALUE;
+            for (int i = 0; i < this.keys.length; i++) if (this.keys[i] != null && this.scores[i] > m) m = this.scores[i];
+            return m;
+        }
+
+        private synchronized long min() {
+            long m = Long.MAX_VALUE;
+            for (int i = 0; i < this.keys.length; i++) if (this.keys[i] != null && this.scores[i] < m) m = this.scores[i];
+            return m;
+        }
+    }
+
+    /**
+     * a copy of all entries of the map, taken stripe by stripe
+     */
+    private final class Snapshot {
+        private Object[] keys;
+        private long[] scores;
+        private int size;
+
+        private Snapshot() {
+            int n = StripedScoreMap.this.size();
+            while (true) {
+                this.keys = new Object[n + 16];
+                this.scores = new long[n + 16];
+                int p = 0;
+                for (final Stripe stripe: StripedScoreMap.this.stripes) p = stripe.snapshot(this.keys, this.scores, p);
+                if (p < this.keys.length) {
+                    this.size = p;
+                    return;
+                }
+                n = n * 2; // the map had grown concurrently; try again
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (final Stripe stripe: this.stripes) stripe.clear();
+    }
+
+    @Override
+    public int size() {
+        int s = 0;
+        for (final Stripe stripe: this.stripes) s += stripe.size;
+        return s;
+    }
+
+    @Override
+    public boolean sizeSmaller(final int size) {
+        return this.size() < size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        for (final Stripe stripe: this.stripes) if (stripe.size > 0) return false;
+        return true;
+    }
+
+    /**
+     * @return the sum of all scores
+     */
+    public long totalCount() {
+        long t = 0;
+        for (final Stripe stripe: this.stripes) t += stripe.total();
+        return t;
+    }
+
+    @Override
+    public void shrinkToMaxSize(final int maxsize) {
+        if (maxsize < 0) return;
+        int remove = this.size() - maxsize;
+        if (remove <= 0) return;
+        final Iterator<E> i = this.keys(true);
+        while (i.hasNext() && remove-- > 0) this.delete(i.next());
+    }
+
+    @Override
+    public void shrinkToMinScore(final int minScore) {
+        for (final Stripe stripe: this.stripes) stripe.removeSmaller(minScore);
+    }
+
+    @Override
+    public void set(final E obj, final int newScore) {
+        if (obj == null) return;
+        final int h = spread(keyHash(obj));
+        stripe(h).put(obj, h, newScore);
+    }
+
+    @Override
+    public int delete(final E obj) {
+        if (obj == null) return 0;
+        final int h = spread(keyHash(obj));
+        return clamp(stripe(h).remove(obj, h));
+    }
+
+    @Override
+    public boolean containsKey(final E obj) {
+        if (obj == null) return false;
+        final int h = spread(keyHash(obj));
+        return stripe(h).contains(obj, h);
+    }
+
+    @Override
+    public int get(final E obj) {
+        if (obj == null) return 0;
+        final int h = spread(keyHash(obj));
+        return clamp(stripe(h).get(obj, h));
+    }
+
+    @Override
+    public void inc(final E obj) {
+        inc(obj, 1);
+    }
+
+    @Override
+    public void inc(final E obj, final int incrementScore) {
+        if (obj == null) return;
+        final int h = spread(keyHash(obj));
+        stripe(h).add(obj, h, incrementScore);
+    }
+
+    @Override
+    public void dec(final E obj) {
+        inc(obj, -1);
+    }
+
+    @Override
+    public void dec(final E obj, final int decrementScore) {
+        inc(obj, -decrementScore);
+    }
+
+    @Override
+    public int getMaxScore() {
+        if (this.isEmpty()) return -1;
+        long max = Long.MIN_VALUE;
+        for (final Stripe stripe: this.stripes) max = Math.max(max, stripe.max());
+        return max == Long.MIN_VALUE ? -1 : clamp(max);
+    }
+
+    @Override
+    public int getMinScore() {
+        if (this.isEmpty()) return -1;
+        long min = Long.MAX_VALUE;
+        for (final Stripe stripe: this.stripes) min = Math.min(min, stripe.min());
+        return min == Long.MAX_VALUE ? -1 : clamp(min);
+    }
+
+    @Override
+    public E getMaxKey() {
+        final Iterator<E> i = this.keys(false);
+        return i.hasNext() ? i.next() : null;
+    }
+
+    @Override
+    public E getMinKey() {
+        final Iterator<E> i = this.keys(true);
+        return i.hasNext() ? i.next() : null;
+    }
+
+    /**
+     * iterate all keys in no specific order. The iterator works on a snapshot of the keys;
+     * removal of elements is supported and is passed to the map.
+     */
+    @Override
+    public Iterator<E> iterator() {
+        final Snapshot snapshot = new Snapshot();
+        return new Iterator<E>() {
+            private int p = 0;
+            private E last = null;
+            @Override
+            public boolean hasNext() {
+                return this.p < snapshot.size;
+            }
+            @SuppressWarnings("unchecked")
+            @Override
+            public E next() {
+                if (this.p >= snapshot.size) throw new NoSuchElementException();
+                this.last = (E) snapshot.keys[this.p++];
+                return this.last;
+            }
+            @Override
+            public void remove() {
+                if (this.last == null) throw new IllegalStateException();
+                StripedScoreMap.this.delete(this.last);
+                this.last = null;
+            }
+        };
+    }
+
+    /**
+     * iterate the keys ordered by their score. The order is computed lazily with a heap,
+     * so fetching only the first k elements is cheap even for large maps.
+     * @param up if true, the keys with the smallest scores come first, otherwise the keys with the largest scores
+     */
+    @Override
+    public Iterator<E> keys(final boolean up) {
+        return new HeapIterator(new Snapshot(), up);
+    }
+
+    /**
+     * get the keys with the k largest (or smallest) scores
+     * @param up if true, the keys with the smallest scores are returned
+     * @param k the maximum number of keys
+     * @return a list of at most k keys in score order
+     */
+    public List<E> top(final boolean up, final int k) {
+        final List<E> list = new ArrayList<E>(Math.max(0, Math.min(k, this.size())));
+        final Iterator<E> i = this.keys(up);
+        while (i.hasNext() && list.size() < k) list.add(i.next());
+        return list;
+    }
+
+    private final class HeapIterator implements Iterator<E> {
+
+        private final Snapshot snapshot;
+        private final int[] heap;
+        private final boolean up;
+        private int size;
+
+        private HeapIterator(final Snapshot snapshot, final boolean up) {
+            this.snapshot = snapshot;
+            this.up = up;
+            this.size = snapshot.size;
+            this.heap = new int[this.size];
+            for (int i = 0; i < this.size; i++) this.heap[i] = i;
+            for (int i = (this.size >>> 1) - 1; i >= 0; i--) siftDown(i);
+        }
+
+        /**
+         * @return true if the entry a must be delivered before the entry b
+         */
+        private boolean before(final int a, final int b) {
+            final long sa = this.snapshot.scores[a], sb = this.snapshot.scores[b];
+            return this.up ? sa < sb : sa > sb;
+        }
+
+        private void siftDown(int i) {
+            final int e = this.heap[i];
+            final int half = this.size >>> 1;
+            while (i < half) {
+                int c = (i << 1) + 1;
+                if (c + 1 < this.size && before(this.heap[c + 1], this.heap[c])) c++;
+                if (!before(this.heap[c], e)) break;
+                this.heap[i] = this.heap[c];
+                i = c;
+            }
+            this.heap[i] = e;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.size > 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public E next() {
+            if (this.size == 0) throw new NoSuchElementException();
+            final int e = this.heap[0];
+            this.heap[0] = this.heap[--this.size];
+            if (this.size > 0) siftDown(0);
+            return (E) this.snapshot.keys[e];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+}
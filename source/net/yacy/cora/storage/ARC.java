@@ -112,6 +112,13 @@ public interface ARC<K, V> extends Iterable<Map.Entry<K, V>> {
      * clear the cache
      */
     public void clear();
+
+    /**
+     * remove a fraction of the entries from the cache; the entries of the first level are removed first
+     * @param fraction the fraction of the entries to remove, a value in (0, 1]
+     * @return the number of removed entries
+     */
+    public int shrink(double fraction);
     
     /**
      * iterator implements the Iterable interface
@@ -183,6 +183,18 @@ public final class ConcurrentARC<K, V> extends AbstractMap<K, V> implements Map<
     	for (final ARC<K, V> a: this.arc) a.clear();
     }
 
+    /**
+     * remove a fraction of the entries from each partition of the cache
+     * @param fraction the fraction of the entries to remove, a value in (0, 1]
+     * @return the number of removed entries
+     */
+    @Override
+    public final int shrink(final double fraction) {
+        int s = 0;
+        for (final ARC<K, V> a: this.arc) s += a.shrink(fraction);
+        return s;
+    }
+
     /**
      * get the size of the ARC.
      * @return the complete number of entries in the ARC cache
@@ -30,6 +30,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -210,6 +211,30 @@ abstract class SimpleARC<K, V> extends AbstractMap<K, V> implements Map<K, V>, I
         this.levelB.clear();
     }
 
+    /**
+     * remove a fraction of the entries from the cache. The entries which had been accessed only once
+     * are removed first, the oldest first if the level keeps the insertion order
+     * @param fraction the fraction of the entries to remove, a value in (0, 1]
+     * @return the number of removed entries
+     */
+    @Override
+    public final synchronized int shrink(final double fraction) {
+        final int n = (int) Math.ceil(size() * Math.min(1.0d, fraction));
+        final int a = removeFirst(this.levelA, n);
+        return a + removeFirst(this.levelB, n - a);
+    }
+
+    private static <K, V> int removeFirst(final Map<K, V> level, final int n) {
+        if (n <= 0) return 0;
+        final List<K> keys = new ArrayList<K>(Math.min(n, level.size()));
+        synchronized (level) {
+            final Iterator<K> i = level.keySet().iterator();
+            while (keys.size() < n && i.hasNext()) keys.add(i.next());
+        }
+        for (final K key: keys) level.remove(key);
+        return keys.size();
+    }
+
     /**
      * get the size of the ARC. this returns the sum of main and ghost cache
      * @return the complete number of entries in the ARC cache
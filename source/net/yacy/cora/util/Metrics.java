@@ -0,0 +1,294 @@
+/**
+ *  Metrics
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.cora.util;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A registry of counters, gauges and latency histograms for the hot paths of the application.
+ * All updates are lock-free and do not allocate, so the metrics can stay enabled in production.
+ * A metric is identified by a name and an optional label, i.e. the mime type of a parser.
+ */
+public class Metrics {
+
+    private final static int MAX_METRICS = 2000; // protection against an unbounded number of labels
+
+    private final static Map<String, Counter> counters = new ConcurrentHashMap<String, Counter>();
+    private final static Map<String, Gauge> gauges = new ConcurrentHashMap<String, Gauge>();
+    private final static Map<String, Histogram> histograms = new ConcurrentHashMap<String, Histogram>();
+    private final static Counter overflowCounter = new Counter("metrics.overflow", null);
+    private final static Histogram overflowHistogram = new Histogram("metrics.overflow", null);
+
+    /**
+     * a value which is computed when the metrics are exported, i.e. a queue size
+     */
+    public interface Gauge {
+        public long value();
+    }
+
+    /**
+     * a monotonic counter
+     */
+    public static class Counter {
+        private final String name, label;
+        private final AtomicLong count;
+
+        private Counter(final String name, final String label) {
+            this.name = name;
+            this.label = label;
+            this.count = new AtomicLong(0);
+        }
+
+        public String name() {
+            return this.name;
+        }
+
+        public String label() {
+            return this.label;
+        }
+
+        public void inc() {
+            this.count.incrementAndGet();
+        }
+
+        public void add(final long n) {
+            this.count.addAndGet(n);
+        }
+
+        public long count() {
+            return this.count.get();
+        }
+    }
+
+    /**
+     * A histogram of durations in nanoseconds with logarithmic buckets: each power of two is divided into
+     * eight linear sub-buckets, so that a recorded value is reproduced with a relative error of less than 12.5%
+     * over the whole range of long values, using a fixed number of 496 buckets.
+     */
+    public static class Histogram {
+
+        private final static int SUB_BITS = 3;
+        private final static int SUB_COUNT = 1 << SUB_BITS;
+        private final static int BUCKETS = (64 - SUB_BITS) * SUB_COUNT + SUB_COUNT;
+
+        private final String name, label;
+        private final AtomicLongArray buckets;
+        private final AtomicLong count, sum, max;
+
+        private Histogram(final String name, final String label) {
+            this.name = name;
+            this.label = label;
+            this.buckets = new AtomicLongArray(BUCKETS);
+            this.count = new AtomicLong(0);
+            this.sum = new AtomicLong(0);
+            this.max = new AtomicLong(0);
+        }
+
+        public String name() {
+            return this.name;
+        }
+
+        public String label() {
+            return this.label;
+        }
+
+        private static int bucket(final long value) {
+            if (value < SUB_COUNT) return (int) value;
+            final int exp = 63 - Long.numberOfLeadingZeros(value);
+            final int sub = (int) (value >>> (exp - SUB_BITS)) & (SUB_COUNT - 1);
+            return (exp - SUB_BITS + 1) * SUB_COUNT + sub;
+        }
+
+        private static long upperBound(final int bucket) {
+            if (bucket < SUB_COUNT) return bucket;
+            final int exp = bucket / SUB_COUNT + SUB_BITS - 1;
+            final long sub = bucket % SUB_COUNT;
+            final long bound = ((SUB_COUNT + sub + 1) << (exp - SUB_BITS)) - 1;
+            return bound < 0 ? Long.MAX_VALUE : bound; // the last bucket ends at the largest long value
+        }
+
+        /**
+         * record a value
+         * @param nanos a duration in nanoseconds; negative values are counted as zero
+         */
+        public void record(long nanos) {
+            if (nanos < 0) nanos = 0;
+            this.buckets.incrementAndGet(bucket(nanos));
+            this.count.incrementAndGet();
+            this.sum.addAndGet(nanos);
+            long m;
+            while (nanos > (m = this.max.get()) && !this.max.compareAndSet(m, nanos)) {}
+        }
+
+        /**
+         * record the time that passed since the given start time
+         * @param startNanos a time stamp from System.nanoTime()
+         */
+        public void recordSince(final long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public long count() {
+            return this.count.get();
+        }
+
+        /**
+         * @return the sum of all recorded values in nanoseconds
+         */
+        public long sum() {
+            return this.sum.get();
+        }
+
+        /**
+         * @return the largest recorded value in nanoseconds
+         */
+        public long max() {
+            return this.max.get();
+        }
+
+        /**
+         * compute quantiles of the recorded values. The buckets are read without a lock, so
+         * values which are recorded concurrently may or may not be considered.
+         * @param quantiles values in [0, 1], in ascending order
+         * @return the upper bounds of the buckets which contain the quantiles, in nanoseconds
+         */
+        public long[] quantiles(final double... quantiles) {
+            final long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) total += (counts[i] = this.buckets.get(i));
+            final long[] result = new long[quantiles.length];
+            if (total == 0) return result;
+            final long max = this.max.get();
+            long cumulated = 0;
+            int q = 0, i = 0;
+            while (q < quantiles.length && i < BUCKETS) {
+                cumulated += counts[i];
+                while (q < quantiles.length && cumulated >= (long) Math.ceil(quantiles[q] * total)) {
+                    result[q++] = Math.min(max, upperBound(i));
+                }
+                i++;
+            }
+            while (q < quantiles.length) result[q++] = max;
+            return result;
+        }
+    }
+
+    private static String key(final String name, final String label) {
+        return label == null ? name : name + '{' + label + '}';
+    }
+
+    /**
+     * get or create a counter
+     * @param name
+     * @return the counter with the given name
+     */
+    public static Counter counter(final String name) {
+        return counter(name, null);
+    }
+
+    /**
+     * get or create a counter
+     * @param name
+     * @param label a label to distinguish counters of the same name or null
+     * @return the counter with the given name and label
+     */
+    public static Counter counter(final String name, final String label) {
+        final String key = key(name, label);
+        Counter c = counters.get(key);
+        if (c != null) return c;
+        if (counters.size() >= MAX_METRICS) return overflowCounter;
+        synchronized (counters) {
+            c = counters.get(key);
+            if (c == null) counters.put(key, c = new Counter(name, label));
+        }
+        return c;
+    }
+
+    /**
+     * get or create a histogram
+     * @param name
+     * @return the histogram with the given name
+     */
+    public static Histogram histogram(final String name) {
+        return histogram(name, null);
+    }
+
+    /**
+     * get or create a histogram
+     * @param name
+     * @param label a label to distinguish histograms of the same name or null
+     * @return the histogram with the given name and label
+     */
+    public static Histogram histogram(final String name, final String label) {
+        final String key = key(name, label);
+        Histogram h = histograms.get(key);
+        if (h != null) return h;
+        if (histograms.size() >= MAX_METRICS) return overflowHistogram;
+        synchronized (histograms) {
+            h = histograms.get(key);
+            if (h == null) histograms.put(key, h = new Histogram(name, label));
+        }
+        return h;
+    }
+
+    /**
+     * register a gauge; a gauge with the same name is replaced
+     * @param name
+     * @param gauge
+     */
+    public static void gauge(final String name, final Gauge gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * @return all counters, ordered by name and label
+     */
+    public static Map<String, Counter> counters() {
+        return new TreeMap<String, Counter>(counters);
+    }
+
+    /**
+     * @return all histograms, ordered by name and label
+     */
+    public static Map<String, Histogram> histograms() {
+        return new TreeMap<String, Histogram>(histograms);
+    }
+
+    /**
+     * @return the current values of all gauges, ordered by name
+     */
+    public static Map<String, Long> gauges() {
+        final Map<String, Long> values = new TreeMap<String, Long>();
+        for (final Map.Entry<String, Gauge> entry: gauges.entrySet()) {
+            try {
+                values.put(entry.getKey(), entry.getValue().value());
+            } catch (final RuntimeException e) {
+                // the source of the gauge may be closed
+            }
+        }
+        return values;
+    }
+
+}
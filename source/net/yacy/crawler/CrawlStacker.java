@@ -27,10 +27,13 @@ package net.yacy.crawler;
 import java.io.IOException;
 import java.net.InetAddress;
 import java.net.MalformedURLException;
+import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -565,6 +568,36 @@ public final class CrawlStacker {
             ("the host '" + host + "' is global, but global addresses are not accepted: " + ((ia == null) ? "null" : ia.getHostAddress()));
     }
 
+    /**
+     * check a batch of urls with urlInAcceptedDomain. If neither a domain list nor a content control
+     * filter is active, the result depends only on the host of an url; then urls with the same host share one check.
+     * @param urls
+     * @return a map from the rejected urls to the reject reason; accepted urls are not contained
+     */
+    public Map<DigestURL, String> urlsInAcceptedDomain(final Collection<DigestURL> urls) {
+        final Map<DigestURL, String> rejected = new HashMap<DigestURL, String>();
+        final Switchboard sb = Switchboard.getSwitchboard();
+        final boolean hostOnly = this.domainList == null &&
+                !(sb.getConfigBool("contentcontrol.enabled", false) && !sb.getConfig("contentcontrol.mandatoryfilterlist", "").equals(""));
+        final Map<String, String> hostReasons = new HashMap<String, String>();
+        for (final DigestURL url: urls) {
+            String reason;
+            final String host = url == null ? null : url.getHost();
+            if (hostOnly && host != null) {
+                if (hostReasons.containsKey(host)) {
+                    reason = hostReasons.get(host);
+                } else {
+                    reason = urlInAcceptedDomain(url);
+                    hostReasons.put(host, reason);
+                }
+            } else {
+                reason = urlInAcceptedDomain(url);
+            }
+            if (reason != null && url != null) rejected.put(url, reason);
+        }
+        return rejected;
+    }
+
     public String urlInAcceptedDomainHash(final byte[] urlhash) {
         // returns true if the url can be accepted according to network.unit.domain
         if (urlhash == null) return "url is null";
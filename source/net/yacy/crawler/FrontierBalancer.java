@@ -0,0 +1,1061 @@
+/**
+ *  FrontierBalancer
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.crawler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.protocol.ClientIdentification;
+import net.yacy.cora.storage.HandleMap;
+import net.yacy.cora.storage.HandleSet;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.crawler.data.CrawlProfile;
+import net.yacy.crawler.data.Latency;
+import net.yacy.crawler.retrieval.Request;
+import net.yacy.crawler.robots.RobotsTxt;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.index.RowHandleMap;
+import net.yacy.kelondro.index.RowHandleSet;
+import net.yacy.kelondro.util.FileUtils;
+import net.yacy.repository.Blacklist.BlacklistType;
+import net.yacy.search.Switchboard;
+
+/**
+ * A crawl frontier which stores all requests of all hosts in one append-only log file.
+ * The HostBalancer creates one directory per host and one index file per crawl depth, which means
+ * millions of files for a wide crawl, a long directory scan at startup and exhausted file handles.
+ * Here every push appends the request row to the log and every pop or removal appends a delete mark.
+ * The index is held in RAM: a map from the url hash to the position of its record in the log and,
+ * for each host and crawl depth, a queue of record positions in push order. At startup the log is read
+ * once sequentially to rebuild that index. If the log contains more dead records than live ones it is
+ * compacted in a background thread: all live records are copied into a new log in their original order,
+ * without blocking the pops and pushes of the crawler; then the new log replaces the old one.
+ *
+ * The pop semantics are the same as in the HostBalancer: the hosts are selected round-robin with a
+ * preference for hosts which need no waiting time, and the urls of a host are returned from the
+ * lowest crawl depth first. Because there are no files per host, small stacks need not be kicked out
+ * of the round-robin set.
+ * Existing host queue directories in the frontier path are imported into the log at startup.
+ */
+public class FrontierBalancer implements Balancer {
+
+    private final static ConcurrentLog log = new ConcurrentLog("FrontierBalancer");
+
+    public  final static String logName = "frontier.log";
+    private final static byte   PUSH = 'P', DELETE = 'D';
+    private final static int    HEADER = 4;                              // the log starts with the row size
+    private final static int    ROWSIZE = Request.rowdef.objectsize;
+    private final static int    HASHSIZE = Word.commonHashLength;
+    private final static int    MAXDEPTH = 255;                          // depths above are stored as MAXDEPTH in the index
+    private final static long   COMPACTION_MIN = 16L * 1024L * 1024L;   // the log is not compacted before it has that size
+
+    /**
+     * a queue of log positions
+     */
+    private static final class Positions {
+        private long[] a = new long[4];
+        private int head = 0, tail = 0;
+        private int live = 0; // the number of positions which are still valid
+        private void add(final long pos) {
+            if (this.tail == this.a.length) {
+                if (this.head > this.a.length / 2) {
+                    System.arraycopy(this.a, this.head, this.a, 0, this.tail - this.head);
+                } else {
+                    this.a = Arrays.copyOfRange(this.a, this.head, this.a.length * 2);
+                }
+                this.tail -= this.head;
+                this.head = 0;
+            }
+            this.a[this.tail++] = pos;
+        }
+        private long poll() {
+            return this.head == this.tail ? -1 : this.a[this.head++];
+        }
+        private int size() {
+            return this.tail - this.head;
+        }
+        private long get(final int i) {
+            return this.a[this.head + i];
+        }
+    }
+
+    /**
+     * the index of the requests of one host
+     */
+    private static final class HostStack {
+        private final String hosthash, host;
+        private final int port;
+        private final TreeMap<Integer, Positions> depths;
+        private int size;
+        private HostStack(final String hosthash, final String host, final int port) {
+            this.hosthash = hosthash;
+            this.host = host == null ? "localhost" : host;
+            this.port = port;
+            this.depths = new TreeMap<Integer, Positions>();
+            this.size = 0;
+        }
+    }
+
+    private final File path, logFile;
+    private RandomAccessFile raf;
+    private long end;                         // the length of the log
+    private long records;                     // the number of records in the log
+    private long generation;                  // incremented whenever the log is opened or cleared
+    private final AtomicBoolean compacting;
+    private final HandleMap urls;             // url hash -> position * 256 + depth
+    private final Map<String, HostStack> hosts;
+    private final Set<String> roundRobinHostHashes;
+
+    public FrontierBalancer(final File path, final boolean exceed134217727) {
+        this.path = path;
+        this.logFile = new File(path, logName);
+        this.urls = new RowHandleMap(HASHSIZE, Word.commonHashOrder, 8, 1000, "FrontierBalancer." + path.getName());
+        this.hosts = new HashMap<String, HostStack>();
+        this.roundRobinHostHashes = new HashSet<String>();
+        this.compacting = new AtomicBoolean(false);
+        if (!path.exists()) path.mkdirs();
+        try {
+            open();
+            if (this.records > 2L * this.urls.size() && this.end > COMPACTION_MIN) compact();
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        }
+        migrate(exceed134217727);
+    }
+
+    /**
+     * open the log and rebuild the index from it
+     * @throws IOException
+     */
+    private void open() throws IOException {
+        this.urls.clear();
+        this.hosts.clear();
+        this.roundRobinHostHashes.clear();
+        this.records = 0;
+        this.generation++;
+        final long time = System.currentTimeMillis();
+        long valid = HEADER;
+        final File tmp = new File(this.path, logName + ".tmp");
+        if (tmp.exists()) {
+            if (this.logFile.exists()) {
+                // an unfinished compaction
+                FileUtils.deletedelete(tmp);
+            } else {
+                // the compaction was interrupted after the old log was deleted; the new log is complete
+                log.warn("recovering " + this.logFile + " from " + tmp);
+                if (!tmp.renameTo(this.logFile)) throw new IOException("cannot rename " + tmp + " to " + this.logFile);
+            }
+        }
+        if (this.logFile.exists() && this.logFile.length() < HEADER) FileUtils.deletedelete(this.logFile);
+        if (this.logFile.exists()) {
+            valid = scan(new RecordHandler() {
+                @Override
+                public boolean record(final long pos, final byte op, final byte[] payload) throws IOException {
+                    try {
+                        if (op == PUSH) index(payload, pos, null); else unindex(payload);
+                    } catch (final IOException e) {
+                        log.warn("skipped unreadable record at position " + pos + " in " + FrontierBalancer.this.logFile + ": " + e.getMessage());
+                    } catch (final SpaceExceededException e) {
+                        throw new IOException(e.getMessage());
+                    }
+                    FrontierBalancer.this.records++;
+                    return true;
+                }
+            });
+            if (valid < 0) {
+                // the log has been written with a different row definition
+                log.warn("the row size of " + this.logFile + " does not fit; the log is discarded");
+                this.urls.clear();
+                this.hosts.clear();
+                this.records = 0;
+                valid = HEADER;
+                FileUtils.deletedelete(this.logFile);
+            }
+        }
+        final boolean exists = this.logFile.exists();
+        this.raf = new RandomAccessFile(this.logFile, "rw");
+        if (!exists) this.raf.writeInt(ROWSIZE);
+        if (this.raf.length() > valid) {
+            // remove an incomplete record at the end of the log
+            log.warn("truncated " + (this.raf.length() - valid) + " bytes at the end of " + this.logFile);
+            this.raf.setLength(valid);
+        }
+        this.end = valid;
+        if (log.isInfo()) log.info("opened " + this.logFile + " with " + this.urls.size() + " urls from " + this.hosts.size() + " hosts in " + (System.currentTimeMillis() - time) + " milliseconds");
+    }
+
+    /**
+     * import the urls of host queue directories which had been written by the HostBalancer
+     * @param exceed134217727
+     */
+    private void migrate(final boolean exceed134217727) {
+        final String[] list = this.path.list();
+        if (list == null) return;
+        for (final String address: list) {
+            final File queuePath = new File(this.path, address);
+            if (!queuePath.isDirectory()) continue;
+            try {
+                final HostQueue queue = new HostQueue(queuePath, true, exceed134217727);
+                int c = 0;
+                synchronized (this) {
+                    final Iterator<Request> i = queue.iterator();
+                    while (i.hasNext()) {
+                        final Request request = i.next();
+                        if (request == null || this.urls.has(request.url().hash())) continue;
+                        put(request);
+                        c++;
+                    }
+                }
+                queue.clear();
+                queue.close();
+                log.info("imported " + c + " urls from host queue " + queuePath);
+            } catch (final IOException | SpaceExceededException | RuntimeException e) {
+                ConcurrentLog.logException(e);
+            }
+        }
+    }
+
+    private interface RecordHandler {
+        /**
+         * @return false if the scan shall be terminated
+         */
+        public boolean record(long pos, byte op, byte[] payload) throws IOException;
+    }
+
+    /**
+     * read all records of the log file sequentially
+     * @param handler
+     * @return the position after the last complete record or -1 if the log has a different row size
+     * @throws IOException
+     */
+    private long scan(final RecordHandler handler) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.logFile), 1024 * 1024));
+        try {
+            if (in.readInt() != ROWSIZE) return -1;
+            long pos = HEADER;
+            final byte[] row = new byte[ROWSIZE];
+            final byte[] hash = new byte[HASHSIZE];
+            while (true) {
+                final int op = in.read();
+                if (op < 0) return pos;
+                final byte[] payload = op == PUSH ? row : op == DELETE ? hash : null;
+                if (payload == null) {
+                    log.warn("unknown record type at position " + pos + " in " + this.logFile);
+                    return pos;
+                }
+                try {
+                    in.readFully(payload);
+                } catch (final EOFException e) {
+                    return pos;
+                }
+                if (!handler.record(pos, (byte) op, payload)) return pos;
+                pos += 1 + payload.length;
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * copy all live records into a new log. The records are copied without the lock of the balancer; only the
+     * liveness of the records is checked with the lock. The records which are appended during the copy are
+     * added to the new log with the lock, then the new log replaces the old one and the positions in the index
+     * are translated to the new log, so the log need not be scanned again.
+     * If another compaction is running, nothing is done.
+     * @return true if the log was compacted
+     * @throws IOException
+     */
+    boolean compact() throws IOException {
+        if (!this.compacting.compareAndSet(false, true)) return false;
+        try {
+            return compact0();
+        } finally {
+            this.compacting.set(false);
+        }
+    }
+
+    private boolean compact0() throws IOException {
+        final long time = System.currentTimeMillis();
+        final long limit, records0, generation0;
+        synchronized (this) {
+            if (this.raf == null) return false;
+            limit = this.end;
+            records0 = this.records;
+            generation0 = this.generation;
+        }
+        final File tmp = new File(this.path, logName + ".tmp");
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 1024 * 1024));
+        final Compaction compaction = new Compaction(limit, out);
+        boolean committed = false; // true if the new log must not be deleted any more
+        try {
+            out.writeInt(ROWSIZE);
+            scan(compaction);
+            compaction.flush();
+            synchronized (this) {
+                if (this.raf == null || this.generation != generation0) return false; // closed or cleared in the meantime
+                // copy the records which were appended in the meantime
+                final long shift = HEADER + (long) compaction.copied.size() * (1 + ROWSIZE) - limit;
+                final byte[] b = new byte[64 * 1024];
+                for (long pos = limit; pos < this.end;) {
+                    final int n = (int) Math.min(b.length, this.end - pos);
+                    this.raf.seek(pos);
+                    this.raf.readFully(b, 0, n);
+                    out.write(b, 0, n);
+                    pos += n;
+                }
+                out.close();
+                final long oldEnd = this.end;
+                this.raf.close();
+                this.raf = null;
+                try {
+                    // the log is deleted only after the new log is complete; open() recovers the new log if the rename fails
+                    if (!tmp.renameTo(this.logFile)) {
+                        committed = true;
+                        FileUtils.deletedelete(this.logFile);
+                        if (!tmp.renameTo(this.logFile)) throw new IOException("cannot rename " + tmp + " to " + this.logFile);
+                    }
+                    committed = true;
+                    this.raf = new RandomAccessFile(this.logFile, "rw");
+                    this.end += shift;
+                    this.records = compaction.copied.size() + this.records - records0;
+                    translate(compaction.copied, limit, shift);
+                } catch (final IOException | SpaceExceededException e) {
+                    // the index does not fit to the log; read it again
+                    ConcurrentLog.logException(e);
+                    if (this.raf != null) this.raf.close();
+                    open();
+                }
+                log.info("compacted " + this.logFile + " from " + oldEnd + " to " + this.end + " bytes in " + (System.currentTimeMillis() - time) + " milliseconds");
+                return true;
+            }
+        } finally {
+            out.close();
+            if (!committed) FileUtils.deletedelete(tmp);
+        }
+    }
+
+    /**
+     * the copy of the live push records of the log up to a limit; the records are checked in batches,
+     * so the lock of the balancer is held only for a short time
+     */
+    private final class Compaction implements RecordHandler {
+        private final long limit;
+        private final DataOutputStream out;
+        private final Positions copied;    // the old positions of the copied records in ascending order
+        private final byte[][] rows;
+        private final long[] positions;
+        private int size;
+        private Compaction(final long limit, final DataOutputStream out) {
+            this.limit = limit;
+            this.out = out;
+            this.copied = new Positions();
+            this.rows = new byte[1024][ROWSIZE];
+            this.positions = new long[this.rows.length];
+            this.size = 0;
+        }
+        @Override
+        public boolean record(final long pos, final byte op, final byte[] payload) throws IOException {
+            if (pos >= this.limit) return false;
+            if (op == PUSH) {
+                System.arraycopy(payload, 0, this.rows[this.size], 0, ROWSIZE);
+                this.positions[this.size++] = pos;
+                if (this.size == this.rows.length) flush();
+            }
+            return true;
+        }
+        private void flush() throws IOException {
+            final boolean[] live = new boolean[this.size];
+            synchronized (FrontierBalancer.this) {
+                for (int i = 0; i < this.size; i++) live[i] = live(this.rows[i], this.positions[i]);
+            }
+            for (int i = 0; i < this.size; i++) {
+                if (!live[i]) continue;
+                this.out.write(PUSH);
+                this.out.write(this.rows[i]);
+                this.copied.add(this.positions[i]);
+            }
+            this.size = 0;
+        }
+    }
+
+    /**
+     * translate a position of the old log into a position of the compacted log
+     * @return the new position or -1 if the record was not copied
+     */
+    private static long translate(final Positions copied, final long limit, final long shift, final long pos) {
+        if (pos >= limit) return pos + shift;
+        int low = copied.head, high = copied.tail - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final long p = copied.a[mid];
+            if (p < pos) low = mid + 1; else if (p > pos) high = mid - 1; else return HEADER + (long) (mid - copied.head) * (1 + ROWSIZE);
+        }
+        return -1;
+    }
+
+    /**
+     * translate all positions in the index into positions of the compacted log
+     */
+    private void translate(final Positions copied, final long limit, final long shift) throws IOException, SpaceExceededException {
+        final List<byte[]> keys = new ArrayList<byte[]>(this.urls.size());
+        final List<Long> codes = new ArrayList<Long>(this.urls.size());
+        for (final Map.Entry<byte[], Long> entry: this.urls) {
+            keys.add(entry.getKey());
+            codes.add(entry.getValue());
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            final long c = codes.get(i).longValue();
+            final long pos = translate(copied, limit, shift, c >>> 8);
+            if (pos < 0) throw new IOException("the record of a live url at position " + (c >>> 8) + " was not copied"); // must not happen
+            this.urls.put(keys.get(i), code(pos, (int) (c & 0xff)));
+        }
+        for (final HostStack hs: this.hosts.values()) {
+            for (final Positions p: hs.depths.values()) {
+                int t = p.head;
+                for (int i = p.head; i < p.tail; i++) {
+                    final long pos = translate(copied, limit, shift, p.a[i]);
+                    if (pos >= 0) p.a[t++] = pos; // positions of dead records are removed
+                }
+                p.tail = t;
+            }
+        }
+    }
+
+    /**
+     * start a compaction in a background thread if the log contains more dead records than live ones
+     */
+    private void compactIfNeeded() {
+        if (this.end < COMPACTION_MIN || this.records <= 2L * this.urls.size() || this.compacting.get()) return;
+        new Thread("FrontierBalancer.compact") {
+            @Override
+            public void run() {
+                try {
+                    compact();
+                } catch (final IOException e) {
+                    ConcurrentLog.logException(e);
+                }
+            }
+        }.start();
+    }
+
+    private static long code(final long pos, final int depth) {
+        return pos * 256 + Math.max(0, Math.min(MAXDEPTH, depth));
+    }
+
+    private boolean live(final byte[] hash, final long pos) {
+        final long c = this.urls.get(hash.length == HASHSIZE ? hash : Arrays.copyOf(hash, HASHSIZE));
+        return c >= 0 && c >>> 8 == pos;
+    }
+
+    /**
+     * add a push record to the index
+     * @param row the request row
+     * @param pos the position of the record in the log
+     * @param request the request of the row or null if it has not been parsed yet
+     * @throws IOException
+     * @throws SpaceExceededException
+     */
+    private void index(final byte[] row, final long pos, Request request) throws IOException, SpaceExceededException {
+        final byte[] hash = Arrays.copyOf(row, HASHSIZE);
+        final String hosthash = ASCII.String(hash, 6, 6);
+        HostStack hs = this.hosts.get(hosthash);
+        if (hs == null) {
+            if (request == null) request = new Request(Request.rowdef.newEntry(row));
+            hs = new HostStack(hosthash, request.url().getHost(), request.url().getPort());
+            this.hosts.put(hosthash, hs);
+        }
+        final int depth = (int) Math.max(0, Math.min(MAXDEPTH, Request.rowdef.newEntry(row).getColLong(7)));
+        final long old = this.urls.put(hash, code(pos, depth));
+        if (old >= 0) decrement(hs, (int) (old & 0xff));
+        Positions p = hs.depths.get(depth);
+        if (p == null) {
+            p = new Positions();
+            hs.depths.put(depth, p);
+        }
+        p.add(pos);
+        p.live++;
+        hs.size++;
+    }
+
+    /**
+     * remove an url hash from the index
+     * @param hash
+     * @return true if the url had been in the index
+     */
+    private boolean unindex(final byte[] hash) {
+        final long old = this.urls.remove(hash);
+        if (old < 0) return false;
+        final String hosthash = ASCII.String(hash, 6, 6);
+        final HostStack hs = this.hosts.get(hosthash);
+        if (hs != null) {
+            decrement(hs, (int) (old & 0xff));
+            if (hs.size <= 0) {
+                this.hosts.remove(hosthash);
+                this.roundRobinHostHashes.remove(hosthash);
+            }
+        }
+        return true;
+    }
+
+    private static void decrement(final HostStack hs, final int depth) {
+        final Positions p = hs.depths.get(depth);
+        if (p != null && --p.live <= 0) hs.depths.remove(depth);
+        hs.size--;
+    }
+
+    private long append(final byte op, final byte[] payload) throws IOException {
+        final long pos = this.end;
+        final byte[] b = new byte[1 + payload.length];
+        b[0] = op;
+        System.arraycopy(payload, 0, b, 1, payload.length);
+        this.raf.seek(pos);
+        this.raf.write(b);
+        this.end = pos + b.length;
+        this.records++;
+        return pos;
+    }
+
+    private byte[] read(final long pos, final int length) throws IOException {
+        final byte[] b = new byte[length];
+        this.raf.seek(pos + 1);
+        this.raf.readFully(b);
+        return b;
+    }
+
+    /**
+     * append a request to the log and the index
+     * @param entry
+     * @throws IOException
+     * @throws SpaceExceededException
+     */
+    private void put(final Request entry) throws IOException, SpaceExceededException {
+        final byte[] row = entry.toRow().bytes();
+        final long pos = append(PUSH, row);
+        index(row, pos, entry);
+    }
+
+    /**
+     * remove an url from the index and mark it as deleted in the log
+     * @param hash
+     * @return true if the url had been in the frontier
+     * @throws IOException
+     */
+    private boolean delete(final byte[] hash) throws IOException {
+        if (!unindex(hash)) return false;
+        append(DELETE, hash);
+        return true;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (HostBalancer.depthCache != null) {
+            HostBalancer.depthCache.clear();
+        }
+        if (this.raf == null) return;
+        try {
+            if (this.urls.isEmpty()) {
+                this.raf.close();
+                FileUtils.deletedelete(this.logFile);
+            } else {
+                if (this.records > 2L * this.urls.size()) compact(); // makes the next start faster
+                this.raf.close();
+            }
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        }
+        this.raf = null;
+        this.urls.clear();
+        this.hosts.clear();
+        this.roundRobinHostHashes.clear();
+    }
+
+    @Override
+    public synchronized void clear() {
+        if (HostBalancer.depthCache != null) {
+            HostBalancer.depthCache.clear();
+        }
+        this.urls.clear();
+        this.hosts.clear();
+        this.roundRobinHostHashes.clear();
+        this.records = 0;
+        this.generation++;
+        this.end = HEADER;
+        try {
+            this.raf.setLength(HEADER);
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        }
+    }
+
+    @Override
+    public synchronized Request get(final byte[] urlhash) throws IOException {
+        final long c = this.urls.get(urlhash);
+        if (c < 0) return null;
+        return new Request(Request.rowdef.newEntry(read(c >>> 8, ROWSIZE)));
+    }
+
+    @Override
+    public int removeAllByProfileHandle(final String profileHandle, final long timeout) throws IOException, SpaceExceededException {
+        final long terminate = timeout == Long.MAX_VALUE ? Long.MAX_VALUE : (timeout > 0) ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+        final HandleSet urlHashes = new RowHandleSet(HASHSIZE, Base64Order.enhancedCoder, 100);
+        synchronized (this) {
+            scan(new RecordHandler() {
+                @Override
+                public boolean record(final long pos, final byte op, final byte[] payload) throws IOException {
+                    if (op == PUSH && live(payload, pos)) {
+                        final Request request = new Request(Request.rowdef.newEntry(payload));
+                        if (profileHandle.equals(request.profileHandle())) try {
+                            urlHashes.put(request.url().hash());
+                        } catch (final SpaceExceededException e) {
+                            return false;
+                        }
+                    }
+                    return System.currentTimeMillis() < terminate;
+                }
+            });
+            int count = 0;
+            for (final byte[] urlhash: urlHashes) {
+                if (delete(urlhash)) count++;
+            }
+            return count;
+        }
+    }
+
+    /**
+     * delete all urls which are stored for given host hashes
+     * @param hosthashes
+     * @return number of deleted urls
+     */
+    @Override
+    public int removeAllByHostHashes(final Set<String> hosthashes) {
+        int c = 0;
+        synchronized (this) {
+            for (final String h: hosthashes) {
+                final HostStack hs = this.hosts.get(h);
+                if (hs == null) continue;
+                final List<byte[]> hashes = new ArrayList<byte[]>(hs.size);
+                try {
+                    for (final Positions p: hs.depths.values()) {
+                        for (int i = 0; i < p.size(); i++) {
+                            final long pos = p.get(i);
+                            final byte[] hash = read(pos, HASHSIZE);
+                            if (live(hash, pos)) hashes.add(hash);
+                        }
+                    }
+                    for (final byte[] hash: hashes) {
+                        if (delete(hash)) c++;
+                    }
+                } catch (final IOException e) {
+                    ConcurrentLog.logException(e);
+                }
+            }
+        }
+        // remove from cache
+        final Iterator<Map.Entry<byte[], Long>> i = HostBalancer.depthCache.iterator();
+        final ArrayList<String> deleteHashes = new ArrayList<String>();
+        while (i.hasNext()) {
+            final String h = ASCII.String(i.next().getKey());
+            if (hosthashes.contains(h.substring(6))) deleteHashes.add(h);
+        }
+        for (final String h: deleteHashes) HostBalancer.depthCache.remove(ASCII.getBytes(h));
+        return c;
+    }
+
+    @Override
+    public synchronized int remove(final HandleSet urlHashes) throws IOException {
+        int c = 0;
+        for (final byte[] urlhash: urlHashes) {
+            HostBalancer.depthCache.remove(urlhash);
+            if (delete(urlhash)) c++;
+        }
+        return c;
+    }
+
+    @Override
+    public boolean has(final byte[] urlhashb) {
+        if (HostBalancer.depthCache.has(urlhashb)) return true;
+        return this.urls.has(urlhashb);
+    }
+
+    @Override
+    public int size() {
+        return this.urls.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.urls.isEmpty();
+    }
+
+    /**
+     * push a request to the frontier
+     * @param entry
+     * @param profile
+     * @param robots
+     * @return null if everything is ok or a string with an error message if the push is not allowed according to the crawl profile or robots
+     * @throws IOException
+     * @throws SpaceExceededException
+     */
+    @Override
+    public String push(final Request entry, final CrawlProfile profile, final RobotsTxt robots) throws IOException, SpaceExceededException {
+        if (this.has(entry.url().hash())) return "double occurrence";
+        HostBalancer.depthCache.put(entry.url().hash(), entry.depth());
+        synchronized (this) {
+            if (robots != null && !this.hosts.containsKey(ASCII.String(entry.url().hash(), 6, 6))) {
+                // profile might be null when continue crawls after YaCy restart
+                robots.ensureExist(entry.url(), profile == null ? ClientIdentification.yacyInternetCrawlerAgent : profile.getAgent(), true); // concurrently load all robots.txt
+            }
+
+            // increase dom counter
+            if (profile != null) {
+                final int maxPages = profile.domMaxPages();
+                if (maxPages != Integer.MAX_VALUE && maxPages > 0) {
+                    profile.domInc(entry.url().getHost());
+                }
+            }
+
+            put(entry);
+        }
+        return null;
+    }
+
+    /**
+     * select the host for the next pop with the same strategy as the HostBalancer
+     * @param robots
+     * @return the host stack or null if the frontier is empty
+     */
+    private HostStack selectHost(final RobotsTxt robots) {
+        while (!this.hosts.isEmpty()) {
+            if (this.roundRobinHostHashes.size() == 0) {
+                // refresh the round-robin cache
+                this.roundRobinHostHashes.addAll(this.hosts.keySet());
+                if (this.roundRobinHostHashes.size() == 1) {
+                    if (log.isFine()) log.fine("(re-)initialized the round-robin queue with one host");
+                } else {
+                    log.info("(re-)initialized the round-robin queue; " + this.roundRobinHostHashes.size() + " hosts.");
+                }
+            }
+
+            // if the queue size is 1, just take that
+            if (this.roundRobinHostHashes.size() == 1) {
+                final HostStack hs = this.hosts.get(this.roundRobinHostHashes.iterator().next());
+                if (hs != null) return hs;
+                this.roundRobinHostHashes.clear();
+                continue;
+            }
+
+            // mixed minimum sleep time / largest queue strategy:
+            // create a map of sleep time / queue relations with a fuzzy sleep time (ms / 500).
+            // if the entry with the smallest sleep time contains at least two entries,
+            // then the larger one from these queues are selected.
+            HostStack selected = null;
+            final TreeMap<Integer, List<HostStack>> fastTree = new TreeMap<>();
+            mixedstrategy: for (final String h: this.roundRobinHostHashes) {
+                final HostStack hs = this.hosts.get(h);
+                if (hs == null) continue mixedstrategy;
+                int delta = Latency.waitingRemainingGuessed(hs.host, h, robots, ClientIdentification.yacyInternetCrawlerAgent) / 200;
+                if (delta < 0) delta = 0;
+                List<HostStack> stacks = fastTree.get(delta);
+                if (stacks == null) {
+                    stacks = new ArrayList<>(2);
+                    fastTree.put(delta, stacks);
+                }
+                stacks.add(hs);
+                // check stop criteria
+                final List<HostStack> firstEntries = fastTree.firstEntry().getValue();
+                if (firstEntries.size() > 1) {
+                    // select larger queue from that list
+                    for (final HostStack fs: firstEntries) {
+                        if (selected == null || fs.size > selected.size) selected = fs;
+                    }
+                    break mixedstrategy;
+                }
+            }
+            if (selected == null && fastTree.size() > 0) {
+                // it may be possible that the lowest entry never has more than one queues assigned
+                // in this case just take the smallest entry
+                selected = fastTree.firstEntry().getValue().get(0);
+            }
+            // to prevent that the complete roundrobinhosthashes are taken for each round, we remove the entries from the top of the fast queue
+            if (fastTree.size() > 0) {
+                for (final HostStack hs: fastTree.lastEntry().getValue()) this.roundRobinHostHashes.remove(hs.hosthash);
+            }
+            if (selected != null) return selected;
+            this.roundRobinHostHashes.clear(); // force re-initialization
+        }
+        return null;
+    }
+
+    /**
+     * remove the next request of a host from the lowest crawl depth
+     * @param hs
+     * @return the request or null if the host has no more requests
+     * @throws IOException
+     */
+    private Request popFrom(final HostStack hs) throws IOException {
+        while (hs.size > 0) {
+            final Map.Entry<Integer, Positions> entry = hs.depths.firstEntry();
+            if (entry == null) return null;
+            final long pos = entry.getValue().poll();
+            if (pos < 0) {
+                hs.depths.remove(entry.getKey());
+                continue;
+            }
+            final byte[] row = read(pos, ROWSIZE);
+            if (!live(row, pos)) continue; // removed or pushed again
+            delete(Arrays.copyOf(row, HASHSIZE));
+            return new Request(Request.rowdef.newEntry(row));
+        }
+        return null;
+    }
+
+    /**
+     * get the next entry in this crawl queue in such a way that the domain access time delta is maximized
+     * and always above the given minimum delay time. An additional delay time is computed using the robots.txt
+     * crawl-delay time which is always respected. In case the minimum time cannot ensured, this method pauses
+     * the necessary time until the url is released and returned as CrawlEntry object. In case that a profile
+     * for the computed Entry does not exist, null is returned
+     * @param delay true if the requester demands forced delays using explicit thread sleep
+     * @param profile
+     * @return a url in a CrawlEntry object
+     * @throws IOException
+     */
+    @Override
+    public Request pop(final boolean delay, final CrawlSwitchboard cs, final RobotsTxt robots) throws IOException {
+        tryagain: while (true) try {
+            HostStack hs;
+            Request crawlEntry = null;
+            CrawlProfile profileEntry = null;
+            long sleeptime = 0;
+            synchronized (this) {
+                if (this.raf == null) return null; // closed
+                hs = selectHost(robots);
+                if (hs == null) return null;
+                this.roundRobinHostHashes.remove(hs.hosthash); // prevent that the queue is used again
+                mainloop: while (true) {
+                    crawlEntry = popFrom(hs);
+                    if (crawlEntry == null) break mainloop;
+
+                    // check blacklist (again) because the user may have created blacklist entries after the queue has been filled
+                    if (Switchboard.urlBlacklist.isListed(BlacklistType.CRAWLER, crawlEntry.url())) {
+                        if (log.isFine()) log.fine("URL '" + crawlEntry.url() + "' is in blacklist.");
+                        crawlEntry = null;
+                        continue mainloop;
+                    }
+
+                    // at this point we must check if the crawlEntry has relevance because the crawl profile still exists
+                    profileEntry = cs.get(UTF8.getBytes(crawlEntry.profileHandle()));
+                    if (profileEntry == null) {
+                        if (log.isFine()) log.fine("no profile entry for handle " + crawlEntry.profileHandle());
+                        crawlEntry = null;
+                        continue mainloop;
+                    }
+
+                    // depending on the caching policy we need sleep time to avoid DoS-like situations
+                    sleeptime = Latency.getDomainSleepTime(robots, profileEntry, crawlEntry.url());
+                    break mainloop;
+                }
+                compactIfNeeded();
+            }
+            if (crawlEntry == null) continue tryagain;
+
+            final ClientIdentification.Agent agent = profileEntry.getAgent();
+            final long robotsTime = Latency.getRobotsTime(robots, crawlEntry.url(), agent);
+            Latency.updateAfterSelection(crawlEntry.url(), robotsTime);
+            if (delay && sleeptime > 0) {
+                // force a busy waiting here
+                // in best case, this should never happen if the balancer works properly
+                // this is only to protection against the worst case, where the crawler could
+                // behave in a DoS-manner
+                if (log.isInfo()) log.info("forcing crawl-delay of " + sleeptime + " milliseconds for " + crawlEntry.url().getHost() + ": " + Latency.waitingRemainingExplain(crawlEntry.url(), robots, agent));
+                long loops = sleeptime / 1000;
+                long rest = sleeptime % 1000;
+                if (loops < 3) {
+                    rest = rest + 1000 * loops;
+                    loops = 0;
+                }
+                Thread.currentThread().setName("Balancer waiting for " + crawlEntry.url().getHost() + ": " + sleeptime + " milliseconds");
+                synchronized (hs) {
+                    // must be synchronized here to avoid 'takeover' moves from other threads which then idle the same time which would not be enough
+                    if (rest > 0) {try {hs.wait(rest);} catch (final InterruptedException e) {}}
+                    for (int i = 0; i < loops; i++) {
+                        if (log.isInfo()) log.info("waiting for " + crawlEntry.url().getHost() + ": " + (loops - i) + " seconds remaining...");
+                        try {hs.wait(1000); } catch (final InterruptedException e) {}
+                    }
+                }
+                Latency.updateAfterSelection(crawlEntry.url(), robotsTime);
+
+                // to prevent that this occurs again, remove all stacks with positive delay times (which may be less after that waiting)
+                if (sleeptime > 1000) synchronized (this) {
+                    final Iterator<String> i = this.roundRobinHostHashes.iterator();
+                    protectcheck: while (i.hasNext()) {
+                        if (this.roundRobinHostHashes.size() <= 3) break protectcheck; // don't shrink the hosts until nothing is left
+                        final String s = i.next();
+                        final HostStack rs = this.hosts.get(s);
+                        if (rs == null) {i.remove(); continue protectcheck;}
+                        final int delta = Latency.waitingRemainingGuessed(rs.host, s, robots, ClientIdentification.yacyInternetCrawlerAgent);
+                        if (delta >= 0) {i.remove();}
+                    }
+                }
+            }
+            return crawlEntry;
+        } catch (final ConcurrentModificationException e) {
+            continue tryagain;
+        } catch (final IOException e) {
+            throw e;
+        } catch (final Throwable e) {
+            ConcurrentLog.logException(e);
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    /**
+     * iterate through all requests in the queue; the iterator reads a snapshot of the positions of all urls
+     */
+    @Override
+    public Iterator<Request> iterator() throws IOException {
+        final long[] positions;
+        synchronized (this) {
+            positions = new long[this.urls.size()];
+            int c = 0;
+            for (final Map.Entry<byte[], Long> entry: this.urls) {
+                if (c >= positions.length) break;
+                positions[c++] = entry.getValue().longValue() >>> 8;
+            }
+        }
+        return new Iterator<Request>() {
+            private int p = 0;
+            private byte[] last = null;
+            @Override
+            public boolean hasNext() {
+                return this.p < positions.length;
+            }
+            @Override
+            public Request next() {
+                if (this.p >= positions.length) throw new NoSuchElementException();
+                final long pos = positions[this.p++];
+                synchronized (FrontierBalancer.this) {
+                    if (FrontierBalancer.this.raf == null) return null;
+                    try {
+                        final byte[] row = read(pos, ROWSIZE);
+                        if (!live(row, pos)) return null;
+                        this.last = Arrays.copyOf(row, HASHSIZE);
+                        return new Request(Request.rowdef.newEntry(row));
+                    } catch (final IOException e) {
+                        return null;
+                    }
+                }
+            }
+            @Override
+            public void remove() {
+                if (this.last == null) throw new IllegalStateException();
+                synchronized (FrontierBalancer.this) {
+                    try {
+                        delete(this.last);
+                    } catch (final IOException e) {
+                        ConcurrentLog.logException(e);
+                    }
+                }
+                this.last = null;
+            }
+        };
+    }
+
+    /**
+     * get a list of domains that are currently maintained as domain stacks
+     * @return a map of clear text strings of host names to an integer array: {the size of the domain stack, guessed delta waiting time}
+     */
+    @Override
+    public Map<String, Integer[]> getDomainStackHosts(final RobotsTxt robots) {
+        final Map<String, Integer[]> map = new TreeMap<String, Integer[]>(); // we use a tree map to get a stable ordering
+        final List<HostStack> stacks;
+        synchronized (this) {
+            stacks = new ArrayList<HostStack>(this.hosts.values());
+        }
+        for (final HostStack hs: stacks) {
+            final int delta = Latency.waitingRemainingGuessed(hs.host, hs.hosthash, robots, ClientIdentification.yacyInternetCrawlerAgent);
+            map.put(hs.host + ":" + hs.port, new Integer[]{hs.size, delta});
+        }
+        return map;
+    }
+
+    /**
+     * get lists of crawl request entries for a specific host
+     * @param host
+     * @param maxcount
+     * @param maxtime
+     * @return a list of crawl loader requests
+     */
+    @Override
+    public List<Request> getDomainStackReferences(final String host, final int maxcount, final long maxtime) {
+        if (host == null) return new ArrayList<Request>(0);
+        final ArrayList<Request> cel = new ArrayList<Request>(Math.min(maxcount, 1000));
+        final long timeout = maxtime == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + maxtime;
+        try {
+            synchronized (this) {
+                HostStack hs = this.hosts.get(DigestURL.hosthash(host, host.startsWith("ftp.") ? 21 : 80));
+                if (hs == null) hs = this.hosts.get(DigestURL.hosthash(host, 443));
+                if (hs == null) return cel;
+                collect: for (final Positions p: hs.depths.values()) {
+                    for (int i = 0; i < p.size(); i++) {
+                        final long pos = p.get(i);
+                        final byte[] row = read(pos, ROWSIZE);
+                        if (live(row, pos)) cel.add(new Request(Request.rowdef.newEntry(row)));
+                        if (System.currentTimeMillis() > timeout || cel.size() >= maxcount) break collect;
+                    }
+                }
+            }
+        } catch (final MalformedURLException e) {
+            ConcurrentLog.logException(e);
+            return null;
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        }
+        return cel;
+    }
+
+}
@@ -36,6 +36,7 @@ package net.yacy.crawler.data;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.util.HashMap;
 import java.util.Map;
@@ -67,8 +68,62 @@ public final class Cache {
     private static long maxCacheSize = Long.MAX_VALUE;
     private static File cachePath = null;
     private static String prefix;
+    private static final AccessSketch accesses = new AccessSketch(1 << 20);
     public static final ConcurrentLog log = new ConcurrentLog("HTCACHE");
 
+    /**
+     * A compact, approximate count of recent accesses to cache entries in the style of TinyLFU:
+     * a count-min sketch of saturating 4-bit counters which are halved after a sample period
+     * so that the counts represent the recent popularity of an entry.
+     * The sketch is used to keep frequently accessed entries when the oldest BLOB file of the cache is evicted.
+     */
+    static final class AccessSketch implements ArrayStack.Retention {
+
+        static final int HOT = 2; // entries which had been accessed at least that often are retained
+        private final byte[] counters;
+        private final int mask, samplePeriod;
+        private int samples;
+
+        AccessSketch(final int size) {
+            this.counters = new byte[size];
+            this.mask = size - 1;
+            this.samplePeriod = size / 2;
+            this.samples = 0;
+        }
+
+        private static int hash(final byte[] key, final int seed) {
+            int h = seed;
+            for (final byte b: key) h = 31 * h + b;
+            h ^= h >>> 16;
+            h *= 0x85ebca6b;
+            h ^= h >>> 13;
+            return h;
+        }
+
+        synchronized void increment(final byte[] key) {
+            for (int i = 0; i < 4; i++) {
+                final int p = hash(key, i) & this.mask;
+                if (this.counters[p] < 15) this.counters[p]++;
+            }
+            if (++this.samples >= this.samplePeriod) {
+                // aging: halve all counters
+                for (int p = 0; p < this.counters.length; p++) this.counters[p] >>= 1;
+                this.samples = 0;
+            }
+        }
+
+        synchronized int frequency(final byte[] key) {
+            int f = 15;
+            for (int i = 0; i < 4; i++) f = Math.min(f, this.counters[hash(key, i) & this.mask]);
+            return f;
+        }
+
+        @Override
+        public boolean retain(final byte[] key) {
+            return frequency(key) >= HOT;
+        }
+    }
+
     public static void init(final File htCachePath, final String peerSalt, final long CacheSizeMax) {
 
         cachePath = htCachePath;
@@ -90,6 +145,7 @@ public final class Cache {
         // open the cache file
         try {
             fileDBunbuffered = new ArrayStack(new File(cachePath, FILE_DB_NAME), prefix, Base64Order.enhancedCoder, 12, 1024 * 1024 * 2, false, true);
+            fileDBunbuffered.setRetention(accesses);
             fileDBunbuffered.setMaxSize(maxCacheSize);
             fileDB = new Compressor(fileDBunbuffered, 6 * 1024 * 1024);
         } catch (final IOException e) {
@@ -292,6 +348,7 @@ public final class Cache {
         try {
             final byte[] b = fileDB.get(hash);
             if (b == null) return null;
+            accesses.increment(hash);
             return b;
         } catch (final UnsupportedEncodingException e) {
             ConcurrentLog.logException(e);
@@ -308,6 +365,27 @@ public final class Cache {
         }
     }
 
+    /**
+     * Returns the content of a cached resource as stream. Compressed content is decompressed
+     * while the stream is read and not copied to memory completely.
+     * @param hash the url hash of the requested resource
+     * @return the resource content as stream or null if no data is available
+     */
+    public static InputStream getContentStream(final byte[] hash) {
+        try {
+            final InputStream is = fileDB.getStream(hash);
+            if (is == null) return null;
+            accesses.increment(hash);
+            return is;
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+            return null;
+        } catch (final SpaceExceededException e) {
+            ConcurrentLog.logException(e);
+            return null;
+        }
+    }
+
     public static boolean hasContent(final byte[] hash) {
         // load the url as resource from the cache
         try {
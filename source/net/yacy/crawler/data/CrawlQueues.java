@@ -88,7 +88,7 @@ public class CrawlQueues {
         // start crawling management
         log.config("Starting Crawling Management");
         log.config("Opening noticeURL..");
-        this.noticeURL = new NoticedURL(queuePath, sb.getConfigInt("crawler.onDemandLimit", 1000), sb.exceed134217727);
+        this.noticeURL = new NoticedURL(queuePath, sb.getConfigInt("crawler.onDemandLimit", 1000), sb.exceed134217727, "log".equals(sb.getConfig("crawler.frontier", "hostqueues")));
         log.config("Opening errorURL..");
         this.errorURL = new ErrorCache(sb.index.fulltext());
         log.config("Opening delegatedURL..");
@@ -108,7 +108,7 @@ public class CrawlQueues {
         this.errorURL.clearCache();
         this.remoteCrawlProviderHashes.clear();
         this.noticeURL.close();
-        this.noticeURL = new NoticedURL(newQueuePath, sb.getConfigInt("crawler.onDemandLimit", 1000), this.sb.exceed134217727);
+        this.noticeURL = new NoticedURL(newQueuePath, sb.getConfigInt("crawler.onDemandLimit", 1000), this.sb.exceed134217727, "log".equals(this.sb.getConfig("crawler.frontier", "hostqueues")));
         this.delegatedURL.clear();
     }
 
@@ -41,6 +41,7 @@ import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.crawler.Balancer;
 import net.yacy.crawler.CrawlSwitchboard;
+import net.yacy.crawler.FrontierBalancer;
 import net.yacy.crawler.HostBalancer;
 import net.yacy.crawler.retrieval.Request;
 import net.yacy.crawler.robots.RobotsTxt;
@@ -61,19 +62,36 @@ public class NoticedURL {
     protected NoticedURL(
             final File cachePath,
             final int onDemandLimit,
-            final boolean exceed134217727) {
+            final boolean exceed134217727,
+            final boolean frontierLog) {
         ConcurrentLog.info("NoticedURL", "START CREATING STACKS at " + cachePath.toString());
         ConcurrentLog.info("NoticedURL", "opening CrawlerCoreStacks..");
-        this.coreStack = new HostBalancer(new File(cachePath, "CrawlerCoreStacks"), onDemandLimit, exceed134217727);
+        this.coreStack = openStack(new File(cachePath, "CrawlerCoreStacks"), onDemandLimit, exceed134217727, frontierLog);
         ConcurrentLog.info("NoticedURL", "opening CrawlerLimitStacks..");
-        this.limitStack = new HostBalancer(new File(cachePath, "CrawlerLimitStacks"), onDemandLimit, exceed134217727);
+        this.limitStack = openStack(new File(cachePath, "CrawlerLimitStacks"), onDemandLimit, exceed134217727, frontierLog);
         ConcurrentLog.info("NoticedURL", "opening CrawlerRemoteStacks..");
-        this.remoteStack = new HostBalancer(new File(cachePath, "CrawlerRemoteStacks"), onDemandLimit, exceed134217727);
+        this.remoteStack = openStack(new File(cachePath, "CrawlerRemoteStacks"), onDemandLimit, exceed134217727, frontierLog);
         ConcurrentLog.info("NoticedURL", "opening CrawlerNoLoadStacks..");
-        this.noloadStack = new HostBalancer(new File(cachePath, "CrawlerNoLoadStacks"), onDemandLimit, exceed134217727);
+        this.noloadStack = openStack(new File(cachePath, "CrawlerNoLoadStacks"), onDemandLimit, exceed134217727, frontierLog);
         ConcurrentLog.info("NoticedURL", "FINISHED CREATING STACKS at " + cachePath.toString());
     }
 
+    /**
+     * open a crawl stack either as set of host queues or as one log for all hosts
+     * @param stackPath
+     * @param onDemandLimit
+     * @param exceed134217727
+     * @param frontierLog if true, a FrontierBalancer is used, otherwise a HostBalancer
+     * @return the balancer for the stack
+     */
+    private static Balancer openStack(final File stackPath, final int onDemandLimit, final boolean exceed134217727, final boolean frontierLog) {
+        if (frontierLog) return new FrontierBalancer(stackPath, exceed134217727);
+        if (new File(stackPath, FrontierBalancer.logName).exists()) {
+            ConcurrentLog.warn("NoticedURL", "the frontier log in " + stackPath + " is not used because crawler.frontier is not set to log");
+        }
+        return new HostBalancer(stackPath, onDemandLimit, exceed134217727);
+    }
+
     public void clear() {
     	ConcurrentLog.info("NoticedURL", "CLEARING ALL STACKS");
     	if (this.coreStack != null) this.coreStack.clear();
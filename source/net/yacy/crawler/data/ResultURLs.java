@@ -30,8 +30,8 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
-import net.yacy.cora.sorting.ClusteredScoreMap;
 import net.yacy.cora.sorting.ScoreMap;
+import net.yacy.cora.sorting.StringScoreMap;
 import net.yacy.kelondro.util.ReverseMapIterator;
 
 public final class ResultURLs {
@@ -75,7 +75,7 @@ public final class ResultURLs {
     static {
         for (final EventOrigin origin: EventOrigin.values()) {
             resultStacks.put(origin, new LinkedHashMap<String, InitExecEntry>());
-            resultDomains.put(origin, new ClusteredScoreMap<String>(true));
+            resultDomains.put(origin, new StringScoreMap());
         }
     }
 
@@ -0,0 +1,166 @@
+/**
+ *  ThumbnailCache
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.crawler.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.order.Digest;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.blob.ArrayStack;
+
+/**
+ * A disk cache for scaled images, i.e. the thumbnails of the image search.
+ * Each entry is an image which is encoded in its target format; the key is computed from the hash of the
+ * image url and the rendering parameters (target size, format). The cache is limited in size: the oldest
+ * BLOB files are deleted when the limit is reached.
+ * Image search result pages request many thumbnails at once, and the same images are often requested
+ * concurrently by several clients. Concurrent requests for the same key are coalesced: only one of them
+ * renders the image, the others wait for the result.
+ */
+public final class ThumbnailCache {
+
+    private static final String FILE_DB_NAME = "thumbnail.array";
+
+    private static ArrayStack fileDB = null;
+    private static final ConcurrentHashMap<String, FutureTask<byte[]>> rendering = new ConcurrentHashMap<String, FutureTask<byte[]>>();
+    public static final ConcurrentLog log = new ConcurrentLog("THUMBNAILCACHE");
+
+    public static void init(final File htCachePath, final String peerSalt, final long cacheSizeMax) {
+        if (!htCachePath.exists()) htCachePath.mkdirs();
+        try {
+            fileDB = new ArrayStack(new File(htCachePath, FILE_DB_NAME), peerSalt, Base64Order.enhancedCoder, 12, 1024 * 1024, false, true);
+            fileDB.setMaxSize(cacheSizeMax);
+            log.info("initialized thumbnail cache, size = " + fileDB.size());
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+            fileDB = null;
+        }
+    }
+
+    /**
+     * This method changes the thumbnail cache size.<br>
+     * @param the new cache size in bytes
+     */
+    public static void setMaxCacheSize(final long newCacheSize) {
+        if (fileDB != null) fileDB.setMaxSize(newCacheSize);
+    }
+
+    /**
+     * clear the cache
+     */
+    public static void clear() {
+        if (fileDB == null) return;
+        try {
+            fileDB.clear();
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        }
+    }
+
+    /**
+     * close the database
+     */
+    public static void close() {
+        if (fileDB != null) fileDB.close(true);
+        fileDB = null;
+    }
+
+    /**
+     * compute the key of a cache entry
+     * @param urlhash the hash of the image url
+     * @param variant a description of all parameters which change the rendered image, i.e. size and format
+     * @return a key of length 12
+     */
+    public static byte[] key(final byte[] urlhash, final String variant) {
+        return ASCII.getBytes(Base64Order.enhancedCoder.encode(Digest.encodeMD5Raw(ASCII.String(urlhash) + " " + variant)).substring(0, 12));
+    }
+
+    /**
+     * get a rendered image from the cache; if it is not in the cache, render and store it.
+     * If the same image is rendered already by another thread, this waits for its result.
+     * @param key the key as computed with key()
+     * @param renderer computes the encoded image; may return null if the image cannot be rendered
+     * @return the encoded image or null if the image cannot be rendered
+     */
+    public static byte[] get(final byte[] key, final Callable<byte[]> renderer) {
+        byte[] b = lookup(key);
+        if (b != null) return b;
+
+        final String k = ASCII.String(key);
+        final FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws Exception {
+                // another thread may have finished the same image just before this task was registered
+                final byte[] c = lookup(key);
+                if (c != null) return c;
+                final byte[] r = renderer.call();
+                if (r != null) store(key, r);
+                return r;
+            }
+        });
+        FutureTask<byte[]> running = rendering.putIfAbsent(k, task);
+        if (running == null) {
+            running = task;
+            try {
+                task.run();
+            } finally {
+                rendering.remove(k, task);
+            }
+        }
+        try {
+            return running.get();
+        } catch (final InterruptedException e) {
+            return null;
+        } catch (final ExecutionException e) {
+            log.warn("cannot render image: " + e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    private static byte[] lookup(final byte[] key) {
+        final ArrayStack db = fileDB;
+        if (db == null) return null;
+        try {
+            return db.get(key);
+        } catch (final IOException | SpaceExceededException e) {
+            return null;
+        }
+    }
+
+    private static void store(final byte[] key, final byte[] image) {
+        final ArrayStack db = fileDB;
+        if (db == null) return;
+        try {
+            db.insert(key, image);
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        }
+    }
+
+}
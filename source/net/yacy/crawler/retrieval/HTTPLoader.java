@@ -25,6 +25,7 @@
 package net.yacy.crawler.retrieval;
 
 import java.io.IOException;
+import java.util.Map;
 
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.federate.solr.FailCategory;
@@ -35,6 +36,7 @@ import net.yacy.cora.protocol.ResponseHeader;
 import net.yacy.cora.protocol.http.HTTPClient;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.crawler.CrawlSwitchboard;
+import net.yacy.crawler.data.Cache;
 import net.yacy.crawler.data.CrawlProfile;
 import net.yacy.crawler.data.Latency;
 import net.yacy.kelondro.io.ByteCount;
@@ -68,15 +70,25 @@ public final class HTTPLoader {
     }
 
     public Response load(final Request entry, CrawlProfile profile, final int maxFileSize, final BlacklistType blacklistType, final ClientIdentification.Agent agent) throws IOException {
+        return load(entry, profile, maxFileSize, blacklistType, agent, null);
+    }
+
+    /**
+     * load a resource; if a cached response header is given, the request is made conditional
+     * with the ETag and Last-Modified values of that header. If the server answers with 304 Not Modified,
+     * the content is taken from the cache and the response is marked as not modified.
+     * @param cachedResponse the response header of the cached content or null if the content is not cached
+     */
+    public Response load(final Request entry, CrawlProfile profile, final int maxFileSize, final BlacklistType blacklistType, final ClientIdentification.Agent agent, final ResponseHeader cachedResponse) throws IOException {
         // load fulltext of html page
         Latency.updateBeforeLoad(entry.url());
         final long start = System.currentTimeMillis();
-        final Response doc = load(entry, profile, DEFAULT_CRAWLING_RETRY_COUNT, maxFileSize, blacklistType, agent);
+        final Response doc = load(entry, profile, DEFAULT_CRAWLING_RETRY_COUNT, maxFileSize, blacklistType, agent, cachedResponse);
         Latency.updateAfterLoad(entry.url(), System.currentTimeMillis() - start);
         return doc;
     }
 
-    private Response load(final Request request, CrawlProfile profile, final int retryCount, final int maxFileSize, final BlacklistType blacklistType, final ClientIdentification.Agent agent) throws IOException {
+    private Response load(final Request request, CrawlProfile profile, final int retryCount, final int maxFileSize, final BlacklistType blacklistType, final ClientIdentification.Agent agent, final ResponseHeader cachedResponse) throws IOException {
 
         if (retryCount < 0) {
             this.sb.crawlQueues.errorURL.push(request.url(), request.depth(), profile, FailCategory.TEMPORARY_NETWORK_FAILURE, "retry counter exceeded", -1);
@@ -122,6 +134,14 @@ public final class HTTPLoader {
         requestHeader.put(HeaderFramework.ACCEPT_CHARSET, this.sb.getConfig("crawler.http.acceptCharset", DEFAULT_CHARSET));
         requestHeader.put(HeaderFramework.ACCEPT_ENCODING, this.sb.getConfig("crawler.http.acceptEncoding", DEFAULT_ENCODING));
 
+        // revalidate the cached content
+        if (cachedResponse != null) {
+            final String etag = cachedResponse.get(HeaderFramework.ETAG);
+            if (etag != null) requestHeader.put(RequestHeader.IF_NONE_MATCH, etag.trim());
+            final String lastModified = cachedResponse.get(HeaderFramework.LAST_MODIFIED);
+            if (lastModified != null) requestHeader.put(RequestHeader.IF_MODIFIED_SINCE, lastModified.trim());
+        }
+
         // HTTP-Client
         final HTTPClient client = new HTTPClient(agent);
         client.setRedirecting(false); // we want to handle redirection ourselves, so we don't index pages twice
@@ -134,6 +154,32 @@ public final class HTTPLoader {
     	final ResponseHeader responseHeader = new ResponseHeader(statusCode, client.getHttpResponse().getAllHeaders());
         String requestURLString = request.url().toNormalform(true);
 
+        // check revalidation
+        if (statusCode == 304 && cachedResponse != null) {
+            final byte[] content = Cache.getContent(request.url().hash());
+            if (content != null) {
+                // take the cached header and update it with the new values, i.e. Date, Expires and Cache-Control
+                final ResponseHeader revalidatedHeader = new ResponseHeader(null, cachedResponse);
+                for (final Map.Entry<String, String> entry: responseHeader.entrySet()) {
+                    if (entry.getKey().equals(HeaderFramework.STATUS_CODE) || entry.getKey().equals(HeaderFramework.CONTENT_LENGTH)) continue;
+                    revalidatedHeader.put(entry.getKey(), entry.getValue());
+                }
+                this.log.info("CRAWLER revalidated unchanged URL " + requestURLString);
+                response = new Response(
+                        request,
+                        requestHeader,
+                        revalidatedHeader,
+                        profile,
+                        true,
+                        content
+                );
+                response.setNotModified();
+                return response;
+            }
+            // the cache lost the content in the meantime; load it again without condition
+            return load(request, profile, retryCount - 1, maxFileSize, blacklistType, agent, null);
+        }
+
         // check redirection
     	if (statusCode > 299 && statusCode < 310) {
 
@@ -177,7 +223,7 @@ public final class HTTPLoader {
 
                 // retry crawling with new url
                 request.redirectURL(redirectionUrl);
-                return load(request, profile, retryCount - 1, maxFileSize, blacklistType, agent);
+                return load(request, profile, retryCount - 1, maxFileSize, blacklistType, agent, null);
     	    }
             // we don't want to follow redirects
             this.sb.crawlQueues.errorURL.push(request.url(), request.depth(), profile, FailCategory.FINAL_PROCESS_CONTEXT, "redirection not wanted", statusCode);
@@ -69,6 +69,8 @@ public class Response {
     private        byte[]             content;
     private        int                status;          // tracker indexing status, see status defs below
     private final  boolean            fromCache;
+    private        boolean            notModified;     // true if a revalidation of the cached content was answered with 304 Not Modified
+    private        boolean            linksOnly;       // true if the document is only parsed to stack its links; the index entry is up to date
 
     /**
      * doctype calculation by file extension
@@ -223,6 +225,30 @@ public class Response {
         this.status = newStatus;
     }
 
+    /**
+     * mark the content as not modified since the last load: a conditional request was answered with
+     * 304 Not Modified and the content was taken from the cache
+     */
+    public void setNotModified() {
+        this.notModified = true;
+    }
+
+    public boolean notModified() {
+        return this.notModified;
+    }
+
+    /**
+     * mark the document as already indexed: it is parsed to stack its links into the crawler, but it is not
+     * indexed again
+     */
+    public void setLinksOnly() {
+        this.linksOnly = true;
+    }
+
+    public boolean linksOnly() {
+        return this.linksOnly;
+    }
+
     public ResponseHeader getResponseHeader() {
         return this.responseHeader;
     }
@@ -0,0 +1,127 @@
+/**
+ *  CharTokenizer
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document;
+
+import java.util.Locale;
+
+/**
+ * A tokenizer which splits a text into lower-case words without creating objects for the words.
+ * The words are the same as the words of a WordTokenizer on a SentenceReader: sequences of characters which are
+ * neither punctuation nor invisible (see SentenceReader). Instead of a StringBuilder for each sentence and for each
+ * word, the current word is written into a buffer which is reused for all words; a tokenizer can be reused for any
+ * number of texts.
+ */
+public final class CharTokenizer {
+
+    private final static int INITIAL_LENGTH = 64;
+    private final static int MAX_RETAINED_LENGTH = 4096; // a buffer which grew larger for a very long word is not retained by reset()
+
+    private CharSequence text;
+    private int pos;
+    private char[] buffer;
+    private int length;
+
+    public CharTokenizer() {
+        this.text = null;
+        this.pos = 0;
+        this.buffer = new char[INITIAL_LENGTH];
+        this.length = 0;
+    }
+
+    /**
+     * start to tokenize a new text
+     * @param text
+     */
+    public void reset(final CharSequence text) {
+        this.text = text;
+        this.pos = 0;
+        this.length = 0;
+        if (this.buffer.length > MAX_RETAINED_LENGTH) this.buffer = new char[INITIAL_LENGTH];
+    }
+
+    /**
+     * read the next word
+     * @return true if a word was read, false at the end of the text
+     */
+    public boolean next() {
+        if (this.text == null) return false;
+        final int textLength = this.text.length();
+        boolean special = false; // true if the word contains characters which must be lower-cased with String.toLowerCase()
+        int p = this.pos;
+        this.length = 0;
+
+        // skip separators
+        while (p < textLength && separator(this.text.charAt(p))) p++;
+        if (p >= textLength) {
+            this.pos = p;
+            this.text = null;
+            return false;
+        }
+
+        // read the word and write it lower-cased into the buffer
+        final int start = p;
+        while (p < textLength) {
+            final char c = this.text.charAt(p);
+            if (separator(c)) break;
+            if (c == '\u0130' || c == '\u03A3') special = true;
+            if (this.length == this.buffer.length) grow(this.length + 1);
+            this.buffer[this.length++] = c < 128 ? (c >= 'A' && c <= 'Z' ? (char) (c + 32) : c) : Character.toLowerCase(c);
+            p++;
+        }
+        this.pos = p;
+
+        if (special) {
+            // these characters are not mapped to single characters or depend on their context
+            final String lc = this.text.subSequence(start, p).toString().toLowerCase(Locale.ENGLISH);
+            if (lc.length() > this.buffer.length) grow(lc.length());
+            lc.getChars(0, lc.length(), this.buffer, 0);
+            this.length = lc.length();
+        }
+        return true;
+    }
+
+    /**
+     * @return the buffer which contains the current word, lower-cased, from position 0 to length() - 1.
+     * The content of the buffer is overwritten with the next word.
+     */
+    public char[] buffer() {
+        return this.buffer;
+    }
+
+    /**
+     * @return the length of the current word
+     */
+    public int length() {
+        return this.length;
+    }
+
+    private void grow(final int minLength) {
+        final char[] b = new char[Math.max(minLength, this.buffer.length * 2)];
+        System.arraycopy(this.buffer, 0, b, 0, this.length);
+        this.buffer = b;
+    }
+
+    private static boolean separator(final char c) {
+        // control characters are replaced by spaces in the SentenceReader
+        return c < ' ' || SentenceReader.punctuation(c) || SentenceReader.invisible(c);
+    }
+
+}
@@ -31,7 +31,6 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
@@ -48,6 +47,7 @@ import net.yacy.cora.document.id.AnchorURL;
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.cora.federate.solr.Ranking;
+import net.yacy.cora.language.synonyms.AutotaggingMatcher;
 import net.yacy.cora.language.synonyms.SynonymLibrary;
 import net.yacy.cora.lod.vocabulary.Tagging;
 import net.yacy.cora.util.CommonPattern;
@@ -75,8 +75,24 @@ public final class Condenser {
     public  static final int flag_cat_hasvideo      = 22; // the page refers to (at least one) videos
     public  static final int flag_cat_hasapp        = 23; // the page refers to (at least one) application file
 
+    // the term table and the tokenizer are reused for all documents which are condensed in the same thread
+    private final static ThreadLocal<TermTable> localTerms = new ThreadLocal<TermTable>() {
+        @Override
+        protected TermTable initialValue() {
+            return new TermTable();
+        }
+    };
+    private final static ThreadLocal<CharTokenizer> localTokenizer = new ThreadLocal<CharTokenizer>() {
+        @Override
+        protected CharTokenizer initialValue() {
+            return new CharTokenizer();
+        }
+    };
+
     //private Properties analysis;
     private final Map<String, Word> words; // a string (the words) to (indexWord) - relation
+    private final TermTable terms = localTerms.get(); // the words while the document is condensed, together with their Word objects
+    private final CharTokenizer tokenizer = localTokenizer.get();
     private final Map<String, Set<Tagging.Metatag>> tags = new HashMap<String, Set<Tagging.Metatag>>(); // a set of tags, discovered from Autotagging
     private final Set<String> synonyms; // a set of synonyms to the words
     private long fuzzy_signature = 0, exact_signature = 0; // signatures for double-check detection
@@ -104,6 +120,7 @@ public final class Condenser {
         // if addMedia == true, then all the media links are also parsed and added to the words
         // added media words are flagged with the appropriate media flag
         this.words = new HashMap<String, Word>();
+        this.terms.clear();
         this.synonyms = new LinkedHashSet<String>();
         this.RESULT_FLAGS = new Bitfield(4);
         this.dates_in_content = new LinkedHashSet<Date>();
@@ -119,7 +136,7 @@ public final class Condenser {
         this.languageIdentificator = new Identificator();
 
         // add the URL components to the word list
-        insertTextToWords(new SentenceReader(document.dc_source().toTokens()), 0, WordReferenceRow.flag_app_dc_identifier, this.RESULT_FLAGS, false, meaningLib);
+        insertTextToWords(document.dc_source().toTokens(), 0, WordReferenceRow.flag_app_dc_identifier, this.RESULT_FLAGS, false, meaningLib);
 
         Map.Entry<AnchorURL, String> entry;
         if (indexText) {
@@ -138,17 +155,17 @@ public final class Condenser {
             // phrase  98 is taken from the embedded anchor/hyperlinks description (REMOVED!)
             // phrase  99 is taken from the media Link url and anchor description
             // phrase 100 and above are lines from the text
-            insertTextToWords(new SentenceReader(document.dc_title()),       1, WordReferenceRow.flag_app_dc_title, this.RESULT_FLAGS, true, meaningLib);
+            insertTextToWords(document.dc_title(),       1, WordReferenceRow.flag_app_dc_title, this.RESULT_FLAGS, true, meaningLib);
             for (String description: document.dc_description()) {
-                insertTextToWords(new SentenceReader(description), 3, WordReferenceRow.flag_app_dc_description, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(description, 3, WordReferenceRow.flag_app_dc_description, this.RESULT_FLAGS, true, meaningLib);
             }
-            insertTextToWords(new SentenceReader(document.dc_creator()),     4, WordReferenceRow.flag_app_dc_creator, this.RESULT_FLAGS, true, meaningLib);
-            insertTextToWords(new SentenceReader(document.dc_publisher()),   5, WordReferenceRow.flag_app_dc_creator, this.RESULT_FLAGS, true, meaningLib);
-            insertTextToWords(new SentenceReader(document.dc_subject(' ')),  6, WordReferenceRow.flag_app_dc_description, this.RESULT_FLAGS, true, meaningLib);
+            insertTextToWords(document.dc_creator(),     4, WordReferenceRow.flag_app_dc_creator, this.RESULT_FLAGS, true, meaningLib);
+            insertTextToWords(document.dc_publisher(),   5, WordReferenceRow.flag_app_dc_creator, this.RESULT_FLAGS, true, meaningLib);
+            insertTextToWords(document.dc_subject(' '),  6, WordReferenceRow.flag_app_dc_description, this.RESULT_FLAGS, true, meaningLib);
             // missing: tags!
             final String[] titles = document.getSectionTitles();
             for (int i = 0; i < titles.length; i++) {
-                insertTextToWords(new SentenceReader(titles[i]), i + 10, WordReferenceRow.flag_app_emphasized, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(titles[i], i + 10, WordReferenceRow.flag_app_emphasized, this.RESULT_FLAGS, true, meaningLib);
             }
 
             // anchors: for text indexing we add only the anchor description
@@ -178,24 +195,24 @@ public final class Condenser {
             Iterator<Map.Entry<AnchorURL, String>> i = document.getAudiolinks().entrySet().iterator();
             while (i.hasNext()) {
                 entry = i.next();
-                insertTextToWords(new SentenceReader(entry.getKey().toNormalform(true)), 99, flag_cat_hasaudio, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(entry.getValue()), 99, flag_cat_hasaudio, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(entry.getKey().toNormalform(true), 99, flag_cat_hasaudio, this.RESULT_FLAGS, false, meaningLib);
+                insertTextToWords(entry.getValue(), 99, flag_cat_hasaudio, this.RESULT_FLAGS, true, meaningLib);
             }
 
             // video
             i = document.getVideolinks().entrySet().iterator();
             while (i.hasNext()) {
                 entry = i.next();
-                insertTextToWords(new SentenceReader(entry.getKey().toNormalform(true)), 99, flag_cat_hasvideo, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(entry.getValue()), 99, flag_cat_hasvideo, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(entry.getKey().toNormalform(true), 99, flag_cat_hasvideo, this.RESULT_FLAGS, false, meaningLib);
+                insertTextToWords(entry.getValue(), 99, flag_cat_hasvideo, this.RESULT_FLAGS, true, meaningLib);
             }
 
             // applications
             i = document.getApplinks().entrySet().iterator();
             while (i.hasNext()) {
                 entry = i.next();
-                insertTextToWords(new SentenceReader(entry.getKey().toNormalform(true)), 99, flag_cat_hasapp, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(entry.getValue()), 99, flag_cat_hasapp, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(entry.getKey().toNormalform(true), 99, flag_cat_hasapp, this.RESULT_FLAGS, false, meaningLib);
+                insertTextToWords(entry.getValue(), 99, flag_cat_hasapp, this.RESULT_FLAGS, true, meaningLib);
             }
 
             // images
@@ -206,8 +223,8 @@ public final class Condenser {
                 ientry = j.next();
                 url = ientry.url();
                 if (url == null) continue;
-                insertTextToWords(new SentenceReader(url.toNormalform(true)), 99, flag_cat_hasimage, this.RESULT_FLAGS, false, meaningLib);
-                insertTextToWords(new SentenceReader(ientry.alt()), 99, flag_cat_hasimage, this.RESULT_FLAGS, true, meaningLib);
+                insertTextToWords(url.toNormalform(true), 99, flag_cat_hasimage, this.RESULT_FLAGS, false, meaningLib);
+                insertTextToWords(ientry.alt(), 99, flag_cat_hasimage, this.RESULT_FLAGS, true, meaningLib);
             }
 
             // finally check all words for missing flag entry
@@ -224,6 +241,8 @@ public final class Condenser {
             }
         }
 
+        finishTerms(meaningLib);
+
         // extend the tags in the document object with autotagging tags
         if (!this.tags.isEmpty()) {
             document.addMetatags(this.tags);
@@ -256,42 +275,60 @@ public final class Condenser {
         this.languageIdentificator = null; // we don't need that here
         // analysis = new Properties();
         this.words = new TreeMap<String, Word>();
+        this.terms.clear();
         this.synonyms = new HashSet<String>();
         createCondensement(root, text, meaningLib, doAutotagging, scraper);
+        finishTerms(meaningLib);
     }
 
     private void insertTextToWords(
-            final SentenceReader text,
+            final String text,
             final int phrase,
             final int flagpos,
             final Bitfield flagstemplate,
             final boolean useForLanguageIdentification,
             final WordCache meaningLib) {
         if (text == null) return;
-        String word;
+        final CharTokenizer tokenizer = this.tokenizer;
+        tokenizer.reset(text);
+        int pip = 0;
+        int id, len;
         Word wprop;
-        WordTokenizer wordenum = new WordTokenizer(text, meaningLib);
-        try {
-	        int pip = 0;
-	        while (wordenum.hasMoreElements()) {
-	            word = (wordenum.nextElement().toString()).toLowerCase(Locale.ENGLISH);
-	            if (useForLanguageIdentification) this.languageIdentificator.add(word);
-	            if (word.length() < 2) continue;
-	            wprop = this.words.get(word);
-	            if (wprop == null) wprop = new Word(0, pip, phrase);
-	            if (wprop.flags == null) wprop.flags = flagstemplate.clone();
-	            wprop.flags.set(flagpos, true);
-	            this.words.put(word.toLowerCase(), wprop);
-	            pip++;
-	            this.RESULT_NUMB_WORDS++;
-	            //this.RESULT_DIFF_WORDS++;
-	        }
-        } finally {
-        	wordenum.close();
-        	wordenum = null;
+        while (tokenizer.next()) {
+            len = tokenizer.length();
+            if (useForLanguageIdentification) this.languageIdentificator.add(tokenizer.buffer(), 0, len);
+            id = this.terms.put(tokenizer.buffer(), len);
+            if (len < 2) continue;
+            wprop = this.terms.word(id);
+            if (wprop == null) {
+                wprop = new Word(0, pip, phrase);
+                putWord(id, wprop);
+            }
+            if (wprop.flags == null) wprop.flags = flagstemplate.clone();
+            wprop.flags.set(flagpos, true);
+            pip++;
+            this.RESULT_NUMB_WORDS++;
+            //this.RESULT_DIFF_WORDS++;
         }
     }
 
+    private void putWord(final int id, final Word wprop) {
+        this.terms.word(id, wprop);
+        this.words.put(this.terms.term(id), wprop);
+    }
+
+    /**
+     * learn the words for the word cache and release the term table
+     * @param meaningLib
+     */
+    private void finishTerms(final WordCache meaningLib) {
+        if (meaningLib != null) {
+            for (int id = 0; id < this.terms.size(); id++) WordCache.learn(this.terms.term(id), this.terms.count(id));
+        }
+        this.terms.clear();
+        this.tokenizer.reset(null);
+    }
+
     public int excludeWords(final SortedSet<String> stopwords) {
         // subtracts the given stopwords from the word list
         // the word list shrinkes. This returns the number of shrinked words
@@ -329,12 +366,8 @@ public final class Condenser {
 
     private void createCondensement(final DigestURL root, final String text, final WordCache meaningLib, boolean doAutotagging, final VocabularyScraper scraper) {
         assert text != null;
-        final Set<String> currsentwords = new HashSet<String>();
         String word = "";
-        String[] wordcache = new String[LibraryProvider.autotagging.getMaxWordsInTerm() - 1];
-        for (int i = 0; i < wordcache.length; i++) wordcache[i] = "";
         String k;
-        Tagging.Metatag tag;
         int wordlen;
         Word wsp;
         final Word wsp1;
@@ -348,105 +381,84 @@ public final class Condenser {
         //final Map<StringBuilder, Phrase> sentences = new HashMap<StringBuilder, Phrase>(100);
         if (LibraryProvider.autotagging.isEmpty()) doAutotagging = false;
 
+        // prepare autotagging
+        Set<String> vocabularyNames = null;
+        AutotaggingMatcher matcher = null;
+        int tagState = 0;
+        if (doAutotagging) {
+            vocabularyNames = LibraryProvider.autotagging.getVocabularyNames();
+            Map<String, String> vocMap = scraper == null ? null : scraper.removeVocMap(root);
+            if (vocMap != null && vocMap.size() > 0) {
+                for (Map.Entry<String, String> entry: vocMap.entrySet()) {
+                    String navigatorName = entry.getKey();
+                    String term = entry.getValue();
+                    vocabularyNames.remove(navigatorName); // prevent that this is used again for auto-annotation
+                    Tagging vocabulary = LibraryProvider.autotagging.getVocabulary(navigatorName);
+                    if (vocabulary != null) {
+                        // extend the vocabulary
+                        String obj = vocabulary.getObjectlink(term);
+                        if (obj == null) try {vocabulary.put(term, "", root.toNormalform(true));} catch (IOException e) {} // this makes IO, be careful!
+                        // create annotation
+                        Tagging.Metatag tag = vocabulary.getMetatagFromTerm(term);
+                        Set<Tagging.Metatag> tagset = new HashSet<>();
+                        tagset.add(tag);
+                        this.tags.put(navigatorName, tagset);
+                    }
+                }
+            }
+            matcher = LibraryProvider.autotagging.getMatcher();
+            if (vocabularyNames.isEmpty() || matcher.isEmpty()) doAutotagging = false;
+            tagState = matcher.start();
+        }
+
         // read source
-        WordTokenizer wordenum = new WordTokenizer(new SentenceReader(text), meaningLib);
-        try {
-	        while (wordenum.hasMoreElements()) {
-	            word = wordenum.nextElement().toString().toLowerCase(Locale.ENGLISH);
-	            if (this.languageIdentificator != null) this.languageIdentificator.add(word);
-	            if (word.length() < wordminsize) continue;
-
-	            // get tags from autotagging
-	            if (doAutotagging) {
-	                Set<String> vocabularyNames = LibraryProvider.autotagging.getVocabularyNames();
-	                //Collection<Tagging> vocabularies = LibraryProvider.autotagging.getVocabularies();
-	                //assert vocabularyNames.size() == vocabularies.size();
-	                Map<String, String> vocMap = scraper == null ? null : scraper.removeVocMap(root);
-	                if (vocMap != null && vocMap.size() > 0) {
-	                    for (Map.Entry<String, String> entry: vocMap.entrySet()) {
-	                        String navigatorName = entry.getKey();
-	                        String term = entry.getValue();
-	                        vocabularyNames.remove(navigatorName); // prevent that this is used again for auto-annotation
-	                        Tagging vocabulary = LibraryProvider.autotagging.getVocabulary(navigatorName);
-	                        if (vocabulary != null) {
-	                            // extend the vocabulary
-	                            String obj = vocabulary.getObjectlink(term);
-	                            if (obj == null) try {vocabulary.put(term, "", root.toNormalform(true));} catch (IOException e) {} // this makes IO, be careful!
-	                            // create annotation
-	                            tag = vocabulary.getMetatagFromTerm(term);
-	                            Set<Tagging.Metatag> tagset = new HashSet<>();
-	                            tagset.add(tag);
-	                            this.tags.put(navigatorName, tagset);
-	                        }
-	                    }
-	                }
-	            	if (vocabularyNames.size() > 0) for (int wordc = 1; wordc <= wordcache.length + 1; wordc++) {
-	            		// wordc is number of words that are tested
-	            		StringBuilder sb = new StringBuilder();
-	            		if (wordc == 1) {
-	            			sb.append(word);
-	            		} else {
-	            			for (int w = 0; w < wordc - 1; w++) {
-	            				sb.append(wordcache[wordcache.length - wordc + w + 1]).append(' ');
-	            			}
-	            			sb.append(word);
-	            		}
-	            		String testterm = sb.toString().trim();
-	            		//System.out.println("Testing: " + testterm);
-		                tag = LibraryProvider.autotagging.getTagFromTerm(vocabularyNames, testterm);
-		                if (tag != null) {
-		                    String navigatorName = tag.getVocabularyName();
-		                    Set<Tagging.Metatag> tagset = this.tags.get(navigatorName);
-		                    if (tagset == null) {
-		                        tagset = new HashSet<Tagging.Metatag>();
-		                        this.tags.put(navigatorName, tagset);
-		                    }
-	                        tagset.add(tag);
-		                }
-	            	}
-	            }
-	            // shift wordcache
-	            System.arraycopy(wordcache, 1, wordcache, 0, wordcache.length - 1);
-	            wordcache[wordcache.length - 1] = word;
-
-	            // distinguish punctuation and words
-	            wordlen = word.length();
-	            if (wordlen == 1 && SentenceReader.punctuation(word.charAt(0))) { // TODO: wordlen == 1 never true (see earlier if < wordminsize )
-	                // store sentence
-	                currsentwords.clear();
-	                wordInSentenceCounter = 1;
-	            } else {
-	                // check index.of detection
-	                if (last_last && comb_indexof && word.equals("modified")) {
-	                    this.RESULT_FLAGS.set(flag_cat_indexof, true);
-	                    wordenum.pre(true); // parse lines as they come with CRLF
-	                }
-	                if (last_index && (wordminsize > 2 || word.equals("of"))) comb_indexof = true;
-	                last_last = word.equals("last");
-	                last_index = word.equals("index");
-
-	                // store word
-	                allwordcounter++;
-	                currsentwords.add(word);
-	                wsp = this.words.get(word);
-	                if (wsp != null) {
-	                    // word already exists
-	                    wordHandle = wsp.posInText;
-	                    wsp.inc();
-	                } else {
-	                    // word does not yet exist, create new word entry
-	                    wordHandle = wordHandleCount++;
-	                    wsp = new Word(wordHandle, wordInSentenceCounter, /* sentences.size() + */ 100);
-	                    wsp.flags = this.RESULT_FLAGS.clone();
-	                    this.words.put(word.toLowerCase(), wsp);
-	                }
-	                // we now have the unique handle of the word, put it into the sentence:
-	                wordInSentenceCounter++;
-	            }
-	        }
-        } finally {
-        	wordenum.close();
-        	wordenum = null;
+        final CharTokenizer tokenizer = this.tokenizer;
+        tokenizer.reset(text);
+        int id;
+        while (tokenizer.next()) {
+            wordlen = tokenizer.length();
+            if (this.languageIdentificator != null) this.languageIdentificator.add(tokenizer.buffer(), 0, wordlen);
+            id = this.terms.put(tokenizer.buffer(), wordlen);
+            if (wordlen < wordminsize) continue;
+            word = this.terms.term(id);
+
+            // get tags from autotagging: the matcher finds all synonyms which end with this word
+            if (doAutotagging) {
+                tagState = matcher.next(tagState, word);
+                for (final Tagging.Metatag tag: matcher.tags(tagState)) {
+                    final String navigatorName = tag.getVocabularyName();
+                    if (!vocabularyNames.contains(navigatorName)) continue;
+                    Set<Tagging.Metatag> tagset = this.tags.get(navigatorName);
+                    if (tagset == null) {
+                        tagset = new HashSet<Tagging.Metatag>();
+                        this.tags.put(navigatorName, tagset);
+                    }
+                    tagset.add(tag);
+                }
+            }
+
+            // check index.of detection
+            if (last_last && comb_indexof && word.equals("modified")) {
+                this.RESULT_FLAGS.set(flag_cat_indexof, true);
+            }
+            if (last_index && (wordminsize > 2 || word.equals("of"))) comb_indexof = true;
+            last_last = word.equals("last");
+            last_index = word.equals("index");
+
+            // store word
+            allwordcounter++;
+            wsp = this.terms.word(id);
+            if (wsp != null) {
+                // word already exists
+                wsp.inc();
+            } else {
+                // word does not yet exist, create new word entry
+                wordHandle = wordHandleCount++;
+                wsp = new Word(wordHandle, wordInSentenceCounter, /* sentences.size() + */ 100);
+                wsp.flags = this.RESULT_FLAGS.clone();
+                putWord(id, wsp);
+            }
+            wordInSentenceCounter++;
         }
 
         if (pseudostemming) {
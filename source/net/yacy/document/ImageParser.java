@@ -24,12 +24,71 @@ import java.awt.Container;
 import java.awt.Image;
 import java.awt.MediaTracker;
 import java.awt.Toolkit;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
 
 import net.yacy.document.parser.images.bmpParser;
 import net.yacy.document.parser.images.icoParser;
 
 public class ImageParser {
 
+    /**
+     * parse an image which is shown at most with a given size.
+     * Large images are decoded with a subsampling of the source pixels: this is much faster and needs much less
+     * memory than decoding the full image and scaling it down afterwards. The subsampled image is still at least
+     * twice as large as the target size, so that it can be scaled down smoothly.
+     * @param filename
+     * @param source
+     * @param maxwidth the maximum width of the shown image, 0 if not limited
+     * @param maxheight the maximum height of the shown image, 0 if not limited
+     * @return the image or null if the image cannot be parsed
+     */
+    public static final Image parse(final String filename, final byte[] source, final int maxwidth, final int maxheight) {
+        if ((maxwidth > 0 || maxheight > 0) && !filename.endsWith(".ico") && !filename.endsWith(".bmp")) {
+            final Image image = parseSubsampled(source, maxwidth, maxheight);
+            if (image != null) return image;
+        }
+        return parse(filename, source);
+    }
+
+    /**
+     * decode an image with ImageIO and a source subsampling
+     * @return the subsampled image or null if the image is too small for a subsampling or cannot be decoded with ImageIO
+     */
+    private static final BufferedImage parseSubsampled(final byte[] source, final int maxwidth, final int maxheight) {
+        final ImageInputStream iis = new MemoryCacheImageInputStream(new ByteArrayInputStream(source));
+        ImageReader reader = null;
+        try {
+            final Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) return null;
+            reader = readers.next();
+            reader.setInput(iis, true, true);
+            final int w = reader.getWidth(0);
+            final int h = reader.getHeight(0);
+            final int sw = maxwidth > 0 ? w / (2 * maxwidth) : Integer.MAX_VALUE;
+            final int sh = maxheight > 0 ? h / (2 * maxheight) : Integer.MAX_VALUE;
+            final int subsampling = Math.min(sw, sh);
+            if (subsampling < 2) return null; // not worth it; decode the full image
+            final ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            return reader.read(0, param);
+        } catch (final IOException | RuntimeException e) {
+            // i.e. unsupported color spaces, which the awt toolkit can handle
+            return null;
+        } finally {
+            if (reader != null) reader.dispose();
+            try {iis.close();} catch (final IOException e) {}
+        }
+    }
+
     public static final Image parse(final String filename, final byte[] source) {
         final MediaTracker mediaTracker = new MediaTracker(new Container());
         Image image;
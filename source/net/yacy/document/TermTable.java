@@ -0,0 +1,191 @@
+/**
+ *  TermTable
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document;
+
+import java.util.Arrays;
+
+import net.yacy.kelondro.data.word.Word;
+
+/**
+ * A table of the terms of a document, keyed by the characters of the terms.
+ * Each term gets an id, which is the position of the term in the order of insertion. A term is looked up with
+ * the characters from a buffer (see CharTokenizer); only a new term creates a String. The table is a hash table with
+ * open addressing over arrays; all characters are stored in one array. A table can be cleared and reused for the
+ * next document, so the memory for the terms is allocated only once per thread and not for each document.
+ */
+public final class TermTable {
+
+    private final static int INITIAL_TERMS = 1024;
+    private final static int MAX_RETAINED_TERMS = 64 * 1024; // a table which grew larger is not retained by clear()
+    private final static int MAX_RETAINED_CHARS = MAX_RETAINED_TERMS * 8; // the same for the characters, i.e. after very long terms
+
+    private int[] slots;     // open addressing: id + 1 or 0 for an empty slot
+    private char[] chars;    // the characters of all terms
+    private int charsSize;
+    private int[] offsets;   // the position of the term in chars
+    private int[] lengths;
+    private int[] hashes;
+    private int[] counts;    // the number of put() calls for the term
+    private String[] terms;
+    private Word[] words;
+    private int size;
+
+    public TermTable() {
+        init(INITIAL_TERMS);
+    }
+
+    private void init(final int capacity) {
+        this.slots = new int[capacity * 2];
+        this.chars = new char[capacity * 8];
+        this.charsSize = 0;
+        this.offsets = new int[capacity];
+        this.lengths = new int[capacity];
+        this.hashes = new int[capacity];
+        this.counts = new int[capacity];
+        this.terms = new String[capacity];
+        this.words = new Word[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * remove all terms
+     */
+    public void clear() {
+        if (this.offsets.length > MAX_RETAINED_TERMS || this.chars.length > MAX_RETAINED_CHARS) {
+            init(INITIAL_TERMS);
+            return;
+        }
+        Arrays.fill(this.slots, 0);
+        Arrays.fill(this.terms, 0, this.size, null);
+        Arrays.fill(this.words, 0, this.size, null);
+        this.charsSize = 0;
+        this.size = 0;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * count a term and get its id
+     * @param b a buffer which contains the term
+     * @param len the length of the term in the buffer
+     * @return the id of the term; a new id if the term was not in the table before
+     */
+    public int put(final char[] b, final int len) {
+        int h = 0;
+        for (int i = 0; i < len; i++) h = 31 * h + b[i];
+        final int hash = h ^ (h >>> 16);
+        int mask = this.slots.length - 1;
+        int p = hash & mask;
+        int s;
+        while ((s = this.slots[p]) != 0) {
+            final int id = s - 1;
+            if (this.hashes[id] == hash && equals(id, b, len)) {
+                this.counts[id]++;
+                return id;
+            }
+            p = (p + 1) & mask;
+        }
+
+        // a new term
+        if (this.size == this.offsets.length) {
+            grow();
+            mask = this.slots.length - 1;
+            p = hash & mask;
+            while (this.slots[p] != 0) p = (p + 1) & mask;
+        }
+        if (this.charsSize + len > this.chars.length) {
+            this.chars = Arrays.copyOf(this.chars, Math.max(this.charsSize + len, this.chars.length * 2));
+        }
+        final int id = this.size++;
+        System.arraycopy(b, 0, this.chars, this.charsSize, len);
+        this.offsets[id] = this.charsSize;
+        this.lengths[id] = len;
+        this.hashes[id] = hash;
+        this.counts[id] = 1;
+        this.terms[id] = new String(b, 0, len);
+        this.words[id] = null;
+        this.charsSize += len;
+        this.slots[p] = id + 1;
+        return id;
+    }
+
+    private boolean equals(final int id, final char[] b, final int len) {
+        if (this.lengths[id] != len) return false;
+        final int offset = this.offsets[id];
+        for (int i = 0; i < len; i++) {
+            if (this.chars[offset + i] != b[i]) return false;
+        }
+        return true;
+    }
+
+    private void grow() {
+        final int capacity = this.offsets.length * 2;
+        this.offsets = Arrays.copyOf(this.offsets, capacity);
+        this.lengths = Arrays.copyOf(this.lengths, capacity);
+        this.hashes = Arrays.copyOf(this.hashes, capacity);
+        this.counts = Arrays.copyOf(this.counts, capacity);
+        this.terms = Arrays.copyOf(this.terms, capacity);
+        this.words = Arrays.copyOf(this.words, capacity);
+        this.slots = new int[capacity * 2];
+        final int mask = this.slots.length - 1;
+        for (int id = 0; id < this.size; id++) {
+            int p = this.hashes[id] & mask;
+            while (this.slots[p] != 0) p = (p + 1) & mask;
+            this.slots[p] = id + 1;
+        }
+    }
+
+    /**
+     * @param id
+     * @return the term with the given id
+     */
+    public String term(final int id) {
+        return this.terms[id];
+    }
+
+    /**
+     * @param id
+     * @return the number of occurrences of the term
+     */
+    public int count(final int id) {
+        return this.counts[id];
+    }
+
+    /**
+     * @param id
+     * @return the word properties which are attached to the term; null if not set
+     */
+    public Word word(final int id) {
+        return this.words[id];
+    }
+
+    /**
+     * attach word properties to a term
+     * @param id
+     * @param word
+     */
+    public void word(final int id, final Word word) {
+        this.words[id] = word;
+    }
+
+}
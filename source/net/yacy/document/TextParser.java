@@ -37,6 +37,7 @@ import net.yacy.cora.document.encoding.UTF8;
 import net.yacy.cora.document.id.AnchorURL;
 import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.cora.util.CommonPattern;
+import net.yacy.cora.util.Metrics;
 import net.yacy.document.parser.apkParser;
 import net.yacy.document.parser.audioTagParser;
 import net.yacy.document.parser.bzipParser;
@@ -278,11 +279,14 @@ public final class TextParser {
         assert parser != null;
 
         if (AbstractParser.log.isFine()) AbstractParser.log.fine("Parsing " + location + " with mimeType '" + mimeType + "' and file extension '" + fileExt + "'.");
+        final long startNanos = System.nanoTime();
         try {
             final Document[] docs = parser.parse(location, mimeType, documentCharset, scraper, timezoneOffset, sourceStream);
             return docs;
         } catch (final Exception e) {
             throw new Parser.Failure("parser failed: " + parser.getName(), location);
+        } finally {
+            Metrics.histogram("parser", mimeType).recordSince(startNanos);
         }
     }
 
@@ -314,6 +318,7 @@ public final class TextParser {
             	} else {
             	    bis = new ByteArrayInputStream(sourceArray);
             	}
+                final long startNanos = System.nanoTime();
                 try {
                     docs = parser.parse(location, mimeType, documentCharset, scraper, timezoneOffset, bis);
                 } catch (final Parser.Failure e) {
@@ -323,6 +328,7 @@ public final class TextParser {
                     failedParser.put(parser, new Parser.Failure(e.getMessage(), location));
                     //log.logWarning("tried parser '" + parser.getName() + "' to parse " + location.toNormalform(true, false) + " but failed: " + e.getMessage(), e);
                 } finally {
+                    Metrics.histogram("parser", mimeType).recordSince(startNanos);
                 	try {
                 		bis.close();
                 	} catch(IOException ioe) {
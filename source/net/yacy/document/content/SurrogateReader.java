@@ -73,6 +73,7 @@ public class SurrogateReader extends DefaultHandler implements Runnable {
     private SAXParser saxParser;
     private final InputSource inputSource;
     private final InputStream inputStream;
+    private final boolean ownQueue;
 
     private static final ThreadLocal<SAXParser> tlSax = new ThreadLocal<SAXParser>();
     private static SAXParser getParser() throws SAXException {
@@ -89,11 +90,28 @@ public class SurrogateReader extends DefaultHandler implements Runnable {
     }
     
     public SurrogateReader(final InputStream stream, int queueSize) throws IOException {
+        this(stream, new ArrayBlockingQueue<DCEntry>(queueSize), true);
+    }
+
+    /**
+     * create a reader which writes the surrogates into a queue that is shared with other readers.
+     * The reader does not write a poison entry into the queue at the end of the stream,
+     * that must be done by the owner of the queue after all readers have terminated.
+     * @param stream
+     * @param surrogates
+     * @throws IOException
+     */
+    public SurrogateReader(final InputStream stream, final BlockingQueue<DCEntry> surrogates) throws IOException {
+        this(stream, surrogates, false);
+    }
+
+    private SurrogateReader(final InputStream stream, final BlockingQueue<DCEntry> surrogates, final boolean ownQueue) throws IOException {
         this.buffer = new StringBuilder(300);
         this.parsingValue = false;
         this.surrogate = null;
         this.elementName = null;
-        this.surrogates = new ArrayBlockingQueue<DCEntry>(queueSize);
+        this.surrogates = surrogates;
+        this.ownQueue = ownQueue;
         
         Reader reader = new BufferedReader(new InputStreamReader(stream, "UTF-8"));
         this.inputSource = new InputSource(reader);
@@ -119,7 +137,7 @@ public class SurrogateReader extends DefaultHandler implements Runnable {
         } catch (final IOException e) {
             ConcurrentLog.logException(e);
         } finally {
-        	try {
+        	if (this.ownQueue) try {
 				this.surrogates.put(DCEntry.poison);
 			} catch (final InterruptedException e1) {
 			    ConcurrentLog.logException(e1);
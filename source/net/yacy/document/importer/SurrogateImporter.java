@@ -0,0 +1,339 @@
+/**
+ *  SurrogateImporter
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document.importer;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.crawler.retrieval.Request;
+import net.yacy.crawler.retrieval.Response;
+import net.yacy.document.Document;
+import net.yacy.document.content.DCEntry;
+import net.yacy.document.content.SurrogateReader;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
+import net.yacy.search.IndexingQueueEntry;
+import net.yacy.search.Switchboard;
+
+/**
+ * Import of a surrogate file (xml, xml.gz or xml.zip) into the indexing queue.
+ * The file is streamed; the entries of a zip file are read concurrently by several readers.
+ * All readers write the parsed records into one queue which is worked off by several workers
+ * that check the domain acceptance of a batch of records and enqueue them for indexing.
+ */
+public class SurrogateImporter implements Importer {
+
+    private final static ConcurrentLog log = new ConcurrentLog("SurrogateImporter");
+    private final static int BATCH_SIZE = 100;
+
+    public static Importer job; // the surrogate import of the indexer, shown on the import status page
+
+    private final Switchboard sb;
+    private final File sourcefile;
+    private final int workers;
+    private final AtomicInteger count, rejected;
+    private final AtomicLong consumed; // the number of bytes of the source file which had been read
+    private long start;
+    private volatile boolean running;
+    private boolean terminated;
+
+    public SurrogateImporter(final Switchboard sb, final File sourcefile) {
+        this.sb = sb;
+        this.sourcefile = sourcefile;
+        this.workers = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+        this.count = new AtomicInteger(0);
+        this.rejected = new AtomicInteger(0);
+        this.consumed = new AtomicLong(0);
+        this.start = 0;
+        this.running = false;
+        this.terminated = false;
+    }
+
+    @Override
+    public String source() {
+        return this.sourcefile.getAbsolutePath();
+    }
+
+    @Override
+    public int count() {
+        return this.count.get();
+    }
+
+    /**
+     * return the number of records per second
+     */
+    @Override
+    public int speed() {
+        if (this.count.get() == 0) return 0;
+        return (int) (this.count.get() / Math.max(1L, runningTime()));
+    }
+
+    @Override
+    public long runningTime() {
+        return (System.currentTimeMillis() - this.start) / 1000L;
+    }
+
+    /**
+     * return the remaining seconds for the completion of the import, estimated with the fraction of the file that had been read
+     */
+    @Override
+    public long remainingTime() {
+        final long c = this.consumed.get();
+        if (c == 0) return 0;
+        return Math.max(0, this.sourcefile.length() - c) * runningTime() / c;
+    }
+
+    @Override
+    public String status() {
+        return this.count.get() + " records imported, " + this.rejected.get() + " rejected, " + speed() + " records/s, " + remainingTime() + " s remaining";
+    }
+
+    @Override
+    public boolean isAlive() {
+        return this.running;
+    }
+
+    @Override
+    public void start() {
+        new Thread(this, "SurrogateImporter " + this.sourcefile.getName()).start();
+    }
+
+    /**
+     * @return true if the import was cancelled because the peer terminates
+     */
+    public boolean terminated() {
+        return this.terminated;
+    }
+
+    @Override
+    public void run() {
+        this.running = true;
+        this.start = System.currentTimeMillis();
+        final BlockingQueue<DCEntry> records = new ArrayBlockingQueue<DCEntry>(this.workers * BATCH_SIZE);
+        final ExecutorService service = Executors.newCachedThreadPool(new NamePrefixThreadFactory("SurrogateImporter"));
+        final List<Future<?>> workerResults = new ArrayList<Future<?>>(this.workers);
+        for (int i = 0; i < this.workers; i++) workerResults.add(service.submit(new Worker(records)));
+        try {
+            final String name = this.sourcefile.getName();
+            if (name.endsWith(".zip")) {
+                readZip(records);
+            } else {
+                InputStream is = new BufferedInputStream(new ProgressInputStream(new FileInputStream(this.sourcefile)), 1024 * 1024);
+                if (name.endsWith(".gz")) is = new GZIPInputStream(is);
+                new SurrogateReader(is, records).run();
+            }
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        } finally {
+            try {
+                records.put(DCEntry.poison);
+                for (final Future<?> f: workerResults) f.get();
+            } catch (final Exception e) {
+                ConcurrentLog.logException(e);
+            }
+            service.shutdown();
+            this.running = false;
+        }
+        this.terminated = this.sb.shallTerminate();
+        log.info("imported " + this.count.get() + " records from " + this.sourcefile.getName() + " in " + runningTime() + " seconds (" + speed() + " records/s), " + this.rejected.get() + " rejected" + (this.terminated ? "; import cancelled" : ""));
+    }
+
+    /**
+     * read all entries of a zip file concurrently
+     */
+    private void readZip(final BlockingQueue<DCEntry> records) throws IOException {
+        final ZipFile zip = new ZipFile(this.sourcefile);
+        final ExecutorService readers = Executors.newFixedThreadPool(this.workers, new NamePrefixThreadFactory("SurrogateImporter.reader"));
+        try {
+            final List<Future<?>> readerResults = new ArrayList<Future<?>>();
+            final Enumeration<? extends ZipEntry> entries = zip.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) continue;
+                readerResults.add(readers.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            final InputStream is = new BufferedInputStream(zip.getInputStream(entry), 64 * 1024);
+                            new SurrogateReader(new TerminationInputStream(is), records).run();
+                        } catch (final IOException e) {
+                            ConcurrentLog.logException(e);
+                        }
+                        SurrogateImporter.this.consumed.addAndGet(Math.max(0, entry.getCompressedSize()));
+                    }
+                }));
+            }
+            for (final Future<?> f: readerResults) {
+                try {
+                    f.get();
+                } catch (final Exception e) {
+                    ConcurrentLog.logException(e);
+                }
+            }
+        } finally {
+            readers.shutdown();
+            zip.close();
+        }
+    }
+
+    /**
+     * a worker takes batches of records from the queue, checks the domain acceptance of the batch at once
+     * and enqueues the accepted records to the condenser
+     */
+    private class Worker implements Runnable {
+
+        private final BlockingQueue<DCEntry> records;
+
+        private Worker(final BlockingQueue<DCEntry> records) {
+            this.records = records;
+        }
+
+        @Override
+        public void run() {
+            final List<DCEntry> batch = new ArrayList<DCEntry>(BATCH_SIZE);
+            final List<DigestURL> urls = new ArrayList<DigestURL>(BATCH_SIZE);
+            boolean poisoned = false;
+            try {
+                while (!poisoned) {
+                    batch.clear();
+                    batch.add(this.records.take());
+                    this.records.drainTo(batch, BATCH_SIZE - 1);
+                    urls.clear();
+                    for (final DCEntry surrogate: batch) {
+                        if (surrogate == DCEntry.poison) {
+                            poisoned = true;
+                            continue;
+                        }
+                        urls.add(surrogate.getIdentifier(true));
+                    }
+                    final Map<DigestURL, String> rejects = SurrogateImporter.this.sb.crawlStacker.urlsInAcceptedDomain(urls);
+                    for (final DCEntry surrogate: batch) {
+                        if (surrogate == DCEntry.poison) continue;
+                        if (SurrogateImporter.this.sb.shallTerminate()) continue; // drain the queue to let the readers terminate
+                        final DigestURL url = surrogate.getIdentifier(true);
+                        final String urlRejectReason = url == null ? "url is null" : rejects.get(url);
+                        if (urlRejectReason != null) {
+                            log.warn("Rejected URL '" + url + "': " + urlRejectReason);
+                            SurrogateImporter.this.rejected.incrementAndGet();
+                            continue;
+                        }
+                        try {
+                            enqueue(url, surrogate);
+                        } catch (final RuntimeException e) {
+                            log.warn("cannot import '" + url + "': " + e.getMessage());
+                            SurrogateImporter.this.rejected.incrementAndGet();
+                            continue;
+                        }
+                        final int c = SurrogateImporter.this.count.incrementAndGet();
+                        if (c % 10000 == 0) log.info(SurrogateImporter.this.sourcefile.getName() + ": " + status());
+                    }
+                }
+                // let the other workers terminate as well
+                this.records.put(DCEntry.poison);
+            } catch (final InterruptedException e) {
+                ConcurrentLog.logException(e);
+            }
+        }
+
+        private void enqueue(final DigestURL url, final DCEntry surrogate) {
+            final Switchboard sb = SurrogateImporter.this.sb;
+            final Document document = surrogate.document();
+            final Request request = new Request(
+                    ASCII.getBytes(sb.peers.mySeed().hash),
+                    url,
+                    null,
+                    "",
+                    surrogate.getDate(),
+                    sb.crawler.defaultSurrogateProfile.handle(),
+                    0,
+                    sb.crawler.defaultSurrogateProfile.timezoneOffset());
+            final Response response = new Response(request, null, null, sb.crawler.defaultSurrogateProfile, false, null);
+            sb.indexingCondensementProcessor.enQueue(new IndexingQueueEntry(response, new Document[] {document}, null));
+        }
+    }
+
+    /**
+     * a stream that stops reading when the peer terminates
+     */
+    private class TerminationInputStream extends FilterInputStream {
+
+        private TerminationInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (SurrogateImporter.this.sb.shallTerminate()) throw new IOException("import terminated");
+            return super.read();
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (SurrogateImporter.this.sb.shallTerminate()) throw new IOException("import terminated");
+            return super.read(b, off, len);
+        }
+    }
+
+    /**
+     * a stream that counts the bytes that had been read from the source file and stops reading when the peer terminates
+     */
+    private class ProgressInputStream extends TerminationInputStream {
+
+        private ProgressInputStream(final InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b >= 0) SurrogateImporter.this.consumed.incrementAndGet();
+            return b;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            final int n = super.read(b, off, len);
+            if (n > 0) SurrogateImporter.this.consumed.addAndGet(n);
+            return n;
+        }
+    }
+
+}
@@ -0,0 +1,339 @@
+/**
+ *  WarcImporter
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document.importer;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.yacy.cora.date.GenericFormatter;
+import net.yacy.cora.date.ISO8601Formatter;
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.protocol.RequestHeader;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.crawler.data.CrawlProfile;
+import net.yacy.crawler.retrieval.Request;
+import net.yacy.crawler.retrieval.Response;
+import net.yacy.kelondro.util.FileUtils;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
+import net.yacy.search.Switchboard;
+
+/**
+ * Import of WARC and ARC web archives into the index. The archive is read as a stream by one reader;
+ * the http response records are converted into Response objects by several workers and passed to the
+ * indexer like crawled documents. Memory is bounded by the size of the record queue and the maximum content size.
+ * The import can be resumed at the offset that is returned by resumeOffset(); it is stored if the import is cancelled
+ * or if the archive cannot be read to its end.
+ */
+public class WarcImporter implements Importer {
+
+    private final static ConcurrentLog log = new ConcurrentLog("WarcImporter");
+    private final static Long POISON = Long.valueOf(-1);
+
+    public static Importer job; // the archive import of the indexer, shown on the import status page
+
+    private final Switchboard sb;
+    private final File sourcefile;
+    private final long startOffset;
+    private final int maxContentSize, workers;
+    private final AtomicInteger count, rejected;
+    private final ConcurrentSkipListSet<Long> inFlight; // offsets of records which are read but not yet indexed
+    private volatile long readOffset;
+    private long start;
+    private volatile boolean running;
+    private boolean terminated, failed;
+
+    /**
+     * @param sb
+     * @param sourcefile a WARC or ARC file, either uncompressed or compressed with a gzip member per record (name ending with .gz)
+     * @param offset the offset of the first record to import, 0 to import the whole file
+     * @param maxContentSize the maximum size of a record; larger records are skipped
+     */
+    public WarcImporter(final Switchboard sb, final File sourcefile, final long offset, final int maxContentSize) {
+        this.sb = sb;
+        this.sourcefile = sourcefile;
+        this.startOffset = offset;
+        this.maxContentSize = maxContentSize;
+        this.workers = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+        this.count = new AtomicInteger(0);
+        this.rejected = new AtomicInteger(0);
+        this.inFlight = new ConcurrentSkipListSet<Long>();
+        this.readOffset = offset;
+        this.start = 0;
+        this.running = false;
+        this.terminated = false;
+        this.failed = false;
+    }
+
+    @Override
+    public String source() {
+        return this.sourcefile.getAbsolutePath();
+    }
+
+    @Override
+    public int count() {
+        return this.count.get();
+    }
+
+    /**
+     * return the number of documents per second
+     */
+    @Override
+    public int speed() {
+        if (this.count.get() == 0) return 0;
+        return (int) (this.count.get() / Math.max(1L, runningTime()));
+    }
+
+    @Override
+    public long runningTime() {
+        return (System.currentTimeMillis() - this.start) / 1000L;
+    }
+
+    /**
+     * return the remaining seconds for the completion of the import, estimated with the fraction of the file that had been read
+     */
+    @Override
+    public long remainingTime() {
+        final long done = this.readOffset - this.startOffset;
+        if (done <= 0) return 0;
+        return Math.max(0, this.sourcefile.length() - this.readOffset) * runningTime() / done;
+    }
+
+    @Override
+    public String status() {
+        return this.count.get() + " documents imported, " + this.rejected.get() + " rejected, " + speed() + " documents/s, " + remainingTime() + " s remaining, resume offset " + resumeOffset();
+    }
+
+    /**
+     * @return the offset in the archive file where an interrupted import can be continued without losing records
+     */
+    public long resumeOffset() {
+        try {
+            return this.inFlight.first().longValue();
+        } catch (final java.util.NoSuchElementException e) {
+            return this.readOffset;
+        }
+    }
+
+    /**
+     * @param file a file name
+     * @return true if the file is a web archive which can be imported
+     */
+    public static boolean isArchive(final String file) {
+        return file.endsWith(".warc") || file.endsWith(".warc.gz") || file.endsWith(".arc") || file.endsWith(".arc.gz");
+    }
+
+    /**
+     * get the offset where a cancelled import of the given file shall be continued
+     * @param sourcefile
+     * @return the stored resume offset or 0 if the file was not imported before
+     */
+    public static long storedResumeOffset(final File sourcefile) {
+        final File f = resumeFile(sourcefile);
+        if (!f.exists()) return 0;
+        try {
+            return Long.parseLong(UTF8.String(FileUtils.read(f)).trim());
+        } catch (final IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static File resumeFile(final File sourcefile) {
+        return new File(sourcefile.getParentFile(), sourcefile.getName() + ".resume");
+    }
+
+    /**
+     * @return true if the import was cancelled because the peer terminates
+     */
+    public boolean terminated() {
+        return this.terminated;
+    }
+
+    /**
+     * @return true if the archive could not be read to its end, i.e. because of a corrupt record
+     */
+    public boolean failed() {
+        return this.failed;
+    }
+
+    /**
+     * move an archive together with its stored resume offset into another directory
+     * @param sourcefile the archive
+     * @param dir the target directory
+     * @return true if the archive was moved
+     */
+    public static boolean move(final File sourcefile, final File dir) {
+        dir.mkdirs();
+        final File resume = resumeFile(sourcefile);
+        final File target = new File(dir, sourcefile.getName());
+        if (!sourcefile.renameTo(target)) return false;
+        if (resume.exists()) resume.renameTo(resumeFile(target));
+        return true;
+    }
+
+    @Override
+    public boolean isAlive() {
+        return this.running;
+    }
+
+    @Override
+    public void start() {
+        new Thread(this, "WarcImporter " + this.sourcefile.getName()).start();
+    }
+
+    @Override
+    public void run() {
+        this.running = true;
+        this.start = System.currentTimeMillis();
+        final BlockingQueue<Object> records = new ArrayBlockingQueue<Object>(this.workers * 4);
+        final ExecutorService service = Executors.newFixedThreadPool(this.workers, new NamePrefixThreadFactory("WarcImporter"));
+        final List<Future<?>> workerResults = new ArrayList<Future<?>>(this.workers);
+        for (int i = 0; i < this.workers; i++) workerResults.add(service.submit(new Worker(records)));
+        WarcReader reader = null;
+        try {
+            reader = new WarcReader(this.sourcefile, this.startOffset, this.maxContentSize);
+            WarcReader.Record record;
+            while (!this.sb.shallTerminate() && (record = reader.next()) != null) {
+                this.readOffset = reader.offset();
+                if (!record.isHttpResponse()) continue;
+                this.inFlight.add(record.offset());
+                records.put(record);
+            }
+        } catch (final IOException e) {
+            this.failed = true;
+            log.warn("import of " + this.sourcefile.getName() + " stopped at offset " + resumeOffset() + ": " + e.getMessage());
+        } catch (final InterruptedException e) {
+            ConcurrentLog.logException(e);
+        } finally {
+            if (reader != null) try {reader.close();} catch (final IOException e) {}
+            try {
+                records.put(POISON);
+                for (final Future<?> f: workerResults) f.get();
+            } catch (final Exception e) {
+                ConcurrentLog.logException(e);
+            }
+            service.shutdown();
+            this.running = false;
+        }
+        // store the resume offset if the import was cancelled or failed
+        this.terminated = this.sb.shallTerminate();
+        final File resume = resumeFile(this.sourcefile);
+        if (this.terminated || this.failed) try {
+            FileUtils.copy(UTF8.getBytes(Long.toString(resumeOffset())), resume);
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        } else if (resume.exists()) {
+            FileUtils.deletedelete(resume);
+        }
+        log.info("imported " + this.count.get() + " documents from " + this.sourcefile.getName() + " in " + runningTime() + " seconds (" + speed() + " documents/s), " + this.rejected.get() + " rejected" +
+                 (this.terminated ? "; import cancelled, resume at offset " + resumeOffset() : "") +
+                 (this.failed ? "; import failed, resume at offset " + resumeOffset() : ""));
+    }
+
+    /**
+     * a worker parses the http responses of the records and passes them to the indexer
+     */
+    private class Worker implements Runnable {
+
+        private final BlockingQueue<Object> records;
+
+        private Worker(final BlockingQueue<Object> records) {
+            this.records = records;
+        }
+
+        @Override
+        public void run() {
+            try {
+                Object o;
+                while ((o = this.records.take()) != POISON) {
+                    final WarcReader.Record record = (WarcReader.Record) o;
+                    try {
+                        final String error = index(record);
+                        if (error == null) {
+                            final int c = WarcImporter.this.count.incrementAndGet();
+                            if (c % 10000 == 0) log.info(WarcImporter.this.sourcefile.getName() + ": " + status());
+                        } else {
+                            WarcImporter.this.rejected.incrementAndGet();
+                            if (log.isFine()) log.fine("rejected " + record.targetURI() + ": " + error);
+                        }
+                    } catch (final IOException e) {
+                        WarcImporter.this.rejected.incrementAndGet();
+                        if (log.isFine()) log.fine("cannot import " + record.targetURI() + ": " + e.getMessage());
+                    } finally {
+                        WarcImporter.this.inFlight.remove(record.offset());
+                    }
+                }
+                // let the other workers terminate as well
+                this.records.put(POISON);
+            } catch (final InterruptedException e) {
+                ConcurrentLog.logException(e);
+            }
+        }
+
+        private String index(final WarcReader.Record record) throws IOException {
+            final DigestURL url;
+            try {
+                url = new DigestURL(record.targetURI());
+            } catch (final MalformedURLException e) {
+                return "bad url";
+            }
+            final WarcReader.HttpResponse http = WarcReader.parseHttpResponse(record, WarcImporter.this.maxContentSize);
+            if (http.header.getStatusCode() != 200) return "http status " + http.header.getStatusCode();
+            final Switchboard sb = WarcImporter.this.sb;
+            final CrawlProfile profile = sb.crawler.defaultSurrogateProfile;
+            final Request request = new Request(
+                    ASCII.getBytes(sb.peers.mySeed().hash),
+                    url,
+                    null,
+                    "",
+                    archiveDate(record),
+                    profile.handle(),
+                    0,
+                    profile.timezoneOffset());
+            final Response response = new Response(request, new RequestHeader(), http.header, profile, false, http.content);
+            return sb.toIndexer(response);
+        }
+    }
+
+    private static Date archiveDate(final WarcReader.Record record) {
+        final String date = record.date();
+        if (date != null) try {
+            return date.indexOf('-') > 0 ?
+                    ISO8601Formatter.FORMATTER.parse(date, 0).getTime() :
+                    GenericFormatter.SHORT_SECOND_FORMATTER.parse(date, 0).getTime();
+        } catch (final ParseException e) {}
+        return new Date();
+    }
+
+}
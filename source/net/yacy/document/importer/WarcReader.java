@@ -0,0 +1,431 @@
+/**
+ *  WarcReader
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.document.importer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.protocol.HeaderFramework;
+import net.yacy.cora.protocol.ResponseHeader;
+import net.yacy.server.http.ChunkedInputStream;
+
+/**
+ * A streaming reader for WARC (ISO 28500) and ARC web archive files.
+ * Files may be uncompressed or compressed with one gzip member per record (*.warc.gz, *.arc.gz).
+ * Records are read one after another with bounded memory: the content of records which are larger
+ * than a given limit is skipped. Each record knows its offset in the file; a reader can be opened
+ * at such an offset to resume an interrupted import.
+ */
+public class WarcReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileInputStream file;
+    private final boolean gzip;
+    private final int maxContentSize;
+    private final byte[] buffer;
+    private int pos, len;
+    private long bufferOffset; // the file offset of buffer[0]
+    private boolean eof;
+
+    /**
+     * A record of a web archive
+     */
+    public static class Record {
+        private final long offset;
+        private final Map<String, String> header;
+        private final byte[] content;
+        private final long contentLength;
+
+        private Record(final long offset, final Map<String, String> header, final byte[] content, final long contentLength) {
+            this.offset = offset;
+            this.header = header;
+            this.content = content;
+            this.contentLength = contentLength;
+        }
+
+        /**
+         * @return the offset of the record in the archive file
+         */
+        public long offset() {
+            return this.offset;
+        }
+
+        /**
+         * @return the record header; for ARC records the fields of the url record line are mapped to the WARC names
+         */
+        public Map<String, String> header() {
+            return this.header;
+        }
+
+        /**
+         * @return the WARC-Type of the record, i.e. "response", "request" or "warcinfo"
+         */
+        public String type() {
+            return this.header.get("WARC-Type");
+        }
+
+        public String targetURI() {
+            return this.header.get("WARC-Target-URI");
+        }
+
+        public String date() {
+            return this.header.get("WARC-Date");
+        }
+
+        /**
+         * @return the content block of the record or null if the content was larger than the limit of the reader
+         */
+        public byte[] content() {
+            return this.content;
+        }
+
+        public long contentLength() {
+            return this.contentLength;
+        }
+
+        /**
+         * @return true if this is a http response record with content
+         */
+        public boolean isHttpResponse() {
+            if (this.content == null || !"response".equals(type())) return false;
+            final String ct = this.header.get(HeaderFramework.CONTENT_TYPE);
+            return ct == null || ct.startsWith("application/http");
+        }
+    }
+
+    /**
+     * A http response which is contained in a response record
+     */
+    public static class HttpResponse {
+        public final ResponseHeader header;
+        public final byte[] content;
+
+        private HttpResponse(final ResponseHeader header, final byte[] content) {
+            this.header = header;
+            this.content = content;
+        }
+    }
+
+    /**
+     * open a reader
+     * @param file the archive file; a file name ending with .gz is read as a sequence of gzip members
+     * @param offset the offset of the first record which shall be read, 0 to read the whole file
+     * @param maxContentSize the maximum size of a record content; the content of larger records is skipped
+     * @throws IOException
+     */
+    public WarcReader(final File file, final long offset, final int maxContentSize) throws IOException {
+        this.file = new FileInputStream(file);
+        this.gzip = file.getName().endsWith(".gz");
+        this.maxContentSize = maxContentSize;
+        this.buffer = new byte[BUFFER_SIZE];
+        this.pos = 0;
+        this.len = 0;
+        this.eof = false;
+        if (offset > 0) this.file.getChannel().position(offset);
+        this.bufferOffset = offset;
+    }
+
+    /**
+     * @return the offset of the next record in the file
+     */
+    public long offset() {
+        return this.bufferOffset + this.pos;
+    }
+
+    /**
+     * read the next record
+     * @return the next record or null if the end of the file is reached
+     * @throws IOException
+     */
+    public Record next() throws IOException {
+        if (this.gzip) {
+            skipPadding();
+            if (!fill()) return null;
+            final long offset = offset();
+            final MemberInputStream member = new MemberInputStream();
+            try {
+                final Record record = readRecord(member, offset);
+                // read the remaining bytes of the member to find the start of the next member
+                final byte[] b = new byte[1024];
+                while (member.read(b, 0, b.length) >= 0) {}
+                return record;
+            } finally {
+                member.end();
+            }
+        }
+        skipNewlines();
+        return readRecord(this.raw, offset());
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.file.close();
+    }
+
+    /**
+     * parse the http response which is the content of a response record
+     * @param record
+     * @param maxContentSize
+     * @return the response header and the decoded content
+     * @throws IOException if the content is not a valid http response
+     */
+    public static HttpResponse parseHttpResponse(final Record record, final int maxContentSize) throws IOException {
+        final InputStream is = new ByteArrayInputStream(record.content());
+        final String status = readLine(is);
+        if (status == null || !status.startsWith("HTTP/")) throw new IOException("not a http response: " + status);
+        final String[] s = status.split(" ", 3);
+        int code;
+        try {
+            code = s.length > 1 ? Integer.parseInt(s[1]) : 0;
+        } catch (final NumberFormatException e) {
+            throw new IOException("bad http status line: " + status);
+        }
+        final ResponseHeader header = new ResponseHeader(code);
+        String line;
+        while ((line = readLine(is)) != null && line.length() > 0) {
+            final int p = line.indexOf(':');
+            if (p > 0) header.put(line.substring(0, p).trim(), line.substring(p + 1).trim());
+        }
+        InputStream body = is;
+        if ("chunked".equalsIgnoreCase(header.get(HeaderFramework.TRANSFER_ENCODING))) body = new ChunkedInputStream(body);
+        if (HeaderFramework.CONTENT_ENCODING_GZIP.equalsIgnoreCase(header.get(HeaderFramework.CONTENT_ENCODING))) body = new GZIPInputStream(body);
+        final ByteArrayOutputStream content = new ByteArrayOutputStream(Math.min(record.content().length, maxContentSize));
+        final byte[] b = new byte[4096];
+        int n;
+        while ((n = body.read(b)) > 0) {
+            if (content.size() + n > maxContentSize) throw new IOException("content exceeds " + maxContentSize + " bytes");
+            content.write(b, 0, n);
+        }
+        // the content was decoded, therefore the encoding headers do not apply any more
+        header.remove(HeaderFramework.TRANSFER_ENCODING);
+        header.remove(HeaderFramework.CONTENT_ENCODING);
+        header.remove(HeaderFramework.CONTENT_LENGTH);
+        return new HttpResponse(header, content.toByteArray());
+    }
+
+    private Record readRecord(final InputStream is, final long offset) throws IOException {
+        // skip empty lines which are left from the end of the previous record
+        String line;
+        do {
+            line = readLine(is);
+            if (line == null) return null;
+        } while (line.length() == 0);
+
+        final Map<String, String> header = new LinkedHashMap<String, String>();
+        long length;
+        if (line.startsWith("WARC/")) {
+            while ((line = readLine(is)) != null && line.length() > 0) {
+                final int p = line.indexOf(':');
+                if (p > 0) header.put(line.substring(0, p).trim(), line.substring(p + 1).trim());
+            }
+            try {
+                length = Long.parseLong(header.get(HeaderFramework.CONTENT_LENGTH));
+            } catch (final NumberFormatException e) {
+                throw new IOException("WARC record at offset " + offset + " has no valid Content-Length");
+            }
+        } else {
+            // an ARC url record: <url> <ip-address> <archive-date> <content-type> [...] <length>
+            final String[] fields = line.split(" ");
+            if (fields.length < 5) throw new IOException("bad ARC record at offset " + offset + ": " + line);
+            try {
+                length = Long.parseLong(fields[fields.length - 1]);
+            } catch (final NumberFormatException e) {
+                throw new IOException("bad ARC record length at offset " + offset + ": " + line);
+            }
+            header.put("WARC-Type", fields[0].startsWith("filedesc:") ? "warcinfo" : "response");
+            header.put("WARC-Target-URI", fields[0]);
+            header.put("WARC-IP-Address", fields[1]);
+            header.put("WARC-Date", fields[2]);
+            header.put(HeaderFramework.CONTENT_TYPE, "application/http; msgtype=response");
+            header.put(HeaderFramework.CONTENT_LENGTH, Long.toString(length));
+        }
+
+        byte[] content = null;
+        if (length <= this.maxContentSize) {
+            content = new byte[(int) length];
+            int c = 0;
+            while (c < length) {
+                final int n = is.read(content, c, (int) length - c);
+                if (n < 0) throw new EOFException("record at offset " + offset + " is truncated");
+                c += n;
+            }
+        } else {
+            long skip = length;
+            final byte[] b = new byte[4096];
+            while (skip > 0) {
+                final int n = is.read(b, 0, (int) Math.min(b.length, skip));
+                if (n < 0) throw new EOFException("record at offset " + offset + " is truncated");
+                skip -= n;
+            }
+        }
+        return new Record(offset, header, content, length);
+    }
+
+    private static String readLine(final InputStream is) throws IOException {
+        final ByteArrayOutputStream line = new ByteArrayOutputStream(80);
+        int b;
+        while ((b = is.read()) >= 0) {
+            if (b == '\n') break;
+            line.write(b);
+        }
+        if (b < 0 && line.size() == 0) return null;
+        final byte[] l = line.toByteArray();
+        final int length = l.length > 0 && l[l.length - 1] == '\r' ? l.length - 1 : l.length;
+        return UTF8.String(l, 0, length);
+    }
+
+    /**
+     * fill the buffer if it is empty
+     * @return false if the end of the file is reached
+     */
+    private boolean fill() throws IOException {
+        if (this.pos < this.len) return true;
+        if (this.eof) return false;
+        this.bufferOffset += this.len;
+        this.pos = 0;
+        this.len = 0;
+        final int n = this.file.read(this.buffer, 0, this.buffer.length);
+        if (n <= 0) {
+            this.eof = true;
+            return false;
+        }
+        this.len = n;
+        return true;
+    }
+
+    private int readByte() throws IOException {
+        if (!fill()) return -1;
+        return this.buffer[this.pos++] & 0xff;
+    }
+
+    /**
+     * skip the line ends that terminate the previous record of an uncompressed file
+     */
+    private void skipNewlines() throws IOException {
+        while (fill() && (this.buffer[this.pos] == '\r' || this.buffer[this.pos] == '\n')) this.pos++;
+    }
+
+    /**
+     * some writers pad gzip members with zero bytes
+     */
+    private void skipPadding() throws IOException {
+        while (fill() && this.buffer[this.pos] == 0) this.pos++;
+    }
+
+    /**
+     * the uncompressed file
+     */
+    private final InputStream raw = new InputStream() {
+        @Override
+        public int read() throws IOException {
+            return readByte();
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int l) throws IOException {
+            if (!fill()) return -1;
+            final int n = Math.min(l, WarcReader.this.len - WarcReader.this.pos);
+            System.arraycopy(WarcReader.this.buffer, WarcReader.this.pos, b, off, n);
+            WarcReader.this.pos += n;
+            return n;
+        }
+    };
+
+    /**
+     * A stream of a single gzip member. Other than a GZIPInputStream this stream does not read beyond
+     * the end of the member, so the offset of the following member is known.
+     */
+    private class MemberInputStream extends InputStream {
+
+        private final Inflater inflater;
+        private boolean finished;
+
+        private MemberInputStream() throws IOException {
+            this.inflater = new Inflater(true);
+            this.finished = false;
+            readHeader();
+        }
+
+        private void readHeader() throws IOException {
+            if (readByte() != 0x1f || readByte() != 0x8b) throw new IOException("not a gzip member at offset " + (offset() - 2));
+            if (readByte() != 8) throw new IOException("unsupported compression method");
+            final int flags = readByte();
+            for (int i = 0; i < 6; i++) readByte(); // mtime, xfl, os
+            if ((flags & 4) != 0) { // FEXTRA
+                final int xlen = readByte() | (readByte() << 8);
+                for (int i = 0; i < xlen; i++) readByte();
+            }
+            if ((flags & 8) != 0) while (readByte() > 0) {} // FNAME
+            if ((flags & 16) != 0) while (readByte() > 0) {} // FCOMMENT
+            if ((flags & 2) != 0) { readByte(); readByte(); } // FHCRC
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int l) throws IOException {
+            if (this.finished) return -1;
+            try {
+                while (true) {
+                    final int n = this.inflater.inflate(b, off, l);
+                    if (n > 0) return n;
+                    if (this.inflater.finished()) {
+                        // give back the bytes which belong to the next member and skip the trailer (crc32 and size)
+                        WarcReader.this.pos = WarcReader.this.len - this.inflater.getRemaining();
+                        for (int i = 0; i < 8; i++) readByte();
+                        this.finished = true;
+                        return -1;
+                    }
+                    if (this.inflater.needsDictionary()) throw new IOException("gzip member needs a dictionary");
+                    if (this.inflater.needsInput()) {
+                        if (!fill()) throw new EOFException("unexpected end of gzip member");
+                        this.inflater.setInput(WarcReader.this.buffer, WarcReader.this.pos, WarcReader.this.len - WarcReader.this.pos);
+                        WarcReader.this.pos = WarcReader.this.len;
+                    }
+                }
+            } catch (final DataFormatException e) {
+                throw new IOException(e.getMessage());
+            }
+        }
+
+        private void end() {
+            this.inflater.end();
+        }
+    }
+
+}
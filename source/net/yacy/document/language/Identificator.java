@@ -99,6 +99,10 @@ public final class Identificator {
         for (int i = 0; i < word.length(); i++) inc(word.charAt(i));
     }
 
+    public void add(final char[] word, final int offset, final int length) {
+        for (int i = offset; i < offset + length; i++) inc(word[i]);
+    }
+
     //modified by copperdust; Ukraine, 2012
     public String getLanguage() {
 
@@ -25,6 +25,7 @@
 package net.yacy.http;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Map.Entry;
 
 import javax.servlet.ServletException;
@@ -40,20 +41,26 @@ import org.eclipse.jetty.server.Request;
 
 import net.yacy.crawler.data.Cache;
 import net.yacy.crawler.retrieval.Response;
+import net.yacy.kelondro.util.FileUtils;
 
 /**
  * jetty http handler serves pages from cache if available and valid
  */
 public class ProxyCacheHandler extends AbstractRemoteHandler implements Handler {
 
-    private void handleRequestFromCache(@SuppressWarnings("unused") HttpServletRequest request, HttpServletResponse response, ResponseHeader cachedResponseHeader, byte[] content) throws IOException {
+    private void handleRequestFromCache(@SuppressWarnings("unused") HttpServletRequest request, HttpServletResponse response, ResponseHeader cachedResponseHeader, InputStream content) throws IOException {
 
         // TODO: check if-modified
         for (Entry<String, String> entry : cachedResponseHeader.entrySet()) {
             response.addHeader(entry.getKey(), entry.getValue());
         }
         response.setStatus(HttpServletResponse.SC_NON_AUTHORITATIVE_INFORMATION);
-        response.getOutputStream().write(content);
+        // stream the content; it is decompressed while it is written and never copied completely into memory
+        try {
+            FileUtils.copy(content, response.getOutputStream());
+        } finally {
+            content.close();
+        }
         // we handled this request, break out of handler chain
     }
     
@@ -84,10 +91,12 @@ public class ProxyCacheHandler extends AbstractRemoteHandler implements Handler
                         sb.crawler.defaultProxyProfile,
                         false,
                         null);
-                byte[] cacheContent = Cache.getContent(url.hash());
-                if (cacheContent != null && cachedResponse.isFreshForProxy()) {
-                    handleRequestFromCache(request, response, cachedResponseHeader, cacheContent);
-                    baseRequest.setHandled(true);
+                if (cachedResponse.isFreshForProxy()) {
+                    InputStream cacheContent = Cache.getContentStream(url.hash());
+                    if (cacheContent != null) {
+                        handleRequestFromCache(request, response, cachedResponseHeader, cacheContent);
+                        baseRequest.setHandled(true);
+                    }
                 }
             }
 
@@ -62,6 +62,7 @@ import net.yacy.cora.protocol.HeaderFramework;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.util.ByteBuffer;
 import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.Metrics;
 import net.yacy.data.UserDB.AccessRight;
 import net.yacy.data.UserDB.Entry;
 import net.yacy.http.ProxyHandler;
@@ -974,7 +975,9 @@ public class YaCyDefaultServlet extends HttpServlet  {
                 response.setStatus(HttpServletResponse.SC_OK);
                 ByteArrayOutputStream bas = new ByteArrayOutputStream(4096);
                 // apply templates
-                TemplateEngine.writeTemplate(targetFile.getName(), fis, bas, templatePatterns);                
+                final long startNanos = System.nanoTime();
+                TemplateEngine.writeTemplate(targetFile.getName(), fis, bas, templatePatterns);
+                Metrics.histogram("template.render", targetExt).recordSince(startNanos);
                 fis.close();
                 // handle SSI
                 parseSSI (bas.toByteArray(),request,response);
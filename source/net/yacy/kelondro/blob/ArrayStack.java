@@ -98,6 +98,7 @@ public class ArrayStack implements BLOB {
     private final String         prefix;
     private final int            buffersize;
     private final boolean        trimall;
+    private       Retention      retention;
 
     // the thread pool for the keeperOf executor service
     private final ExecutorService executor;
@@ -124,6 +125,7 @@ public class ArrayStack implements BLOB {
         this.repositoryAgeMax = Long.MAX_VALUE;
         this.repositorySizeMax = Long.MAX_VALUE;
         this.trimall = trimall;
+        this.retention = null;
 
         // init the thread pool for the keeperOf executor service
         this.executor = new ThreadPoolExecutor(
@@ -399,6 +401,22 @@ public class ArrayStack implements BLOB {
         this.fileAgeLimit = Math.min(oneMonth, maxAge / 10);
     }
 
+    /**
+     * A retention decides which entries of a BLOB file that is deleted because of the size limit
+     * are still valuable. Such entries are moved to the newest BLOB file instead of being deleted.
+     */
+    public interface Retention {
+        public boolean retain(byte[] key);
+    }
+
+    /**
+     * set a retention for the eviction of BLOB files because of the size limit
+     * @param retention the retention or null if all entries of evicted files shall be deleted
+     */
+    public void setRetention(final Retention retention) {
+        this.retention = retention;
+    }
+
     public void setMaxSize(final long maxSize) {
         this.repositorySizeMax = maxSize;
         this.fileSizeLimit = Math.min(maxFileSize, maxSize / 100L);
@@ -422,11 +440,44 @@ public class ArrayStack implements BLOB {
         while (!this.blobs.isEmpty() && length() > this.repositorySizeMax) {
             // too large
             final blobItem oldestBLOB = this.blobs.remove(0);
+            if (this.retention != null && !this.blobs.isEmpty()) retain(oldestBLOB);
             oldestBLOB.blob.close(false);
             FileUtils.deletedelete(oldestBLOB.location);
         }
     }
 
+    /**
+     * move the entries of a BLOB file which the retention wants to keep into the newest BLOB file.
+     * At most half of the size of the file is moved to ensure that the eviction reduces the repository size.
+     * @param evicted the BLOB file that is deleted afterwards
+     */
+    private void retain(final blobItem evicted) {
+        final long maxRetained = evicted.location.length() / 2;
+        long retained = 0;
+        int count = 0;
+        try {
+            final CloneableIterator<byte[]> i = evicted.blob.keys(true, false);
+            byte[] key, b;
+            while (i.hasNext() && retained < maxRetained) {
+                key = i.next();
+                if (key == null || !this.retention.retain(key)) continue;
+                b = evicted.blob.get(key);
+                if (b == null) continue;
+                blobItem bi = this.blobs.get(this.blobs.size() - 1);
+                if (!(bi.blob instanceof Heap)) {
+                    bi = new blobItem(this.buffersize);
+                    this.blobs.add(bi);
+                }
+                bi.blob.insert(key, b);
+                retained += b.length;
+                count++;
+            }
+        } catch (final IOException | SpaceExceededException e) {
+            ConcurrentLog.logException(e);
+        }
+        if (count > 0) ConcurrentLog.info("ArrayStack", "retained " + count + " entries with " + retained + " bytes from evicted BLOB " + evicted.location.getName());
+    }
+
     /*
      * return the size of the repository (in bytes)
      */
@@ -194,6 +194,32 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         return decompress(b);
     }
 
+    /**
+     * get an entry as stream. Compressed entries are decompressed while the stream is read,
+     * so the uncompressed content is never held completely in memory.
+     * @param key
+     * @return a stream of the uncompressed content or null if the entry does not exist
+     * @throws IOException
+     * @throws SpaceExceededException
+     */
+    public InputStream getStream(final byte[] key) throws IOException, SpaceExceededException {
+        synchronized (this) {
+            final byte[] b = this.buffer.get(key);
+            if (b != null) return new ByteArrayInputStream(b);
+        }
+
+        // stream from the backend
+        final byte[] b = this.backend.get(key);
+        if (b == null) return null;
+        if (ByteArray.startsWith(b, gzipMagic)) {
+            return new GZIPInputStream(new ByteArrayInputStream(b, 2, b.length - 2));
+        } else if (ByteArray.startsWith(b, plainMagic)) {
+            return new ByteArrayInputStream(b, 2, b.length - 2);
+        } else {
+            return new ByteArrayInputStream(b);
+        }
+    }
+
     @Override
     public byte[] get(final Object key) {
         if (!(key instanceof byte[])) return null;
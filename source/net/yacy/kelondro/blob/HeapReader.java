@@ -489,63 +489,83 @@ public class HeapReader {
         }
         key = normalizeKey(key);
 
+        // check if the index contains the key
+        final long pos;
         synchronized (this.index) {
-            // check if the index contains the key
-            final long pos = this.index.get(key);
-            if (pos < 0) return null;
-
-            // access the file and read the container
-            this.file.seek(pos);
-            final int len = this.file.readInt() - this.keylength;
-            if (len < 0) {
-                // database file may be corrupted and should be deleted :-((
-                log.severe("file " + this.file.file() + " corrupted at " + pos + ": negative len. len = " + len + ", pk.len = " + this.keylength);
-                // to get lazy over that problem (who wants to tell the user to stop operation and delete the file???) we work on like the entry does not exist
-                this.index.remove(key);
-                return null;
-            }
-            long memr = len + this.keylength + 64;
-            if (MemoryControl.available() < memr) {
-                if (!MemoryControl.request(memr, true)) throw new SpaceExceededException(memr, "HeapReader.get()/check"); // not enough memory available for this blob
-            }
+            pos = this.index.get(key);
+        }
+        if (pos < 0) return null;
+
+        // access the file with positional reads, which do not need the lock of the index
+        final int len = this.file.readInt(pos) - this.keylength;
+        if (len < 0) {
+            if (moved(key, pos)) return get(key);
+            // database file may be corrupted and should be deleted :-((
+            log.severe("file " + this.file.file() + " corrupted at " + pos + ": negative len. len = " + len + ", pk.len = " + this.keylength);
+            // to get lazy over that problem (who wants to tell the user to stop operation and delete the file???) we work on like the entry does not exist
+            removeAt(key, pos);
+            return null;
+        }
+        long memr = len + this.keylength + 64;
+        if (MemoryControl.available() < memr) {
+            if (!MemoryControl.request(memr, true)) throw new SpaceExceededException(memr, "HeapReader.get()/check"); // not enough memory available for this blob
+        }
 
-            // read the key
-            byte[] keyf;
-            try {
-                keyf = new byte[this.keylength];
-            } catch (final OutOfMemoryError e) {
-                throw new SpaceExceededException(this.keylength, "HeapReader.get()/keyf");
-            }
-            this.file.readFully(keyf, 0, keyf.length);
-            if (!this.ordering.equal(key, keyf)) {
-                // verification of the indexed access failed. we must re-read the index
-                log.severe("indexed verification access failed for " + this.heapFile.toString());
-                // this is a severe operation, it should never happen.
-                // remove entry from index because keeping that element in the index would not make sense
-                this.index.remove(key);
-                // nothing to return
-                return null;
-                // but if the process ends in this state, it would completely fail
-                // if the index is not rebuild now at once
-                //initIndexReadFromHeap();
-            }
+        // read the key
+        byte[] keyf;
+        try {
+            keyf = new byte[this.keylength];
+        } catch (final OutOfMemoryError e) {
+            throw new SpaceExceededException(this.keylength, "HeapReader.get()/keyf");
+        }
+        this.file.readFully(pos + 4, keyf, 0, keyf.length);
+        if (!this.ordering.equal(key, keyf)) {
+            if (moved(key, pos)) return get(key);
+            // verification of the indexed access failed. we must re-read the index
+            log.severe("indexed verification access failed for " + this.heapFile.toString());
+            // this is a severe operation, it should never happen.
+            // remove entry from index because keeping that element in the index would not make sense
+            removeAt(key, pos);
+            // nothing to return
+            return null;
+            // but if the process ends in this state, it would completely fail
+            // if the index is not rebuild now at once
+            //initIndexReadFromHeap();
+        }
 
-            // read the blob
-            byte[] blob;
+        // read the blob
+        byte[] blob;
+        try {
+            blob = new byte[len];
+        } catch (final OutOfMemoryError e) {
+            // try once again after GC
+            MemoryControl.gc(1000, "HeapReader.get()/blob");
             try {
                 blob = new byte[len];
-            } catch (final OutOfMemoryError e) {
-                // try once again after GC
-                MemoryControl.gc(1000, "HeapReader.get()/blob");
-                try {
-                    blob = new byte[len];
-                } catch (final OutOfMemoryError ee) {
-                    throw new SpaceExceededException(len, "HeapReader.get()/blob");
-                }
+            } catch (final OutOfMemoryError ee) {
+                throw new SpaceExceededException(len, "HeapReader.get()/blob");
             }
-            this.file.readFully(blob, 0, blob.length);
+        }
+        this.file.readFully(pos + 4 + this.keylength, blob, 0, blob.length);
+
+        return blob;
+    }
+
+    /**
+     * check if the index has been changed for a key while its record was read without the lock of the index
+     * @param key
+     * @param pos the position where the record had been read
+     * @return true if the key has been moved or removed in the meantime
+     */
+    private boolean moved(final byte[] key, final long pos) {
+        synchronized (this.index) {
+            return this.index.get(key) != pos;
+        }
+    }
 
-            return blob;
+    private void removeAt(final byte[] key, final long pos) {
+        synchronized (this.index) {
+            if (this.index.get(key) == pos) this.index.remove(key);
         }
     }
 
@@ -563,12 +583,10 @@ public class HeapReader {
 
     protected boolean checkKey(byte[] key, final long pos) throws IOException {
         key = normalizeKey(key);
-        this.file.seek(pos);
-        this.file.readInt(); // skip the size value
 
-        // read the key
+        // read the key, which follows the size value
         final byte[] keyf = new byte[this.keylength];
-        this.file.readFully(keyf, 0, keyf.length);
+        this.file.readFully(pos + 4, keyf, 0, keyf.length);
         return this.ordering.equal(key, keyf);
     }
 
@@ -586,15 +604,15 @@ public class HeapReader {
         }
         key = normalizeKey(key);
 
+        // check if the index contains the key
+        final long pos;
         synchronized (this.index) {
-            // check if the index contains the key
-            final long pos = this.index.get(key);
-            if (pos < 0) return -1;
-
-            // access the file and read the size of the container
-            this.file.seek(pos);
-            return this.file.readInt() - this.keylength;
+            pos = this.index.get(key);
         }
+        if (pos < 0) return -1;
+
+        // access the file and read the size of the container
+        return this.file.readInt(pos) - this.keylength;
     }
 
     /**
@@ -716,7 +734,9 @@ public class HeapReader {
             log.severe("this.index == null in length(); closeDate=" + this.closeDate + ", now=" + new Date() + this.heapFile == null ? "" : (" file = " + this.heapFile.toString()));
             return 0;
         }
-        synchronized (this.index) {
+        try {
+            return this.file.length(); // includes the appends which are not yet written to the file
+        } catch (final IOException e) {
             return this.heapFile.length();
         }
     }
@@ -26,6 +26,8 @@
 
 package net.yacy.kelondro.data.word;
 
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Collection;
 import java.util.Locale;
 
@@ -115,7 +117,17 @@ public class Word {
     	byte[] h = hashCache.get(wordlc);
         if (h != null) return h;
         // calculate the hash
-    	h = commonHashOrder.encodeSubstring(Digest.encodeMD5Raw(wordlc), commonHashLength);
+    	h = publicHash(commonHashOrder.encodeSubstring(Digest.encodeMD5Raw(wordlc), commonHashLength));
+        if (MemoryControl.shortStatus()) {
+            hashCache.clear();
+        } else {
+            //hashCache.putIfAbsent(wordlc, h); // prevent expensive MD5 computation and encoding
+            hashCache.insertIfAbsent(wordlc, h); // prevent expensive MD5 computation and encoding
+        }
+        return h;
+    }
+
+    private static byte[] publicHash(final byte[] h) {
     	while (h[0] == highByte && h[1] == highByte && h[2] == highByte && h[3] == highByte && h[4] == highByte) {
     	    // ensure that word hashes do not start with hash '_____' which is a key for an extra hash range for private usage on the local peer
     	    // statistically we are inside this loop only every 2^^30 calls of word2hash (which means almost never)
@@ -123,15 +135,77 @@ public class Word {
     	    h[commonHashLength - 1] = lowByte;
     	}
         assert h[2] != '@';
-        if (MemoryControl.shortStatus()) {
-            hashCache.clear();
-        } else {
-            //hashCache.putIfAbsent(wordlc, h); // prevent expensive MD5 computation and encoding
-            hashCache.insertIfAbsent(wordlc, h); // prevent expensive MD5 computation and encoding
-        }
         return h;
     }
 
+    /**
+     * create the hashes of many words at once; the result is the same as word2hash() for each word.
+     * Other than word2hash(), this uses one digest and one encoding buffer for all words
+     * and the digests of the words are not stored in the MD5 cache of the Digest class.
+     * @param words
+     * @return the hashes of the words in the same order
+     */
+    public static final byte[][] words2hashes(final String[] words) {
+        final byte[][] hashes = new byte[words.length][];
+        MessageDigest digest = Digest.digestPool.poll();
+        if (digest == null) try {
+            digest = MessageDigest.getInstance("MD5");
+        } catch (final NoSuchAlgorithmException e) {
+            for (int i = 0; i < words.length; i++) hashes[i] = word2hash(words[i]);
+            return hashes;
+        }
+        digest.reset();
+        byte[] buffer = new byte[256];
+        final boolean cache = !MemoryControl.shortStatus();
+        for (int i = 0; i < words.length; i++) {
+            final String wordlc = words[i].toLowerCase(Locale.ENGLISH);
+            byte[] h = hashCache.get(wordlc);
+            if (h == null) {
+                if (wordlc.length() * 3 > buffer.length) buffer = new byte[wordlc.length() * 3];
+                digest.update(buffer, 0, encodeUTF8(wordlc, buffer));
+                h = publicHash(commonHashOrder.encodeSubstring(digest.digest(), commonHashLength));
+                if (cache) hashCache.insertIfAbsent(wordlc, h);
+            }
+            hashes[i] = h;
+        }
+        Digest.digestPool.add(digest);
+        if (!cache) hashCache.clear();
+        return hashes;
+    }
+
+    /**
+     * encode a string into UTF-8 like UTF8.getBytes(), but into a given buffer
+     * @param s
+     * @param b a buffer of at least three bytes for each character of s
+     * @return the number of bytes written
+     */
+    private static int encodeUTF8(final String s, final byte[] b) {
+        int p = 0;
+        final int len = s.length();
+        for (int i = 0; i < len; i++) {
+            final char c = s.charAt(i);
+            if (c < 0x80) {
+                b[p++] = (byte) c;
+            } else if (c < 0x800) {
+                b[p++] = (byte) (0xc0 | (c >> 6));
+                b[p++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isHighSurrogate(c) && i + 1 < len && Character.isLowSurrogate(s.charAt(i + 1))) {
+                final int cp = Character.toCodePoint(c, s.charAt(++i));
+                b[p++] = (byte) (0xf0 | (cp >> 18));
+                b[p++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                b[p++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                b[p++] = (byte) (0x80 | (cp & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                b[p++] = (byte) '?'; // a malformed surrogate is replaced in the same way as the JRE encoder does
+            } else {
+                b[p++] = (byte) (0xe0 | (c >> 12));
+                b[p++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                b[p++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return p;
+    }
+
     public final static byte PRIVATE_TYPE_COPY = 'C';     // used for a private local copy of the index
     public final static byte PRIVATE_TYPE_PHONETIC = 'K'; // used for ColognePhonetics
 
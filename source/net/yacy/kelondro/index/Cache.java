@@ -36,6 +36,7 @@ import java.util.TreeMap;
 import net.yacy.cora.order.CloneableIterator;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.kelondro.index.Row.Entry;
+import net.yacy.kelondro.util.MemoryBudget;
 import net.yacy.kelondro.util.MemoryControl;
 
 
@@ -54,6 +55,22 @@ public final class Cache implements Index, Iterable<Row.Entry> {
     private static final long memStopGrow    = 40 * 1024 * 1024; // a limit for the node cache to stop growing if less than this memory amount is available
     private static final long memStartShrink = 20 * 1024 * 1024; // a limit for the node cache to start with shrinking if less than this memory amount is available
 
+    static {
+        // all object caches are reduced together by the memory budget
+        MemoryBudget.register("Object Index Caches", MemoryBudget.PRIORITY_MEDIUM, new MemoryBudget.Consumer() {
+            @Override
+            public long memory() {
+                long m = 0;
+                for (final Cache cache: caches()) m += cache.cacheMem();
+                return m;
+            }
+            @Override
+            public void shrink(final double fraction) {
+                for (final Cache cache: caches()) cache.shrinkCache(fraction);
+            }
+        });
+    }
+
     // class objects
     private final Index index;         // the back-end of the cache
     private       RowSet      readHitCache;  // contains a complete copy of the cached objects
@@ -75,7 +92,15 @@ public final class Cache implements Index, Iterable<Row.Entry> {
         this.hitLimit = hitLimit;
         this.missLimit = missLimit;
         init();
-        objectTracker.put(backupIndex.filename(), this);
+        synchronized (objectTracker) {
+            objectTracker.put(backupIndex.filename(), this);
+        }
+    }
+
+    private static Cache[] caches() {
+        synchronized (objectTracker) {
+            return objectTracker.values().toArray(new Cache[objectTracker.size()]);
+        }
     }
 
     private void init() {
@@ -211,13 +236,9 @@ public final class Cache implements Index, Iterable<Row.Entry> {
         // check given limitation
         if (this.missLimit > 0 && this.readMissCache.size() >= this.missLimit) return false;
 
-        // check memory
-        long available = MemoryControl.available();
-        if (MemoryControl.shortStatus() || available - 2 * 1024 * 1024 < this.readMissCache.memoryNeededForGrow()) {
-            this.readMissCache.clear();
-        }
-        available = MemoryControl.available();
-        return (available - 2 * 1024 * 1024 > this.readMissCache.memoryNeededForGrow());
+        // check memory; the cache is not cleared here because it is reduced by the memory budget
+        if (MemoryControl.shortStatus()) return false;
+        return (MemoryControl.available() - 2 * 1024 * 1024 > this.readMissCache.memoryNeededForGrow());
     }
 
     /**
@@ -231,13 +252,9 @@ public final class Cache implements Index, Iterable<Row.Entry> {
         // check given limitation
         if (this.hitLimit > 0 && this.readHitCache.size() >= this.hitLimit) return false;
 
-        // check memory
-        long available = MemoryControl.available();
-        if (MemoryControl.shortStatus() || available - 2 * 1024 * 1024 < this.readHitCache.memoryNeededForGrow()) {
-            this.readHitCache.clear();
-        }
-        available = MemoryControl.available();
-        return (available - 2 * 1024 * 1024 > this.readHitCache.memoryNeededForGrow());
+        // check memory; the cache is not cleared here because it is reduced by the memory budget
+        if (MemoryControl.shortStatus()) return false;
+        return (MemoryControl.available() - 2 * 1024 * 1024 > this.readHitCache.memoryNeededForGrow());
     }
 
     public final synchronized void clearCache() {
@@ -245,6 +262,36 @@ public final class Cache implements Index, Iterable<Row.Entry> {
         if (this.readHitCache != null) this.readHitCache.clear();
     }
 
+    /**
+     * @return the memory used by the hit and miss cache, without the memory of the cached index
+     */
+    private synchronized long cacheMem() {
+        long m = 0;
+        if (this.readMissCache != null) m += this.readMissCache.mem();
+        if (this.readHitCache != null) m += this.readHitCache.mem();
+        return m;
+    }
+
+    /**
+     * remove a fraction of the entries from the hit and miss cache. The caches have no access order,
+     * therefore the entries at the end of the row sets are removed.
+     * @param fraction the fraction of the entries to remove, a value in (0, 1]
+     */
+    public final synchronized void shrinkCache(final double fraction) {
+        shrink(this.readMissCache, fraction);
+        shrink(this.readHitCache, fraction);
+    }
+
+    private static void shrink(final RowSet cache, final double fraction) {
+        if (cache == null) return;
+        if (fraction >= 1.0d) {
+            cache.clear();
+            return;
+        }
+        int n = (int) Math.ceil(cache.size() * fraction);
+        while (n-- > 0 && cache.removeOne() != null) {}
+    }
+
     @Override
     public final synchronized void close() {
         this.index.close();
@@ -104,10 +104,11 @@ public final class BufferedRecords {
         synchronized (this) {
             assert b.length - start >= this.efs.recordsize;
             bb = this.buffer.get(idx);
-            if (bb == null) {
-                this.efs.get(index, b, start);
-                return;
-            }
+        }
+        if (bb == null) {
+            // records in the file can be read without holding the lock of the buffer
+            this.efs.get(index, b, start);
+            return;
         }
         System.arraycopy(bb, 0, b, start, this.efs.recordsize);
     }
@@ -20,10 +20,10 @@
 
 package net.yacy.kelondro.io;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.kelondro.util.MemoryControl;
@@ -31,58 +31,71 @@ import net.yacy.kelondro.util.MemoryControl;
 
 public final class CachedFileReader extends AbstractReader implements Reader {
 
-    private final RandomAccessFile RAFile;
+    private final ChannelFile channel;
     private byte[] cache;
-    private final int cachelen;
+    private long seek;
 
     public CachedFileReader(final File file) throws IOException, FileNotFoundException {
         this.name = file.getName();
         this.file = file;
-        this.RAFile = new RandomAccessFile(this.file, "r");
-        if (MemoryControl.available() / 10L > this.RAFile.length() && this.RAFile.length() < Integer.MAX_VALUE) {
-        	this.cache = new byte[(int) this.RAFile.length()];
-        	this.RAFile.seek(0);
-        	this.RAFile.readFully(this.cache);
+        this.channel = new ChannelFile(file, false, 0);
+        final long length = this.channel.length();
+        if (MemoryControl.available() / 10L > length && length < Integer.MAX_VALUE) {
+        	this.cache = new byte[(int) length];
+        	this.channel.readFully(0, this.cache, 0, this.cache.length);
         } else {
         	this.cache = null;
         }
-        this.cachelen = 0;
+        this.seek = 0;
     }
     
     @Override
     public final synchronized long available() throws IOException {
-        return this.length() - RAFile.getFilePointer();
+        return this.length() - this.seek;
     }
 
     @Override
-    public final synchronized long length() throws IOException {
-        return this.RAFile.length();
+    public final long length() throws IOException {
+        return this.channel.length();
     }
 
     @Override
     public final synchronized void readFully(final byte[] b, final int off, int len) throws IOException {
-        long seek = RAFile.getFilePointer();
-        if (cache != null  && cachelen - seek >= len) {
-            // read from cache
-            System.arraycopy(cache, (int) (seek), b, off, len);
-            RAFile.seek(seek + len);
+        readFully(this.seek, b, off, len);
+        this.seek += len;
+    }
+
+    @Override
+    public final void readFully(final long pos, final byte[] b, final int off, final int len) throws IOException {
+        final byte[] c = this.cache;
+        if (c != null) {
+            if (pos + len > c.length) throw new EOFException("EOF in " + this.name + " at " + pos);
+            System.arraycopy(c, (int) pos, b, off, len);
             return;
         }
-        // cannot use the cache
-        RAFile.readFully(b, off, len);
-        return;
+        this.channel.readFully(pos, b, off, len);
+    }
+
+    @Override
+    public final int readInt(final long pos) throws IOException {
+        final byte[] c = this.cache;
+        if (c != null) {
+            if (pos + 4 > c.length) throw new EOFException("EOF in " + this.name + " at " + pos);
+            final int p = (int) pos;
+            return (((c[p] & 0xFF) << 24) | ((c[p + 1] & 0xFF) << 16) | ((c[p + 2] & 0xFF) << 8) | (c[p + 3] & 0xFF));
+        }
+        return this.channel.readInt(pos);
     }
 
     @Override
     public final synchronized void seek(final long pos) throws IOException {
-        RAFile.seek(pos);
+        this.seek = pos;
     }
     
     @Override
     public final synchronized void close() {
-        if (RAFile != null) try {
-            try{RAFile.getChannel().close();} catch (final IOException e) {}
-            RAFile.close();
+        try {
+            this.channel.close();
         } catch (final IOException e) {
             ConcurrentLog.logException(e);
         }
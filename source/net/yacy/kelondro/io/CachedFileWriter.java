@@ -28,13 +28,19 @@ package net.yacy.kelondro.io;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.RandomAccessFile;
 
 import net.yacy.cora.util.ConcurrentLog;
 
+/**
+ * A writer on a ChannelFile. The methods which use the file pointer are synchronized, the positional
+ * read methods are not. Writes at the end of the file are collected in the append buffer of the ChannelFile.
+ */
 public final class CachedFileWriter extends AbstractWriter implements Writer {
 
-    private RandomAccessFile RAFile;
+    private final static int APPEND_BUFFER_SIZE = 8192;
+
+    private volatile ChannelFile channel;
+    private long seek;
     private byte[] cache;
     private long cachestart;
     private int cachelen;
@@ -42,68 +48,79 @@ public final class CachedFileWriter extends AbstractWriter implements Writer {
     public CachedFileWriter(final File file) throws IOException, FileNotFoundException {
         this.name = file.getName();
         this.file = file;
-        this.RAFile = new RandomAccessFile(this.file, "rw");
+        this.channel = new ChannelFile(this.file, true, APPEND_BUFFER_SIZE);
+        this.seek = 0;
         this.cache = new byte[32768];
         this.cachestart = 0;
         this.cachelen = 0;
     }	
     
     @Override
-    public final synchronized long length() throws IOException {
-        checkReopen();
-        return this.RAFile.length();
+    public final long length() throws IOException {
+        return channel().length();
     }
     
     @Override
     public final synchronized void setLength(long length) throws IOException {
         checkReopen();
         this.cachelen = 0;
-        this.RAFile.setLength(length);
+        this.channel.setLength(length);
+        if (this.seek > length) this.seek = length;
     }
     
     @Override
     public final synchronized long available() throws IOException {
         checkReopen();
-        return this.length() - this.RAFile.getFilePointer();
+        return this.length() - this.seek;
     }
 
     @Override
     public final synchronized void readFully(final byte[] b, final int off, int len) throws IOException {
         checkReopen();
-        long seek = this.RAFile.getFilePointer();
+        long seek = this.seek;
         if (this.cache != null && this.cachestart <= seek && this.cachelen - seek + this.cachestart >= len) {
             // read from cache
             //System.out.println("*** DEBUG FileRA " + this.file.getName() + ": CACHE HIT at " + seek);
             System.arraycopy(this.cache, (int) (seek - this.cachestart), b, off, len);
-            this.RAFile.seek(seek + len);
+            this.seek = seek + len;
             return;
         }
         if (this.cache == null || this.cache.length < len) {
             // cannot fill cache here
-            this.RAFile.readFully(b, off, len);
+            this.channel.readFully(seek, b, off, len);
+            this.seek = seek + len;
             return;
         }
         // we fill the cache here
-        long available = this.RAFile.length() - seek;
+        long available = this.channel.length() - seek;
         if (available == -seek) return; // we don't know how this happens but we just silently ignore it by now TODO:fixme
         //System.out.println("*** available = " + available);
-        if (available < len) throw new IOException("EOF in " + this.file.getName() + ", available = " + available + ", requested = " + len + ", this.RAFile.length() = " + this.RAFile.length() + ", seek = " + seek);
+        if (available < len) throw new IOException("EOF in " + this.file.getName() + ", available = " + available + ", requested = " + len + ", length = " + this.channel.length() + ", seek = " + seek);
         if (this.cachestart + this.cachelen == seek && this.cache.length - this.cachelen >= len) {
-            this.RAFile.readFully(this.cache, this.cachelen, len);
+            this.channel.readFully(seek, this.cache, this.cachelen, len);
             //System.out.println("*** DEBUG FileRA " + this.file.getName() + ": append fill " + len + " bytes");
             System.arraycopy(this.cache, this.cachelen, b, off, len);
             this.cachelen += len;
         } else {
             // fill the cache as much as possible
             int m = (int) Math.min(available, this.cache.length);
-            this.RAFile.readFully(this.cache, 0, m);
+            this.channel.readFully(seek, this.cache, 0, m);
             this.cachestart = seek;
             this.cachelen = m;
-            if (m != len) this.RAFile.seek(seek + len);
             //System.out.println("*** DEBUG FileRA " + this.file.getName() + ": replace fill " + len + " bytes");
             System.arraycopy(this.cache, 0, b, off, len);
         }
-        
+        this.seek = seek + len;
+    }
+
+    @Override
+    public final void readFully(final long pos, final byte[] b, final int off, final int len) throws IOException {
+        channel().readFully(pos, b, off, len);
+    }
+
+    @Override
+    public final int readInt(final long pos) throws IOException {
+        return channel().readInt(pos);
     }
 
     @Override
@@ -118,7 +135,7 @@ public final class CachedFileWriter extends AbstractWriter implements Writer {
         	this.cache = newcache;
         	if (this.cachelen > this.cache.length) this.cachelen = this.cache.length;
         }
-        long seekpos = this.RAFile.getFilePointer();
+        long seekpos = this.seek;
         if (this.cachelen + len <= this.cache.length && this.cachestart + this.cachelen == seekpos) {
             // append to cache
             System.arraycopy(b, off, this.cache, this.cachelen, len);
@@ -134,37 +151,45 @@ public final class CachedFileWriter extends AbstractWriter implements Writer {
             // delete cache
             this.cachelen = 0;
         }
-        this.RAFile.write(b, off, len);
+        this.channel.write(seekpos, b, off, len);
+        this.seek = seekpos + len;
     }
 
     @Override
     public final synchronized void seek(final long pos) throws IOException {
         checkReopen();
-        this.RAFile.seek(pos);
+        this.seek = pos;
     }
 
     @Override
     public final synchronized void close() {
-        if (this.RAFile != null) try {
-            try{this.RAFile.getChannel().close();} catch (final IOException e) {}
-            //System.out.println("***DEBUG*** closed file " + this.file + ", FD is " + ((RAFile.getFD().valid()) ? "VALID" : "VOID") + ", channel is " + ((RAFile.getChannel().isOpen()) ? "OPEN" : "CLOSE"));
-            this.RAFile.close();
-            //System.out.println("***DEBUG*** closed file " + this.file + ", FD is " + ((RAFile.getFD().valid()) ? "VALID" : "VOID") + ", channel is " + ((RAFile.getChannel().isOpen()) ? "OPEN" : "CLOSE"));
+        if (this.channel != null) try {
+            this.channel.close();
         } catch (final IOException e) {
             ConcurrentLog.logException(e);
         }
         this.cache = null;
-        this.RAFile = null;
+        this.channel = null;
     }
     
+    private final ChannelFile channel() {
+        final ChannelFile c = this.channel;
+        if (c != null) return c;
+        synchronized (this) {
+            checkReopen();
+            return this.channel;
+        }
+    }
+
     private final void checkReopen() {
-        if (this.RAFile != null) return;
+        if (this.channel != null) return;
         // re-open the file
         try {
-            this.RAFile = new RandomAccessFile(this.file, "rw");
-        } catch (final FileNotFoundException e) {
+            this.channel = new ChannelFile(this.file, true, APPEND_BUFFER_SIZE);
+        } catch (final IOException e) {
             ConcurrentLog.logException(e);
         }
+        this.seek = 0;
         this.cache = new byte[8192];
         this.cachestart = 0;
         this.cachelen = 0;
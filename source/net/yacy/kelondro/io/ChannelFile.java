@@ -0,0 +1,295 @@
+/**
+ *  ChannelFile
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.kelondro.io;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+
+import net.yacy.cora.util.ConcurrentLog;
+
+/**
+ * A file which is accessed with positional reads and writes on a FileChannel.
+ * A RandomAccessFile has one file pointer which is shared by all callers, so every seek and the following
+ * read must be synchronized, even if the callers access unrelated parts of the file. Positional reads and
+ * writes of a FileChannel do not use a file pointer and can be done concurrently without locks.
+ * Appends at the end of the file may be collected in a write-behind buffer; only reads and writes which
+ * touch the buffered end of the file need a lock. Small reads use a thread-local direct buffer, which saves
+ * the temporary buffer that the channel would otherwise need for each call.
+ * A FileChannel is closed if a thread is interrupted during an operation on it; the file would then be unusable
+ * for all other threads. Therefore the interrupt flag is cleared during an operation and set again afterwards,
+ * and a channel which was closed without a call to close() is opened again and the operation is repeated.
+ */
+public final class ChannelFile {
+
+    private final static int LOCAL_BUFFER_SIZE = 8 * 1024;
+
+    private final static ThreadLocal<ByteBuffer> localBuffer = new ThreadLocal<ByteBuffer>() {
+        @Override
+        protected ByteBuffer initialValue() {
+            return ByteBuffer.allocateDirect(LOCAL_BUFFER_SIZE);
+        }
+    };
+
+    private final static ConcurrentLog log = new ConcurrentLog("ChannelFile");
+
+    private final File file;
+    private final boolean writable;
+    private volatile RandomAccessFile raf;
+    private volatile FileChannel channel;
+    private volatile boolean closed;
+    private final ByteBuffer appendBuffer; // null if appends are written at once
+    private volatile long flushed;        // the length of the file without the append buffer
+
+    /**
+     * open a file
+     * @param file
+     * @param writable if false, the file is opened read-only
+     * @param appendBufferSize the size of the write-behind buffer for appends, 0 if appends shall be written at once
+     * @throws IOException
+     */
+    public ChannelFile(final File file, final boolean writable, final int appendBufferSize) throws IOException {
+        this.file = file;
+        this.writable = writable;
+        this.raf = new RandomAccessFile(file, writable ? "rw" : "r");
+        this.channel = this.raf.getChannel();
+        this.closed = false;
+        this.appendBuffer = writable && appendBufferSize > 0 ? ByteBuffer.allocateDirect(appendBufferSize) : null;
+        this.flushed = this.channel.size();
+    }
+
+    public File file() {
+        return this.file;
+    }
+
+    /**
+     * @return the length of the file including the content of the append buffer
+     */
+    public long length() {
+        final long f = this.flushed;
+        if (this.appendBuffer == null) return f;
+        synchronized (this) {
+            return this.flushed + this.appendBuffer.position();
+        }
+    }
+
+    /**
+     * read bytes from a given position until the buffer is full
+     * @param dst
+     * @param pos
+     * @throws IOException
+     */
+    public void read(final ByteBuffer dst, final long pos) throws IOException {
+        if (pos + dst.remaining() > this.flushed) {
+            // the read touches the append buffer
+            synchronized (this) {
+                flush();
+                read0(dst, pos);
+            }
+            return;
+        }
+        read0(dst, pos);
+    }
+
+    private void read0(final ByteBuffer dst, long pos) throws IOException {
+        boolean interrupted = Thread.interrupted(); // an interrupted thread would close the channel at once
+        try {
+            while (dst.hasRemaining()) {
+                final FileChannel c = channel();
+                final int p = dst.position();
+                try {
+                    final int r = c.read(dst, pos);
+                    if (r < 0) throw new EOFException("EOF in " + this.file.getName() + " at " + pos);
+                    pos += r;
+                } catch (final ClosedChannelException e) {
+                    dst.position(p);
+                    if (e instanceof ClosedByInterruptException) interrupted |= Thread.interrupted();
+                    reopen(c, e);
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    public void readFully(final long pos, final byte[] b, final int off, final int len) throws IOException {
+        if (len > LOCAL_BUFFER_SIZE) {
+            read(ByteBuffer.wrap(b, off, len), pos);
+            return;
+        }
+        final ByteBuffer bb = localBuffer.get();
+        bb.clear().limit(len);
+        read(bb, pos);
+        bb.flip();
+        bb.get(b, off, len);
+    }
+
+    public short readShort(final long pos) throws IOException {
+        final ByteBuffer bb = localBuffer.get();
+        bb.clear().limit(2);
+        read(bb, pos);
+        return bb.getShort(0);
+    }
+
+    public int readInt(final long pos) throws IOException {
+        final ByteBuffer bb = localBuffer.get();
+        bb.clear().limit(4);
+        read(bb, pos);
+        return bb.getInt(0);
+    }
+
+    public long readLong(final long pos) throws IOException {
+        final ByteBuffer bb = localBuffer.get();
+        bb.clear().limit(8);
+        read(bb, pos);
+        return bb.getLong(0);
+    }
+
+    /**
+     * write bytes at a given position; writes at the end of the file are appended
+     * @param pos
+     * @param b
+     * @param off
+     * @param len
+     * @throws IOException
+     */
+    public void write(final long pos, final byte[] b, final int off, final int len) throws IOException {
+        if (pos + len <= this.flushed) {
+            write0(ByteBuffer.wrap(b, off, len), pos);
+            return;
+        }
+        synchronized (this) {
+            if (this.appendBuffer != null && pos == this.flushed + this.appendBuffer.position()) {
+                append(b, off, len);
+                return;
+            }
+            flush();
+            write0(ByteBuffer.wrap(b, off, len), pos);
+            if (pos + len > this.flushed) this.flushed = pos + len;
+        }
+    }
+
+    private void write0(final ByteBuffer src, long pos) throws IOException {
+        boolean interrupted = Thread.interrupted(); // an interrupted thread would close the channel at once
+        try {
+            while (src.hasRemaining()) {
+                final FileChannel c = channel();
+                final int p = src.position();
+                try {
+                    pos += c.write(src, pos);
+                } catch (final ClosedChannelException e) {
+                    src.position(p);
+                    if (e instanceof ClosedByInterruptException) interrupted |= Thread.interrupted();
+                    reopen(c, e);
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    private FileChannel channel() throws IOException {
+        final FileChannel c = this.channel;
+        if (c.isOpen()) return c;
+        return reopen(c, new ClosedChannelException());
+    }
+
+    /**
+     * open the file again if the channel was closed by an interrupt or by an asynchronous close
+     * @param failed the channel which was closed
+     * @param e the exception of the failed operation; thrown if the file was closed with close()
+     * @return the new channel
+     * @throws IOException
+     */
+    private synchronized FileChannel reopen(final FileChannel failed, final ClosedChannelException e) throws IOException {
+        if (this.closed) throw e;
+        if (this.channel != failed && this.channel.isOpen()) return this.channel; // another thread was faster
+        try {
+            this.raf.close();
+        } catch (final IOException ee) {}
+        this.raf = new RandomAccessFile(this.file, this.writable ? "rw" : "r");
+        this.channel = this.raf.getChannel();
+        log.info("re-opened " + this.file.getName() + " after " + e.getClass().getSimpleName());
+        return this.channel;
+    }
+
+    /**
+     * append bytes at the end of the file
+     * @param b
+     * @param off
+     * @param len
+     * @return the position of the appended bytes
+     * @throws IOException
+     */
+    public synchronized long append(final byte[] b, final int off, final int len) throws IOException {
+        final long pos = length();
+        if (this.appendBuffer == null || len > this.appendBuffer.capacity()) {
+            flush();
+            write0(ByteBuffer.wrap(b, off, len), pos);
+            this.flushed = pos + len;
+            return pos;
+        }
+        if (len > this.appendBuffer.remaining()) flush();
+        this.appendBuffer.put(b, off, len);
+        return pos;
+    }
+
+    /**
+     * write the append buffer to the file
+     * @throws IOException
+     */
+    public synchronized void flush() throws IOException {
+        if (this.appendBuffer == null || this.appendBuffer.position() == 0) return;
+        this.appendBuffer.flip();
+        final long pos = this.flushed;
+        write0(this.appendBuffer, pos);
+        this.flushed = pos + this.appendBuffer.limit();
+        this.appendBuffer.clear();
+    }
+
+    public synchronized void setLength(final long length) throws IOException {
+        flush();
+        final FileChannel c = channel();
+        if (length < c.size()) {
+            c.truncate(length);
+        } else if (length > c.size()) {
+            this.raf.setLength(length);
+        }
+        this.flushed = length;
+    }
+
+    public synchronized void close() throws IOException {
+        if (this.closed) return;
+        try {
+            flush();
+        } finally {
+            this.closed = true;
+            this.channel.close();
+            this.raf.close();
+        }
+    }
+
+}
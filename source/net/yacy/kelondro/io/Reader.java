@@ -48,5 +48,9 @@ public interface Reader {
     public short readShort() throws IOException;
     public int readInt() throws IOException;
     public long readLong() throws IOException;
-    
+
+    // positional methods; these do not use or move the file pointer and need no lock around a seek:
+    public void readFully(long pos, byte[] b, int off, int len) throws IOException;
+    public int readInt(long pos) throws IOException;
+
 }
@@ -24,6 +24,7 @@
 
 package net.yacy.kelondro.io;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -52,10 +53,12 @@ import net.yacy.kelondro.util.MemoryControl;
  * by overwriting the data with zero bytes
  * All access to the file is made with byte[] that are generated outside of this class
  * This class only references byte[] that are handed over to methods of this class.
+ * The file is accessed with positional reads and writes; a record which is inside the
+ * file can be read without a lock while other threads read or write.
  */
 public final class Records {
 
-    private RandomAccessFile raf;
+    private volatile ChannelFile raf;
     private final File tablefile;
     /**
      * number of bytes in one record
@@ -97,8 +100,8 @@ public final class Records {
 
         // open an existing table file
         try {
-            this.raf = new RandomAccessFile(tablefile,"rw");
-        } catch (final FileNotFoundException e) {
+            this.raf = new ChannelFile(tablefile, true, 0); // appends are collected in the write buffer of this class
+        } catch (final IOException e) {
             // should never happen
             ConcurrentLog.logException(e);
         }
@@ -200,8 +203,7 @@ public final class Records {
     protected final synchronized void flushBuffer() {
         if (this.raf == null) return;
         try {
-            this.raf.seek(this.raf.length());
-            this.raf.write(this.buffer, 0, this.recordsize * this.buffercount);
+            this.raf.append(this.buffer, 0, this.recordsize * this.buffercount);
         } catch (final IOException e) {
             ConcurrentLog.logException(e);
         }
@@ -226,8 +228,22 @@ public final class Records {
      * @param start offset in b to store data
      * @throws IOException
      */
-    public final synchronized void get(final long index, final byte[] b, final int start) throws IOException {
+    public final void get(final long index, final byte[] b, final int start) throws IOException {
         assert b.length - start >= this.recordsize;
+        final ChannelFile f = this.raf;
+        if (f != null && index >= 0 && index < f.length() / this.recordsize) {
+            // the record is inside the file; a positional read does not need the lock
+            try {
+                f.readFully(this.recordsize * index, b, start, this.recordsize);
+                return;
+            } catch (final EOFException e) {
+                // the file has been truncated in the meantime; check again with the lock
+            }
+        }
+        get0(index, b, start);
+    }
+
+    private final synchronized void get0(final long index, final byte[] b, final int start) throws IOException {
         final long filesize = filesize();
         final long s = filesize + this.buffercount;
          if (index >= s) throw new IndexOutOfBoundsException("kelondroEcoFS.get(" + index + ") outside bounds (" + s + ")");
@@ -235,8 +251,7 @@ public final class Records {
         final int q = inBuffer(index, filesize);
         if (q < 0) {
             // copy records from file to given buffer
-            this.raf.seek(this.recordsize * index);
-            this.raf.readFully(b, start, this.recordsize);
+            this.raf.readFully(this.recordsize * index, b, start, this.recordsize);
             return;
         }
         // read entry from the buffer
@@ -282,8 +297,7 @@ public final class Records {
         } else {
             // write the record directly to the file,
             // do not care about the cache; this case was checked before
-            this.raf.seek(index * this.recordsize);
-            this.raf.write(b, start, this.recordsize);
+            this.raf.write(index * this.recordsize, b, start, this.recordsize);
         }
     }
 
@@ -332,8 +346,7 @@ public final class Records {
             return isClean(this.buffer, q * this.recordsize, this.recordsize);
         }
         byte[] b = new byte[this.recordsize];
-        this.raf.seek(index * this.recordsize);
-        this.raf.readFully(b, 0, this.recordsize);
+        this.raf.readFully(index * this.recordsize, b, 0, this.recordsize);
         return isClean(b, 0, this.recordsize);
     }
 
@@ -359,8 +372,7 @@ public final class Records {
             return;
         }
 
-        this.raf.seek(index * this.recordsize);
-        this.raf.write(this.zero, 0, this.recordsize);
+        this.raf.write(index * this.recordsize, this.zero, 0, this.recordsize);
     }
 
     /**
@@ -401,15 +413,13 @@ public final class Records {
         // read entry from the file
         long endpos = this.raf.length() - this.recordsize;
         if (endpos >= 0) { // prevent seek error for 0 size file
-            this.raf.seek(endpos);
-            this.raf.readFully(b, start, this.recordsize);
+            this.raf.readFully(endpos, b, start, this.recordsize);
         } else {
             endpos = 0;
             System.arraycopy(this.zero, 0, b, start, this.recordsize);
         }
         // write zero bytes to the cache and to the file
-        this.raf.seek(endpos);
-        this.raf.write(this.zero, 0, this.recordsize);
+        this.raf.write(endpos, this.zero, 0, this.recordsize);
 
         // shrink file
         this.raf.setLength(endpos);
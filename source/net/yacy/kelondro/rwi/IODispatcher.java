@@ -30,6 +30,7 @@ import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.Semaphore;
 
 import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.Metrics;
 import net.yacy.kelondro.blob.ArrayStack;
 import net.yacy.kelondro.util.MemoryControl;
 
@@ -231,8 +232,10 @@ public class IODispatcher extends Thread {
         }
         private void dump() {
             try {
+                final long startNanos = System.nanoTime();
                 if (!this.cache.isEmpty()) this.cache.dump(this.file, (int) Math.min(MemoryControl.available() / 3, IODispatcher.this.writeBufferSize), true);
                 this.array.mountBLOBFile(this.file);
+                Metrics.histogram("rwi.dump").recordSince(startNanos);
             } catch (final IOException e) {
                 ConcurrentLog.logException(e);
             }
@@ -267,7 +270,10 @@ public class IODispatcher extends Thread {
         	    log.warn("merge of file (2) " + this.f2.getName() + " failed: file does not exists");
         		return null;
         	}
-            return this.array.mergeMount(this.f1, this.f2, this.factory, this.newFile, (int) Math.min(MemoryControl.available() / 3, IODispatcher.this.writeBufferSize));
+            final long startNanos = System.nanoTime();
+            final File merged = this.array.mergeMount(this.f1, this.f2, this.factory, this.newFile, (int) Math.min(MemoryControl.available() / 3, IODispatcher.this.writeBufferSize));
+            Metrics.histogram("rwi.merge").recordSince(startNanos);
+            return merged;
         }
     }
 
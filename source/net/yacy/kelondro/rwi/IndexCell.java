@@ -42,9 +42,11 @@ import net.yacy.cora.storage.ComparableARC;
 import net.yacy.cora.storage.HandleSet;
 import net.yacy.cora.util.ByteArray;
 import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.Metrics;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.kelondro.data.word.Word;
 import net.yacy.kelondro.index.RowHandleSet;
+import net.yacy.kelondro.util.MemoryBudget;
 import net.yacy.kelondro.util.MemoryControl;
 import net.yacy.kelondro.util.MergeIterator;
 import net.yacy.search.EventTracker;
@@ -80,6 +82,8 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
     private final Map<byte[], HandleSet>                 removeDelayedURLs; // mapping from word hashes to a list of url hashes
     private       boolean                                flushShallRun;
     private final Thread                                 flushThread;
+    private volatile boolean                             dumpRequested; // set by the memory budget to dump the ram cache early
+    private final MemoryBudget.Consumer                  budget;
 
     public IndexCell(
             final File cellPath,
@@ -107,8 +111,22 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
         this.writeBufferSize = writeBufferSize;
         this.removeDelayedURLs = new TreeMap<byte[], HandleSet>(Word.commonHashOrder);
         this.flushShallRun = true;
+        this.dumpRequested = false;
         this.flushThread = new FlushThread(cellPath.toString());
         this.flushThread.start();
+        this.budget = new MemoryBudget.Consumer() {
+            @Override
+            public long memory() {
+                return IndexCell.this.ram.usedMemory() + IndexCell.this.countCache.size() * 64L;
+            }
+            @Override
+            public void shrink(final double fraction) {
+                // the ram cache cannot be reduced partially; it is written to disk with the next flush cycle
+                IndexCell.this.countCache.shrink(fraction);
+                IndexCell.this.dumpRequested = true;
+            }
+        };
+        MemoryBudget.register("RWI Cache " + prefix, MemoryBudget.PRIORITY_HIGH, this.budget);
     }
 
     private class FlushThread extends Thread {
@@ -132,13 +150,16 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
             // dump the cache if necessary
             final long t = System.currentTimeMillis();
             if ((IndexCell.this.ram.size() >= IndexCell.this.maxRamEntries ||
+                (IndexCell.this.dumpRequested && !IndexCell.this.ram.isEmpty()) ||
                 (IndexCell.this.ram.size() > 3000 && !MemoryControl.request(80L * 1024L * 1024L, false)) ||
                 (!IndexCell.this.ram.isEmpty() && IndexCell.this.lastDump + dumpCycle < t))) {
                 synchronized (IndexCell.this.merger) {
                     if (IndexCell.this.ram.size() >= IndexCell.this.maxRamEntries ||
+                        (IndexCell.this.dumpRequested && !IndexCell.this.ram.isEmpty()) ||
                         (IndexCell.this.ram.size() > 3000 && !MemoryControl.request(80L * 1024L * 1024L, false)) ||
                         (!IndexCell.this.ram.isEmpty() && IndexCell.this.lastDump + dumpCycle < t)) try {
                             IndexCell.this.lastDump = System.currentTimeMillis();
+                            IndexCell.this.dumpRequested = false;
                         // removed delayed
                         try {removeDelayed();} catch (final IOException e) {}
                         // dump the ram
@@ -335,7 +356,6 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
             if (c < 0) c = 0;
         }
         // put count result into cache
-        if (MemoryControl.shortStatus()) this.countCache.clear();
         this.countCache.insert(termHash, c);
         return c;
     }
@@ -349,6 +369,7 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
      */
     @Override
     public ReferenceContainer<ReferenceType> get(final byte[] termHash, final HandleSet urlselection) throws IOException {
+        final long startNanos = System.nanoTime();
         final ReferenceContainer<ReferenceType> c0 = this.ram.get(termHash, null);
         ReferenceContainer<ReferenceType> c1 = null;
         try {
@@ -374,12 +395,16 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
         } else if (c1 != null) {
             result = c1;
         }
-        if (result == null) return null;
+        if (result == null) {
+            Metrics.histogram("rwi.get").recordSince(startNanos);
+            return null;
+        }
         // remove the failed urls
         synchronized (this.removeDelayedURLs) {
             final HandleSet s = this.removeDelayedURLs.get(termHash);
             if (s != null) result.removeEntries(s);
         }
+        Metrics.histogram("rwi.get").recordSince(startNanos);
         return result;
     }
 
@@ -594,6 +619,7 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
      */
     @Override
     public synchronized void close() {
+        MemoryBudget.unregister(this.budget);
         this.countCache.clear();
         try {removeDelayed();} catch (final IOException e) {}
         if (!this.ram.isEmpty()) this.ram.dump(this.array.newContainerBLOBFile(), (int) Math.min(MemoryControl.available() / 3, this.writeBufferSize), true);
@@ -82,6 +82,7 @@ public class Table implements Index, Iterable<Row.Entry> {
     private       HandleMap index;
     private       BufferedRecords file;
     private       RowSet table;
+    private final TableSnapshot snapshot;
 
     public Table(
     		final File tablefile,
@@ -102,6 +103,7 @@ public class Table implements Index, Iterable<Row.Entry> {
             cols[i] = rowdef.column(i + 1);
         }
         this.taildef = new Row(cols, NaturalOrder.naturalOrder);
+        this.snapshot = new TableSnapshot(tablefile, rowdef);
 
         // initialize table file
         boolean freshFile = false;
@@ -157,7 +159,12 @@ public class Table implements Index, Iterable<Row.Entry> {
             if (log.isFine()) log.fine("initializing RAM index for TABLE " + tablefile.getName() + ", please wait.");
             int i = 0;
             byte[] key;
-            if (this.table == null) {
+            boolean fromSnapshot = false;
+            if (this.table == null && (fromSnapshot = this.snapshot.load(this.index, errors, fileSize))) {
+                // the index had been loaded from the snapshot and the journal; no need to read the table file
+                if (log.isFine()) log.fine("loaded RAM index for TABLE " + tablefile.getName() + " from snapshot");
+            } else if (this.table == null) {
+                this.snapshot.delete();
                 final Iterator<byte[]> ki = new ChunkIterator(tablefile, rowdef.objectsize, rowdef.primaryKeyLength);
                 while (ki.hasNext()) {
                     key = ki.next();
@@ -171,6 +178,7 @@ public class Table implements Index, Iterable<Row.Entry> {
                     }
                 }
             } else {
+                this.snapshot.delete(); // the table copy requires to read the table file anyway
                 byte[] record;
                 key = new byte[rowdef.primaryKeyLength];
                 final ChunkIterator ri = new ChunkIterator(tablefile, rowdef.objectsize, rowdef.objectsize);
@@ -220,8 +228,8 @@ public class Table implements Index, Iterable<Row.Entry> {
             errors.close();
             assert this.file.size() == this.index.size() : "file.size() = " + this.file.size() + ", index.size() = " + this.index.size() + ", file = " + filename();
 
-            // warm up
-            if (!freshFile && warmUp) {warmUp0();}
+            // warm up; an index from a snapshot without journal entries cannot contain doubles
+            if (!freshFile && warmUp && !(fromSnapshot && this.snapshot.replayed() == 0)) {warmUp0();}
         } catch (final FileNotFoundException e) {
             // should never happen
             log.severe("", e);
@@ -377,6 +385,7 @@ public class Table implements Index, Iterable<Row.Entry> {
         assert this.file.size() == this.index.size() : "file.size() = " + this.file.size() + ", index.size() = " + this.index.size();
         assert this.table == null || this.table.size() == this.index.size() : "table.size() = " + this.table.size() + ", index.size() = " + this.index.size();
         final int i = (int) this.file.size();
+        this.snapshot.journal(i);
         try {
             this.index.putUnique(row.getPrimaryKeyBytes(), i);
         } catch (final SpaceExceededException e) {
@@ -478,7 +487,15 @@ public class Table implements Index, Iterable<Row.Entry> {
     	String tablefile = null;
         if (this.file != null) {
         	tablefile = this.file.filename().toString();
+        	int records = -1;
+        	try {
+        	    records = (int) this.file.size();
+        	} catch (final IOException e) {
+        	    ConcurrentLog.logException(e);
+        	}
         	this.file.close();
+        	// write a snapshot of the index for a fast start; a table with a table copy reads the table file anyway
+        	if (this.index != null && this.table == null && records >= 0) this.snapshot.write(this.index, records); else this.snapshot.delete();
         }
         this.file = null;
         if (this.table != null) this.table.close();
@@ -667,6 +684,7 @@ public class Table implements Index, Iterable<Row.Entry> {
      */
     private void removeInFile(final int i) throws IOException, SpaceExceededException {
         assert i >= 0;
+        this.snapshot.journal(i);
 
         final byte[] p = new byte[this.rowdef.objectsize];
         if (this.table == null) {
@@ -735,6 +753,7 @@ public class Table implements Index, Iterable<Row.Entry> {
         assert key.length == this.rowdef.primaryKeyLength;
         final int i = (int) this.index.get(key);
         if (i == -1) return null; // nothing to do
+        this.snapshot.journal(i); // the gap is filled with the last record
 
         // prepare result
         final byte[] b = new byte[this.rowdef.objectsize];
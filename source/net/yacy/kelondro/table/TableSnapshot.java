@@ -0,0 +1,291 @@
+/**
+ *  TableSnapshot
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.kelondro.table;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import net.yacy.cora.storage.HandleMap;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.index.Row;
+import net.yacy.kelondro.util.FileUtils;
+
+/**
+ * A snapshot of the RAM index of a Table, written on a clean shutdown, and a journal of the
+ * record positions which got another key since the snapshot had been written.
+ * Opening a table without a snapshot requires to read the complete table file to collect the keys;
+ * with a snapshot only the keys and positions are read. Changes after the snapshot are not written
+ * to the snapshot; instead each position of the snapshot which receives a different key (the gap of a
+ * removed record and appended records after the table had shrunk) is written to the journal before the
+ * table file is changed. Each position is journaled only once, and records which are appended behind the
+ * end of the snapshot need no journal entry, so the journal is smaller than the snapshot.
+ * To replay the journal, the keys at the journaled positions and behind the end of the snapshot are read
+ * again from the table file. Positions beyond the end of the table file are dropped.
+ * If the snapshot is broken, does not fit to the table file or the replayed index does not have the
+ * size of the table file, the table falls back to a full scan of the file. This is also done if more than
+ * half of the positions are journaled, because then a scan is faster than to read the positions again.
+ */
+public class TableSnapshot {
+
+    private final static ConcurrentLog log = new ConcurrentLog("TableSnapshot");
+
+    public  final static String snapshotSuffix = ".snapshot";
+    public  final static String journalSuffix = ".journal";
+    private final static int    MAGIC = 0x59545331; // "YTS1"
+    public  final static int    MIN_RECORDS = 10000; // smaller tables are scanned fast enough
+
+    private final File tablefile, snapshotFile, journalFile;
+    private final Row rowdef;
+    private FileOutputStream journal; // null if the journal is not active
+    private BitSet journaled;         // the positions in the journal
+    private int base;                 // the number of records in the snapshot; higher positions are not journaled
+    private int journalSize;          // the number of positions in the journal
+    private int replayed;             // the number of positions which had been read again from the table file
+
+    public TableSnapshot(final File tablefile, final Row rowdef) {
+        this.tablefile = tablefile;
+        this.snapshotFile = new File(tablefile.getParentFile(), tablefile.getName() + snapshotSuffix);
+        this.journalFile = new File(tablefile.getParentFile(), tablefile.getName() + journalSuffix);
+        this.rowdef = rowdef;
+        this.journal = null;
+        this.journaled = null;
+        this.base = 0;
+        this.journalSize = 0;
+        this.replayed = 0;
+    }
+
+    /**
+     * load the snapshot and replay the journal into an index. If this is successful, the journal is activated.
+     * @param index the index which must be empty
+     * @param errors a map which collects keys which are not well-formed
+     * @param records the number of records in the table file
+     * @return true if the index had been loaded, false if the table must be scanned
+     */
+    public boolean load(final HandleMap index, final HandleMap errors, final int records) {
+        if (!this.snapshotFile.exists()) return false;
+        final long time = System.currentTimeMillis();
+        try {
+            // read the journal: the set of positions which must be read again from the table file
+            final boolean journaled = this.journalFile.exists();
+            final BitSet dirty = new BitSet();
+            if (journaled) {
+                final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.journalFile), 64 * 1024));
+                try {
+                    while (true) {
+                        final int i = in.readInt();
+                        if (i >= 0 && i < records) dirty.set(i);
+                    }
+                } catch (final EOFException e) {
+                    // end of journal; a broken last entry is ignored
+                } finally {
+                    in.close();
+                }
+            }
+
+            // read the snapshot
+            final BitSet journaledPositions = (BitSet) dirty.clone();
+            final int count;
+            final CRC32 crc = new CRC32();
+            final DataInputStream in = new DataInputStream(new CheckedInputStream(new BufferedInputStream(new FileInputStream(this.snapshotFile), 64 * 1024), crc));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != this.rowdef.objectsize || in.readInt() != this.rowdef.primaryKeyLength) {
+                    log.info(this.snapshotFile + " does not fit to the row definition");
+                    return invalid(index);
+                }
+                final long length = in.readLong();
+                final long lastModified = in.readLong();
+                if (!journaled && (length != this.tablefile.length() || lastModified != this.tablefile.lastModified())) {
+                    log.info(this.snapshotFile + " is older than the table file");
+                    return invalid(index);
+                }
+                count = in.readInt();
+                if (count < records) dirty.set(count, records); // the appended records
+                final byte[] key = new byte[this.rowdef.primaryKeyLength];
+                for (int c = 0; c < count; c++) {
+                    in.readFully(key);
+                    final int i = in.readInt();
+                    if (i < 0 || i >= records || dirty.get(i)) continue;
+                    index.putUnique(key.clone(), i);
+                }
+                final long checksum = crc.getValue();
+                if (in.readLong() != checksum) {
+                    log.warn(this.snapshotFile + " has a wrong checksum");
+                    return invalid(index);
+                }
+            } finally {
+                in.close();
+            }
+
+            // replay the journal
+            if (!dirty.isEmpty()) {
+                final RandomAccessFile raf = new RandomAccessFile(this.tablefile, "r");
+                try {
+                    for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+                        final byte[] key = new byte[this.rowdef.primaryKeyLength];
+                        raf.seek((long) i * (long) this.rowdef.objectsize);
+                        raf.readFully(key);
+                        if (this.rowdef.objectOrder.wellformed(key)) {
+                            index.putUnique(key, i);
+                        } else {
+                            errors.putUnique(key, i);
+                        }
+                    }
+                } finally {
+                    raf.close();
+                }
+            }
+            this.replayed = dirty.cardinality();
+            index.optimize();
+            if (index.size() + errors.size() != records) {
+                log.warn(this.snapshotFile + " has " + (index.size() + errors.size()) + " entries but the table has " + records + " records");
+                errors.clear();
+                return invalid(index);
+            }
+            // the journal must exist from now on, even if it stays empty, to mark that the table file may change
+            this.journal = new FileOutputStream(this.journalFile, true);
+            this.journaled = journaledPositions;
+            this.base = count;
+            this.journalSize = journaledPositions.cardinality();
+            if (log.isFine()) log.fine("loaded " + this.snapshotFile + " with " + index.size() + " entries and " + dirty.cardinality() + " journal positions in " + (System.currentTimeMillis() - time) + " milliseconds");
+            return true;
+        } catch (final IOException | SpaceExceededException | RuntimeException e) {
+            log.warn("cannot load " + this.snapshotFile + ": " + e.getMessage());
+            errors.clear();
+            return invalid(index);
+        }
+    }
+
+    /**
+     * @return the number of journal positions which had been replayed by the last load; if this is zero,
+     * the index is a copy of the index at the time of the snapshot and has no double entries
+     */
+    public int replayed() {
+        return this.replayed;
+    }
+
+    private boolean invalid(final HandleMap index) {
+        index.clear();
+        delete();
+        return false;
+    }
+
+    /**
+     * note that the record at the given position gets another key. This must be called before the table file is changed.
+     * @param i the record position
+     */
+    public void journal(final int i) {
+        if (this.journal == null || i >= this.base || this.journaled.get(i)) return;
+        if (this.journalSize >= this.base / 2) {
+            // replaying the journal would be slower than a scan of the table file
+            if (log.isFine()) log.fine(this.journalFile + " has " + this.journalSize + " positions, the snapshot is dropped");
+            delete();
+            return;
+        }
+        this.journaled.set(i);
+        this.journalSize++;
+        try {
+            // not buffered: the position must be in the journal before the table file is changed
+            this.journal.write(new byte[]{(byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i});
+        } catch (final IOException e) {
+            // without a journal the snapshot is not valid any more
+            log.warn("cannot write " + this.journalFile + ": " + e.getMessage());
+            delete();
+        }
+    }
+
+    /**
+     * write a snapshot of the index; the table file must be closed and all buffers must be flushed.
+     * The journal is removed afterwards.
+     * @param index
+     * @param records the number of records in the table file
+     */
+    public void write(final HandleMap index, final int records) {
+        closeJournal();
+        if (records < MIN_RECORDS || index.size() != records) {
+            delete();
+            return;
+        }
+        final File tmp = new File(this.snapshotFile.getParentFile(), this.snapshotFile.getName() + ".tmp");
+        try {
+            final CRC32 crc = new CRC32();
+            final DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024), crc));
+            try {
+                out.writeInt(MAGIC);
+                out.writeInt(this.rowdef.objectsize);
+                out.writeInt(this.rowdef.primaryKeyLength);
+                out.writeLong(this.tablefile.length());
+                out.writeLong(this.tablefile.lastModified());
+                out.writeInt(index.size());
+                for (final Map.Entry<byte[], Long> entry: index) {
+                    out.write(entry.getKey(), 0, this.rowdef.primaryKeyLength);
+                    out.writeInt((int) entry.getValue().longValue());
+                }
+                out.writeLong(crc.getValue());
+            } finally {
+                out.close();
+            }
+            if (this.snapshotFile.exists()) FileUtils.deletedelete(this.snapshotFile);
+            if (!tmp.renameTo(this.snapshotFile)) throw new IOException("cannot rename " + tmp);
+            if (this.journalFile.exists()) FileUtils.deletedelete(this.journalFile);
+        } catch (final IOException e) {
+            log.warn("cannot write " + this.snapshotFile + ": " + e.getMessage());
+            FileUtils.deletedelete(tmp);
+            delete();
+        }
+    }
+
+    /**
+     * remove the snapshot and the journal; the next open of the table scans the table file
+     */
+    public void delete() {
+        closeJournal();
+        if (this.snapshotFile.exists()) FileUtils.deletedelete(this.snapshotFile);
+        if (this.journalFile.exists()) FileUtils.deletedelete(this.journalFile);
+    }
+
+    private void closeJournal() {
+        if (this.journal == null) return;
+        try {
+            this.journal.close();
+        } catch (final IOException e) {
+        }
+        this.journal = null;
+        this.journaled = null;
+        this.base = 0;
+        this.journalSize = 0;
+        this.replayed = 0;
+    }
+
+}
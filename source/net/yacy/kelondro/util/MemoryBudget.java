@@ -0,0 +1,295 @@
+/**
+ *  MemoryBudget
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.kelondro.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryNotificationInfo;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import net.yacy.cora.util.ConcurrentLog;
+
+/**
+ * A registry for the memory consumption of caches. Every cache registers itself with an approximate
+ * size and a priority. When the heap is short, the caches are reduced proportionally to their size,
+ * starting with the lowest priority, instead of clearing all caches at once.
+ * Memory pressure is signalled by the JVM with a notification when the heap occupancy after a
+ * garbage collection exceeds a threshold, so the caches do not need to poll the memory status.
+ */
+public class MemoryBudget {
+
+    private final static ConcurrentLog log = new ConcurrentLog("MEMORY");
+
+    /** caches which are cheap to rebuild */
+    public final static int PRIORITY_LOW = 0;
+    /** caches which save network or disk access */
+    public final static int PRIORITY_MEDIUM = 1;
+    /** caches and buffers which are expensive to reduce */
+    public final static int PRIORITY_HIGH = 2;
+
+    private final static double THRESHOLD = 0.8d; // fraction of the heap pool which triggers a relief after a GC
+    private final static double TARGET = 0.6d;    // fraction of the heap pool which shall be occupied after a relief
+
+    /**
+     * a cache which can be reduced in size
+     */
+    public interface Consumer {
+
+        /**
+         * @return the approximate number of bytes held by the consumer
+         */
+        public long memory();
+
+        /**
+         * remove a part of the content
+         * @param fraction the fraction of the entries to remove, a value in (0, 1]; 1 means clear
+         */
+        public void shrink(double fraction);
+    }
+
+    /**
+     * a registered consumer together with its relief statistics
+     */
+    public static class Budget {
+        private final String name;
+        private final int priority;
+        private final Consumer consumer;
+        private final AtomicLong shrinks, released;
+
+        private Budget(final String name, final int priority, final Consumer consumer) {
+            this.name = name;
+            this.priority = priority;
+            this.consumer = consumer;
+            this.shrinks = new AtomicLong(0);
+            this.released = new AtomicLong(0);
+        }
+
+        public String name() {
+            return this.name;
+        }
+
+        public int priority() {
+            return this.priority;
+        }
+
+        public long memory() {
+            try {
+                return Math.max(0, this.consumer.memory());
+            } catch (final RuntimeException e) {
+                return 0; // the consumer may be closed concurrently
+            }
+        }
+
+        public long shrinks() {
+            return this.shrinks.get();
+        }
+
+        public long released() {
+            return this.released.get();
+        }
+    }
+
+    private final static Map<Consumer, Budget> budgets = new ConcurrentHashMap<Consumer, Budget>();
+    private final static AtomicBoolean installed = new AtomicBoolean(false);
+    private final static AtomicBoolean reliefPending = new AtomicBoolean(false);
+    private final static AtomicLong notifications = new AtomicLong(0);
+    private static ExecutorService reliefExecutor = null;
+
+    /**
+     * register a cache
+     * @param name a name which is shown in the memory statistics; several consumers may share a name
+     * @param priority one of PRIORITY_LOW, PRIORITY_MEDIUM or PRIORITY_HIGH
+     * @param consumer
+     */
+    public static void register(final String name, final int priority, final Consumer consumer) {
+        budgets.put(consumer, new Budget(name, priority, consumer));
+    }
+
+    /**
+     * remove a cache from the registry, i.e. when it is closed
+     * @param consumer
+     */
+    public static void unregister(final Consumer consumer) {
+        if (consumer != null) budgets.remove(consumer);
+    }
+
+    /**
+     * @return the registered consumers ordered by priority and name
+     */
+    public static List<Budget> budgets() {
+        final List<Budget> list = new ArrayList<Budget>(budgets.values());
+        Collections.sort(list, new Comparator<Budget>() {
+            @Override
+            public int compare(final Budget b0, final Budget b1) {
+                if (b0.priority != b1.priority) return b0.priority < b1.priority ? -1 : 1;
+                return b0.name.compareTo(b1.name);
+            }
+        });
+        return list;
+    }
+
+    /**
+     * @return the sum of the memory of all registered consumers
+     */
+    public static long memory() {
+        long m = 0;
+        for (final Budget b: budgets.values()) m += b.memory();
+        return m;
+    }
+
+    /**
+     * @return the number of memory notifications that had been received from the JVM
+     */
+    public static long notifications() {
+        return notifications.get();
+    }
+
+    /**
+     * release the given amount of memory from the registered consumers. The consumers with the lowest priority
+     * are reduced first; consumers of the same priority are reduced by the same fraction, so that a large cache
+     * gives more memory than a small one. The released memory becomes available with the next garbage collection.
+     * @param bytes the number of bytes to release
+     * @return the approximate number of bytes that had been released
+     */
+    public static long relieve(final long bytes) {
+        if (bytes <= 0) return 0;
+        long remaining = bytes;
+        synchronized (budgets) {
+            for (int priority = PRIORITY_LOW; priority <= PRIORITY_HIGH && remaining > 0; priority++) {
+                final List<Budget> level = new ArrayList<Budget>();
+                final List<Long> levelMemory = new ArrayList<Long>();
+                long sum = 0;
+                for (final Budget b: budgets.values()) {
+                    if (b.priority != priority) continue;
+                    final long m = b.memory();
+                    if (m == 0) continue;
+                    level.add(b);
+                    levelMemory.add(m);
+                    sum += m;
+                }
+                if (sum == 0) continue;
+                final double fraction = Math.min(1.0d, (double) remaining / (double) sum);
+                for (int i = 0; i < level.size(); i++) {
+                    final Budget b = level.get(i);
+                    try {
+                        b.consumer.shrink(fraction);
+                    } catch (final RuntimeException e) {
+                        ConcurrentLog.logException(e);
+                        continue;
+                    }
+                    b.shrinks.incrementAndGet();
+                    b.released.addAndGet((long) (levelMemory.get(i) * fraction));
+                }
+                remaining -= Math.min(remaining, sum);
+            }
+        }
+        final long released = bytes - remaining;
+        if (log.isFine()) log.fine("relieved " + (released >> 10) + " KB of " + (bytes >> 10) + " KB requested from caches");
+        return released;
+    }
+
+    /**
+     * release the given amount of memory from the registered consumers in a separate thread.
+     * The consumers are shrinked with their own locks; if the caller holds the lock of another consumer,
+     * an inline relief could dead-lock with a thread which holds the lock of that consumer. If a relief
+     * is already running, the request is ignored.
+     * @param bytes the number of bytes to release
+     */
+    public static void relieveConcurrently(final long bytes) {
+        if (bytes <= 0 || !reliefPending.compareAndSet(false, true)) return;
+        try {
+            reliefExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        relieve(bytes);
+                    } finally {
+                        reliefPending.set(false);
+                    }
+                }
+            });
+        } catch (final RejectedExecutionException e) {
+            reliefPending.set(false);
+        }
+    }
+
+    private static synchronized ExecutorService reliefExecutor() {
+        if (reliefExecutor == null) reliefExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread t = new Thread(r, "MemoryBudget");
+                t.setDaemon(true); // must not prevent the shutdown of the jvm
+                return t;
+            }
+        });
+        return reliefExecutor;
+    }
+
+    /**
+     * listen to the memory notifications of the JVM. A notification is sent when the occupancy of a heap pool
+     * after a garbage collection exceeds the threshold; then the caches are reduced until the target occupancy
+     * would be reached. The relief is done in a separate thread because notifications are delivered by a JVM thread.
+     */
+    public static void install() {
+        if (!installed.compareAndSet(false, true)) return;
+        boolean supported = false;
+        for (final MemoryPoolMXBean pool: ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() != MemoryType.HEAP || !pool.isCollectionUsageThresholdSupported()) continue;
+            final long max = pool.getUsage().getMax();
+            if (max <= 0) continue;
+            pool.setCollectionUsageThreshold((long) (max * THRESHOLD));
+            supported = true;
+        }
+        if (!supported) {
+            log.info("memory notifications are not supported by this JVM; caches are only reduced on memory requests");
+            return;
+        }
+        ((NotificationEmitter) ManagementFactory.getMemoryMXBean()).addNotificationListener(new NotificationListener() {
+            @Override
+            public void handleNotification(final Notification notification, final Object handback) {
+                if (!MemoryNotificationInfo.MEMORY_COLLECTION_THRESHOLD_EXCEEDED.equals(notification.getType())) return;
+                notifications.incrementAndGet();
+                final MemoryUsage usage = MemoryNotificationInfo.from((CompositeData) notification.getUserData()).getUsage();
+                relieveConcurrently(usage.getUsed() - (long) (usage.getMax() * TARGET));
+            }
+        }, null, null);
+        log.info("memory notifications installed, threshold " + ((int) (THRESHOLD * 100)) + "% of heap");
+    }
+
+}
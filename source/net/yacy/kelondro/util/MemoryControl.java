@@ -26,6 +26,7 @@
 package net.yacy.kelondro.util;
 
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Use this to get information about memory usage or try to free some memory
@@ -33,6 +34,8 @@ import java.util.concurrent.atomic.AtomicBoolean;
 public class MemoryControl {
 
     private static AtomicBoolean shortStatus = new AtomicBoolean(false);
+    private static final AtomicBoolean gcRunning = new AtomicBoolean(false);
+    private static final AtomicLong lastRelief = new AtomicLong(0); // the time of the last cache reduction; the released memory is only available after the next GC
     private static boolean simulatedShortStatus = false, usingStandardStrategy = true;
     private static MemoryStrategy strategy;
 
@@ -71,12 +74,20 @@ public class MemoryControl {
     }
 
     /**
-     * Runs the garbage collector if last garbage collection is more than last millis ago
+     * Runs the garbage collector if last garbage collection is more than last millis ago.
+     * If another thread is already running a garbage collection, the method returns at once
+     * instead of waiting for a second collection.
      * @param last time which must be passed since lased gc
      * @param info additional info for log
+     * @return true if a garbage collection was performed
      */
-    public final synchronized static boolean gc(final int last, final String info) { // thq
-    	return getStrategy().gc(last, info);
+    public final static boolean gc(final int last, final String info) { // thq
+        if (!gcRunning.compareAndSet(false, true)) return false;
+        try {
+            return getStrategy().gc(last, info);
+        } finally {
+            gcRunning.set(false);
+        }
     }
 
     /**
@@ -115,7 +126,8 @@ public class MemoryControl {
 	}
 
 	/**
-     * check for a specified amount of bytes
+     * check for a specified amount of bytes. If the memory is not available, the caches
+     * which are registered at the MemoryBudget are reduced before a GC is considered.
      *
      * @param size the requested amount of free memory in bytes
      * @param force specifies whether risk an expensive GC
@@ -123,7 +135,15 @@ public class MemoryControl {
      */
     public static boolean request(final long size, final boolean force) {
         if (size < 1024) return true; // to speed up things. If this would fail, it would be much too late to check this.
-        return getStrategy().request(size, force, shortStatus);
+        final MemoryStrategy s = getStrategy();
+        final long missing = size - s.available();
+        final long now = System.currentTimeMillis();
+        final long last = lastRelief.get();
+        if (missing > 0 && now - last > 1000 && lastRelief.compareAndSet(last, now)) {
+            // the caller may hold the lock of a cache; the caches are reduced in another thread
+            MemoryBudget.relieveConcurrently(missing);
+        }
+        return s.request(size, force, shortStatus);
     }
 
     /**
@@ -0,0 +1,216 @@
+/**
+ *  DHTRing
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.peers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.util.LookAheadIterator;
+
+/**
+ * An immutable snapshot of the connected peers in the order of their position on the DHT ring.
+ * The peer selection for DHT searches and DHT transmissions walks along the ring from a given position;
+ * on the seed database this creates a new Seed object for each visited peer and parses the version, flags
+ * and birth date again for each selection. The snapshot is created once from the seed database (see
+ * SeedDB.dhtRing()) and holds the seeds together with their pre-parsed attributes in arrays, so that a walk
+ * along the ring only needs a binary search for the start position and array access for each step.
+ */
+public final class DHTRing {
+
+    private final static Comparator<Seed> hashOrder = new Comparator<Seed>() {
+        @Override
+        public int compare(final Seed s0, final Seed s1) {
+            return Base64Order.enhancedCoder.compare(ASCII.getBytes(s0.hash), ASCII.getBytes(s1.hash));
+        }
+    };
+
+    private final byte[][] hashes;
+    private final Seed[] seeds;
+    private final double[] versions;
+    private final boolean[] acceptRemoteIndex;
+    private final long[] birthdates;
+    private final long created;
+
+    /**
+     * create a snapshot
+     * @param connected an iteration of the connected peers
+     */
+    public DHTRing(final Iterator<Seed> connected) {
+        final ArrayList<Seed> list = new ArrayList<Seed>();
+        while (connected.hasNext()) {
+            final Seed seed = connected.next();
+            if (seed == null || seed.hash == null) continue;
+            list.add(seed);
+        }
+        Collections.sort(list, hashOrder);
+        final int size = list.size();
+        this.hashes = new byte[size][];
+        this.seeds = new Seed[size];
+        this.versions = new double[size];
+        this.acceptRemoteIndex = new boolean[size];
+        this.birthdates = new long[size];
+        for (int i = 0; i < size; i++) {
+            final Seed seed = list.get(i);
+            this.hashes[i] = ASCII.getBytes(seed.hash);
+            this.seeds[i] = seed;
+            this.versions[i] = seed.getVersion();
+            this.acceptRemoteIndex[i] = seed.getFlagAcceptRemoteIndex();
+            this.birthdates[i] = seed.getBirthdate();
+        }
+        this.created = System.currentTimeMillis();
+    }
+
+    public long created() {
+        return this.created;
+    }
+
+    public int size() {
+        return this.seeds.length;
+    }
+
+    public boolean isEmpty() {
+        return this.seeds.length == 0;
+    }
+
+    /**
+     * find the start of a walk along the ring
+     * @param hash a position on the ring
+     * @return the index of the first peer with a hash which is equal or greater than the given hash;
+     *   0 if there is no such peer, because the ring is closed at its ends
+     */
+    public int position(final byte[] hash) {
+        int low = 0, high = this.hashes.length;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (Base64Order.enhancedCoder.compare(this.hashes[mid], hash) < 0) low = mid + 1; else high = mid;
+        }
+        return low == this.hashes.length ? 0 : low;
+    }
+
+    /**
+     * @param i an index of a peer
+     * @return the index of the next peer on the ring
+     */
+    public int next(final int i) {
+        return i + 1 >= this.seeds.length ? 0 : i + 1;
+    }
+
+    public Seed seed(final int i) {
+        return this.seeds[i];
+    }
+
+    public byte[] hash(final int i) {
+        return this.hashes[i];
+    }
+
+    /**
+     * @param i an index of a peer
+     * @param minVersion the minimum version of the peer; peers with version 0 (developer peers) are always accepted
+     * @return true if the peer accepts remote index transmissions and has the minimum version
+     */
+    public boolean acceptRemoteIndex(final int i, final double minVersion) {
+        if (!this.acceptRemoteIndex[i]) return false;
+        final double version = this.versions[i];
+        return version >= minVersion || version == 0.0d;
+    }
+
+    /**
+     * @param i an index of a peer
+     * @param now the current time
+     * @return the age of the peer in number of days, like Seed.getAge()
+     */
+    public int age(final int i, final long now) {
+        return (int) Math.abs((now - this.birthdates[i]) / 1000 / 60 / 60 / 24);
+    }
+
+    /**
+     * walk along the ring and enumerate the peers which accept remote index transmissions
+     * @param starthash the start position on the ring
+     * @param mySeed the own seed, which is inserted at its position on the ring regardless of its flags; or null
+     * @param max the maximum number of peers
+     * @param minVersion the minimum version of the peers
+     * @return the peers in the order of the DHT, beginning at the start position and closing the ring at its ends
+     */
+    public Iterator<Seed> acceptRemoteIndexSeeds(final byte[] starthash, final Seed mySeed, final int max, final double minVersion) {
+        return new acceptRemoteIndexWalk(this, starthash, mySeed, max, minVersion);
+    }
+
+    /**
+     * a walk along the DHT ring, starting at a given position and closing the ring at its ends
+     */
+    private static class acceptRemoteIndexWalk extends LookAheadIterator<Seed> implements Iterator<Seed>, Iterable<Seed> {
+
+        private final DHTRing ring;
+        private Seed mySeed; // the own seed if it shall be inserted at its position on the ring; null otherwise
+        private final byte[] myHash;
+        private final int myPass;
+        private final byte[] starthash;
+        private final double minVersion;
+        private int p, steps, remaining;
+
+        private acceptRemoteIndexWalk(final DHTRing ring, final byte[] starthash, final Seed mySeed, final int max, final double minVersion) {
+            this.ring = ring;
+            this.minVersion = minVersion;
+            this.mySeed = mySeed;
+            this.myHash = mySeed == null ? null : ASCII.getBytes(mySeed.hash);
+            // the own peer is in the first pass if its hash is behind the start position, otherwise after the rotation
+            this.myPass = mySeed == null ? 0 : (Base64Order.enhancedCoder.compare(this.myHash, starthash) > 0 ? 1 : 2);
+            this.starthash = starthash;
+            this.p = ring.position(starthash);
+            this.steps = ring.size();
+            this.remaining = max;
+        }
+
+        @Override
+        protected Seed next0() {
+            if (this.remaining <= 0) return null;
+            while (this.steps > 0) {
+                final int i = this.p;
+                if (this.mySeed != null) {
+                    // peers behind the start position are in the first pass, the peers from the beginning of the ring in the second pass
+                    final int pass = Base64Order.enhancedCoder.compare(this.ring.hash(i), this.starthash) >= 0 ? 1 : 2;
+                    if (this.myPass < pass || (this.myPass == pass && Base64Order.enhancedCoder.compare(this.myHash, this.ring.hash(i)) < 0)) return mine();
+                }
+                this.steps--;
+                this.p = this.ring.next(i);
+                if (this.ring.acceptRemoteIndex(i, this.minVersion)) {
+                    this.remaining--;
+                    return this.ring.seed(i);
+                }
+            }
+            return this.mySeed == null ? null : mine(); // the own hash is last in line
+        }
+
+        private Seed mine() {
+            // the own peer is accepted regardless of the AcceptRemoteIndex-flag
+            final Seed s = this.mySeed;
+            this.mySeed = null;
+            this.remaining--;
+            return s;
+        }
+
+    }
+
+}
@@ -31,6 +31,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.SortedSet;
@@ -96,6 +97,12 @@ public class DHTSelection {
                 if (omit != null && omit.contains(seed)) continue; // sort out peers that are target for DHT
                 if (seed.isLastSeenTimeout(3600000)) continue; // do not ask peers that had not been seen more than one hour (happens during a startup situation)
                 if (!seed.getFlagSolrAvailable()) continue; // extra peers always use solr direct, skip if solr interface is not available
+                final PeerPerformance.Stats stats = PeerPerformance.get(seed.hash);
+                if (stats != null) {
+                    if (stats.inBackoff()) continue; // do not ask peers that failed recently
+                    if (stats.latency() < PeerPerformance.UNKNOWN_LATENCY) seedSelection.dec(seed, r.nextInt(10) + 2); // peers which answered fast
+                    if (stats.yield() >= 10.0d) seedSelection.dec(seed, r.nextInt(10) + 2); // peers which contributed results
+                }
                 if (!seed.getFlagAcceptRemoteIndex() && seed.matchPeerTags(wordhashes)) seedSelection.dec(seed, r.nextInt(10) + 2); // robinson peers with matching peer tags
                 if (seed.getFlagRootNode()) seedSelection.dec(seed, r.nextInt(30) + 6); // root nodes (fast peers)
                 if (seed.getAge() < minage) seedSelection.dec(seed, r.nextInt(15) + 3); // young peers (with fresh info)
@@ -131,32 +138,68 @@ public class DHTSelection {
     }
 
     public static Set<Seed> selectDHTSearchTargets(final SeedDB seedDB, final HandleSet wordhashes, final int minage, final int redundancy, final int maxredundancy, final Random random) {
+        return selectDHTSearchTargets(seedDB, wordhashes, minage, redundancy, maxredundancy, random, null);
+    }
+
+    /**
+     * select the search targets for the given words according to the DHT
+     * @param seedDB
+     * @param wordhashes
+     * @param minage
+     * @param redundancy the number of peers that are selected for each partition
+     * @param maxredundancy the number of candidate peers for each partition
+     * @param random
+     * @param alternates if not null, this is filled with a mapping from the hash of a selected peer to the
+     *   best not selected peer of the same partition; that peer can be asked if the selected peer is slow
+     * @return the selected peers
+     */
+    public static Set<Seed> selectDHTSearchTargets(final SeedDB seedDB, final HandleSet wordhashes, final int minage, final int redundancy, final int maxredundancy, final Random random, final Map<String, Seed> alternates) {
 
         // put in seeds according to dht
         Set<Seed> seeds = new LinkedHashSet<Seed>(); // dht position seeds
         if (seedDB != null) {
+            final DHTRing ring = seedDB.dhtRing();
             Iterator<byte[]> iter = wordhashes.iterator();
             while (iter.hasNext()) {
-                seeds.addAll(collectHorizontalDHTPositions(seedDB, iter.next(), minage, redundancy, maxredundancy, random));
+                seeds.addAll(collectHorizontalDHTPositions(ring, seedDB.scheme, iter.next(), minage, redundancy, maxredundancy, random, alternates));
             }
         }
         
         return seeds;
     }
 
-    private static ArrayList<Seed> collectHorizontalDHTPositions(final SeedDB seedDB, final byte[] wordhash, final int minage, final int redundancy, final int maxredundancy, Random random) {
+    private static ArrayList<Seed> collectHorizontalDHTPositions(final DHTRing ring, final Distribution scheme, final byte[] wordhash, final int minage, final int redundancy, final int maxredundancy, Random random, final Map<String, Seed> alternates) {
         // this method is called from the search target computation
-        ArrayList<Seed> collectedSeeds = new ArrayList<Seed>(redundancy * seedDB.scheme.verticalPartitions());
-        for (int verticalPosition = 0; verticalPosition < seedDB.scheme.verticalPartitions(); verticalPosition++) {
-            ArrayList<Seed> seeds = selectVerticalDHTPositions(seedDB, wordhash, minage, maxredundancy, verticalPosition);
+        ArrayList<Seed> collectedSeeds = new ArrayList<Seed>(redundancy * scheme.verticalPartitions());
+        for (int verticalPosition = 0; verticalPosition < scheme.verticalPartitions(); verticalPosition++) {
+            ArrayList<Seed> seeds = selectVerticalDHTPositions(ring, scheme, wordhash, minage, maxredundancy, verticalPosition);
+            // peers which failed recently are only asked if there are not enough other peers for this partition
+            if (seeds.size() > redundancy) {
+                Iterator<Seed> i = seeds.iterator();
+                int removable = seeds.size() - redundancy;
+                while (i.hasNext() && removable > 0) {
+                    if (PeerPerformance.inBackoff(i.next().hash)) {i.remove(); removable--;}
+                }
+            }
             if (seeds.size() <= redundancy) {
                 collectedSeeds.addAll(seeds);
             } else {
                 // we pick some random peers from the vertical position.
                 // All of them should be valid, but picking a random subset is a distributed load balancing on the whole YaCy network.
                 // without picking a random subset, always the same peers would be targeted for the same word resulting in (possible) DoS on the target.
+                // Of two random candidates the one which answered faster in the past is taken ('power of two choices'),
+                // this keeps the load balancing but avoids that slow peers are asked again and again.
+                final int first = collectedSeeds.size();
                 for (int i = 0; i < redundancy; i++) {
-                    collectedSeeds.add(seeds.remove(random.nextInt(seeds.size())));
+                    int a = random.nextInt(seeds.size());
+                    int b = random.nextInt(seeds.size());
+                    collectedSeeds.add(seeds.remove(PeerPerformance.isBetter(seeds.get(a), seeds.get(b)) ? a : b));
+                }
+                if (alternates != null) {
+                    // the best remaining peer is the alternate for the selected peers of this partition
+                    Seed best = seeds.get(0);
+                    for (Seed seed: seeds) if (PeerPerformance.isBetter(seed, best)) best = seed;
+                    for (int i = first; i < collectedSeeds.size(); i++) alternates.put(collectedSeeds.get(i).hash, best);
                 }
             }
         }
@@ -167,34 +210,38 @@ public class DHTSelection {
     public static List<Seed>[] selectDHTDistributionTargets(final SeedDB seedDB, final byte[] wordhash, final int minage, final int redundancy) {
         // this method is called from the distribution target computation
         List<Seed>[] seedlists = (List<Seed>[]) Array.newInstance(ArrayList.class, seedDB.scheme.verticalPartitions());
+        final DHTRing ring = seedDB.dhtRing();
         for (int verticalPosition = 0; verticalPosition < seedDB.scheme.verticalPartitions(); verticalPosition++) {
-            seedlists[verticalPosition] = selectVerticalDHTPositions(seedDB, wordhash, minage, redundancy, verticalPosition);
+            seedlists[verticalPosition] = selectVerticalDHTPositions(ring, seedDB.scheme, wordhash, minage, redundancy, verticalPosition);
         }
         return seedlists;
     }
     
     /**
      * collecting vertical positions: that chooses for each of the DHT partition a collection of redundant storage positions
-     * @param seedDB the database of seeds
+     * @param ring the snapshot of the connected peers
+     * @param scheme the distribution scheme of the network
      * @param wordhash the word we are searching for
      * @param minage the minimum age of a seed in days (to prevent that too young seeds which cannot have results yet are asked)
      * @param redundancy the number of redundant peer position for this parition, minimum is 1
      * @param verticalPosition the verical position, thats the number of the partition 0 <= verticalPosition < seedDB.scheme.verticalPartitions()
      * @return a list of seeds for the redundant positions
      */
-    private static ArrayList<Seed> selectVerticalDHTPositions(final SeedDB seedDB, final byte[] wordhash, final int minage, final int redundancy, int verticalPosition) {
+    private static ArrayList<Seed> selectVerticalDHTPositions(final DHTRing ring, final Distribution scheme, final byte[] wordhash, final int minage, final int redundancy, int verticalPosition) {
         // this method is called from the search target computation
         ArrayList<Seed> seeds = new ArrayList<Seed>(redundancy);
-        final long dhtVerticalTarget = seedDB.scheme.verticalDHTPosition(wordhash, verticalPosition);
+        if (ring.isEmpty()) return seeds;
+        final long dhtVerticalTarget = scheme.verticalDHTPosition(wordhash, verticalPosition);
         final byte[] verticalhash = Distribution.positionToHash(dhtVerticalTarget);
-        final Iterator<Seed> dhtEnum = getAcceptRemoteIndexSeeds(seedDB, verticalhash, redundancy, false);
-        int c = Math.min(seedDB.sizeConnected(), redundancy);
-        int cc = 20; // in case that the network grows rapidly, we may jump to several additional peers but that must have a limit
-        while (dhtEnum.hasNext() && c > 0 && cc-- > 0) {
-            Seed seed = dhtEnum.next();
-            if (seed == null || seed.hash == null) continue;
-            if (!seed.getFlagAcceptRemoteIndex()) continue; // probably a robinson peer
-            if (seed.getAge() < minage) continue; // prevent bad results because of too strong network growth
+        final long now = System.currentTimeMillis();
+        int candidates = Math.min(ring.size(), redundancy); // the number of peers following the position which are considered
+        int c = candidates;
+        int p = ring.position(verticalhash);
+        for (int steps = ring.size(); steps > 0 && candidates > 0; steps--, p = ring.next(p)) {
+            if (!ring.acceptRemoteIndex(p, yacyVersion.YACY_HANDLES_COLLECTION_INDEX)) continue; // probably a robinson peer
+            candidates--;
+            if (ring.age(p, now) < minage) continue; // prevent bad results because of too strong network growth
+            final Seed seed = ring.seed(p);
             if (RemoteSearch.log.isInfo()) RemoteSearch.log.info("selectPeers/DHTorder: " + seed.hash + ":" + seed.getName() + "/ score " + c);
             seeds.add(seed);
             c--;
@@ -233,113 +280,8 @@ public class DHTSelection {
      * @return
      */
     public static Iterator<Seed> getAcceptRemoteIndexSeeds(final SeedDB seedDB, final byte[] starthash, final int max, final boolean alsoMyOwn) {
-        return new acceptRemoteIndexSeedEnum(seedDB, starthash, Math.min(max, seedDB.sizeConnected()), alsoMyOwn);
-    }
-
-    private static class acceptRemoteIndexSeedEnum extends LookAheadIterator<Seed> implements Iterator<Seed>, Iterable<Seed> {
-
-        private final Iterator<Seed> se;
-        private final SeedDB seedDB;
-        private int remaining;
-        private final boolean alsoMyOwn;
-
-        private acceptRemoteIndexSeedEnum(SeedDB seedDB, final byte[] starthash, int max, boolean alsoMyOwn) {
-            this.seedDB = seedDB;
-            this.se = new seedDHTEnum(seedDB, starthash, alsoMyOwn);
-            this.remaining = max;
-            this.alsoMyOwn = alsoMyOwn;
-        }
-
-        @Override
-        protected Seed next0() {
-            if (this.remaining <= 0) return null;
-            Seed s = null;
-            try {
-                while (this.se.hasNext()) {
-                    s = this.se.next();
-                    if (s == null) return null;
-                    if (s.getFlagAcceptRemoteIndex() ||
-                        (this.alsoMyOwn && s.hash.equals(this.seedDB.mySeed().hash)) // Accept own peer regardless of FlagAcceptRemoteIndex
-                       ) {
-                        this.remaining--;
-                        break;
-                    }
-                }
-                return s;
-            } catch (final kelondroException e) {
-                System.out.println("DEBUG acceptRemoteIndexSeedEnum:" + e.getMessage());
-                Network.log.severe("database inconsistency (" + e.getMessage() + "), re-set of db.");
-                this.seedDB.resetActiveTable();
-                return null;
-            }
-        }
-
-    }
-    
-    private static class seedDHTEnum implements Iterator<Seed> {
-
-        private Iterator<Seed> e;
-        private int steps;
-        private final SeedDB seedDB;
-        private boolean alsoMyOwn;
-        private int pass, insertOwnInPass;
-        private Seed nextSeed;
-
-        private seedDHTEnum(final SeedDB seedDB, final byte[] firstHash, final boolean alsoMyOwn) {
-            this.seedDB = seedDB;
-            this.steps = seedDB.sizeConnected() + ((alsoMyOwn) ? 1 : 0);
-            this.e = seedDB.seedsConnected(true, false, firstHash, yacyVersion.YACY_HANDLES_COLLECTION_INDEX);
-            this.pass = 1;
-            this.alsoMyOwn = alsoMyOwn;
-            if (alsoMyOwn) {
-                this.insertOwnInPass = (Base64Order.enhancedCoder.compare(ASCII.getBytes(seedDB.mySeed().hash), firstHash) > 0) ? 1 : 2;
-            } else {
-                this.insertOwnInPass = 0;
-            }
-            this.nextSeed = nextInternal();
-        }
-
-        @Override
-        public boolean hasNext() {
-            return (this.nextSeed != null) || this.alsoMyOwn;
-        }
-
-        public Seed nextInternal() {
-            if (this.steps == 0) return null;
-            this.steps--;
-
-            if (!this.e.hasNext() && this.pass == 1) {
-                // rotate from the beginning; this closes the ordering of the DHT at the ends
-                this.e = this.seedDB.seedsConnected(true, false, null, yacyVersion.YACY_HANDLES_COLLECTION_INDEX);
-                this.pass = 2;
-            }
-            if (this.e.hasNext()) {
-                return this.e.next();
-            }
-            this.steps = 0;
-            return null;
-        }
-
-        @Override
-        public Seed next() {
-            if (this.alsoMyOwn &&
-                ((this.pass > this.insertOwnInPass) ||
-                 (this.pass == this.insertOwnInPass && this.nextSeed == null) || // Own hash is last in line
-                 (this.pass == this.insertOwnInPass && this.nextSeed != null && (Base64Order.enhancedCoder.compare(ASCII.getBytes(this.seedDB.mySeed().hash), ASCII.getBytes(this.nextSeed.hash)) < 0)))
-               ) {
-                // take my own seed hash instead the enumeration result
-                this.alsoMyOwn = false;
-                return this.seedDB.mySeed();
-            }
-            final Seed next = this.nextSeed;
-            this.nextSeed = nextInternal();
-            return next;
-        }
-
-        @Override
-        public void remove() {
-            throw new UnsupportedOperationException();
-        }
+        final DHTRing ring = seedDB.dhtRing();
+        return ring.acceptRemoteIndexSeeds(starthash, alsoMyOwn ? seedDB.mySeed() : null, Math.min(max, ring.size()), yacyVersion.YACY_HANDLES_COLLECTION_INDEX);
     }
 
     /**
@@ -31,7 +31,14 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.order.Base64Order;
@@ -43,6 +50,7 @@ import net.yacy.kelondro.data.word.Word;
 import net.yacy.kelondro.data.word.WordReference;
 import net.yacy.kelondro.index.RowHandleSet;
 import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
 import net.yacy.kelondro.workflow.WorkflowProcessor;
 import net.yacy.search.Switchboard;
 import net.yacy.search.SwitchboardConstants;
@@ -63,8 +71,8 @@ public class Dispatcher {
      * - (5) the largest entries are selected from the dispatcher write buffer and enqueued to the 'next' array
      *       which means that they are ready for transmission
      * - (6) the dispatcher takes some of the entries in the next queue and initiates
-     *       transmission to other peers concurrently. As much transmissions are initiated concurrently
-     *       as the redundancy factor.
+     *       transmission to other peers concurrently. Every target peer has its own send queue with
+     *       a limit of concurrent transmissions, so a slow peer cannot block transmissions to other peers.
      * - (7) a transmission thread executes the entry transmission.
      * - (8) the transmission thread initiates another transmission in case that it fails
      * - (9) when the wanted number of redundant peers have received the entries,
@@ -82,12 +90,46 @@ public class Dispatcher {
      *     called failed. In case of a fail, the RWI fragment is put back into the backend index structure
      */
 
+    // the number of concurrent transmissions to one target peer
+    static final int MAX_IN_FLIGHT_PER_TARGET = 1;
+
+    // the number of chunks which may wait in the send queue of one target peer
+    private static final int MAX_QUEUED_PER_TARGET = 2;
+
+    // the number of references in the first chunk for a target; later chunks are adapted to the observed throughput
+    static final int INITIAL_CHUNK_SIZE = 100;
+    static final int MIN_CHUNK_SIZE = 10;
+
+    // the time that one transmission should take; chunk sizes are adapted to reach that time
+    static final long TARGET_TRANSMISSION_TIME = 4000;
+
+    // a target which failed is not used for this time (multiplied by the number of consecutive failures)
+    static final long BACKOFF_BASE = 10000;
+    static final long BACKOFF_MAX = 600000;
+
+    // the delay of the next transmission if the own peer is overloaded (multiplied by the number of consecutive overload observations)
+    private static final long THROTTLE_BASE = 1000;
+    private static final long THROTTLE_MAX = 60000;
+
+    // the weight of a new observation in the moving average of the throughput
+    private static final double ALPHA = 0.3d;
+
     /**
      * A transmission buffer is a write buffer for the rwi objects (indices) that wait to be transmitted.
      * The String-key is the primary target as contained in the chunk entry.
      */
     private Map<String, Transmission.Chunk> transmissionBuffer;
 
+    // the send queues and transmission statistics of the target peers
+    private final ConcurrentMap<String, Target> targets;
+
+    // the number of chunks which are queued or transmitted
+    private final AtomicInteger pending;
+
+    // the time until no new transmission is started because the own peer is overloaded
+    private long throttleUntil;
+    private int overloadCount;
+
     // the segment backend is used to store the remaining indexContainers in case that the object is closed
     private final Segment segment;
 
@@ -98,7 +140,7 @@ public class Dispatcher {
     private final ConcurrentLog log;
 
     // transmission process
-    private WorkflowProcessor<Transmission.Chunk> indexingTransmissionProcessor;
+    private ThreadPoolExecutor transmissionExecutor;
 
     // transmission object
     private final Transmission transmission;
@@ -110,6 +152,10 @@ public class Dispatcher {
             final int timeout
             ) {
         this.transmissionBuffer = new ConcurrentHashMap<String, Transmission.Chunk>();
+        this.targets = new ConcurrentHashMap<String, Target>();
+        this.pending = new AtomicInteger(0);
+        this.throttleUntil = 0;
+        this.overloadCount = 0;
         this.segment = segment;
         this.seeds = seeds;
         this.log = new ConcurrentLog("INDEX-TRANSFER-DISPATCHER");
@@ -121,19 +167,172 @@ public class Dispatcher {
             timeout);
 
         final int concurrentSender = Math.min(8, WorkflowProcessor.availableCPU);
-        this.indexingTransmissionProcessor = new WorkflowProcessor<Transmission.Chunk>(
-                "transferDocumentIndex",
-                "This is the RWI transmission process",
-                new String[]{"RWI/Cache/Collections"},
-                this, "transferDocumentIndex", concurrentSender * 3, null, concurrentSender);
+        this.transmissionExecutor = new ThreadPoolExecutor(
+                concurrentSender, concurrentSender,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new NamePrefixThreadFactory("transferDocumentIndex"));
+        this.transmissionExecutor.allowCoreThreadTimeOut(true);
     }
 
     public int bufferSize() {
     	return (this.transmissionBuffer == null) ? 0 : this.transmissionBuffer.size();
     }
 
+    /**
+     * @return the number of chunks which wait in the send queues or are transmitted
+     */
     public int transmissionSize() {
-    	return (this.indexingTransmissionProcessor == null) ? 0 : this.indexingTransmissionProcessor.getQueueSize();
+    	return this.pending.get();
+    }
+
+    /**
+     * The send queue and the transmission statistics of one target peer.
+     * The number of references in a chunk for the target is adapted to the observed throughput:
+     * it grows while transmissions are fast and shrinks to the size that can be sent within
+     * TARGET_TRANSMISSION_TIME if they are slow; a failure halves the chunk size and lets the
+     * target rest for a back-off time.
+     */
+    final class Target implements Runnable {
+
+        final Queue<Transmission.Chunk> queue;
+        final AtomicInteger inFlight;
+        int chunkSize, maxChunkSize, consecutiveFailures;
+        double throughput; // references per second
+        long backoffUntil, lastUse;
+
+        Target(final Seed seed) {
+            this.queue = new ConcurrentLinkedQueue<Transmission.Chunk>();
+            this.inFlight = new AtomicInteger(0);
+            this.maxChunkSize = IndexTransferFormat.supportedBy(seed) ? Transmission.maxBinaryRWIsCount : Transmission.maxRWIsCount;
+            this.chunkSize = Math.min(INITIAL_CHUNK_SIZE, this.maxChunkSize);
+            this.consecutiveFailures = 0;
+            this.throughput = 0.0d;
+            this.backoffUntil = 0;
+            this.lastUse = System.currentTimeMillis();
+        }
+
+        synchronized int chunkSize() {
+            return this.chunkSize;
+        }
+
+        synchronized boolean inBackoff() {
+            return System.currentTimeMillis() < this.backoffUntil;
+        }
+
+        private boolean isFull() {
+            return this.queue.size() + this.inFlight.get() >= MAX_QUEUED_PER_TARGET + MAX_IN_FLIGHT_PER_TARGET;
+        }
+
+        private synchronized boolean isIdle(final long timeout) {
+            return this.queue.isEmpty() && this.inFlight.get() == 0 && this.lastUse < timeout && System.currentTimeMillis() >= this.backoffUntil;
+        }
+
+        synchronized void success(final int references, final long time) {
+            final double t = references * 1000.0d / Math.max(1, time);
+            this.throughput = this.throughput == 0.0d ? t : ALPHA * t + (1.0d - ALPHA) * this.throughput;
+            if (time < TARGET_TRANSMISSION_TIME / 2) {
+                // fast transmission: try larger chunks
+                this.chunkSize = Math.min(this.maxChunkSize, this.chunkSize + Math.max(MIN_CHUNK_SIZE, this.chunkSize / 2));
+            } else if (time > TARGET_TRANSMISSION_TIME) {
+                // slow transmission: take as much as can be sent in the target time
+                this.chunkSize = Math.max(MIN_CHUNK_SIZE, Math.min(this.chunkSize, (int) (this.throughput * TARGET_TRANSMISSION_TIME / 1000)));
+            }
+            this.consecutiveFailures = 0;
+            this.lastUse = System.currentTimeMillis();
+        }
+
+        synchronized void failure() {
+            this.chunkSize = Math.max(MIN_CHUNK_SIZE, this.chunkSize / 2);
+            this.consecutiveFailures++;
+            this.lastUse = System.currentTimeMillis();
+            this.backoffUntil = this.lastUse + Math.min(BACKOFF_MAX, BACKOFF_BASE << Math.min(16, this.consecutiveFailures - 1));
+        }
+
+        /**
+         * put a chunk into the send queue and start a transmission if the target has capacity
+         */
+        void enqueue(final Transmission.Chunk chunk) {
+            Dispatcher.this.pending.incrementAndGet();
+            this.queue.add(chunk);
+            this.schedule();
+        }
+
+        private void schedule() {
+            while (!this.queue.isEmpty()) {
+                final int c = this.inFlight.get();
+                if (c >= MAX_IN_FLIGHT_PER_TARGET) return;
+                if (!this.inFlight.compareAndSet(c, c + 1)) continue;
+                final ThreadPoolExecutor executor = Dispatcher.this.transmissionExecutor;
+                if (executor == null || executor.isShutdown()) {
+                    this.inFlight.decrementAndGet();
+                    return;
+                }
+                executor.execute(this);
+                return;
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                final Transmission.Chunk chunk = this.queue.poll();
+                if (chunk == null) return;
+                try {
+                    if (this.inBackoff()) {
+                        Dispatcher.this.log.info("STORE: Chunk " + chunk.dhtTarget().getName() + " is in back-off, putting back index to backend");
+                        chunk.restore();
+                    } else {
+                        transferDocumentIndex(chunk, this);
+                    }
+                } finally {
+                    Dispatcher.this.pending.decrementAndGet();
+                }
+            } finally {
+                this.inFlight.decrementAndGet();
+            }
+            this.schedule();
+        }
+    }
+
+    Target target(final Seed seed) {
+        Target t = this.targets.get(seed.hash);
+        if (t != null) return t;
+        t = new Target(seed);
+        final Target t0 = this.targets.putIfAbsent(seed.hash, t);
+        return t0 == null ? t : t0;
+    }
+
+    /**
+     * remove the statistics of targets which had not been used for a long time
+     */
+    private void cleanupTargets() {
+        final long timeout = System.currentTimeMillis() - BACKOFF_MAX;
+        final Iterator<Target> i = this.targets.values().iterator();
+        while (i.hasNext()) {
+            if (i.next().isIdle(timeout)) i.remove();
+        }
+    }
+
+    /**
+     * check if the own peer is able to send index data. If it is overloaded, transmissions are delayed;
+     * the delay grows with every overload observation and shrinks again when the load is normal.
+     * @return true if no transmission shall be started now
+     */
+    private synchronized boolean throttled() {
+        final long now = System.currentTimeMillis();
+        if (now < this.throttleUntil) return true;
+        final boolean overloaded =
+                Protocol.metadataRetrievalRunning.get() > 0 ||
+                Memory.load() > Switchboard.getSwitchboard().getConfigFloat(SwitchboardConstants.INDEX_DIST_LOADPREREQ, 2.0f);
+        if (overloaded) {
+            this.overloadCount++;
+            this.throttleUntil = now + Math.min(THROTTLE_MAX, THROTTLE_BASE << Math.min(16, this.overloadCount - 1));
+            this.log.info("dispatcher throttled for " + (this.throttleUntil - now) + " milliseconds because of high load");
+            return true;
+        }
+        if (this.overloadCount > 0) this.overloadCount--;
+        return false;
     }
 
     /**
@@ -280,7 +479,7 @@ public class Dispatcher {
             // extend the transmissionBuffer with entries for each redundant position
             for (Seed target: targets[vertical]) {
                 Transmission.Chunk entry = this.transmissionBuffer.get(target.hash); // if this is not null, the entry is extended here
-                if (entry == null) entry =  transmission.newChunk(target); else {
+                if (entry == null) entry =  transmission.newChunk(target, target(target).chunkSize()); else {
                     log.info("extending chunk for peer " + entry.dhtTarget().hash + " containing " + entry.containersSize() + " references with " + verticalContainer.size() + " more entries");
                 }
                 try {
@@ -332,54 +531,65 @@ public class Dispatcher {
 
     /**
      * PROCESS(5)
-     * take the largest container from the write buffer and put it into the 'next' array,
-     * where it waits to be processed.
+     * take the largest container from the write buffer and put it into the send queue of its target,
+     * where it waits to be processed. Targets which cannot take more chunks are skipped.
      * This method returns true if a container was dequeued, false if not
      */
     public boolean dequeueContainer() {
     	if (this.transmissionBuffer == null) return false;
-        if (this.indexingTransmissionProcessor.getQueueSize() > this.indexingTransmissionProcessor.getMaxConcurrency()) return false;
+        if (this.throttled()) return false;
+        if (this.targets.size() > 1000) cleanupTargets();
         String maxtarget = null;
         int maxsize = -1;
         for (final Map.Entry<String, Transmission.Chunk> chunk: this.transmissionBuffer.entrySet()) {
-            if (chunk.getValue().containersSize() > maxsize) {
+            if (chunk.getValue().containersSize() > maxsize && !target(chunk.getValue().dhtTarget()).isFull()) {
                 maxsize = chunk.getValue().containersSize();
                 maxtarget = chunk.getKey();
             }
         }
         if (maxsize < 0) return false;
         final Transmission.Chunk chunk = this.transmissionBuffer.remove(maxtarget);
-        this.indexingTransmissionProcessor.enQueue(chunk);
+        if (chunk == null) return false;
+        target(chunk.dhtTarget()).enqueue(chunk);
         return true;
     }
 
     /**
-     * transfer job: this method is called using reflection from the switchboard
-     * the method is called as a Workflow process. That means it is always called whenever
-     * a job is placed in the workflow queue. This happens in dequeueContainer()
+     * transfer job: this method is called from the send queue of the target
      * @param chunk
-     * @return
+     * @param target the send queue of the chunk target
      */
-    public Transmission.Chunk transferDocumentIndex(final Transmission.Chunk chunk) {
+    private void transferDocumentIndex(final Transmission.Chunk chunk, final Target target) {
 
-        // try to keep the system healthy; sleep as long as System load is too high
-        while (Protocol.metadataRetrievalRunning.get() > 0) try {Thread.sleep(1000);} catch (InterruptedException e) {break;}
-        
-        // we must test this here again
-        while (Memory.load() > Switchboard.getSwitchboard().getConfigFloat(SwitchboardConstants.INDEX_DIST_LOADPREREQ, 2.0f)) try {Thread.sleep(10000);} catch (InterruptedException e) {break;}
-        
         // do the transmission
+        final long start = System.currentTimeMillis();
         final boolean success = chunk.transmit();
-        if (success) return chunk;
+        if (success) {
+            target.success(chunk.referencesSize(), System.currentTimeMillis() - start);
+            return;
+        }
 
+        target.failure();
         this.log.info("STORE: Chunk " + chunk.dhtTarget().getName() + " does not respond or accept the dht index, putting back index to backend");
         chunk.restore();
-        return null;
     }
 
     public void close() {
         // removes all entries from the dispatcher and puts them back to a RAMRI
-        if (this.indexingTransmissionProcessor != null) this.indexingTransmissionProcessor.shutdown();
+        if (this.transmissionExecutor != null) {
+            this.transmissionExecutor.shutdown();
+            try {
+                this.transmissionExecutor.awaitTermination(this.transmission.timeout4Transfer, TimeUnit.MILLISECONDS);
+            } catch (final InterruptedException e) {}
+        }
+        for (final Target target: this.targets.values()) {
+            Transmission.Chunk chunk;
+            while ((chunk = target.queue.poll()) != null) {
+                chunk.restore();
+                this.pending.decrementAndGet();
+            }
+        }
+        this.targets.clear();
         if (this.transmissionBuffer != null) {
         	outerLoop: for (final Map.Entry<String, Transmission.Chunk> e : this.transmissionBuffer.entrySet()) {
         		for (final ReferenceContainer<WordReference> i : e.getValue()) try {
@@ -392,10 +602,7 @@ public class Dispatcher {
         	this.transmissionBuffer.clear();
         }
         this.transmissionBuffer = null;
-        if (this.indexingTransmissionProcessor != null) {
-        	this.indexingTransmissionProcessor.clear();
-        }
-        this.indexingTransmissionProcessor = null;
+        this.transmissionExecutor = null;
     }
 
 }
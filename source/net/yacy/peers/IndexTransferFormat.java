@@ -0,0 +1,231 @@
+/**
+ *  IndexTransferFormat
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.peers;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.mime.MIME;
+import org.apache.http.entity.mime.content.AbstractContentBody;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceRow;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.search.index.Segment;
+
+/**
+ * The binary format for the transfer of RWI entries from one peer to another (transferRWI).
+ * The format replaces the text lines of property forms: the rows of the reference containers are written
+ * as they are stored, grouped by their term hash and compressed with deflate:
+ * <pre>
+ * 'Y' 'R' 'W' 'I' version(1 byte)
+ * deflate(rowsize(int) hashlength(int) containers(int) {termhash(hashlength) count(int) {row(rowsize)}*count}*containers)
+ * </pre>
+ * A peer announces the highest version which it can read with the seed key Seed.RWIFORMAT; peers without that
+ * key get the old text format.
+ */
+public class IndexTransferFormat {
+
+    public static final int VERSION = 1;
+
+    private static final byte[] MAGIC = new byte[]{'Y', 'R', 'W', 'I'};
+
+    /**
+     * @param seed a peer
+     * @return true if the peer can receive the binary format
+     */
+    public static boolean supportedBy(final Seed seed) {
+        try {
+            return Integer.parseInt(seed.get(Seed.RWIFORMAT, "0")) >= VERSION;
+        } catch (final NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * a multipart body which writes the binary format of reference containers directly to the connection
+     */
+    public static class Body extends AbstractContentBody {
+
+        private final Iterable<ReferenceContainer<WordReference>> containers;
+        private final int count;
+
+        /**
+         * @param containers the containers to transfer; they must not be changed while the body is written
+         * @param count the number of containers
+         */
+        public Body(final Iterable<ReferenceContainer<WordReference>> containers, final int count) {
+            super(ContentType.APPLICATION_OCTET_STREAM);
+            this.containers = containers;
+            this.count = count;
+        }
+
+        @Override
+        public void writeTo(final OutputStream out) throws IOException {
+            out.write(MAGIC);
+            out.write(VERSION);
+            final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try {
+                final DeflaterOutputStream zout = new DeflaterOutputStream(out, deflater, 8192);
+                final DataOutputStream data = new DataOutputStream(zout);
+                final int rowsize = WordReferenceRow.urlEntryRow.objectsize;
+                data.writeInt(rowsize);
+                data.writeInt(Word.commonHashLength);
+                data.writeInt(this.count);
+                final byte[] row = new byte[rowsize];
+                int c = 0;
+                for (final ReferenceContainer<WordReference> container: this.containers) {
+                    if (c++ >= this.count) break;
+                    data.write(container.getTermHash(), 0, Word.commonHashLength);
+                    final int size = container.size();
+                    data.writeInt(size);
+                    final Iterator<WordReference> i = container.entries();
+                    int r = 0;
+                    while (r < size && i.hasNext()) {
+                        i.next().toKelondroEntry().writeToArray(row, 0);
+                        data.write(row);
+                        r++;
+                    }
+                    if (r < size) throw new IOException("container " + ASCII.String(container.getTermHash()) + " was changed during transfer");
+                }
+                if (c < this.count) throw new IOException("missing containers: " + c + " of " + this.count);
+                data.flush();
+                zout.finish(); // do not close: the stream belongs to the multipart entity
+            } finally {
+                deflater.end();
+            }
+            out.flush();
+        }
+
+        @Override
+        public String getFilename() {
+            return "indexes"; // makes this a file part; the receiver gets it base64-encoded
+        }
+
+        @Override
+        public String getCharset() {
+            return null;
+        }
+
+        @Override
+        public long getContentLength() {
+            return -1; // the body is streamed
+        }
+
+        @Override
+        public String getTransferEncoding() {
+            return MIME.ENC_BINARY;
+        }
+    }
+
+    /**
+     * the decoded content of a transfer
+     */
+    public static class Chunk {
+        public final List<ReferenceContainer<WordReference>> containers = new ArrayList<ReferenceContainer<WordReference>>();
+        public int entries = 0;   // the number of decoded entries
+        public int malformed = 0; // the number of entries which had been dropped because their hashes are not well-formed
+        public boolean truncated = false; // true if there had been more entries than allowed
+    }
+
+    /**
+     * @param data the transferred bytes
+     * @return true if the data starts with the header of the binary format
+     */
+    public static boolean isBinary(final byte[] data) {
+        if (data == null || data.length < MAGIC.length + 1) return false;
+        for (int i = 0; i < MAGIC.length; i++) if (data[i] != MAGIC[i]) return false;
+        return true;
+    }
+
+    /**
+     * decode the binary format
+     * @param data the transferred bytes
+     * @param maxEntries the maximum number of entries which are accepted; further entries are ignored
+     * @return the decoded reference containers
+     * @throws IOException if the data is not in a format which can be read by this peer
+     */
+    public static Chunk decode(final byte[] data, final int maxEntries) throws IOException {
+        if (!isBinary(data)) throw new IOException("unknown format");
+        final int version = data[MAGIC.length];
+        if (version != VERSION) throw new IOException("unknown format version " + version);
+        final DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(data, MAGIC.length + 1, data.length - MAGIC.length - 1)));
+        try {
+            final int rowsize = in.readInt();
+            final int hashlength = in.readInt();
+            if (rowsize != WordReferenceRow.urlEntryRow.objectsize || hashlength != Word.commonHashLength) throw new IOException("wrong row definition: rowsize = " + rowsize + ", hashlength = " + hashlength);
+            final int count = in.readInt();
+            final Chunk chunk = new Chunk();
+            final byte[] row = new byte[rowsize];
+            for (int c = 0; c < count; c++) {
+                final byte[] termHash = new byte[hashlength];
+                in.readFully(termHash);
+                final int size = in.readInt();
+                if (size < 0) throw new IOException("negative container size");
+                if (chunk.entries + size > maxEntries) {
+                    chunk.truncated = true; // protection against flooding
+                    break;
+                }
+                final boolean termOk = Word.commonHashOrder.wellformed(termHash);
+                final ReferenceContainer<WordReference> container;
+                try {
+                    container = new ReferenceContainer<WordReference>(Segment.wordReferenceFactory, termHash, termOk ? size : 0);
+                } catch (final SpaceExceededException e) {
+                    throw new IOException(e.getMessage());
+                }
+                for (int r = 0; r < size; r++) {
+                    in.readFully(row);
+                    if (!termOk || !Word.commonHashOrder.wellformed(row, 0, hashlength)) {
+                        chunk.malformed++;
+                        continue;
+                    }
+                    try {
+                        container.add(Segment.wordReferenceFactory.produceSlow(WordReferenceRow.urlEntryRow.newEntry(row, 0, true)));
+                    } catch (final SpaceExceededException e) {
+                        throw new IOException(e.getMessage());
+                    }
+                    chunk.entries++;
+                }
+                if (!container.isEmpty()) chunk.containers.add(container);
+            }
+            return chunk;
+        } catch (final EOFException e) {
+            throw new IOException("truncated transfer");
+        } finally {
+            in.close();
+        }
+    }
+
+}
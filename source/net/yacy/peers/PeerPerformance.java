@@ -0,0 +1,238 @@
+/**
+ *  PeerPerformance
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.peers;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Observed performance of remote peers: an exponentially weighted moving average (EWMA) of the
+ * response time, the number of time-outs and failures and the average number of results that a peer
+ * contributed to a search. The values are fed by remote searches and by the peer ping in Protocol and
+ * are used by the DHTSelection to prefer fast and productive peers and to avoid overloaded ones.
+ * For peers which send index data to us, the time to process their transmissions and the number of accepted
+ * and rejected entries is recorded as well.
+ * The statistics are held in RAM only; they are rebuilt quickly after a restart.
+ */
+public class PeerPerformance {
+
+    // the weight of a new observation in the moving averages
+    private static final double ALPHA = 0.25d;
+
+    // the assumed response time of peers which had never been asked
+    public static final long UNKNOWN_LATENCY = 1000;
+
+    // a peer which failed is not selected for searches until this time (multiplied by consecutive failures) is over
+    private static final long BACKOFF_BASE = 30000;
+    private static final long BACKOFF_MAX = 1800000;
+
+    // the maximum number of peers for which statistics are stored
+    private static final int MAX_PEERS = 10000;
+
+    private static final ConcurrentMap<String, Stats> stats = new ConcurrentHashMap<String, Stats>();
+
+    public static class Stats {
+        private double latency, yield, receiveTime;
+        private int responses, searches, timeouts, failures, consecutiveFailures, receipts;
+        private long lastUpdate, accepted, rejected;
+
+        private Stats() {
+            this.latency = UNKNOWN_LATENCY;
+            this.yield = 0.0d;
+            this.responses = 0;
+            this.searches = 0;
+            this.timeouts = 0;
+            this.failures = 0;
+            this.consecutiveFailures = 0;
+            this.lastUpdate = System.currentTimeMillis();
+            this.receiveTime = 0.0d;
+            this.receipts = 0;
+            this.accepted = 0;
+            this.rejected = 0;
+        }
+
+        private synchronized void response(final long time, final int results) {
+            this.latency = this.responses == 0 ? time : ALPHA * time + (1.0d - ALPHA) * this.latency;
+            if (results >= 0) {
+                this.yield = this.searches == 0 ? results : ALPHA * results + (1.0d - ALPHA) * this.yield;
+                this.searches++;
+            }
+            this.responses++;
+            this.consecutiveFailures = 0;
+            this.lastUpdate = System.currentTimeMillis();
+        }
+
+        private synchronized void failure(final long time, final boolean timeout) {
+            // a failed request counts with its waiting time, but at least with the time-out penalty
+            this.latency = ALPHA * Math.max(time, 2 * this.latency) + (1.0d - ALPHA) * this.latency;
+            this.yield = (1.0d - ALPHA) * this.yield;
+            if (timeout) this.timeouts++; else this.failures++;
+            this.consecutiveFailures++;
+            this.lastUpdate = System.currentTimeMillis();
+        }
+
+        private synchronized void receipt(final long time, final int accepted, final int rejected) {
+            this.receiveTime = this.receipts == 0 ? time : ALPHA * time + (1.0d - ALPHA) * this.receiveTime;
+            this.receipts++;
+            this.accepted += accepted;
+            this.rejected += rejected;
+        }
+
+        public synchronized long latency() {
+            return (long) this.latency;
+        }
+
+        public synchronized double yield() {
+            return this.yield;
+        }
+
+        public synchronized int responses() {
+            return this.responses;
+        }
+
+        public synchronized int timeouts() {
+            return this.timeouts;
+        }
+
+        public synchronized int failures() {
+            return this.failures;
+        }
+
+        public synchronized long receiveTime() {
+            return (long) this.receiveTime;
+        }
+
+        public synchronized long accepted() {
+            return this.accepted;
+        }
+
+        public synchronized long rejected() {
+            return this.rejected;
+        }
+
+        public synchronized boolean inBackoff() {
+            if (this.consecutiveFailures == 0) return false;
+            final long backoff = Math.min(BACKOFF_MAX, BACKOFF_BASE << Math.min(16, this.consecutiveFailures - 1));
+            return System.currentTimeMillis() - this.lastUpdate < backoff;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return "latency=" + ((long) this.latency) + "ms, yield=" + ((int) this.yield) + ", responses=" + this.responses + ", timeouts=" + this.timeouts + ", failures=" + this.failures +
+                   ", receiveTime=" + ((long) this.receiveTime) + "ms, receipts=" + this.receipts + ", accepted=" + this.accepted + ", rejected=" + this.rejected;
+        }
+    }
+
+    private static Stats getOrCreate(final String peerhash) {
+        Stats s = stats.get(peerhash);
+        if (s != null) return s;
+        if (stats.size() >= MAX_PEERS) cleanup();
+        s = new Stats();
+        final Stats s0 = stats.putIfAbsent(peerhash, s);
+        return s0 == null ? s : s0;
+    }
+
+    /**
+     * remove the statistics of peers which had not been updated for the longest time
+     */
+    private static void cleanup() {
+        final long timeout = System.currentTimeMillis() - BACKOFF_MAX;
+        final Iterator<Stats> i = stats.values().iterator();
+        while (i.hasNext()) {
+            if (i.next().lastUpdate < timeout) i.remove();
+        }
+        if (stats.size() >= MAX_PEERS) stats.clear();
+    }
+
+    /**
+     * record a successful response of a peer
+     * @param peerhash the hash of the peer
+     * @param time the response time in milliseconds
+     * @param results the number of results that the peer contributed or -1 if the request was not a search
+     */
+    public static void response(final String peerhash, final long time, final int results) {
+        if (peerhash == null) return;
+        getOrCreate(peerhash).response(time, results);
+    }
+
+    /**
+     * record a failed request to a peer
+     * @param peerhash the hash of the peer
+     * @param time the time in milliseconds until the request failed or was cancelled
+     * @param timeout true if the request was cancelled because it took too long
+     */
+    public static void failure(final String peerhash, final long time, final boolean timeout) {
+        if (peerhash == null) return;
+        getOrCreate(peerhash).failure(time, timeout);
+    }
+
+    /**
+     * record the processing of index data which a peer sent to us
+     * @param peerhash the hash of the sending peer
+     * @param time the processing time in milliseconds
+     * @param accepted the number of entries which had been stored
+     * @param rejected the number of entries which had been rejected
+     * @return the statistics of the peer
+     */
+    public static Stats receipt(final String peerhash, final long time, final int accepted, final int rejected) {
+        final Stats s = getOrCreate(peerhash);
+        s.receipt(time, accepted, rejected);
+        return s;
+    }
+
+    /**
+     * @param peerhash the hash of the peer
+     * @return the statistics of the peer or null if the peer had never been asked
+     */
+    public static Stats get(final String peerhash) {
+        return peerhash == null ? null : stats.get(peerhash);
+    }
+
+    /**
+     * @param peerhash the hash of the peer
+     * @return the expected response time of the peer in milliseconds
+     */
+    public static long expectedLatency(final String peerhash) {
+        final Stats s = get(peerhash);
+        return s == null ? UNKNOWN_LATENCY : s.latency();
+    }
+
+    /**
+     * @param peerhash the hash of the peer
+     * @return true if the peer failed recently and should not be selected
+     */
+    public static boolean inBackoff(final String peerhash) {
+        final Stats s = get(peerhash);
+        return s != null && s.inBackoff();
+    }
+
+    /**
+     * compare two peers: the faster peer is better, a peer in back-off is always worse
+     * @return true if peer a is better than peer b
+     */
+    public static boolean isBetter(final Seed a, final Seed b) {
+        final boolean ba = inBackoff(a.hash), bb = inBackoff(b.hash);
+        if (ba != bb) return bb;
+        return expectedLatency(a.hash) <= expectedLatency(b.hash);
+    }
+
+}
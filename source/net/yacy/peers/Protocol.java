@@ -89,6 +89,7 @@ import net.yacy.cora.util.JSONArray;
 import net.yacy.cora.util.JSONException;
 import net.yacy.cora.util.JSONObject;
 import net.yacy.cora.util.JSONTokener;
+import net.yacy.cora.util.Metrics;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.crawler.data.ResultURLs;
 import net.yacy.crawler.data.ResultURLs.EventOrigin;
@@ -206,6 +207,7 @@ public final class Protocol {
                     false, true);
             responseTime = System.currentTimeMillis() - start;
             result = FileUtils.table(content);
+            if (targetHash != null && result != null && !result.isEmpty()) PeerPerformance.response(targetHash, responseTime, -1);
         } catch (final Exception e ) {
             if ( Thread.currentThread().isInterrupted() ) {Network.log.info("yacyClient.hello thread '" + Thread.currentThread().getName() + "' interrupted.");
                 return null;
@@ -486,7 +488,8 @@ public final class Protocol {
         final int partitions,
         final Seed target,
         final SecondarySearchSuperviser secondarySearchSuperviser,
-        final Blacklist blacklist) {
+        final Blacklist blacklist,
+        final int timeout) {
         // send a search request to peer with remote Hash
 
         // INPUT:
@@ -525,7 +528,8 @@ public final class Protocol {
                         partitions,
                         target.getHexHash() + ".yacyh",
                         clusteraddress,
-                        secondarySearchSuperviser
+                        secondarySearchSuperviser,
+                        timeout
                         );
                 break;
             } catch (final IOException e ) {
@@ -585,7 +589,8 @@ public final class Protocol {
         final int maxDistance,
         final int partitions,
         final Seed target,
-        final Blacklist blacklist) {
+        final Blacklist blacklist,
+        final int timeout) {
 
         final long timestamp = System.currentTimeMillis();
         event.addExpectedRemoteReferences(count);
@@ -607,7 +612,8 @@ public final class Protocol {
                         partitions,
                         target.getHexHash() + ".yacyh",
                         target.getPublicAddress(ip),
-                        null
+                        null,
+                        timeout
                         );
                 break;
             } catch (final IOException e ) {
@@ -806,7 +812,8 @@ public final class Protocol {
             final int partitions,
             final String hostname,
             final String hostaddress,
-            final SecondarySearchSuperviser secondarySearchSuperviser
+            final SecondarySearchSuperviser secondarySearchSuperviser,
+            final int timeout
             ) throws IOException {
             // send a search request to peer with remote Hash
 
@@ -863,7 +870,7 @@ public final class Protocol {
                 //resultMap = FileUtils.table(HTTPConnector.getConnector(MultiProtocolURI.crawlerUserAgent).post(new MultiProtocolURI("http://" + target.getClusterAddress() + "/yacy/search.html"), 60000, target.getHexHash() + ".yacyh", parts));
             }
 
-            final HTTPClient httpClient = new HTTPClient(ClientIdentification.yacyInternetCrawlerAgent, 8000);
+            final HTTPClient httpClient = new HTTPClient(ClientIdentification.yacyInternetCrawlerAgent, timeout);
             //System.out.println("Protocol: http://" + hostaddress + "/yacy/search.html" + requestPartsToString(parts)); // DEBUG
             byte[] a = httpClient.POSTbytes(new MultiProtocolURL("http://" + hostaddress + "/yacy/search.html"), hostname, parts, false, true);
             if (a != null && a.length > 200000) {
@@ -1304,7 +1311,10 @@ public final class Protocol {
         }
         
         // transfer the RWI without the URLs
+        final long startNanos = System.nanoTime();
         Map<String, String> in = transferRWI(targetSeed, indexes, gzipBody, timeout);
+        Metrics.histogram("dht.send").recordSince(startNanos);
+        Metrics.counter("dht.send.containers").add(indexes.size());
 
         if ( in == null ) {
             String errorCause = "no connection from transferRWI";
@@ -1390,7 +1400,44 @@ public final class Protocol {
         }
 
         int indexcount = 0;
-        final StringBuilder entrypost = new StringBuilder(indexes.size() * 73);
+        for ( final ReferenceContainer<WordReference> ic : indexes ) {
+            indexcount += ic.size();
+        }
+
+        if ( indexcount == 0 ) {
+            // nothing to do but everything ok
+            final Map<String, String> result = new HashMap<String, String>(2);
+            result.put("result", "ok");
+            result.put("unknownURL", "");
+            return result;
+        }
+
+        if ( IndexTransferFormat.supportedBy(targetSeed) ) {
+            // stream the rows in the binary format; the body is already compressed
+            try {
+                final Map<String, ContentBody> parts = basicRequestParts(Switchboard.getSwitchboard(), targetSeed.hash, salt);
+                parts.put("wordc", UTF8.StringBody(Integer.toString(indexes.size())));
+                parts.put("entryc", UTF8.StringBody(Integer.toString(indexcount)));
+                parts.put("format", UTF8.StringBody(Integer.toString(IndexTransferFormat.VERSION)));
+                parts.put("indexes", new IndexTransferFormat.Body(indexes, indexes.size()));
+                final HTTPClient httpClient = new HTTPClient(ClientIdentification.yacyInternetCrawlerAgent, timeout);
+                final byte[] content =
+                    httpClient.POSTbytes(
+                        new MultiProtocolURL("http://" + address + "/yacy/transferRWI.html"),
+                        targetSeed.getHexHash() + ".yacyh",
+                        parts,
+                        false, true);
+                final Map<String, String> result = FileUtils.table(FileUtils.strings(content));
+                if ( !"wrong_format".equals(result.get("result")) ) return result;
+                // the peer announced the format but could not read it: send the text format
+                Network.log.info("yacyClient.transferRWI to " + address + ": binary format rejected, using text format");
+            } catch (final Exception e ) {
+                Network.log.info("yacyClient.transferRWI to " + address + " error: " + e.getMessage());
+                return null;
+            }
+        }
+
+        final StringBuilder entrypost = new StringBuilder(indexcount * 73);
         Iterator<WordReference> eenum;
         Reference entry;
         for ( final ReferenceContainer<WordReference> ic : indexes ) {
@@ -1401,17 +1448,9 @@ public final class Protocol {
                     .append(ASCII.String(ic.getTermHash()))
                     .append(entry.toPropertyForm())
                     .append(serverCore.CRLF_STRING);
-                indexcount++;
             }
         }
 
-        if ( indexcount == 0 ) {
-            // nothing to do but everything ok
-            final Map<String, String> result = new HashMap<String, String>(2);
-            result.put("result", "ok");
-            result.put("unknownURL", "");
-            return result;
-        }
         try {
             final Map<String, ContentBody> parts = basicRequestParts(Switchboard.getSwitchboard(), targetSeed.hash, salt);
             parts.put("wordc", UTF8.StringBody(Integer.toString(indexes.size())));
@@ -26,11 +26,28 @@ package net.yacy.peers;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import org.apache.solr.client.solrj.SolrQuery;
 
@@ -42,6 +59,7 @@ import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.Memory;
 import net.yacy.kelondro.data.word.Word;
 import net.yacy.kelondro.util.MemoryControl;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
 import net.yacy.repository.Blacklist;
 import net.yacy.search.Switchboard;
 import net.yacy.search.SwitchboardConstants;
@@ -50,82 +68,202 @@ import net.yacy.search.query.QueryParams;
 import net.yacy.search.query.SearchEvent;
 import net.yacy.search.query.SecondarySearchSuperviser;
 
+/**
+ * A remote search is one request of a search event to one target peer (or to the own solr index).
+ * Remote searches are not threads of their own; they are submitted to one shared, bounded
+ * executor and carry an absolute deadline. Searches in the own index have an executor of their own,
+ * so they are never queued behind slow remote peers. A search which is still queued or running when
+ * its deadline is reached is cancelled, so stragglers do not hold worker threads.
+ * The methods isAlive(), join() and interrupt() follow the Thread API to wait for or to stop a search.
+ */
+public class RemoteSearch extends FutureTask<Integer> {
 
-public class RemoteSearch extends Thread {
-
-    private static final ThreadGroup ysThreadGroup = new ThreadGroup("yacySearchThreadGroup");
     public static final ConcurrentLog log = new ConcurrentLog("DHT");
-    
+
+    // the maximum number of concurrently running remote searches of all search events
+    private static final int MAX_CONCURRENT_SEARCHES = Math.max(32, 8 * Runtime.getRuntime().availableProcessors());
+
+    // the grace time over the remote search time which is granted for the transmission of the result
+    private static final long TRANSMISSION_GRACE = 2000;
+
+    // the maximum time-out for a single http request to a remote peer
+    private static final int MAX_HTTP_TIMEOUT = 8000;
+
+    // the minimum waiting time for an answer of a DHT peer until the alternate peer of the same partition is asked
+    private static final long HEDGE_MIN_DELAY = 500;
+
+    private static final ThreadPoolExecutor searchExecutor = new ThreadPoolExecutor(
+            MAX_CONCURRENT_SEARCHES, MAX_CONCURRENT_SEARCHES,
+            30, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            new NamePrefixThreadFactory("yacySearch"));
+    // searches in the own index are not queued behind remote searches
+    private static final ExecutorService localExecutor = Executors.newCachedThreadPool(new NamePrefixThreadFactory("yacyLocalSearch"));
+    private static final ScheduledThreadPoolExecutor deadlineExecutor = new ScheduledThreadPoolExecutor(1, new NamePrefixThreadFactory("yacySearchDeadline"));
+    static {
+        searchExecutor.allowCoreThreadTimeOut(true);
+        deadlineExecutor.setRemoveOnCancelPolicy(true);
+    }
+
     final private SearchEvent event;
-    final private String wordhashes, excludehashes;
-    final private ContentDomain contentdom;
-    final private int partitions;
-    final private SecondarySearchSuperviser secondarySearchSuperviser;
-    final private Blacklist blacklist;
     final private Seed targetPeer;
-    private int urls;
-    private final int count, maxDistance;
-    private final long time;
-    final private String language;
-
-    public RemoteSearch(
-              final SearchEvent event,
-              final String wordhashes,
-              final String excludehashes,
-              final String language,
-              final ContentDomain contentdom,
-              final int count,
-              final long time,
-              final int maxDistance,
-              final int partitions,
-              final Seed targetPeer,
-              final SecondarySearchSuperviser secondarySearchSuperviser,
-              final Blacklist blacklist) {
-        super(ysThreadGroup, "yacySearch_" + targetPeer.getName());
+    final private long deadline;
+    private ScheduledFuture<?> deadlineTask;
+    private volatile long startTime, stopTime;
+    private volatile int urls;
+    private volatile boolean timedOut; // true if the search was cancelled at its deadline, not by the search event
+
+    private RemoteSearch(final SearchEvent event, final Seed targetPeer, final long deadline, final Callable<Integer> search) {
+        super(search);
         this.event = event;
-        this.wordhashes = wordhashes;
-        this.excludehashes = excludehashes;
-        this.language = language;
-        this.contentdom = contentdom;
-        this.partitions = partitions;
-        this.secondarySearchSuperviser = secondarySearchSuperviser;
-        this.blacklist = blacklist;
         this.targetPeer = targetPeer;
+        this.deadline = deadline;
+        this.deadlineTask = null;
+        this.startTime = 0;
+        this.stopTime = 0;
         this.urls = -1;
-        this.count = count;
-        this.time = time;
-        this.maxDistance = maxDistance;
+        this.timedOut = false;
     }
 
-    @Override
-    public void run() {
+    /**
+     * compute the deadline for a search which is granted the given time plus the transmission grace time
+     * @param time the search time in milliseconds
+     * @return the absolute deadline; Long.MAX_VALUE if there is no time limit
+     */
+    private static long deadline(final long time) {
+        final long now = System.currentTimeMillis();
+        if (time >= Long.MAX_VALUE - now - TRANSMISSION_GRACE) return Long.MAX_VALUE;
+        return now + time + TRANSMISSION_GRACE;
+    }
+
+    /**
+     * submit the search to the shared executor and schedule its cancellation at the deadline.
+     * The search counts as a running feeder of the event from now on until it is done or cancelled.
+     */
+    private RemoteSearch submit() {
         this.event.oneFeederStarted();
+        final long budget = this.deadline - System.currentTimeMillis();
+        if (budget <= 0) {
+            this.cancel(false);
+            return this;
+        }
+        if (this.deadline < Long.MAX_VALUE) {
+            this.deadlineTask = deadlineExecutor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    RemoteSearch.this.timedOut = true;
+                    if (RemoteSearch.this.cancel(true)) {
+                        Network.log.info("REMOTE SEARCH - cancelled remote peer " + RemoteSearch.this.peerName() + " at deadline");
+                    }
+                }
+            }, budget, TimeUnit.MILLISECONDS);
+        }
         try {
-            this.urls = Protocol.primarySearch(
-                        this.event,
-                        this.wordhashes,
-                        this.excludehashes,
-                        this.language,
-                        this.contentdom,
-                        this.count,
-                        this.time,
-                        this.maxDistance,
-                        this.partitions,
-                        this.targetPeer,
-                        this.secondarySearchSuperviser,
-                        this.blacklist);
-            if (this.urls >= 0) {
-                // urls is an array of url hashes. this is only used for log output
-                this.event.peers.mySeed().incRI(this.urls);
-                this.event.peers.mySeed().incRU(this.urls);
+            (this.targetPeer == null ? localExecutor : searchExecutor).execute(this);
+        } catch (final RejectedExecutionException e) {
+            this.cancel(false);
+        }
+        return this;
+    }
+
+    @Override
+    public void run() {
+        this.startTime = System.currentTimeMillis();
+        super.run();
+    }
+
+    @Override
+    protected void done() {
+        this.stopTime = System.currentTimeMillis();
+        if (this.deadlineTask != null) this.deadlineTask.cancel(false);
+        boolean interrupted = false;
+        if (!this.isCancelled()) try {
+            final Integer result = this.get();
+            this.urls = result == null ? -1 : result.intValue();
+        } catch (final InterruptedException e) {
+            this.urls = -1;
+            interrupted = true;
+        } catch (final ExecutionException e) {
+            this.urls = -1;
+        }
+        // searches which were cancelled before they started are not counted, that is not the fault of the target;
+        // neither are searches which were stopped by the search event, i.e. because the user left the search page
+        if (this.targetPeer != null && this.startTime > 0 && !interrupted && (this.timedOut || !this.isCancelled())) {
+            if (this.isCancelled()) {
+                PeerPerformance.failure(this.targetPeer.hash, this.latency(), true);
+            } else if (this.urls >= 0) {
+                PeerPerformance.response(this.targetPeer.hash, this.latency(), this.urls);
             } else {
-                Network.log.info("REMOTE SEARCH - no answer from remote peer " + this.targetPeer.hash + ":" + this.targetPeer.getName());
+                PeerPerformance.failure(this.targetPeer.hash, this.latency(), false);
             }
-        } catch (final Exception e) {
-            ConcurrentLog.logException(e);
-        } finally {
-            this.event.oneFeederTerminated();
         }
+        this.event.oneFeederTerminated();
+    }
+
+    /**
+     * @param deadline the deadline of a search
+     * @return the remaining time until the deadline, but not more than the maximum http time-out
+     */
+    private static int httpTimeout(final long deadline) {
+        return (int) Math.max(1, Math.min(MAX_HTTP_TIMEOUT, deadline - System.currentTimeMillis()));
+    }
+
+    private String peerName() {
+        return this.targetPeer == null ? "myself" : this.targetPeer.hash + ":" + this.targetPeer.getName();
+    }
+
+    /**
+     * @return true if the search is queued or running
+     */
+    public boolean isAlive() {
+        return !this.isDone();
+    }
+
+    /**
+     * wait until the search is finished
+     */
+    public void join() throws InterruptedException {
+        try {
+            this.get();
+        } catch (final ExecutionException | CancellationException e) {
+        }
+    }
+
+    /**
+     * wait until the search is finished, but not longer than the given time
+     * @param millis the maximum waiting time; 0 means wait forever
+     */
+    public void join(final long millis) throws InterruptedException {
+        if (millis <= 0) {
+            this.join();
+            return;
+        }
+        try {
+            this.get(millis, TimeUnit.MILLISECONDS);
+        } catch (final ExecutionException | CancellationException | TimeoutException e) {
+        }
+    }
+
+    /**
+     * cancel the search; a running request is interrupted
+     */
+    public void interrupt() {
+        this.cancel(true);
+    }
+
+    /**
+     * @return the number of urls that the target contributed or -1 if the search did not succeed (yet)
+     */
+    public int urls() {
+        return this.urls;
+    }
+
+    /**
+     * @return the time in milliseconds that the search was running or is running until now; 0 if it has not been started
+     */
+    public long latency() {
+        if (this.startTime == 0) return 0;
+        return (this.stopTime == 0 ? System.currentTimeMillis() : this.stopTime) - this.startTime;
     }
 
     public static String set2string(final HandleSet hashes) {
@@ -171,6 +309,7 @@ public class RemoteSearch extends Thread {
         // prepare seed targets and threads
         Random random = new Random(System.currentTimeMillis());
         Collection<Seed> dhtPeers = null;
+        final Map<String, Seed> alternates = new HashMap<String, Seed>();
         if (clusterselection != null) {
             dhtPeers = DHTSelection.selectClusterPeers(event.peers, clusterselection);
         } else {
@@ -194,7 +333,8 @@ public class RemoteSearch extends Thread {
                                 event.query.getQueryGoal().getIncludeHashes(),
                                 minage,
                                 redundancy, event.peers.redundancy(),
-                                random);
+                                random,
+                                alternates);
                 // this set of peers may be too large and consume too many threads if more than one word is searched.
                 // to prevent overloading, we do a subset collection based on random to prevent the death of the own peer
                 // and to do a distributed load-balancing on the target peers
@@ -228,47 +368,96 @@ public class RemoteSearch extends Thread {
                 ", redundancy=" + redundancy + ", minage=" + minage + ", dhtPeers=" + dhtPeers.size() + ", robinsonpeers=" + robinsonPeers.size() + ", health: " + (healthMessage.length() > 0 ? healthMessage.substring(2) : "perfect"));
         
         
+        // all searches of this event share one deadline; stragglers are cancelled when it is reached
+        final long deadline = deadline(Math.max(3000, time));
+
         // start solr searches
         final int targets = dhtPeers.size() + robinsonPeers.size();
         if (!sb.getConfigBool(SwitchboardConstants.DEBUG_SEARCH_REMOTE_SOLR_OFF, false)) {
             final SolrQuery solrQuery = event.query.solrQuery(event.getQuery().contentdom, start == 0, event.excludeintext_image);
             for (Seed s: robinsonPeers) {
                 if (MemoryControl.shortStatus() || Memory.load() > sb.getConfigFloat(SwitchboardConstants.REMOTESEARCH_MAXLOAD_SOLR, 4.0f)) continue;
-                Thread t = solrRemoteSearch(event, solrQuery, start, count, s, targets, blacklist);
-                event.nodeSearchThreads.add(t);
+                RemoteSearch t = solrRemoteSearch(event, solrQuery, start, count, s, targets, blacklist, deadline);
+                if (t != null) event.nodeSearchThreads.add(t);
             }
         }
         
         // start search to YaCy DHT peers
         if (!sb.getConfigBool(SwitchboardConstants.DEBUG_SEARCH_REMOTE_DHT_OFF, false)) {
-            for (Seed dhtPeer: dhtPeers) {
+            final Set<String> asked = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+            for (final Seed dhtPeer: dhtPeers) if (dhtPeer != null && dhtPeer.hash != null) asked.add(dhtPeer.hash);
+            for (final Seed dhtPeer: dhtPeers) {
                 if (dhtPeer == null || dhtPeer.hash == null) continue;
                 if (MemoryControl.shortStatus() || Memory.load() > sb.getConfigFloat(SwitchboardConstants.REMOTESEARCH_MAXLOAD_RWI, 8.0f)) continue;
                 try {
-                    RemoteSearch rs = new RemoteSearch(
+                    final RemoteSearch rs = primaryRemoteSearch(event, count, time, targets, dhtPeer, blacklist, deadline);
+                    // hedged request: if the peer does not answer within its usual response time,
+                    // the best alternate peer of the same DHT partition is asked as well
+                    final Seed alternate = alternates.get(dhtPeer.hash);
+                    if (alternate != null && alternate.hash != null) {
+                        final long hedgeDelay = Math.max(HEDGE_MIN_DELAY, Math.min(time / 2, 2 * PeerPerformance.expectedLatency(dhtPeer.hash)));
+                        deadlineExecutor.schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                if (!rs.isAlive() || System.currentTimeMillis() >= deadline || !asked.add(alternate.hash)) return;
+                                Network.log.info("REMOTE SEARCH - peer " + dhtPeer.hash + ":" + dhtPeer.getName() + " is slow, asking alternate peer " + alternate.hash + ":" + alternate.getName());
+                                primaryRemoteSearch(event, count, time, targets, alternate, blacklist, deadline);
+                            }
+                        }, hedgeDelay, TimeUnit.MILLISECONDS);
+                    }
+                } catch (final OutOfMemoryError e) {
+                    ConcurrentLog.logException(e);
+                    break;
+                }
+            }
+        }
+    }
+
+    private static RemoteSearch primaryRemoteSearch(
+            final SearchEvent event,
+            final int count,
+            final long time,
+            final int partitions,
+            final Seed targetPeer,
+            final Blacklist blacklist,
+            final long deadline) {
+        final String wordhashes = QueryParams.hashSet2hashString(event.query.getQueryGoal().getIncludeHashes());
+        final String excludehashes = QueryParams.hashSet2hashString(event.query.getQueryGoal().getExcludeHashes());
+        final String language = event.query.targetlang == null ? "" : event.query.targetlang;
+        final ContentDomain contentdom = event.query.contentdom == null ? ContentDomain.ALL : event.query.contentdom;
+        final RemoteSearch rs = new RemoteSearch(event, targetPeer, deadline, new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                final long start = System.currentTimeMillis();
+                final int urls = Protocol.primarySearch(
                         event,
-                        QueryParams.hashSet2hashString(event.query.getQueryGoal().getIncludeHashes()),
-                        QueryParams.hashSet2hashString(event.query.getQueryGoal().getExcludeHashes()),
-                        event.query.targetlang == null ? "" : event.query.targetlang,
-                        event.query.contentdom == null ? ContentDomain.ALL : event.query.contentdom,
+                        wordhashes,
+                        excludehashes,
+                        language,
+                        contentdom,
                         count,
                         time,
                         event.query.maxDistance,
-                        targets,
-                        dhtPeer,
+                        partitions,
+                        targetPeer,
                         event.secondarySearchSuperviser,
-                        blacklist);
-                    rs.start();
-                    event.primarySearchThreadsL.add(rs);
-                } catch (final OutOfMemoryError e) {
-                    ConcurrentLog.logException(e);
-                    break;
+                        blacklist,
+                        httpTimeout(deadline));
+                if (urls >= 0) {
+                    // urls is an array of url hashes. this is only used for log output
+                    event.peers.mySeed().incRI(urls);
+                    event.peers.mySeed().incRU(urls);
+                } else {
+                    Network.log.info("REMOTE SEARCH - no answer from remote peer " + targetPeer.hash + ":" + targetPeer.getName() + " after " + (System.currentTimeMillis() - start) + " ms");
                 }
+                return urls;
             }
-        }
+        });
+        event.primarySearchThreadsL.add(rs);
+        return rs.submit();
     }
 
-    public static Thread secondaryRemoteSearch(
+    public static RemoteSearch secondaryRemoteSearch(
     		final SearchEvent event,
             final Set<String> wordhashes,
             final String urlhashes,
@@ -284,43 +473,87 @@ public class RemoteSearch extends Thread {
         // prepare seed targets and threads
         final Seed targetPeer = event.peers.getConnected(targethash);
         if (targetPeer == null || targetPeer.hash == null) return null;
-        Thread secondary = new Thread() {
+        final long deadline = deadline(time);
+        final RemoteSearch secondary = new RemoteSearch(event, targetPeer, deadline, new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                final long start = System.currentTimeMillis();
+                int urls = Protocol.secondarySearch(
+                            event,
+                            QueryParams.hashSet2hashString(wordhashes),
+                            urlhashes,
+                            ContentDomain.ALL,
+                            20,
+                            time,
+                            999,
+                            0,
+                            targetPeer,
+                            blacklist,
+                            httpTimeout(deadline));
+                if (urls >= 0) {
+                    // urls is an array of url hashes. this is only used for log output
+                    if (urlhashes != null && urlhashes.length() > 0) Network.log.info("SECONDARY REMOTE SEARCH - remote peer " + targetPeer.hash + ":" + targetPeer.getName() + " contributed " + urls + " links for word hash " + wordhashes + " in " + (System.currentTimeMillis() - start) + " ms");
+                    event.peers.mySeed().incRI(urls);
+                    event.peers.mySeed().incRU(urls);
+                } else {
+                    Network.log.info("REMOTE SEARCH - no answer from remote peer " + targetPeer.hash + ":" + targetPeer.getName() + " after " + (System.currentTimeMillis() - start) + " ms");
+                }
+                return urls;
+            }
+        });
+        return secondary.submit();
+    }
+
+    /**
+     * start a solr search at a remote peer or - if the targetPeer is null - at the own index
+     * @param deadline the absolute time when the search is cancelled; Long.MAX_VALUE for no deadline
+     * @return the search handle or null if the search could not be started
+     */
+    public static RemoteSearch solrRemoteSearch(
+                    final SearchEvent event,
+                    final SolrQuery solrQuery,
+                    final int start,
+                    final int count,
+                    final Seed targetPeer,
+                    final int partitions,
+                    final Blacklist blacklist,
+                    final long deadline) {
+
+        assert solrQuery != null;
+        // check own peer status
+        if (event.peers.mySeed() == null) { return null; }
+        final RemoteSearch solr = new RemoteSearch(event, targetPeer, deadline, new Callable<Integer>() {
             @Override
-            public void run() {
-                this.setName("RemoteSearch.secondaryRemoteSearch(" + wordhashes + " to " + targethash + ")");
-                event.oneFeederStarted();
+            public Integer call() {
+                int urls = 0;
                 try {
-                    int urls = Protocol.secondarySearch(
-                                event,
-                                QueryParams.hashSet2hashString(wordhashes),
-                                urlhashes,
-                                ContentDomain.ALL,
-                                20,
-                                time,
-                                999,
-                                0,
-                                targetPeer,
-                                blacklist);
+                    urls = Protocol.solrQuery(
+                                    event,
+                                    solrQuery,
+                                    start,
+                                    count,
+                                    targetPeer == null ? event.peers.mySeed() : targetPeer,
+                                    partitions,
+                                    blacklist);
                     if (urls >= 0) {
                         // urls is an array of url hashes. this is only used for log output
-                        if (urlhashes != null && urlhashes.length() > 0) Network.log.info("SECONDARY REMOTE SEARCH - remote peer " + targetPeer.hash + ":" + targetPeer.getName() + " contributed " + urls + " links for word hash " + wordhashes);
                         event.peers.mySeed().incRI(urls);
                         event.peers.mySeed().incRU(urls);
                     } else {
-                        Network.log.info("REMOTE SEARCH - no answer from remote peer " + targetPeer.hash + ":" + targetPeer.getName());
+                        if (targetPeer != null) {
+                            Network.log.info("REMOTE SEARCH - no answer from remote peer " + targetPeer.hash + ":" + targetPeer.getName());
+                        }
                     }
                 } catch (final Exception e) {
                     ConcurrentLog.logException(e);
-                } finally {
-                    event.oneFeederTerminated();
                 }
+                return urls;
             }
-        };
-        secondary.start();
-        return secondary;
+        });
+        return solr.submit();
     }
 
-    public static Thread solrRemoteSearch(
+    public static RemoteSearch solrRemoteSearch(
                     final SearchEvent event,
                     final SolrQuery solrQuery,
                     final int start,
@@ -328,44 +561,7 @@ public class RemoteSearch extends Thread {
                     final Seed targetPeer,
                     final int partitions,
                     final Blacklist blacklist) {
-
-        assert solrQuery != null;
-        // check own peer status
-        if (event.peers.mySeed() == null) { return null; }
-        // prepare threads
-        Thread solr = new Thread() {
-            @Override
-            public void run() {
-                this.setName("RemoteSearch.solrRemoteSearch(" + solrQuery.getQuery() + " to " + (targetPeer == null ? "myself" : targetPeer.hash) + ")");
-                    int urls = 0;
-                    try {
-                        event.oneFeederStarted();
-                        urls = Protocol.solrQuery(
-                                        event,
-                                        solrQuery,
-                                        start,
-                                        count,
-                                        targetPeer == null ? event.peers.mySeed() : targetPeer,
-                                        partitions,
-                                        blacklist);
-                        if (urls >= 0) {
-                            // urls is an array of url hashes. this is only used for log output
-                            event.peers.mySeed().incRI(urls);
-                            event.peers.mySeed().incRU(urls);
-                        } else {
-                            if (targetPeer != null) {
-                                Network.log.info("REMOTE SEARCH - no answer from remote peer " + targetPeer.hash + ":" + targetPeer.getName());
-                            }
-                        }
-                    } catch (final Exception e) {
-                        ConcurrentLog.logException(e);
-                    } finally {
-                        event.oneFeederTerminated();
-                    }
-            }
-        };
-        /*if (targetPeer == null) solr.run(); else*/ solr.start();
-        return solr;
+        return solrRemoteSearch(event, solrQuery, start, count, targetPeer, partitions, blacklist, Long.MAX_VALUE);
     }
 
     public static int remainingWaiting(final RemoteSearch[] searchThreads) {
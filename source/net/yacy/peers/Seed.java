@@ -200,6 +200,7 @@ public class Seed implements Cloneable, Comparable<Seed>, Comparator<Seed>
     public static final String NEWS = "news"; // news attachment
     public static final String DCT = "dct"; // disconnect time
     public static final String SOLRAVAILABLE ="SorlAvail"; // field to remember if remotePeer solr interface is avail.
+    public static final String RWIFORMAT = "RWIFormat"; // the highest version of the binary index transfer format that the peer can receive
     
     /** zero-value */
     private static final String ZERO = "0";
@@ -96,6 +96,10 @@ public final class SeedDB implements AlternativeDomainNames {
 
     private Seed mySeed; // my own seed
 
+    private volatile DHTRing dhtRing; // snapshot of the connected peers for the DHT peer selection; null if it must be created again
+    private final Object dhtRingLock = new Object();
+    private static final long dhtRingMaxAge = 60000; // changed attributes of connected peers are visible in the snapshot after this time
+
     public SeedDB(
             final File networkRoot,
             final String seedActiveDBFileName,
@@ -163,6 +167,7 @@ public final class SeedDB implements AlternativeDomainNames {
         this.seedActiveDB = openSeedTable(this.seedActiveDBFile);
         this.seedPassiveDB = openSeedTable(this.seedPassiveDBFile);
         this.seedPotentialDB = openSeedTable(this.seedPotentialDBFile);
+        this.dhtRing = null;
 
         initMySeed();
         this.mySeed.setName(peername);
@@ -274,6 +279,7 @@ public final class SeedDB implements AlternativeDomainNames {
             this.seedPassiveDB.delete(mySeedHash);
             this.seedPotentialDB.delete(mySeedHash);
         } catch (final IOException e) { ConcurrentLog.warn("yacySeedDB", "could not remove hash ("+ e.getClass() +"): "+ e.getMessage()); }
+        this.dhtRing = null;
     }
 
     public void saveMySeed() {
@@ -318,6 +324,7 @@ public final class SeedDB implements AlternativeDomainNames {
         	ConcurrentLog.warn("yacySeedDB", "could not delete file "+ seedDBFile);
         // create new seed database
         seedDB = openSeedTable(seedDBFile);
+        this.dhtRing = null;
         return seedDB;
     }
 
@@ -398,6 +405,23 @@ public final class SeedDB implements AlternativeDomainNames {
         return new seedEnum(up, rot, (firstHash == null) ? null : firstHash, null, this.seedActiveDB, minVersion);
     }
 
+    /**
+     * get a snapshot of the connected peers in the order of the DHT ring. The snapshot is created again if
+     * peers are connected or disconnected, or if it is older than one minute, to see changed attributes of the peers.
+     * @return the snapshot of the connected peers, not including the own peer
+     */
+    public DHTRing dhtRing() {
+        DHTRing ring = this.dhtRing;
+        if (ring != null && System.currentTimeMillis() - ring.created() < dhtRingMaxAge) return ring;
+        synchronized (this.dhtRingLock) {
+            ring = this.dhtRing;
+            if (ring != null && System.currentTimeMillis() - ring.created() < dhtRingMaxAge) return ring;
+            ring = new DHTRing(seedsConnected(true, false, null, 0.0d));
+            this.dhtRing = ring;
+            return ring;
+        }
+    }
+
     public Iterator<Seed> seedsDisconnected(final boolean up, final boolean rot, final byte[] firstHash, final double minVersion) {
         // enumerates seed-type objects: all seeds sequentially without order
         return new seedEnum(up, rot, (firstHash == null) ? null : firstHash, null, this.seedPassiveDB, minVersion);
@@ -463,7 +487,9 @@ public final class SeedDB implements AlternativeDomainNames {
         final ConcurrentMap<String, String> seedPropMap = seed.getMap();
         synchronized (this) {
             try {
+                final boolean known = this.seedActiveDB.containsKey(ASCII.getBytes(seed.hash));
                 this.seedActiveDB.insert(ASCII.getBytes(seed.hash), seedPropMap);
+                if (!known) this.dhtRing = null;
                 this.seedPassiveDB.delete(ASCII.getBytes(seed.hash));
                 this.seedPotentialDB.delete(ASCII.getBytes(seed.hash));
             } catch (final Exception e) {
@@ -477,7 +503,10 @@ public final class SeedDB implements AlternativeDomainNames {
         if (seed.isProper(false) != null) return;
         synchronized (this) {
             try {
-                this.seedActiveDB.delete(ASCII.getBytes(seed.hash));
+                if (this.seedActiveDB.containsKey(ASCII.getBytes(seed.hash))) {
+                    this.seedActiveDB.delete(ASCII.getBytes(seed.hash));
+                    this.dhtRing = null;
+                }
                 this.seedPotentialDB.delete(ASCII.getBytes(seed.hash));
             } catch (final Exception e) { ConcurrentLog.warn("yacySeedDB", "could not remove hash ("+ e.getClass() +"): "+ e.getMessage()); }
             //seed.put(yacySeed.LASTSEEN, yacyCore.shortFormatter.format(new Date(yacyCore.universalTime())));
@@ -496,7 +525,10 @@ public final class SeedDB implements AlternativeDomainNames {
         final ConcurrentMap<String, String> seedPropMap = seed.getMap();
         synchronized (this) {
             try {
-                this.seedActiveDB.delete(ASCII.getBytes(seed.hash));
+                if (this.seedActiveDB.containsKey(ASCII.getBytes(seed.hash))) {
+                    this.seedActiveDB.delete(ASCII.getBytes(seed.hash));
+                    this.dhtRing = null;
+                }
                 this.seedPassiveDB.delete(ASCII.getBytes(seed.hash));
             } catch (final Exception e) { ConcurrentLog.warn("yacySeedDB", "could not remove hash ("+ e.getClass() +"): "+ e.getMessage()); }
             //seed.put(yacySeed.LASTSEEN, yacyCore.shortFormatter.format(new Date(yacyCore.universalTime())));
@@ -27,8 +27,10 @@ package net.yacy.peers;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 
@@ -50,6 +52,7 @@ public class Transmission {
     // The number of RWIs we can be sure a remote peer will accept
     // anything beyond that might get discarded without notice
     public static final int maxRWIsCount = 1000; // since SVN 7993 hardcoded in htroot/yacy/transferRWI.java:161
+    public static final int maxBinaryRWIsCount = 10000; // the limit in htroot/yacy/transferRWI.java for the binary IndexTransferFormat
 
     protected ConcurrentLog log;
     protected Segment segment;
@@ -70,8 +73,8 @@ public class Transmission {
         this.timeout4Transfer = timeout4Transfer;
     }
 
-    public Chunk newChunk(final Seed dhtTarget) {
-        return new Chunk(dhtTarget);
+    public Chunk newChunk(final Seed dhtTarget, final int maxReferences) {
+        return new Chunk(dhtTarget, maxReferences);
     }
 
     public class Chunk extends WorkflowJob implements Iterable<ReferenceContainer<WordReference>> {
@@ -89,17 +92,21 @@ public class Transmission {
         private final ReferenceContainerCache<WordReference> containers;
         private final HandleSet                      references;
         private final HandleSet                      badReferences;
-        private int                                  hit, miss;
+        private final int                            maxReferences;
+        private int                                  hit, miss, referencesCount;
 
         /**
          * generate a new dispatcher target. such a target is defined with a primary target and
          * a set of target peers that shall receive the entries of the containers
          * the payloadrow defines the structure of container entries
          * @param dhtTarget
+         * @param maxReferences the maximum number of references in this chunk; more references are put back to the index
          */
-        public Chunk(final Seed dhtTarget) {
+        public Chunk(final Seed dhtTarget, final int maxReferences) {
             super();
             this.dhtTarget = dhtTarget;
+            this.maxReferences = Math.max(1, maxReferences);
+            this.referencesCount = 0;
             this.containers = new ReferenceContainerCache<WordReference>(Segment.wordReferenceFactory, Segment.wordOrder, Word.commonHashLength);
             this.references = new RowHandleSet(WordReferenceRow.urlEntryRow.primaryKeyLength, WordReferenceRow.urlEntryRow.objectOrder, 0);
             this.badReferences = new RowHandleSet(WordReferenceRow.urlEntryRow.primaryKeyLength, WordReferenceRow.urlEntryRow.objectOrder, 0);
@@ -147,8 +154,7 @@ public class Transmission {
          * @throws SpaceExceededException
          */
         public void add(final ReferenceContainer<WordReference> container) throws SpaceExceededException {
-            int remaining = maxRWIsCount;
-            for (final ReferenceContainer<WordReference> ic : this) remaining -= ic.size();
+            final int remaining = this.maxReferences - this.referencesCount;
             if (remaining <= 0) {
                 // No space left in this chunk
                 try {
@@ -172,26 +178,28 @@ public class Transmission {
                 }
                 testids.add(ASCII.String(e.urlhash()));
             }
-            i = c.entries();
-            while (i.hasNext()) {
-                final WordReference e = i.next();
-                try {
-                    if (Transmission.this.segment.fulltext().getLoadTime(ASCII.String(e.urlhash())) >= 0) {
-                        this.references.put(e.urlhash());
-                    } else {
-                        notFoundx.add(e.urlhash());
-                        this.badReferences.put(e.urlhash());
-                    }
-                } catch (IOException e1) {
-                    ConcurrentLog.logException(e1);
-                    notFoundx.add(e.urlhash());
-                    this.badReferences.put(e.urlhash());
+            // ask the index for all new references at once
+            Map<String, Long> loadTimes;
+            try {
+                loadTimes = Transmission.this.segment.fulltext().getLoadTimes(testids);
+            } catch (IOException e1) {
+                ConcurrentLog.logException(e1);
+                loadTimes = new HashMap<String, Long>(0);
+            }
+            for (final String id: testids) {
+                final byte[] urlhash = ASCII.getBytes(id);
+                if (loadTimes.containsKey(id)) {
+                    this.references.put(urlhash);
+                } else {
+                    notFoundx.add(urlhash);
+                    this.badReferences.put(urlhash);
                 }
             }
             // now delete all references that were not found
             for (final byte[] b : notFoundx) c.removeReference(b);
             // finally add the remaining container to the cache
             this.containers.add(c);
+            this.referencesCount += c.size();
         }
 
         /**
@@ -207,6 +215,13 @@ public class Transmission {
             return this.containers.size();
         }
 
+        /**
+         * @return the number of references in all containers of this chunk
+         */
+        public int referencesSize() {
+            return this.referencesCount;
+        }
+
         public Seed dhtTarget() {
             return this.dhtTarget;
         }
@@ -83,6 +83,18 @@ public class EncodedImage {
         this.image = RasterPlotter.exportImage(sourceImage, targetExt);
     }
     
+    /**
+     * set an image which is encoded already, i.e. an image from a cache
+     * @param encodedImage the bytes of the image encoded into the target extension format
+     * @param targetExt the extension of the encoded image
+     * @param isStatic shall be true if the image will never change, false if not
+     */
+    public EncodedImage(final byte[] encodedImage, final String targetExt, final boolean isStatic) {
+        this.image = new ByteBuffer(encodedImage);
+        this.extension = targetExt;
+        this.isStatic = isStatic;
+    }
+
     /**
      * set an encoded image from an animated GIF. The target extension will be "gif"
      * @param sourceImage the image
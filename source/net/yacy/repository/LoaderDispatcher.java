@@ -49,6 +49,7 @@ import net.yacy.cora.protocol.HeaderFramework;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.protocol.ResponseHeader;
 import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.Metrics;
 import net.yacy.crawler.data.Cache;
 import net.yacy.crawler.data.CrawlProfile;
 import net.yacy.crawler.retrieval.FTPLoader;
@@ -209,6 +210,7 @@ public final class LoaderDispatcher {
         }
         
         // check if we have the page in the cache
+        ResponseHeader revalidate = null; // the header of stale cached content which can be revalidated with a conditional request
         if (cacheStrategy != CacheStrategy.NOCACHE && crawlProfile != null) {
             // we have passed a first test if caching is allowed
             // now see if there is a cache entry
@@ -254,6 +256,7 @@ public final class LoaderDispatcher {
                     }
                 }
                 LoaderDispatcher.log.info("cache hit/stale for: " + url.toNormalform(true));
+                revalidate = cachedResponse;
             } else if (cachedResponse != null) {
                 LoaderDispatcher.log.warn("HTCACHE contained response header, but not content for url " + url.toNormalform(true));
             }
@@ -293,17 +296,23 @@ public final class LoaderDispatcher {
 
         // load resource from the internet
         Response response = null;
-        if (protocol.equals("http") || protocol.equals("https")) {
-            response = this.httpLoader.load(request, crawlProfile, maxFileSize, blacklistType, agent);
-        } else if (protocol.equals("ftp")) {
-            response = this.ftpLoader.load(request, true);
-        } else if (protocol.equals("smb")) {
-            response = this.smbLoader.load(request, true);
-        } else if (protocol.equals("file")) {
-            response = this.fileLoader.load(request, true);
-        } else {
+        if (!protocol.equals("http") && !protocol.equals("https") && !protocol.equals("ftp") && !protocol.equals("smb") && !protocol.equals("file")) {
             throw new IOException("Unsupported protocol '" + protocol + "' in url " + url);
         }
+        final long startNanos = System.nanoTime();
+        try {
+            if (protocol.equals("http") || protocol.equals("https")) {
+                response = this.httpLoader.load(request, crawlProfile, maxFileSize, blacklistType, agent, revalidate);
+            } else if (protocol.equals("ftp")) {
+                response = this.ftpLoader.load(request, true);
+            } else if (protocol.equals("smb")) {
+                response = this.smbLoader.load(request, true);
+            } else {
+                response = this.fileLoader.load(request, true);
+            }
+        } finally {
+            Metrics.histogram("loader.fetch", protocol).recordSince(startNanos);
+        }
         if (response == null) {
             throw new IOException("no response (NULL) for url " + url);
         }
@@ -317,6 +326,10 @@ public final class LoaderDispatcher {
             // no caching wanted. Thats ok, do not write any message
             return response;
         }
+        if (response.notModified()) {
+            // the content is already in the cache
+            return response;
+        }
         // second check tells us if the protocol tells us something about caching
         final String storeError = response.shallStoreCacheForCrawler();
         if (storeError == null) {
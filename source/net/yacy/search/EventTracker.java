@@ -35,6 +35,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 
 import net.yacy.cora.date.GenericFormatter;
+import net.yacy.cora.util.Metrics;
 import net.yacy.peers.graphics.ProfilingGraph;
 
 
@@ -62,6 +63,12 @@ public class EventTracker {
     }
 
     public final static void update(final EClass eventName, final Object eventPayload, final boolean useProtection) {
+        // the durations of the search phases are recorded as metrics before the protection drops events
+        if (eventPayload instanceof ProfilingGraph.EventSearch) {
+            final ProfilingGraph.EventSearch event = (ProfilingGraph.EventSearch) eventPayload;
+            Metrics.histogram("search.phase", event.processName.name()).record(event.duration * 1000000L);
+        }
+
         // check protection against too heavy access
         if (useProtection) {
             final Long lastAcc = eventAccess.get(eventName);
@@ -36,15 +36,11 @@
 
 package net.yacy.search;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStream;
 import java.io.Reader;
 import java.net.MalformedURLException;
 import java.security.NoSuchAlgorithmException;
@@ -73,9 +69,6 @@ import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.ZipEntry;
-import java.util.zip.ZipInputStream;
 
 import org.apache.lucene.search.FieldCache;
 import org.apache.solr.common.SolrDocument;
@@ -118,10 +111,12 @@ import net.yacy.cora.protocol.http.ProxySettings;
 import net.yacy.cora.util.CommonPattern;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.Memory;
+import net.yacy.cora.util.Metrics;
 import net.yacy.crawler.CrawlStacker;
 import net.yacy.crawler.CrawlSwitchboard;
 import net.yacy.crawler.HarvestProcess;
 import net.yacy.crawler.data.Cache;
+import net.yacy.crawler.data.ThumbnailCache;
 import net.yacy.crawler.data.CrawlProfile;
 import net.yacy.crawler.data.CrawlQueues;
 import net.yacy.crawler.data.NoticedURL;
@@ -130,6 +125,7 @@ import net.yacy.crawler.data.ResultURLs;
 import net.yacy.crawler.data.NoticedURL.StackType;
 import net.yacy.crawler.data.ResultURLs.EventOrigin;
 import net.yacy.crawler.data.Transactions;
+import net.yacy.crawler.retrieval.HTTPLoader;
 import net.yacy.crawler.retrieval.Request;
 import net.yacy.crawler.retrieval.Response;
 import net.yacy.crawler.robots.RobotsTxt;
@@ -151,9 +147,9 @@ import net.yacy.document.LibraryProvider;
 import net.yacy.document.Parser;
 import net.yacy.document.TextParser;
 import net.yacy.document.Parser.Failure;
-import net.yacy.document.content.DCEntry;
-import net.yacy.document.content.SurrogateReader;
 import net.yacy.document.importer.OAIListFriendsLoader;
+import net.yacy.document.importer.SurrogateImporter;
+import net.yacy.document.importer.WarcImporter;
 import net.yacy.document.parser.audioTagParser;
 import net.yacy.document.parser.pdfParser;
 import net.yacy.document.parser.html.Evaluation;
@@ -175,6 +171,7 @@ import net.yacy.kelondro.workflow.WorkflowProcessor;
 import net.yacy.kelondro.workflow.WorkflowThread;
 import net.yacy.peers.Dispatcher;
 import net.yacy.peers.EventChannel;
+import net.yacy.peers.IndexTransferFormat;
 import net.yacy.peers.Network;
 import net.yacy.peers.NewsPool;
 import net.yacy.peers.DHTSelection;
@@ -190,6 +187,7 @@ import net.yacy.repository.Blacklist;
 import net.yacy.repository.Blacklist.BlacklistType;
 import net.yacy.repository.FilterEngine;
 import net.yacy.repository.LoaderDispatcher;
+import net.yacy.search.index.ContentDigestIndex;
 import net.yacy.search.index.Fulltext;
 import net.yacy.search.index.Segment;
 import net.yacy.search.index.Segment.ReferenceReportCache;
@@ -705,6 +703,9 @@ public final class Switchboard extends serverSwitch {
         final long maxCacheSize =
             1024L * 1024L * Long.parseLong(getConfig(SwitchboardConstants.PROXY_CACHE_SIZE, "2")); // this is megabyte
         Cache.init(this.htCachePath, this.peers.mySeed().hash, maxCacheSize);
+        final long maxThumbnailCacheSize =
+            1024L * 1024L * Long.parseLong(getConfig(SwitchboardConstants.THUMBNAIL_CACHE_SIZE, "256")); // this is megabyte
+        ThumbnailCache.init(new File(this.htCachePath, "thumbnails"), this.peers.mySeed().hash, maxThumbnailCacheSize);
         final File transactiondir = new File(this.htCachePath, "snapshots");
         Transactions.init(transactiondir);
 
@@ -995,6 +996,40 @@ public final class Switchboard extends serverSwitch {
                 this.indexingCondensementProcessor,
                 WorkflowProcessor.availableCPU);
 
+        // gauges for the metrics api
+        for (final WorkflowProcessor<?> processor: new WorkflowProcessor<?>[]{this.indexingDocumentProcessor, this.indexingCondensementProcessor, this.indexingAnalysisProcessor, this.indexingStorageProcessor}) {
+            Metrics.gauge("indexing.queue." + processor.getName(), new Metrics.Gauge() {
+                @Override
+                public long value() {
+                    return processor.getQueueSize();
+                }
+            });
+        }
+        Metrics.gauge("rwi.buffer", new Metrics.Gauge() {
+            @Override
+            public long value() {
+                return Switchboard.this.index.RWIBufferCount();
+            }
+        });
+        Metrics.gauge("crawl.queue.notice", new Metrics.Gauge() {
+            @Override
+            public long value() {
+                return Switchboard.this.crawlQueues.noticeURL.size();
+            }
+        });
+        Metrics.gauge("search.events", new Metrics.Gauge() {
+            @Override
+            public long value() {
+                return SearchEventCache.size();
+            }
+        });
+        Metrics.gauge("memory.used", new Metrics.Gauge() {
+            @Override
+            public long value() {
+                return MemoryControl.used();
+            }
+        });
+
         // deploy busy threads
         this.log.config("Starting Threads");
         MemoryControl.gc(10000, "plasmaSwitchboard, help for profiler"); // help for profiler - thq
@@ -1780,6 +1815,7 @@ public final class Switchboard extends serverSwitch {
         this.index.close();
         this.peers.close();
         Cache.close();
+        ThumbnailCache.close();
         this.tables.close();
         Domains.close();
         AccessTracker.dumpLog();
@@ -1854,6 +1890,55 @@ public final class Switchboard extends serverSwitch {
             return "not allowed: " + noIndexReason;
         }
 
+        // a revalidated document which is already in the index does not need to be indexed again;
+        // it is only parsed if its links shall be crawled
+        if ( response.notModified() && this.index.fulltext().updateLoadDate(ASCII.String(response.url().hash()), new Date()) ) {
+            if ( this.log.isFine() ) {
+                this.log.fine("deQueue: document not modified, renewed load date of " + response.url().toNormalform(true));
+            }
+            if ( response.profile() == null || response.depth() >= response.profile().depth() ) {
+                return null;
+            }
+            response.setLinksOnly();
+        }
+
+        // documents which had not been changed since the last indexing or which are exact copies of already indexed documents are not indexed again
+        final byte[] content = response.getContent();
+        if ( content != null && !response.linksOnly() && getConfigBool(SwitchboardConstants.INDEXER_SKIP_DUPLICATES, true) ) {
+            final byte[] urlhash = response.url().hash();
+            final ContentDigestIndex digestIndex = this.index.contentDigest();
+            final long digest = ContentDigestIndex.digest(content);
+            if ( digestIndex.get(urlhash) == digest ) {
+                if ( this.index.fulltext().updateLoadDate(ASCII.String(urlhash), new Date()) ) {
+                    if ( this.log.isFine() ) {
+                        this.log.fine("deQueue: content not changed, renewed load date of " + response.url().toNormalform(true));
+                    }
+                    if ( response.profile() == null || response.depth() >= response.profile().depth() ) {
+                        return null;
+                    }
+                    response.setLinksOnly();
+                }
+            } else {
+                final byte[] original = digestIndex.getURL(digest);
+                if ( original != null && !Base64Order.enhancedCoder.equal(original, urlhash) ) {
+                    DigestURL originalURL = null;
+                    try {
+                        originalURL = this.index.fulltext().getURL(ASCII.String(original));
+                    } catch (final IOException e ) {
+                        ConcurrentLog.logException(e);
+                    }
+                    if ( originalURL != null ) {
+                        final String reason = "exact duplicate of " + originalURL.toNormalform(true);
+                        this.crawlQueues.errorURL.push(response.url(), response.depth(), response.profile(), FailCategory.FINAL_PROCESS_CONTEXT, reason, -1);
+                        return "not indexed: " + reason;
+                    }
+                    // the original is not in the index any more; this document shall be the new original
+                    digestIndex.remove(original);
+                }
+            }
+            // the digest is stored after the document was indexed successfully, see storeDocumentIndex
+        }
+
         this.indexingDocumentProcessor.enQueue(new IndexingQueueEntry(
             response,
             null,
@@ -1866,91 +1951,33 @@ public final class Switchboard extends serverSwitch {
         if ( !infile.exists() || !infile.canWrite() || !infile.canRead() ) {
             return false;
         }
-        boolean moved = false;
-        if ( s.endsWith("xml.zip") ) {
-            // open the zip file with all the xml files in it
-            ZipInputStream zis = null;
-            try {
-                final InputStream is = new BufferedInputStream(new FileInputStream(infile));
-                zis = new ZipInputStream(is);
-                ZipEntry entry;
-                while ( (entry = zis.getNextEntry()) != null ) {
-                    int size;
-                    final byte[] buffer = new byte[2048];
-                    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                    while ( (size = zis.read(buffer, 0, buffer.length)) != -1 ) {
-                        baos.write(buffer, 0, size);
-                    }
-                    baos.flush();
-                    processSurrogate(new ByteArrayInputStream(baos.toByteArray()), entry.getName());
-                    baos.close();
-                    if (shallTerminate()) break;
-                }
-            } catch (final IOException e ) {
-                ConcurrentLog.logException(e);
-            } finally {
-                moved = infile.delete();
-                if (zis != null) try {zis.close();} catch (final IOException e) {}
-            }
-            return moved;
+        final SurrogateImporter importer = new SurrogateImporter(this, infile);
+        SurrogateImporter.job = importer;
+        importer.run();
+        if ( importer.terminated() ) {
+            return false;
         }
-        InputStream is = null;
-        try {
-            is = new BufferedInputStream(new FileInputStream(infile));
-            if ( s.endsWith(".gz") ) {
-                is = new GZIPInputStream(is);
-            }
-            processSurrogate(is, infile.getName());
-        } catch (final IOException e ) {
-            ConcurrentLog.logException(e);
-        } finally {
-            if (!shallTerminate()) {
-                moved = infile.delete();
-            }
-            if (is != null) try {is.close();} catch (IOException e) {}
-        }
-        return moved;
-    }
-
-    public void processSurrogate(final InputStream is, final String name) throws IOException {
-        final SurrogateReader reader = new SurrogateReader(is, 100);
-        final Thread readerThread = new Thread(reader, name);
-        readerThread.start();
-        DCEntry surrogate;
-        Response response;
-        while ( (surrogate = reader.take()) != DCEntry.poison ) {
-            // check if url is in accepted domain
-            assert surrogate != null;
-            assert this.crawlStacker != null;
-            final String urlRejectReason =
-                this.crawlStacker.urlInAcceptedDomain(surrogate.getIdentifier(true));
-            if ( urlRejectReason != null ) {
-                this.log.warn("Rejected URL '"
-                    + surrogate.getIdentifier(true)
-                    + "': "
-                    + urlRejectReason);
-                continue;
-            }
-
-            // create a queue entry
-            final Document document = surrogate.document();
-            final Request request =
-                new Request(
-                    ASCII.getBytes(this.peers.mySeed().hash),
-                    surrogate.getIdentifier(true),
-                    null,
-                    "",
-                    surrogate.getDate(),
-                    this.crawler.defaultSurrogateProfile.handle(),
-                    0,
-                    this.crawler.defaultSurrogateProfile.timezoneOffset());
-            response = new Response(request, null, null, this.crawler.defaultSurrogateProfile, false, null);
-            final IndexingQueueEntry queueEntry =
-                new IndexingQueueEntry(response, new Document[] {document}, null);
+        return infile.delete();
+    }
 
-            this.indexingCondensementProcessor.enQueue(queueEntry);
-            if (shallTerminate()) break;
+    public boolean processArchive(final String s) {
+        final File infile = new File(this.surrogatesInPath, s);
+        if ( !infile.exists() || !infile.canWrite() || !infile.canRead() ) {
+            return false;
+        }
+        final WarcImporter importer = new WarcImporter(this, infile, WarcImporter.storedResumeOffset(infile), getConfigInt("crawler.http.maxFileSize", HTTPLoader.DEFAULT_MAXFILESIZE));
+        WarcImporter.job = importer;
+        importer.run();
+        if ( importer.terminated() ) {
+            return false;
+        }
+        if ( importer.failed() ) {
+            // keep the rest of the archive and its resume offset, but do not try it again with every run
+            final File failed = new File(this.surrogatesInPath, "failed");
+            this.log.warn("archive " + s + " could not be read to its end; moved to " + failed.getAbsolutePath());
+            return WarcImporter.move(infile, failed);
         }
+        return infile.delete();
     }
 
     public int surrogateQueueSize() {
@@ -1997,7 +2024,12 @@ public final class Switchboard extends serverSwitch {
                     // check for interruption
                     checkInterruption();
 
-                    if ( surrogate.endsWith(".xml")
+                    if ( WarcImporter.isArchive(surrogate) ) {
+                        // import a web archive
+                        if ( processArchive(surrogate) ) {
+                            return true;
+                        }
+                    } else if ( surrogate.endsWith(".xml")
                         || surrogate.endsWith(".xml.gz")
                         || surrogate.endsWith(".xml.zip") ) {
                         // read the surrogate file and store entry in index
@@ -2700,7 +2732,13 @@ public final class Switchboard extends serverSwitch {
         in.queueEntry.updateStatus(Response.QUEUE_STATE_CONDENSING);
         CrawlProfile profile = in.queueEntry.profile();
         String urls = in.queueEntry.url().toNormalform(true);
-        
+
+        // the index entry of the document is up to date; it was parsed only to stack its links
+        if (in.queueEntry.linksOnly()) {
+            if (this.log.isFine()) this.log.fine("Not Condensed Resource '" + urls + "': document is indexed already");
+            return new IndexingQueueEntry(in.queueEntry, in.documents, null);
+        }
+
         // check profile attributes which prevent indexing (while crawling is allowed)
         if (!profile.indexText() && !profile.indexMedia()) {
             if (this.log.isInfo()) this.log.info("Not Condensed Resource '" + urls + "': indexing of this media type not wanted by crawl profile");
@@ -2862,6 +2900,13 @@ public final class Switchboard extends serverSwitch {
                 getConfigBool(SwitchboardConstants.DHT_ENABLED, false),
                 this.getConfigBool("isTransparentProxy", false) ? "http://127.0.0.1:" + sb.getConfigInt("port", 8090) : null,
                 this.getConfig("crawler.http.acceptLanguage", null));
+
+        // remember the content digest to recognize an unchanged document or a copy of it at the next load
+        final byte[] content = queueEntry.getContent();
+        if (content != null && getConfigBool(SwitchboardConstants.INDEXER_SKIP_DUPLICATES, true)) {
+            this.index.contentDigest().put(queueEntry.url().hash(), ContentDigestIndex.digest(content));
+        }
+
         final RSSFeed feed =
             EventChannel.channels(queueEntry.initiator() == null
                 ? EventChannel.PROXY
@@ -2969,6 +3014,7 @@ public final class Switchboard extends serverSwitch {
         this.index.fulltext().remove(deleteIDs);
         for (String id: deleteIDs) {
             byte[] idh = ASCII.getBytes(id);
+            this.index.contentDigest().remove(idh);
             this.crawlQueues.removeURL(idh);
             try {Cache.delete(idh);} catch (IOException e) {}
         }
@@ -2976,6 +3022,7 @@ public final class Switchboard extends serverSwitch {
     
     public void remove(final byte[] urlhash) {
         this.index.fulltext().remove(urlhash);
+        this.index.contentDigest().remove(urlhash);
         this.crawlQueues.removeURL(urlhash);
         try {Cache.delete(urlhash);} catch (IOException e) {}
     }
@@ -3738,6 +3785,7 @@ public final class Switchboard extends serverSwitch {
         mySeed.put(Seed.UTC, GenericFormatter.UTCDiffString());
         mySeed.setFlagAcceptRemoteCrawl(getConfigBool("crawlResponse", true));
         mySeed.setFlagAcceptRemoteIndex(getConfigBool("allowReceiveIndex", true));
+        mySeed.put(Seed.RWIFORMAT, Integer.toString(IndexTransferFormat.VERSION));
         mySeed.setFlagSSLAvailable(this.getHttpServer() != null && this.getHttpServer().withSSL() && getConfigBool("server.https", false));
         if (mySeed.getFlagSSLAvailable()) mySeed.put(Seed.PORTSSL, Integer.toString(getPublicPort("port.ssl", 8443)));
 
@@ -303,6 +303,7 @@ public final class SwitchboardConstants {
     public static final String PROXY_INDEXING_LOCAL_TEXT        = "proxyIndexingLocalText";
     public static final String PROXY_INDEXING_LOCAL_MEDIA       = "proxyIndexingLocalMedia";
     public static final String PROXY_CACHE_SIZE                 = "proxyCacheSize";
+    public static final String THUMBNAIL_CACHE_SIZE             = "thumbnailCacheSize";
     /**
      * <p><code>public static final String <strong>PROXY_CACHE_LAYOUT</strong> = "proxyCacheLayout"</code></p>
      * <p>Name of the setting which file-/folder-layout the proxy cache shall use. Possible values are {@link #PROXY_CACHE_LAYOUT_TREE}
@@ -355,6 +356,7 @@ public final class SwitchboardConstants {
     public static final String CRAWLER_MAX_SAME_HOST_IN_QUEUE   = "crawler.MaxSameHostInQueue";
     public static final String CRAWLER_FOLLOW_REDIRECTS         = "crawler.http.FollowRedirects"; // ignore the target url and follow to the redirect
     public static final String CRAWLER_RECORD_REDIRECTS         = "crawler.http.RecordRedirects"; // record the ignored redirected page to the index store
+    public static final String INDEXER_SKIP_DUPLICATES          = "indexer.skipDuplicates"; // do not parse and index documents with a content that is already in the index
     
     public static final String CRAWLER_USER_AGENT_NAME          = "crawler.userAgent.name";
     public static final String CRAWLER_USER_AGENT_STRING        = "crawler.userAgent.string";
@@ -0,0 +1,155 @@
+/**
+ *  ContentDigestIndex
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.search.index;
+
+import java.io.File;
+import java.io.IOException;
+
+import net.yacy.cora.order.Digest;
+import net.yacy.cora.order.NaturalOrder;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.index.Row;
+import net.yacy.kelondro.table.IndexTable;
+import net.yacy.kelondro.table.Table;
+import net.yacy.kelondro.util.kelondroException;
+
+/**
+ * A persistent relation between the url hashes of indexed documents and a digest of their content.
+ * The relation is stored in both directions: from the url hash to the digest to find out if a document
+ * had changed since it was indexed the last time and from the digest to the url hash to find exact
+ * copies of a document under other urls. The digest is the first 8 bytes of the md5 of the content.
+ */
+public class ContentDigestIndex {
+
+    private final IndexTable url2digest;
+    private final Table digest2url;
+
+    public ContentDigestIndex(final File url2digestLocation, final File digest2urlLocation) throws IOException {
+        this.url2digest = new IndexTable(url2digestLocation, 12, 8, false, false);
+        final Row row = new Row("byte[] digest-8, byte[] urlhash-12", NaturalOrder.naturalOrder);
+        Table t;
+        try {
+            t = new Table(digest2urlLocation, row, 1024*1024, 0, false, false, true);
+        } catch (final SpaceExceededException e) {
+            try {
+                t = new Table(digest2urlLocation, row, 0, 0, false, false, true);
+            } catch (kelondroException | SpaceExceededException e1) {
+                throw new IOException(e);
+            }
+        }
+        this.digest2url = t;
+    }
+
+    /**
+     * compute the digest of a document content
+     * @param content
+     * @return the first 8 bytes of the md5 of the content as long value
+     */
+    public static long digest(final byte[] content) {
+        final byte[] md5 = Digest.encodeMD5Raw(content);
+        long d = 0;
+        for (int i = 0; i < 8; i++) d = (d << 8) | (md5[i] & 0xff);
+        return d;
+    }
+
+    /**
+     * get the digest of the content of a document when it was indexed the last time
+     * @param urlhash
+     * @return the digest or -1 if the document is not known
+     */
+    public long get(final byte[] urlhash) {
+        try {
+            return this.url2digest.get(urlhash);
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+            return -1;
+        }
+    }
+
+    /**
+     * find a document with the given content digest
+     * @param digest
+     * @return the url hash of a document with that content or null if no such document is known
+     */
+    public byte[] getURL(final long digest) {
+        try {
+            final Row.Entry entry = this.digest2url.get(key(digest), false);
+            return entry == null ? null : entry.getColBytes(1, true);
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+            return null;
+        }
+    }
+
+    /**
+     * store the content digest of a document. A digest which is already assigned to another url is not re-assigned
+     * because that is the document which was indexed first; the other documents are copies of it.
+     * @param urlhash
+     * @param digest
+     */
+    public void put(final byte[] urlhash, final long digest) {
+        try {
+            this.url2digest.put(urlhash, digest);
+            final byte[] key = key(digest);
+            if (this.digest2url.has(key)) return;
+            final Row.Entry entry = this.digest2url.row().newEntry();
+            entry.setCol(0, key);
+            entry.setCol(1, urlhash);
+            this.digest2url.put(entry);
+        } catch (final IOException | SpaceExceededException e) {
+            ConcurrentLog.logException(e);
+        }
+    }
+
+    /**
+     * remove a document from the index
+     * @param urlhash
+     */
+    public void remove(final byte[] urlhash) {
+        try {
+            final Long digest = this.url2digest.remove(urlhash);
+            if (digest == null) return;
+            final byte[] key = key(digest.longValue());
+            final Row.Entry entry = this.digest2url.get(key, false);
+            if (entry != null && NaturalOrder.naturalOrder.equal(urlhash, entry.getColBytes(1, true))) this.digest2url.remove(key);
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        }
+    }
+
+    public void clear() throws IOException {
+        this.url2digest.clear();
+        this.digest2url.clear();
+    }
+
+    public void close() {
+        this.url2digest.close();
+        this.digest2url.close();
+    }
+
+    private static byte[] key(final long digest) {
+        final byte[] b = new byte[8];
+        for (int i = 0; i < 8; i++) b[i] = (byte) (digest >>> (56 - 8 * i));
+        return b;
+    }
+
+}
@@ -0,0 +1,397 @@
+/**
+ *  DoubleContentIndex
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.search.index;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import net.yacy.cora.federate.solr.connector.SolrConnector;
+import net.yacy.cora.federate.solr.connector.SolrCursor;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.kelondro.util.MemoryBudget;
+import net.yacy.search.schema.CollectionConfiguration;
+import net.yacy.search.schema.CollectionSchema;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+import org.apache.solr.common.SolrInputDocument;
+
+/**
+ * An in-memory index of the content signatures of the documents of a host, used to find copies of a document
+ * during the postprocessing without a solr query for each document. For each host, all documents are loaded
+ * with one scan of the collection; afterwards the index is updated with every stored document.
+ * Besides the equality of the signatures, near-duplicates are found with a banded locality-sensitive hash:
+ * a min-hash of the token profile of the fuzzy signature is divided into bands, documents which share a band
+ * are candidates and are accepted if the estimated similarity of their profiles is high enough. The profile of documents
+ * which are loaded from the collection is read from fuzzy_signature_text_t, so near-duplicates of those documents are only
+ * found if that field is switched on.
+ * Only documents which are indexable (http status 200, no noindex, no canonical to another url) are counted as copies.
+ * Hosts with too many documents are not indexed; for them the postprocessing falls back to solr queries.
+ */
+public class DoubleContentIndex {
+
+    private final static ConcurrentLog log = new ConcurrentLog("DoubleContentIndex");
+
+    public final static int MAX_HOST_DOCS = 100000;   // larger hosts are checked with solr queries
+    private final static int MAX_DOCS = 1000000;      // the maximum number of documents in all hosts
+    private final static int BANDS = 8, ROWS = 4;     // the min-hash has BANDS * ROWS values
+    private final static int HASHES = BANDS * ROWS;
+    private final static double SIMILARITY = 0.9d;    // the estimated similarity of near-duplicates
+    private final static long DOC_MEMORY = 300;       // approximate number of bytes used for a document
+
+    private final static CollectionSchema[] SIGNATURES = new CollectionSchema[]{
+        CollectionSchema.exact_signature_l, CollectionSchema.fuzzy_signature_l,
+        CollectionSchema.title_exact_signature_l, CollectionSchema.description_exact_signature_l};
+    private final static int FUZZY = 1; // the position of the fuzzy signature in SIGNATURES
+
+    private static final class Doc {
+        private final String id;
+        private final Long[] signatures;
+        private final int[] minhash;
+        private final boolean valid;
+        private Doc(final String id, final Long[] signatures, final int[] minhash, final boolean valid) {
+            this.id = id;
+            this.signatures = signatures;
+            this.minhash = minhash;
+            this.valid = valid;
+        }
+    }
+
+    private static final class Host {
+        private final boolean large; // true if the host is too large for the index
+        private final Map<String, Doc> docs;
+        private final List<Map<Long, List<Doc>>> signatures;
+        private final Map<Long, List<Doc>> bands;
+
+        private Host(final boolean large) {
+            this.large = large;
+            this.docs = new HashMap<String, Doc>();
+            this.signatures = new ArrayList<Map<Long, List<Doc>>>(SIGNATURES.length);
+            for (int i = 0; i < SIGNATURES.length; i++) this.signatures.add(new HashMap<Long, List<Doc>>());
+            this.bands = new HashMap<Long, List<Doc>>();
+        }
+
+        private void put(final Doc doc) {
+            remove(doc.id);
+            this.docs.put(doc.id, doc);
+            if (!doc.valid) return;
+            for (int i = 0; i < SIGNATURES.length; i++) {
+                if (doc.signatures[i] == null) continue;
+                List<Doc> l = this.signatures.get(i).get(doc.signatures[i]);
+                if (l == null) {l = new ArrayList<Doc>(1); this.signatures.get(i).put(doc.signatures[i], l);}
+                l.add(doc);
+            }
+            if (doc.minhash != null) for (int b = 0; b < BANDS; b++) {
+                final Long key = band(doc.minhash, b);
+                List<Doc> l = this.bands.get(key);
+                if (l == null) {l = new ArrayList<Doc>(1); this.bands.put(key, l);}
+                l.add(doc);
+            }
+        }
+
+        private void remove(final String id) {
+            final Doc doc = this.docs.remove(id);
+            if (doc == null || !doc.valid) return;
+            for (int i = 0; i < SIGNATURES.length; i++) {
+                if (doc.signatures[i] == null) continue;
+                final List<Doc> l = this.signatures.get(i).get(doc.signatures[i]);
+                if (l != null && l.remove(doc) && l.isEmpty()) this.signatures.get(i).remove(doc.signatures[i]);
+            }
+            if (doc.minhash != null) for (int b = 0; b < BANDS; b++) {
+                final Long key = band(doc.minhash, b);
+                final List<Doc> l = this.bands.get(key);
+                if (l != null && l.remove(doc) && l.isEmpty()) this.bands.remove(key);
+            }
+        }
+    }
+
+    private final CollectionConfiguration configuration;
+    private final LinkedHashMap<String, Host> hosts; // the hosts in the order of their last access
+    private int docCount;
+    private final MemoryBudget.Consumer budget;
+
+    public DoubleContentIndex(final CollectionConfiguration configuration) {
+        this.configuration = configuration;
+        this.hosts = new LinkedHashMap<String, Host>(16, 0.75f, true);
+        this.docCount = 0;
+        this.budget = new MemoryBudget.Consumer() {
+            @Override
+            public long memory() {
+                return DoubleContentIndex.this.docCount * DOC_MEMORY;
+            }
+            @Override
+            public void shrink(final double fraction) {
+                DoubleContentIndex.this.shrink(fraction);
+            }
+        };
+        MemoryBudget.register("Double Content Index", MemoryBudget.PRIORITY_LOW, this.budget);
+    }
+
+    /**
+     * compute the min-hash of the token profile of a document
+     * @param profile the token profile as produced by the EnhancedTextProfileSignature: a list of (token-count[-qcount]) entries
+     * @return the min-hash or null if the profile has no tokens
+     */
+    public static int[] minhash(final String profile) {
+        if (profile == null || profile.length() == 0) return null;
+        final int[] minhash = new int[HASHES];
+        for (int i = 0; i < HASHES; i++) minhash[i] = Integer.MAX_VALUE;
+        boolean found = false;
+        int p = 0;
+        while ((p = profile.indexOf('(', p)) >= 0) {
+            int q = profile.indexOf('-', p);
+            final int r = profile.indexOf(')', p);
+            if (r < 0) break;
+            if (q < 0 || q > r) q = r;
+            // hash the token with a 64 bit polynomial and derive the hash functions by mixing with a seed
+            long h = 1125899906842597L;
+            for (int i = p + 1; i < q; i++) h = 31 * h + profile.charAt(i);
+            for (int i = 0; i < HASHES; i++) {
+                final int m = (int) (mix(h + (i + 1) * 0x9E3779B97F4A7C15L) >>> 33);
+                if (m < minhash[i]) minhash[i] = m;
+            }
+            found = true;
+            p = r + 1;
+        }
+        return found ? minhash : null;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static Long band(final int[] minhash, final int b) {
+        long h = b;
+        for (int i = b * ROWS; i < (b + 1) * ROWS; i++) h = 31 * h + minhash[i];
+        return (((long) b) << 56) ^ (mix(h) >>> 8);
+    }
+
+    private static double similarity(final int[] a, final int[] b) {
+        int equal = 0;
+        for (int i = 0; i < HASHES; i++) if (a[i] == b[i]) equal++;
+        return ((double) equal) / HASHES;
+    }
+
+    /**
+     * check if a document is counted as copy: it must be indexable, the same condition as in the double content check in the CollectionConfiguration
+     */
+    private boolean valid(final Object httpstatus, final Object canonicalEqualSku, final Object robots) {
+        if (httpstatus == null ? this.configuration.contains(CollectionSchema.httpstatus_i) : ((Number) httpstatus).intValue() != 200) return false;
+        if (canonicalEqualSku != null && !((Boolean) canonicalEqualSku).booleanValue()) return false;
+        if (robots != null) {
+            final int r = ((Number) robots).intValue();
+            if (r == 8 || r == 24 || r == 512 || r == 1536) return false;
+        }
+        return true;
+    }
+
+    private static Long signature(final Object value) {
+        return value instanceof Number ? Long.valueOf(((Number) value).longValue()) : null;
+    }
+
+    /**
+     * update the index with a stored document. The document is only added if its host is already in the index,
+     * otherwise it will be found with the next scan of the host.
+     * @param hostid the host hash
+     * @param doc the solr document as it is written to the index
+     * @param profile the token profile of the fuzzy signature
+     */
+    public void put(final String hostid, final SolrInputDocument doc, final String profile) {
+        final String id = (String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName());
+        if (hostid == null || id == null) return;
+        synchronized (this) {
+            final Host host = this.hosts.get(hostid);
+            if (host == null || host.large) return;
+            final Long[] signatures = new Long[SIGNATURES.length];
+            for (int i = 0; i < SIGNATURES.length; i++) signatures[i] = signature(doc.getFieldValue(SIGNATURES[i].getSolrFieldName()));
+            final int before = host.docs.size();
+            host.put(new Doc(id, signatures, minhash(profile), valid(
+                    doc.getFieldValue(CollectionSchema.httpstatus_i.getSolrFieldName()),
+                    doc.getFieldValue(CollectionSchema.canonical_equal_sku_b.getSolrFieldName()),
+                    doc.getFieldValue(CollectionSchema.robots_i.getSolrFieldName()))));
+            this.docCount += host.docs.size() - before;
+        }
+    }
+
+    /**
+     * remove a document which was deleted from the collection or replaced by an error document
+     * @param id the url hash of the document; the host hash is part of it
+     */
+    public synchronized void remove(final String id) {
+        if (id == null || id.length() != 12) return;
+        final Host host = this.hosts.get(id.substring(6));
+        if (host == null || host.large) return;
+        final int before = host.docs.size();
+        host.remove(id);
+        this.docCount += host.docs.size() - before;
+    }
+
+    /**
+     * remove a set of documents
+     * @param ids the url hashes of the documents
+     */
+    public synchronized void remove(final Collection<String> ids) {
+        for (final String id: ids) remove(id);
+    }
+
+    /**
+     * remove hosts from the index, i.e. after documents of the hosts had been deleted with a query;
+     * the hosts are loaded again with the next scan
+     * @param hostids the host hashes
+     */
+    public synchronized void invalidate(final Collection<String> hostids) {
+        for (final String hostid: hostids) {
+            final Host host = this.hosts.remove(hostid);
+            if (host != null) this.docCount -= host.docs.size();
+        }
+    }
+
+    /**
+     * find the copies of a document within its host
+     * @param connector the collection connector which is used to load the host if it is not in the index
+     * @param hostid the host hash of the document
+     * @param id the url hash of the document
+     * @param signaturefield one of exact_signature_l, fuzzy_signature_l, title_exact_signature_l or description_exact_signature_l
+     * @param signature the signature of the document
+     * @return the ids of other indexable documents of the host with the same signature; for the fuzzy signature also the near-duplicates.
+     *   If the host is too large for the index, null is returned and the copies must be found with a solr query.
+     */
+    public Set<String> copies(final SolrConnector connector, final String hostid, final String id, final CollectionSchema signaturefield, final long signature) {
+        int s = -1;
+        for (int i = 0; i < SIGNATURES.length; i++) if (SIGNATURES[i] == signaturefield) s = i;
+        if (s < 0) return null;
+        final Host host = host(connector, hostid);
+        if (host == null || host.large) return null;
+        final Set<String> copies = new HashSet<String>();
+        synchronized (this) {
+            final List<Doc> equal = host.signatures.get(s).get(signature);
+            if (equal != null) for (final Doc d: equal) copies.add(d.id);
+            final Doc doc = host.docs.get(id);
+            if (s == FUZZY && doc != null && doc.minhash != null) {
+                for (int b = 0; b < BANDS; b++) {
+                    final List<Doc> candidates = host.bands.get(band(doc.minhash, b));
+                    if (candidates != null) for (final Doc d: candidates) {
+                        if (!copies.contains(d.id) && similarity(doc.minhash, d.minhash) >= SIMILARITY) copies.add(d.id);
+                    }
+                }
+            }
+        }
+        copies.remove(id);
+        return copies;
+    }
+
+    private Host host(final SolrConnector connector, final String hostid) {
+        synchronized (this) {
+            final Host host = this.hosts.get(hostid);
+            if (host != null) return host;
+        }
+        // load the host without a lock; the scan may take some time
+        final Host host;
+        try {
+            host = load(connector, hostid);
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+            return null;
+        }
+        synchronized (this) {
+            final Host other = this.hosts.get(hostid);
+            if (other != null) return other; // loaded concurrently
+            this.hosts.put(hostid, host);
+            this.docCount += host.docs.size();
+            if (this.docCount > MAX_DOCS) shrink(((double) (this.docCount - MAX_DOCS)) / this.docCount);
+        }
+        return host;
+    }
+
+    private Host load(final SolrConnector connector, final String hostid) throws IOException {
+        final String query = "{!cache=false}" + CollectionSchema.host_id_s.getSolrFieldName() + ":\"" + hostid + "\"";
+        if (connector.getCountByQuery(query) > MAX_HOST_DOCS) return new Host(true);
+        final List<String> fields = new ArrayList<String>();
+        fields.add(CollectionSchema.id.getSolrFieldName());
+        for (final CollectionSchema field: new CollectionSchema[]{
+                CollectionSchema.httpstatus_i, CollectionSchema.canonical_equal_sku_b, CollectionSchema.robots_i, CollectionSchema.fuzzy_signature_text_t}) {
+            if (this.configuration.contains(field)) fields.add(field.getSolrFieldName());
+        }
+        for (final CollectionSchema field: SIGNATURES) if (this.configuration.contains(field)) fields.add(field.getSolrFieldName());
+        final Host host = new Host(false);
+        final SolrCursor cursor = new SolrCursor(connector, query, null, 1000, fields.toArray(new String[fields.size()]));
+        while (!cursor.isExhausted()) {
+            final SolrDocumentList sdl = cursor.nextPage();
+            for (final SolrDocument doc: sdl) {
+                final String id = (String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName());
+                if (id == null) continue;
+                final Long[] signatures = new Long[SIGNATURES.length];
+                for (int i = 0; i < SIGNATURES.length; i++) signatures[i] = signature(doc.getFieldValue(SIGNATURES[i].getSolrFieldName()));
+                final Object profile = doc.getFirstValue(CollectionSchema.fuzzy_signature_text_t.getSolrFieldName());
+                host.put(new Doc(id, signatures, minhash(profile == null ? null : profile.toString()), valid(
+                        doc.getFieldValue(CollectionSchema.httpstatus_i.getSolrFieldName()),
+                        doc.getFieldValue(CollectionSchema.canonical_equal_sku_b.getSolrFieldName()),
+                        doc.getFieldValue(CollectionSchema.robots_i.getSolrFieldName()))));
+            }
+        }
+        if (log.isFine()) log.fine("loaded " + host.docs.size() + " documents of host " + hostid);
+        return host;
+    }
+
+    /**
+     * remove the hosts which had not been used for the longest time
+     * @param fraction the fraction of the documents to remove
+     */
+    public synchronized void shrink(final double fraction) {
+        final int target = fraction >= 1.0d ? 0 : (int) (this.docCount * (1.0d - fraction));
+        final Iterator<Host> i = this.hosts.values().iterator();
+        while (i.hasNext() && this.docCount > target) {
+            this.docCount -= i.next().docs.size();
+            i.remove();
+        }
+    }
+
+    /**
+     * remove all hosts from the index, i.e. after documents had been deleted
+     */
+    public synchronized void clear() {
+        this.hosts.clear();
+        this.docCount = 0;
+    }
+
+    /**
+     * @return the number of documents in the index
+     */
+    public synchronized int size() {
+        return this.docCount;
+    }
+
+    public void close() {
+        MemoryBudget.unregister(this.budget);
+        clear();
+    }
+
+}
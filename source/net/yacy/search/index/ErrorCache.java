@@ -127,6 +127,7 @@ public class ErrorCache {
                     ((Integer) olddoc.getFieldValue(CollectionSchema.httpstatus_i.getSolrFieldName())) == 200) {
                     SolrInputDocument errorDoc = failDoc.toSolr(this.fulltext.getDefaultConfiguration());
                     this.fulltext.getDefaultConnector().add(errorDoc);
+                    this.fulltext.doubleContent().remove(ASCII.String(failDoc.getDigestURL().hash()));
                 }
             } catch (final IOException e) {
                 ConcurrentLog.warn("SOLR", "failed to send error " + url.toNormalform(true) + " to solr: " + e.getMessage());
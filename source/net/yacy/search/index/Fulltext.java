@@ -90,6 +90,7 @@ public final class Fulltext {
     private final CollectionConfiguration collectionConfiguration;
     private final WebgraphConfiguration   webgraphConfiguration;
     private       boolean                 writeWebgraph;
+    private final DoubleContentIndex      doubleContentIndex;
 
     protected Fulltext(final File segmentPath, final File archivePath,
             final CollectionConfiguration collectionConfiguration, final WebgraphConfiguration webgraphConfiguration) {
@@ -100,6 +101,7 @@ public final class Fulltext {
         this.collectionConfiguration = collectionConfiguration;
         this.webgraphConfiguration = webgraphConfiguration;
         this.writeWebgraph = false;
+        this.doubleContentIndex = new DoubleContentIndex(collectionConfiguration);
     }
     
     public void setUseWebgraph(boolean check) {
@@ -118,6 +120,14 @@ public final class Fulltext {
         return this.webgraphConfiguration;
     }
 
+    /**
+     * @return the index of the content signatures of the hosts; it must be updated if documents are deleted
+     *   from the collection without the remove and delete methods of this class
+     */
+    public DoubleContentIndex doubleContent() {
+        return this.doubleContentIndex;
+    }
+
     public boolean connectedLocalSolr() {
         return this.solrInstances.isConnectedEmbedded();
     }
@@ -209,6 +219,7 @@ public final class Fulltext {
     
     public void clearCaches() {
         this.solrInstances.clearCaches();
+        this.doubleContentIndex.clear();
     }
 
     public void clearLocalSolr() throws IOException {
@@ -223,6 +234,7 @@ public final class Fulltext {
             this.commit(false);
             this.solrInstances.clearCaches();
         }
+        this.doubleContentIndex.clear();
     }
 
     public void clearRemoteSolr() throws IOException {
@@ -235,6 +247,7 @@ public final class Fulltext {
             }
             this.solrInstances.clearCaches();
         }
+        this.doubleContentIndex.clear();
     }
 
     /**
@@ -266,6 +279,7 @@ public final class Fulltext {
         try {
             this.solrInstances.close();
         } catch (Throwable e) {}
+        this.doubleContentIndex.close();
     }
     
     private long lastCommit = 0;
@@ -382,6 +396,7 @@ public final class Fulltext {
         if (this.writeWebgraph) deleteDomainWithConstraint(this.getWebgraphConnector(), WebgraphSchema.source_host_id_s.getSolrFieldName(), hosthashes,
                 (freshdate == null || freshdate.after(now)) ? null :
                 (WebgraphSchema.load_date_dt.getSolrFieldName() + ":[* TO " + ISO8601Formatter.FORMATTER.format(freshdate) + "]"));
+        this.doubleContentIndex.invalidate(hosthashes);
     }
 
     public void deleteStaleDomainNames(final Set<String> hostnames, Date freshdate) {
@@ -393,6 +408,7 @@ public final class Fulltext {
         if (this.writeWebgraph) deleteDomainWithConstraint(this.getWebgraphConnector(), WebgraphSchema.source_host_s.getSolrFieldName(), hostnames,
                 (freshdate == null || freshdate.after(now)) ? null :
                 (WebgraphSchema.load_date_dt.getSolrFieldName() + ":[* TO " + ISO8601Formatter.FORMATTER.format(freshdate) + "]"));
+        this.doubleContentIndex.clear(); // the host hashes of the names are not known
     }
     
     /**
@@ -434,6 +450,7 @@ public final class Fulltext {
             if (this.getWebgraphConnector() != null) this.getWebgraphConnector().deleteByQuery(webgraphQuery);
         } catch (final IOException e) {
         }
+        this.doubleContentIndex.clear();
     }
     
     
@@ -480,6 +497,7 @@ public final class Fulltext {
         } catch (final Throwable e) {
             ConcurrentLog.logException(e);
         }
+        this.doubleContentIndex.remove(deleteIDs);
     }
     
     public boolean remove(final byte[] urlHash) {
@@ -491,6 +509,7 @@ public final class Fulltext {
         } catch (final Throwable e) {
             ConcurrentLog.logException(e);
         }
+        this.doubleContentIndex.remove(ASCII.String(urlHash));
         return false;
     }
 
@@ -514,6 +533,42 @@ public final class Fulltext {
         return md.date;
     }
     
+    /**
+     * get the load times of many resources with one request to the index
+     * @param urlHashes
+     * @return the time in milliseconds since epoch for the load time of all documents which exist, mapped by their url hash
+     */
+    public Map<String, Long> getLoadTimes(final Collection<String> urlHashes) throws IOException {
+        final Map<String, Long> times = new HashMap<String, Long>(urlHashes.size());
+        if (urlHashes.isEmpty()) return times;
+        for (Map.Entry<String, SolrConnector.LoadTimeURL> entry: this.getDefaultConnector().getLoadTimeURLs(urlHashes).entrySet()) {
+            times.put(entry.getKey(), entry.getValue().date);
+        }
+        return times;
+    }
+
+    /**
+     * set a new load date for a document which has been loaded again but was not changed.
+     * This is a partial update of the document, the document is not parsed and indexed again.
+     * @param urlHash
+     * @param loadDate
+     * @return true if the document exists and the load date was updated, false otherwise
+     */
+    public boolean updateLoadDate(final String urlHash, final Date loadDate) {
+        if (urlHash == null) return false;
+        try {
+            if (this.getLoadTime(urlHash) < 0) return false;
+            final SolrInputDocument doc = new SolrInputDocument();
+            doc.setField(CollectionSchema.id.getSolrFieldName(), urlHash);
+            doc.setField(CollectionSchema.load_date_dt.getSolrFieldName(), loadDate);
+            this.getDefaultConnector().update(doc);
+            return true;
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+            return false;
+        }
+    }
+
     public List<File> dumpFiles() {
         EmbeddedInstance esc = this.solrInstances.getEmbedded();
         ArrayList<File> zips = new ArrayList<File>();
@@ -25,6 +25,7 @@ import java.util.concurrent.Semaphore;
 
 import net.yacy.cora.federate.solr.connector.AbstractSolrConnector;
 import net.yacy.cora.federate.solr.connector.SolrConnector;
+import net.yacy.cora.federate.solr.connector.SolrCursor;
 import net.yacy.cora.sorting.OrderedScoreMap;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.kelondro.workflow.AbstractBusyThread;
@@ -62,7 +63,8 @@ import org.apache.solr.common.SolrInputDocument;
         Semaphore sem = new Semaphore(1);
         OrderedScoreMap<String> querylist = new OrderedScoreMap<String>(null); // list of select statements to reindex with number of documents as score
         String currentquery = null;
-        int start = 0; // startindex
+        SolrCursor cursor = null; // position in the documents of the current query
+        String cursorquery = null; // the query of the cursor
         int chunksize = 100; // number of documents to reindex per cycle
         
         /**        
@@ -118,13 +120,17 @@ import org.apache.solr.common.SolrInputDocument;
                 if (sem.tryAcquire()) { // allow only one working cycle
                     try {
                         currentquery = querylist.keys(true).next(); // get next query with lowest number of documents found
-                        SolrDocumentList xdocs = esc.getDocumentListByQuery(currentquery, null, start, chunksize);
+                        if (cursor == null || !currentquery.equals(cursorquery)) {
+                            cursor = new SolrCursor(esc, currentquery, null, chunksize);
+                            cursorquery = currentquery;
+                        }
+                        SolrDocumentList xdocs = cursor.nextPage();
                         
-                        if (xdocs.size() == 0) { // no documents returned = all of current query reindexed (or eventual start to large)                                                       
+                        if (xdocs.size() == 0) { // no documents returned = all of current query reindexed
 
-                            if (start > 0) { // if previous cycle reindexed, commit to prevent reindex of same documents
+                            if (cursor.getCount() > 0) { // if previous cycle reindexed, commit to prevent reindex of same documents
                                 esc.commit(true);
-                                start = 0;
+                                cursor = null;
                             } else { // if start == 0 and nothing found, query can be deleted for sure
                                querylist.delete(currentquery); // remove current query
                             }
@@ -134,8 +140,7 @@ import org.apache.solr.common.SolrInputDocument;
                             }
                         } else {
                             docstoreindex = (int) xdocs.getNumFound();
-                            ConcurrentLog.info("MIGRATION-REINDEX", "reindex docs with query=" + currentquery + " found=" + docstoreindex + " start=" + start);
-                            start = start + chunksize;
+                            ConcurrentLog.info("MIGRATION-REINDEX", "reindex docs with query=" + currentquery + " found=" + docstoreindex + " start=" + (cursor.getCount() - xdocs.size()));
                             querylist.set(currentquery, docstoreindex);
                             for (SolrDocument doc : xdocs) {
                                 SolrInputDocument idoc = colcfg.toSolrInputDocument(doc);
@@ -209,7 +214,7 @@ import org.apache.solr.common.SolrInputDocument;
                 this.chunksize = this.chunksize / 2;
             }
             esc.commit(true);
-            start = 0;            
+            cursor = null;
         }
 
     }
@@ -108,6 +108,8 @@ public class Segment {
     public static final String termIndexName = "text.index";
     public static final String citationIndexName = "citation.index";
     public static final String firstseenIndexName = "firstseen.index";
+    public static final String url2digestIndexName = "url2digest.index";
+    public static final String digest2urlIndexName = "digest2url.index";
 
     // the reference factory
     public static final ReferenceFactory<WordReference> wordReferenceFactory = new WordReferenceFactory();
@@ -120,6 +122,7 @@ public class Segment {
     protected       IndexCell<WordReference>       termIndex;
     protected       IndexCell<CitationReference>   urlCitationIndex;
     protected       IndexTable                     firstSeenIndex;
+    protected       ContentDigestIndex             contentDigestIndex;
 
     /**
      * create a new Segment
@@ -140,6 +143,7 @@ public class Segment {
         this.termIndex = null;
         this.urlCitationIndex = null;
         this.firstSeenIndex = new IndexTable(new File(segmentPath, firstseenIndexName), 12, 8, false, false);
+        this.contentDigestIndex = new ContentDigestIndex(new File(segmentPath, url2digestIndexName), new File(segmentPath, digest2urlIndexName));
     }
     
     public boolean connectedRWI() {
@@ -213,6 +217,14 @@ public class Segment {
     public IndexTable firstSeen() {
         return this.firstSeenIndex;
     }
+
+    public ContentDigestIndex contentDigest() {
+        return this.contentDigestIndex;
+    }
+
+    public DoubleContentIndex doubleContent() {
+        return this.fulltext.doubleContent();
+    }
     
     public ReferenceReportCache getReferenceReportCache()  {
         return new ReferenceReportCache();
@@ -392,6 +404,10 @@ public class Segment {
         return this.fulltext.getLoadTime(urlhash);
     }
 
+    public Map<String, Long> getLoadTimes(final Collection<String> urlhashes) throws IOException {
+        return this.fulltext.getLoadTimes(urlhashes);
+    }
+
     /**
      * discover all urls that start with a given url stub
      * @param stub
@@ -448,6 +464,7 @@ public class Segment {
             if (this.fulltext != null) this.fulltext.clearLocalSolr();
             if (this.fulltext != null) this.fulltext.clearRemoteSolr();
             if (this.urlCitationIndex != null) this.urlCitationIndex.clear();
+            if (this.contentDigestIndex != null) this.contentDigestIndex.clear();
         } catch (final IOException e) {
             ConcurrentLog.logException(e);
         }
@@ -468,6 +485,7 @@ public class Segment {
         if (this.fulltext != null) this.fulltext.close();
         if (this.urlCitationIndex != null) this.urlCitationIndex.close();
         if (this.firstSeenIndex != null) this.firstSeenIndex.close();
+        if (this.contentDigestIndex != null) this.contentDigestIndex.close();
     }
 
     private static String votedLanguage(
@@ -586,6 +604,7 @@ public class Segment {
         
         // STORE TO SOLR
         this.putDocument(vector);
+        this.fulltext.doubleContent().put(url.hosthash(), vector, condenser.fuzzySignatureText());
         List<SolrInputDocument> webgraph = vector.getWebgraphDocuments();
         String error = null;
         if (webgraph != null && webgraph.size() > 0) {
@@ -675,16 +694,23 @@ public class Segment {
                             docType,
                             outlinksSame, outlinksOther);
     
-            // iterate over all words of content text
+            // iterate over all words of content text; the word hashes are computed at once
+            final Map<String, Word> words = condenser.words();
+            final String[] wordlist = new String[words.size()];
+            final Word[] wprops = new Word[words.size()];
+            int wc = 0;
+            for (Map.Entry<String, Word> wentry: words.entrySet()) {
+                wordlist[wc] = wentry.getKey();
+                wprops[wc++] = wentry.getValue();
+            }
+            final byte[][] wordhashes = Word.words2hashes(wordlist);
             Word wprop = null;
             byte[] wordhash;
-            String word;
-            for (Map.Entry<String, Word> wentry: condenser.words().entrySet()) {
-                word = wentry.getKey();
-                wprop = wentry.getValue();
+            for (int i = 0; i < wordlist.length; i++) {
+                wprop = wprops[i];
                 assert (wprop.flags != null);
                 ientry.setWord(wprop);
-                wordhash = Word.word2hash(word);
+                wordhash = wordhashes[i];
                 if (this.termIndex != null && storeToRWI) try {
                     this.termIndex.add(wordhash, ientry);
                 } catch (final Exception e) {
@@ -757,6 +783,7 @@ public class Segment {
             if (document == null) {
                 // delete just the url entry
                 fulltext().remove(urlhash);
+                this.contentDigestIndex.remove(urlhash);
                 return 0;
             }
             // get the word set
@@ -769,6 +796,7 @@ public class Segment {
 
             // finally delete the url entry itself
             fulltext().remove(urlhash);
+            this.contentDigestIndex.remove(urlhash);
             return count;
         } catch (final Parser.Failure e) {
             return 0;
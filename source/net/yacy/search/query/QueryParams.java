@@ -36,6 +36,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
@@ -143,6 +144,7 @@ public final class QueryParams {
     protected boolean filterfailurls, filterscannerfail;
     protected double lat, lon, radius;
     public LinkedHashSet<String> facetfields;
+    public final Set<String> navigators; // the names of the navigators which shall be computed for this query, see search.navigation
     private SolrQuery cachedQuery;
     private CollectionConfiguration solrSchema;
     public final int timezoneOffset;
@@ -248,9 +250,12 @@ public final class QueryParams {
         this.lon = Math.floor(lon * this.kmNormal) / this.kmNormal;
         this.radius = Math.floor(radius * this.kmNormal + 1) / this.kmNormal;
         this.facetfields = new LinkedHashSet<String>();
+        this.navigators = new TreeSet<String>();
         
         this.solrSchema = indexSegment.fulltext().getDefaultConfiguration();
         for (String navkey: search_navigation) {
+            navkey = navkey.trim();
+            if (navkey.length() > 0) this.navigators.add(navkey);
             CollectionSchema f = defaultfacetfields.get(navkey);
             // handle special field, authors_sxt (add to facet w/o contains check, as authors_sxt is not enabled (is copyfield))
             // dto. for coordinate_p_0_coordinate is not enabled but used for location facet (because coordinate_p not valid for facet field)
@@ -651,6 +656,7 @@ public final class QueryParams {
             context.append(this.tld).append(asterisk);
             context.append(this.inlink).append(asterisk);
             context.append(this.lat).append(asterisk).append(this.lon).append(asterisk).append(this.radius).append(asterisk);
+            context.append(this.navigators).append(asterisk);
             context.append(this.snippetCacheStrategy == null ? "null" : this.snippetCacheStrategy.name());
             String result = context.toString();
             if (anonymized) {
@@ -36,11 +36,15 @@ import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
@@ -62,6 +66,7 @@ import net.yacy.cora.sorting.ClusteredScoreMap;
 import net.yacy.cora.sorting.ConcurrentScoreMap;
 import net.yacy.cora.sorting.ReversibleScoreMap;
 import net.yacy.cora.sorting.ScoreMap;
+import net.yacy.cora.sorting.StringScoreMap;
 import net.yacy.cora.sorting.WeakPriorityBlockingQueue;
 import net.yacy.cora.sorting.WeakPriorityBlockingQueue.Element;
 import net.yacy.cora.sorting.WeakPriorityBlockingQueue.ReverseElement;
@@ -131,15 +136,15 @@ public final class SearchEvent {
     final WorkTables workTables;
     public final SecondarySearchSuperviser secondarySearchSuperviser;
     public final List<RemoteSearch> primarySearchThreadsL;
-    public final List<Thread> nodeSearchThreads;
-    public Thread[] secondarySearchThreads;
+    public final List<RemoteSearch> nodeSearchThreads;
+    public RemoteSearch[] secondarySearchThreads;
     public final SortedSet<byte[]> preselectedPeerHashes;
     private final SortedMap<byte[], Integer> IACount;
     private final SortedMap<byte[], String> IAResults;
     private final SortedMap<byte[], HeuristicResult> heuristics;
     private byte[] IAmaxcounthash, IAneardhthash;
     public Thread rwiProcess;
-    public Thread localsolrsearch;
+    public RemoteSearch localsolrsearch;
     private int localsolroffset;
     private final AtomicInteger expectedRemoteReferences, maxExpectedRemoteReferences; // counter for referenced that had been sorted out for other reasons
     public final ScoreMap<String> locationNavigator; // a counter for the appearance of location coordinates
@@ -151,7 +156,7 @@ public final class SearchEvent {
     public final ScoreMap<String> filetypeNavigator; // a counter for file types
     public final ScoreMap<String> dateNavigator; // a counter for file types
     public final ScoreMap<String> languageNavigator; // a counter for appearance of languages
-    public final Map<String, ScoreMap<String>> vocabularyNavigator; // counters for Vocabularies; key is metatag.getVocabularyName()
+    public final ConcurrentMap<String, ScoreMap<String>> vocabularyNavigator; // counters for Vocabularies; key is metatag.getVocabularyName()
     private final int topicNavigatorCount; // if 0 no topicNavigator, holds expected number of terms for the topicNavigator
     private final LoaderDispatcher                        loader;
     private final HandleSet                               snippetFetchWordHashes; // a set of word hashes that are used to match with the snippets
@@ -236,19 +241,20 @@ public final class SearchEvent {
         this.maxExpectedRemoteReferences = new AtomicInteger(0);
         this.expectedRemoteReferences = new AtomicInteger(0);
         this.excludeintext_image = Switchboard.getSwitchboard().getConfigBool("search.excludeintext.image", true);
-        // prepare configured search navigation
-        final String navcfg = Switchboard.getSwitchboard().getConfig("search.navigation", "");
-        this.locationNavigator = navcfg.contains("location") ? new ConcurrentScoreMap<String>() : null;
-        this.authorNavigator = navcfg.contains("authors") ? new ConcurrentScoreMap<String>() : null;
-        this.collectionNavigator = navcfg.contains("collections") ? new ConcurrentScoreMap<String>() : null;
-        this.namespaceNavigator = navcfg.contains("namespace") ? new ConcurrentScoreMap<String>() : null;
-        this.hostNavigator = navcfg.contains("hosts") ? new ConcurrentScoreMap<String>() : null;
-        this.protocolNavigator = navcfg.contains("protocol") ? new ConcurrentScoreMap<String>() : null;
-        this.filetypeNavigator = navcfg.contains("filetype") ? new ConcurrentScoreMap<String>() : null;
-        this.dateNavigator = navcfg.contains("date") ? new ClusteredScoreMap<String>(true) : null;
+        // prepare the search navigation; only navigators which are requested by the query are computed
+        // (i.e. there are none for search requests from remote peers)
+        final Set<String> navcfg = query.navigators;
+        this.locationNavigator = navcfg.contains("location") ? new StringScoreMap() : null;
+        this.authorNavigator = navcfg.contains("authors") ? new StringScoreMap() : null;
+        this.collectionNavigator = navcfg.contains("collections") ? new StringScoreMap() : null;
+        this.namespaceNavigator = navcfg.contains("namespace") ? new StringScoreMap() : null;
+        this.hostNavigator = navcfg.contains("hosts") ? new StringScoreMap() : null;
+        this.protocolNavigator = navcfg.contains("protocol") ? new StringScoreMap() : null;
+        this.filetypeNavigator = navcfg.contains("filetype") ? new StringScoreMap() : null;
+        this.dateNavigator = navcfg.contains("date") ? new ClusteredScoreMap<String>(true) : null; // iterated in date order by the search trailer
         this.topicNavigatorCount = navcfg.contains("topics") ? MAX_TOPWORDS : 0;
-        this.languageNavigator = navcfg.contains("language") ? new ConcurrentScoreMap<String>() : null;
-        this.vocabularyNavigator = new TreeMap<String, ScoreMap<String>>();
+        this.languageNavigator = navcfg.contains("language") ? new StringScoreMap() : null;
+        this.vocabularyNavigator = new ConcurrentSkipListMap<String, ScoreMap<String>>();
         this.snippets = new ConcurrentHashMap<String, LinkedHashSet<String>>(); 
         this.secondarySearchSuperviser = (this.query.getQueryGoal().getIncludeHashes().size() > 1) ? new SecondarySearchSuperviser(this) : null; // generate abstracts only for combined searches
         if (this.secondarySearchSuperviser != null) this.secondarySearchSuperviser.start();
@@ -280,7 +286,7 @@ public final class SearchEvent {
         // attention: if minEntries is too high, this method will not terminate within the maxTime
         // sortorder: 0 = hash, 1 = url, 2 = ranking
         this.localSearchInclusion = null;
-        this.ref = new ConcurrentScoreMap<String>();
+        this.ref = new StringScoreMap();
         this.maxtime = query.maxtime;
         this.rwiStack = new WeakPriorityBlockingQueue<WordReferenceVars>(max_results_rwi, false);
         this.doubleDomCache = new ConcurrentHashMap<String, WeakPriorityBlockingQueue<WordReferenceVars>>();
@@ -322,8 +328,8 @@ public final class SearchEvent {
                 this.primarySearchThreadsL = null;
                 this.nodeSearchThreads = null;
             } else {
-                this.primarySearchThreadsL = new ArrayList<RemoteSearch>();
-                this.nodeSearchThreads = new ArrayList<Thread>();
+                this.primarySearchThreadsL = new CopyOnWriteArrayList<RemoteSearch>(); // hedged requests may be added concurrently
+                this.nodeSearchThreads = new ArrayList<RemoteSearch>();
                 // start this concurrently because the remote search needs an enumeration
                 // of the remote peers which may block in some cases when i.e. DHT is active
                 // at the same time.
@@ -439,9 +445,9 @@ public final class SearchEvent {
 
     private class RWIProcess extends Thread {
     
-        final Thread waitForThread;
+        final RemoteSearch waitForThread;
         
-        public RWIProcess(final Thread waitForThread) {
+        public RWIProcess(final RemoteSearch waitForThread) {
             super();
             this.waitForThread = waitForThread;
         }
@@ -473,7 +479,7 @@ public final class SearchEvent {
                 if ( !index.isEmpty() ) {
                     // in case that another thread has priority for their results, wait until this is finished
                     if (this.waitForThread != null && this.waitForThread.isAlive()) {
-                        this.waitForThread.join();
+                        this.waitForThread.join(SearchEvent.this.maxtime);
                     }
                     
                     // add the index to the result
@@ -675,7 +681,7 @@ public final class SearchEvent {
             if (localsolrsearch.isAlive()) synchronized (this.localsolrsearch) {this.localsolrsearch.interrupt();}
         }
         if (this.nodeSearchThreads != null) {
-            for (final Thread search : this.nodeSearchThreads) {
+            for (final RemoteSearch search : this.nodeSearchThreads) {
                 if (search != null) {
                     synchronized (search) {if (search.isAlive()) {search.interrupt();}}
                 }
@@ -689,7 +695,7 @@ public final class SearchEvent {
             }
         }
         if (this.secondarySearchThreads != null) {
-            for (final Thread search : this.secondarySearchThreads ) {
+            for (final RemoteSearch search : this.secondarySearchThreads ) {
                 if (search != null) {
                     synchronized (search) {if (search.isAlive()) {search.interrupt();}}
                 }
@@ -734,7 +740,7 @@ public final class SearchEvent {
         return this.primarySearchThreadsL;
     }
 
-    public Thread[] getSecondarySearchThreads() {
+    public RemoteSearch[] getSecondarySearchThreads() {
         return this.secondarySearchThreads;
     }
 
@@ -888,8 +894,9 @@ public final class SearchEvent {
             if (fcts != null) {
                 ScoreMap<String> vocNav = this.vocabularyNavigator.get(v.getName());
                 if (vocNav == null) {
-                    vocNav = new ConcurrentScoreMap<String>();
-                    this.vocabularyNavigator.put(v.getName(), vocNav);
+                    vocNav = new StringScoreMap();
+                    final ScoreMap<String> vocNav0 = this.vocabularyNavigator.putIfAbsent(v.getName(), vocNav);
+                    if (vocNav0 != null) vocNav = vocNav0;
                 }
                 vocNav.inc(fcts);
             }
@@ -1493,11 +1500,11 @@ public final class SearchEvent {
         EventTracker.update(EventTracker.EClass.SEARCH, new ProfilingGraph.EventSearch(this.query.id(true), SearchEventType.ONERESULT, "started, item = " + item + ", available = " + this.getResultCount(), 0, 0), false);
         // wait until a local solr is finished, we must do that to be able to check if we need more
         if (this.localsolrsearch != null && this.localsolrsearch.isAlive()) {try {this.localsolrsearch.join(100);} catch (final InterruptedException e) {}}
-        if (item >= this.localsolroffset && this.local_solr_stored.get() == 0 && this.localsolrsearch.isAlive()) {try {this.localsolrsearch.join();} catch (final InterruptedException e) {}}
+        if (item >= this.localsolroffset && this.local_solr_stored.get() == 0 && this.localsolrsearch.isAlive()) {try {this.localsolrsearch.join(this.maxtime);} catch (final InterruptedException e) {}}
         if (item >= this.localsolroffset && this.local_solr_stored.get() >= item) {
             // load remaining solr results now
             int nextitems = item - this.localsolroffset + this.query.itemsPerPage; // example: suddenly switch to item 60, just 10 had been shown, 20 loaded.
-            if (this.localsolrsearch != null && this.localsolrsearch.isAlive()) {try {this.localsolrsearch.join();} catch (final InterruptedException e) {}}
+            if (this.localsolrsearch != null && this.localsolrsearch.isAlive()) {try {this.localsolrsearch.join(this.maxtime);} catch (final InterruptedException e) {}}
             if (!Switchboard.getSwitchboard().getConfigBool(SwitchboardConstants.DEBUG_SEARCH_LOCAL_SOLR_OFF, false)) {
                 this.localsolrsearch = RemoteSearch.solrRemoteSearch(this, this.query.solrQuery(this.query.contentdom, false, this.excludeintext_image), this.localsolroffset, nextitems, null /*this peer*/, 0, Switchboard.urlBlacklist);
             }
@@ -33,6 +33,7 @@ import java.util.SortedSet;
 
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.data.WorkTables;
+import net.yacy.kelondro.util.MemoryBudget;
 import net.yacy.kelondro.util.MemoryControl;
 import net.yacy.peers.SeedDB;
 import net.yacy.repository.LoaderDispatcher;
@@ -49,6 +50,22 @@ public class SearchEventCache {
     private static final long memlimitMedium = 200 * 1024 * 1024; // 100 MB
     public volatile static String lastEventID = "";
     public static long cacheInsert = 0, cacheHit = 0, cacheMiss = 0, cacheDelete = 0;
+    private static final long eventMem = 2 * 1024 * 1024; // a rough estimation of the memory of a search event with its result lists
+
+    static {
+        // under memory pressure the oldest events are removed by the memory budget
+        MemoryBudget.register("Search Event Cache", MemoryBudget.PRIORITY_LOW, new MemoryBudget.Consumer() {
+            @Override
+            public long memory() {
+                return lastEvents.size() * eventMem;
+            }
+            @Override
+            public void shrink(final double fraction) {
+                final int size = lastEvents.size();
+                cleanupEvents(size - (int) Math.ceil(size * fraction));
+            }
+        });
+    }
 
     public static int size() {
         return lastEvents.size();
@@ -74,7 +91,6 @@ public class SearchEventCache {
 
     public static void cleanupEvents(boolean all) {
         // remove old events in the event cache
-        if (MemoryControl.shortStatus()) all = true;
         // the less memory is there, the less time is acceptable for elements in the cache
         final long memx = MemoryControl.available();
         final long acceptTime = memx > memlimitHigh ? eventLifetimeBigMem : memx > memlimitMedium ? eventLifetimeMediumMem : eventLifetimeShortMem;
@@ -97,7 +113,6 @@ public class SearchEventCache {
     
     public static void cleanupEvents(int maxsize) {
         // remove old events in the event cache
-        if (MemoryControl.shortStatus()) {cleanupEvents(true); return;}
         Map.Entry<String, SearchEvent> eventEntry;
         synchronized (lastEvents) {
             final Iterator<Map.Entry<String, SearchEvent>> i = lastEvents.entrySet().iterator(); // iterates in order of entry
@@ -141,7 +156,6 @@ public class SearchEventCache {
             final int remote_maxcount,
             final long remote_maxtime) {
 
-        if (MemoryControl.shortStatus()) cleanupEvents(true);
         final String id = query.id(false);
         SearchEvent event = getEvent(id);
         if (Switchboard.getSwitchboard() != null && !Switchboard.getSwitchboard().crawlQueues.noticeURL.isEmpty() && event != null && System.currentTimeMillis() - event.getEventTime() > 60000) {
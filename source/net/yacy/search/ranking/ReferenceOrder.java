@@ -26,20 +26,16 @@
 
 package net.yacy.search.ranking;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
 
 import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.document.id.DigestURL;
-import net.yacy.cora.sorting.ConcurrentScoreMap;
+import net.yacy.cora.sorting.StringScoreMap;
 import net.yacy.cora.util.ByteBuffer;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.document.Condenser;
-import net.yacy.document.LargeNumberCache;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
 import net.yacy.kelondro.data.word.WordReference;
 import net.yacy.kelondro.data.word.WordReferenceRow;
@@ -54,7 +50,7 @@ public class ReferenceOrder {
 
     private       int maxdomcount;
     private       WordReferenceVars min, max;
-    private final ConcurrentScoreMap<String> doms; // collected for "authority" heuristic
+    private final StringScoreMap doms; // collected for "authority" heuristic
     private final RankingProfile ranking;
     private final String language;
 
@@ -62,7 +58,7 @@ public class ReferenceOrder {
         this.min = null;
         this.max = null;
         this.ranking = profile;
-        this.doms = new ConcurrentScoreMap<String>();
+        this.doms = new StringScoreMap();
         this.maxdomcount = 0;
         this.language = language;
     }
@@ -160,10 +156,7 @@ public class ReferenceOrder {
         public void run() {
             try {
                 WordReferenceVars iEntry;
-                final Map<String, Integer> doms0 = new HashMap<String, Integer>();
-                String dom;
-                Integer count;
-                final Integer int1 = 1;
+                final StringScoreMap doms0 = new StringScoreMap(1); // thread-local, so a single stripe is sufficient
                 long timeout = this.maxtime == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + this.maxtime;
                 while ((iEntry = this.decodedEntries.take()) != WordReferenceVars.poison) {
                     // find min/max
@@ -171,13 +164,7 @@ public class ReferenceOrder {
                     if (ReferenceOrder.this.max == null) ReferenceOrder.this.max = iEntry.clone(); else ReferenceOrder.this.max.max(iEntry);
                     this.out.put(iEntry); // must be after the min/max check to prevent that min/max is null in cardinal()
                     // update domcount
-                    dom = iEntry.hosthash();
-                    count = doms0.get(dom);
-                    if (count == null) {
-                        doms0.put(dom, int1);
-                    } else {
-                        doms0.put(dom, LargeNumberCache.valueOf(count.intValue() + 1));
-                    }
+                    doms0.inc(iEntry.hosthash());
 
                     if (System.currentTimeMillis() > timeout) {
                         ConcurrentLog.warn("NormalizeWorker", "normlization of decoded rows ended with timeout = " + this.maxtime);
@@ -186,12 +173,7 @@ public class ReferenceOrder {
                 }
 
                 // update domain score
-                Map.Entry<String, Integer> entry;
-                final Iterator<Map.Entry<String, Integer>> di = doms0.entrySet().iterator();
-                while (di.hasNext()) {
-                    entry = di.next();
-                    ReferenceOrder.this.doms.inc(entry.getKey(), (entry.getValue()).intValue());
-                }
+                for (final String dom: doms0) ReferenceOrder.this.doms.inc(dom, doms0.get(dom));
                 if (!ReferenceOrder.this.doms.isEmpty()) ReferenceOrder.this.maxdomcount = ReferenceOrder.this.doms.getMaxScore();
             } catch (final InterruptedException e) {
                 ConcurrentLog.logException(e);
@@ -44,6 +44,9 @@ import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 
@@ -60,7 +63,6 @@ import net.yacy.cora.federate.solr.SchemaConfiguration;
 import net.yacy.cora.federate.solr.SchemaDeclaration;
 import net.yacy.cora.federate.solr.connector.AbstractSolrConnector;
 import net.yacy.cora.federate.solr.connector.SolrConnector;
-import net.yacy.cora.federate.solr.connector.SolrConnector.LoadTimeURL;
 import net.yacy.cora.federate.solr.logic.BooleanLiteral;
 import net.yacy.cora.federate.solr.logic.CatchallLiteral;
 import net.yacy.cora.federate.solr.logic.Conjunction;
@@ -68,7 +70,6 @@ import net.yacy.cora.federate.solr.logic.Disjunction;
 import net.yacy.cora.federate.solr.logic.LongLiteral;
 import net.yacy.cora.federate.solr.logic.Negation;
 import net.yacy.cora.federate.solr.logic.StringLiteral;
-import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.protocol.Domains;
 import net.yacy.cora.protocol.HeaderFramework;
 import net.yacy.cora.protocol.ResponseHeader;
@@ -87,10 +88,10 @@ import net.yacy.document.parser.html.ContentScraper;
 import net.yacy.document.parser.html.ImageEntry;
 import net.yacy.kelondro.data.citation.CitationReference;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
-import net.yacy.kelondro.index.RowHandleMap;
 import net.yacy.kelondro.rwi.ReferenceContainer;
 import net.yacy.kelondro.util.Bitfield;
 import net.yacy.kelondro.util.MemoryControl;
+import net.yacy.search.index.DoubleContentIndex;
 import net.yacy.search.index.Segment;
 import net.yacy.search.index.Segment.ReferenceReport;
 import net.yacy.search.index.Segment.ReferenceReportCache;
@@ -1097,6 +1098,8 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                        collection.contains(CollectionSchema.cr_host_norm_i)));
         // create the ranking map
         final Map<String, CRV> rankings = new ConcurrentHashMap<String, CRV>();
+        final ForkJoinPool rankPool = shallComputeCR ? new ForkJoinPool(Runtime.getRuntime().availableProcessors()) : null;
+        final List<ForkJoinTask<?>> rankTasks = new ArrayList<ForkJoinTask<?>>();
         if (shallComputeCR) try {
             int concurrency = Math.min(collection1hosts.size(), Runtime.getRuntime().availableProcessors());
             postprocessingActivity = "collecting cr for " + collection1hosts.size() + " hosts, concurrency = " + concurrency;
@@ -1147,22 +1150,18 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                 
                 // do the citation rank computation
                 if (collection1hosts.get(host) <= 0) continue;
-                // select all documents for each host
-                CRHost crh = new CRHost(segment, rrCache, host, 0.85d, 6);
-                int convergence_attempts = 0;
-                while (convergence_attempts++ < 30) {
-                    ConcurrentLog.info("CollectionConfiguration", "convergence step " + convergence_attempts + " for host " + host + " ...");
-                    if (crh.convergenceStep()) break;
-                    if (MemoryControl.shortStatus()) {
-                        ConcurrentLog.warn("CollectionConfiguration", "terminated convergenceStep during postprocessing because of short memory");
-                        break;
+                // load the link graph of the host; the rank computation is done in memory in the pool while the next host is loaded
+                final LinkGraph graph = LinkGraph.load(segment, host);
+                final String hostfinal = host;
+                rankTasks.add(rankPool.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        double[] cr = graph.rank(rankPool, 0.85d, 6, 30);
+                        ConcurrentLog.info("CollectionConfiguration", "computed cr for host " + hostfinal + ": " + graph.size() + " documents, " + graph.links() + " links");
+                        // we have now the cr for all documents of a specific host; we store them for later use
+                        rankings.putAll(normalize(graph, cr)); // accumulate this here for usage in document update later
                     }
-                }
-                ConcurrentLog.info("CollectionConfiguration", "convergence for host " + host + " after " + convergence_attempts + " steps");
-                // we have now the cr for all documents of a specific host; we store them for later use
-                Map<String, CRV> crn = crh.normalize();
-                //crh.log(crn);
-                rankings.putAll(crn); // accumulate this here for usage in document update later
+                }));
                 if (MemoryControl.shortStatus()) {
                     ConcurrentLog.warn("CollectionConfiguration", "terminated crn akkumulation during postprocessing because of short memory");
                     break;
@@ -1173,6 +1172,14 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
         } catch (final IOException e2) {
             ConcurrentLog.logException(e2);
             collection1hosts = new ClusteredScoreMap<String>(true);
+        } finally {
+            // wait for the rank computations
+            for (ForkJoinTask<?> task: rankTasks) try {
+                task.get();
+            } catch (final InterruptedException | ExecutionException e) {
+                ConcurrentLog.logException(e);
+            }
+            rankPool.shutdown();
         }
         
         // process all documents at the webgraph for the outgoing links of this document
@@ -1468,6 +1475,7 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                 if (failids.size() > 0) {
                     ConcurrentLog.info("CollectionConfiguration", "cleanup_processing: deleting " + failids.size() + " documents which have permanent execution fails");
                     collectionConnector.deleteByIds(failids);
+                    segment.doubleContent().remove(failids);
                 }
                 if (count != countcheck.get()) ConcurrentLog.warn("CollectionConfiguration", "ambiguous collection document count for harvestkey " + harvestkey + ": expected=" + count + ", counted=" + countcheck + "; countquery=" + collection1query); // big gap for harvestkey = null
                 ConcurrentLog.info("CollectionConfiguration", "cleanup_processing: re-calculated " + proccount + " new documents, " +
@@ -1532,15 +1540,36 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
         
         String urlhash = ASCII.String(url.hash());
         String hostid = url.hosthash();
-        Disjunction dnf = new Disjunction();
         CollectionSchema[][] doccheckschema = new CollectionSchema[][]{
                 {CollectionSchema.exact_signature_l, CollectionSchema.exact_signature_unique_b, CollectionSchema.exact_signature_copycount_i},
                 {CollectionSchema.fuzzy_signature_l, CollectionSchema.fuzzy_signature_unique_b, CollectionSchema.fuzzy_signature_copycount_i}};
+        
+        // find the copies in the double content index of the host; only if the host is too large for the index, solr is asked
+        final DoubleContentIndex doubleContent = segment.doubleContent();
+        boolean indexed = true;
         uniquecheck: for (CollectionSchema[] checkfields: doccheckschema) {
             CollectionSchema signaturefield = checkfields[0];
             CollectionSchema uniquefield = checkfields[1];
             CollectionSchema countfield = checkfields[2];
 
+            if (this.contains(signaturefield) && this.contains(uniquefield) && this.contains(countfield)) {
+                Long signature = (Long) doc.getFieldValue(signaturefield.getSolrFieldName());
+                if (signature == null) continue uniquecheck;
+                Set<String> copies = doubleContent.copies(segment.fulltext().getDefaultConnector(), hostid, urlhash, signaturefield, signature);
+                if (copies == null) {indexed = false; break uniquecheck;}
+                boolean firstappearance = true;
+                for (String copy: copies) if (uniqueURLs.contains(copy)) {firstappearance = false; break;}
+                sid.setField(uniquefield.getSolrFieldName(), firstappearance);
+                sid.setField(countfield.getSolrFieldName(), copies.size() + 1); // the current url is included in count
+            }
+        }
+        
+        Disjunction dnf = new Disjunction();
+        if (!indexed) uniquecheck: for (CollectionSchema[] checkfields: doccheckschema) {
+            CollectionSchema signaturefield = checkfields[0];
+            CollectionSchema uniquefield = checkfields[1];
+            CollectionSchema countfield = checkfields[2];
+
             if (this.contains(signaturefield) && this.contains(uniquefield) && this.contains(countfield)) {
                 // lookup the document with the same signature
                 Long signature = (Long) doc.getFieldValue(signaturefield.getSolrFieldName());
@@ -1550,13 +1579,13 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                 dnf.addOperand(new LongLiteral(signaturefield, signature));
             }
         }
-        Conjunction con = (Conjunction) ValidDocTermTemplate.clone();
-        con.addOperand(dnf);
-        con.addOperand(new Negation(new StringLiteral(CollectionSchema.id, urlhash)));
-        con.addOperand(new StringLiteral(CollectionSchema.host_id_s, hostid));
-        String query = con.toString();
-        SolrDocumentList docsAkk;
-        try {
+        SolrDocumentList docsAkk = new SolrDocumentList();
+        if (dnf.getOperands().size() > 0) try {
+             Conjunction con = (Conjunction) ValidDocTermTemplate.clone();
+             con.addOperand(dnf);
+             con.addOperand(new Negation(new StringLiteral(CollectionSchema.id, urlhash)));
+             con.addOperand(new StringLiteral(CollectionSchema.host_id_s, hostid));
+             String query = con.toString();
              docsAkk = segment.fulltext().getDefaultConnector().getDocumentListByQuery(query, null, 0, 1000,
                      CollectionSchema.id.getSolrFieldName(), CollectionSchema.exact_signature_l.getSolrFieldName(), CollectionSchema.fuzzy_signature_l.getSolrFieldName());
         } catch (final IOException e) {
@@ -1612,6 +1641,11 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                     if (signature == null) {
                         continue uniquecheck;
                     }
+                    Set<String> copies = doubleContent.copies(segment.fulltext().getDefaultConnector(), hostid, urlhash, signaturefield, signature);
+                    if (copies != null) {
+                        sid.setField(uniquefield.getSolrFieldName(), copies.isEmpty());
+                        continue uniquecheck;
+                    }
                     try {
                         Conjunction doccountterm = (Conjunction) ValidDocTermTemplate.clone();
                         doccountterm.addOperand(new Negation(new StringLiteral(CollectionSchema.id, urlhash)));
@@ -1688,177 +1722,39 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
     }
     
     /**
-     * The CRHost class is a container for all ranking values of a specific host.
-     * Objects of that class are needed as an environment for repeated convergenceStep() computations,
-     * which are iterative citation rank computations that are repeated until the ranking values
-     * converge to stable values.
-     * The class also contains normalization methods to compute simple integer ranking values out of the
-     * double relevance values.
+     * produce a map from IDs to CRV records, normalization entries containing the values that are stored to solr.
+     * @param graph the link graph of a host
+     * @param cr the citation rank of each node of the graph
+     * @return
      */
-    private static final class CRHost {
-        private final Segment segment;
-        private final Map<String, double[]> crt;
-        private final int cr_host_count;
-        private final RowHandleMap internal_links_counter;
-        private double damping;
-        private int converge_eq_factor;
-        private ReferenceReportCache rrCache;
-        public CRHost(final Segment segment, final ReferenceReportCache rrCache, final String host, final double damping, final int converge_digits) {
-            this.segment = segment;
-            this.damping = damping;
-            this.rrCache = rrCache;
-            this.converge_eq_factor = (int) Math.pow(10.0d, converge_digits);
-            SolrConnector connector = segment.fulltext().getDefaultConnector();
-            this.crt = new ConcurrentHashMap<String, double[]>();
-            try {
-                // select all documents for each host
-                BlockingQueue<String> ids = connector.concurrentIDsByQuery("{!cache=false raw f=" + CollectionSchema.host_s.getSolrFieldName() + "}" + host, CollectionSchema.url_chars_i.getSolrFieldName() + " asc", 0, 100000000, 86400000, 200, 1);
-                String id;
-                while ((id = ids.take()) != AbstractSolrConnector.POISON_ID) {
-                    this.crt.put(id, new double[]{0.0d,0.0d}); //{old value, new value}
-                    if (MemoryControl.shortStatus()) {
-                        ConcurrentLog.warn("CollectionConfiguration", "terminated CRHost collection during postprocessing because of short memory");
-                        break;
-                    }
-                }
-            } catch (final InterruptedException e2) {
-            }
-            this.cr_host_count = this.crt.size();
-            double initval = 1.0d / cr_host_count;
-            for (Map.Entry<String, double[]> entry: this.crt.entrySet()) entry.getValue()[0] = initval;
-            this.internal_links_counter = new RowHandleMap(12, Base64Order.enhancedCoder, 8, 100, "internal_links_counter");
-        }
-        /**
-         * produce a map from IDs to CRV records, normalization entries containing the values that are stored to solr.
-         * @return
-         */
-        public Map<String, CRV> normalize() {
-            final TreeMap<Double, List<byte[]>> reorder = new TreeMap<Double, List<byte[]>>();
-            for (Map.Entry<String, double[]> entry: this.crt.entrySet()) {
-                Double d = entry.getValue()[0];
-                List<byte[]> ds = reorder.get(d);
-                if (ds == null) {ds = new ArrayList<byte[]>(); reorder.put(d, ds);}
-                ds.add(ASCII.getBytes(entry.getKey()));
-            }
-            int nextcount = (this.cr_host_count + 1) / 2;
-            int nextcrn = 0;
-            Map<String, CRV> r = new HashMap<String, CRV>();
-            while (reorder.size() > 0) {
-                int count = nextcount;
-                while (reorder.size() > 0 && count > 0) {
-                    Map.Entry<Double, List<byte[]>> next = reorder.pollFirstEntry();
-                    List<byte[]> ids = next.getValue();
-                    count -= ids.size();
-                    double cr = next.getKey();
-                    for (byte[] id: ids) r.put(ASCII.String(id), new CRV(this.cr_host_count, cr, nextcrn));
-                }
-                nextcrn++;
-                nextcount = Math.max(1, (nextcount + count + 1) / 2);
-            }
-            // finally, increase the crn number in such a way that the maximum is always 10
-            int inc = 11 - nextcrn; // nextcrn is +1
-            for (Map.Entry<String, CRV> entry: r.entrySet()) entry.getValue().crn += inc;
-            return r;
-        }
-        /**
-         * log out a complete CRHost set of urls and ranking values
-         * @param rm
-         */
-        @SuppressWarnings("unused")
-        public void log(final Map<byte[], CRV> rm) {
-            // print out all urls with their cr-values
-            SolrConnector connector = segment.fulltext().getDefaultConnector();
-            for (Map.Entry<byte[], CRV> entry: rm.entrySet()) {
-                if (entry == null || entry.getValue() == null) continue;
-                try {
-                    LoadTimeURL md = connector.getLoadTimeURL(ASCII.String(entry.getKey()));
-                    ConcurrentLog.info("CollectionConfiguration", "CR for " + md.url);
-                    ConcurrentLog.info("CollectionConfiguration", ">> " + entry.getValue().toString());
-                } catch (final IOException e) {
-                    ConcurrentLog.logException(e);
-                }
-            }
-        }
-        /**
-         * Calculate the number of internal links from a specific document, denoted by the document ID.
-         * This is a very important attribute for the ranking computation because it is the dividend for the previous ranking attribute.
-         * The internalLinks value will be requested several times for the same id during the convergenceStep()-steps; therefore it should use a cache.
-         * This cache is part of the CRHost data structure.
-         * @param id
-         * @return the number of links from the document, denoted by the ID to documents within the same domain
-         */
-        public int getInternalLinks(final byte[] id) {
-            int il = (int) this.internal_links_counter.get(id);
-            if (il >= 0) return il;
-            SolrConnector connector = this.segment.fulltext().getDefaultConnector();
-            if (connector == null) return 0;
-            try {
-                SolrDocument doc = connector.getDocumentById(ASCII.String(id), CollectionSchema.inboundlinkscount_i.getSolrFieldName());
-                if (doc == null) {
-                    this.internal_links_counter.put(id, 0);
-                    return 0;
-                }
-                Object x = doc.getFieldValue(CollectionSchema.inboundlinkscount_i.getSolrFieldName());
-                il = (x == null) ? 0 : (x instanceof Integer) ? ((Integer) x).intValue() : (x instanceof Long) ? ((Long) x).intValue() : 0;
-                this.internal_links_counter.put(id, il);
-                return il;
-            } catch (final IOException e) {
-                ConcurrentLog.logException(e);
-            } catch (final SpaceExceededException e) {
-                ConcurrentLog.logException(e);
+    private static Map<String, CRV> normalize(final LinkGraph graph, final double[] cr) {
+        final int cr_host_count = graph.size();
+        final TreeMap<Double, List<Integer>> reorder = new TreeMap<Double, List<Integer>>();
+        for (int v = 0; v < cr_host_count; v++) {
+            Double d = cr[v];
+            List<Integer> ds = reorder.get(d);
+            if (ds == null) {ds = new ArrayList<Integer>(); reorder.put(d, ds);}
+            ds.add(v);
+        }
+        int nextcount = (cr_host_count + 1) / 2;
+        int nextcrn = 0;
+        Map<String, CRV> r = new HashMap<String, CRV>();
+        while (reorder.size() > 0) {
+            int count = nextcount;
+            while (reorder.size() > 0 && count > 0) {
+                Map.Entry<Double, List<Integer>> next = reorder.pollFirstEntry();
+                List<Integer> nodes = next.getValue();
+                count -= nodes.size();
+                double d = next.getKey();
+                for (Integer v: nodes) r.put(ASCII.String(graph.id(v)), new CRV(cr_host_count, d, nextcrn));
             }
-            try {this.internal_links_counter.put(id, 0);} catch (final SpaceExceededException e) {}
-            return 0;
-        }
-        /**
-         * Use the crt cache to compute the next generation of crt values.
-         * @return
-         */
-        public boolean convergenceStep() {
-            boolean convergence = true;
-            double df = (1.0d - damping) / this.cr_host_count;
-            try {
-                for (Map.Entry<String, double[]> entry: this.crt.entrySet()) {
-                    String id = entry.getKey();
-                    ReferenceReport rr = this.rrCache.getReferenceReport(id, false);
-                    // sum up the cr of the internal links
-                    HandleSet iids = rr.getInternallIDs();
-                    double ncr = 0.0d;
-                    for (byte[] iid: iids) {
-                        int ilc = getInternalLinks(iid);
-                        if (ilc > 0) { // if (ilc == 0) then the reference report is wrong!
-                            double[] d = this.crt.get(ASCII.String(iid));
-                            // d[] could be empty at some situations
-                            if (d != null && d.length > 0) {
-                                ncr += d[0] / ilc;
-                            } else {
-                                // Output a warning that d[] is empty
-                                ConcurrentLog.warn("COLLECTION", "d[] is empty, iid="  + ASCII.String(iid));
-                                break;
-                            }
-                        }
-                    }
-                    ncr = df + damping * ncr;
-                    if (convergence && !eqd(ncr, entry.getValue()[0])) convergence = false;
-                    entry.getValue()[1] = ncr;
-                }
-                // after the loop, replace the old value with the new value in crt
-                for (Map.Entry<String, double[]> entry: this.crt.entrySet()) {
-                    entry.getValue()[0] = entry.getValue()[1];
-                }
-            } catch (final IOException e) {
-            }
-            return convergence;
-        }
-        /**
-         * helper method to check if two doubles are equal using a specific number of digits
-         * @param a
-         * @param b
-         * @return
-         */
-        private boolean eqd(final double a, final double b) {
-            return ((int) (a * this.converge_eq_factor)) == ((int) (b * this.converge_eq_factor));
+            nextcrn++;
+            nextcount = Math.max(1, (nextcount + count + 1) / 2);
         }
+        // finally, increase the crn number in such a way that the maximum is always 10
+        int inc = 11 - nextcrn; // nextcrn is +1
+        for (Map.Entry<String, CRV> entry: r.entrySet()) entry.getValue().crn += inc;
+        return r;
     }
     
     /**
@@ -0,0 +1,424 @@
+/**
+ *  LinkGraph
+ *  Copyright 2026 by agent
+ *  First released 19.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.search.schema;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.federate.solr.connector.AbstractSolrConnector;
+import net.yacy.cora.federate.solr.connector.SolrConnector;
+import net.yacy.cora.federate.solr.connector.SolrCursor;
+import net.yacy.cora.util.ByteBuffer;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.kelondro.data.citation.CitationReference;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.kelondro.util.MemoryControl;
+import net.yacy.search.index.Segment;
+
+import org.apache.solr.common.SolrDocument;
+import org.apache.solr.common.SolrDocumentList;
+
+/**
+ * A compact in-memory graph of the internal links of a host for the citation rank computation.
+ * The documents are numbered densely in the order of their url hashes; the links are stored as
+ * compressed sparse rows: the referrers of the node v are the nodes referrers[offsets[v]] .. referrers[offsets[v + 1] - 1].
+ * The graph is loaded once with one streaming scan of the documents of the host and either the citation index
+ * or a streaming scan of the webgraph, so the rank iterations need no lookups at all.
+ */
+public class LinkGraph {
+
+    private final static int HASHLEN = Word.commonHashLength;
+    private final static int PARALLEL_THRESHOLD = 4096; // smallest number of nodes which is computed in a separate task
+
+    private final byte[] ids;      // the sorted url hashes of all nodes, HASHLEN bytes for each node
+    private final int[] outlinks;  // the number of internal links of each node
+    private final int[] offsets;   // start of the referrers of each node, size + 1 entries
+    private final int[] referrers; // the referrers of all nodes
+
+    private LinkGraph(final byte[] ids, final int[] outlinks, final int[] offsets, final int[] referrers) {
+        this.ids = ids;
+        this.outlinks = outlinks;
+        this.offsets = offsets;
+        this.referrers = referrers;
+    }
+
+    /**
+     * @return the number of nodes
+     */
+    public int size() {
+        return this.outlinks.length;
+    }
+
+    /**
+     * @return the number of links
+     */
+    public int links() {
+        return this.referrers.length;
+    }
+
+    /**
+     * @param node
+     * @return the url hash of the node
+     */
+    public byte[] id(final int node) {
+        final byte[] id = new byte[HASHLEN];
+        System.arraycopy(this.ids, node * HASHLEN, id, 0, HASHLEN);
+        return id;
+    }
+
+    /**
+     * find the node number of an url hash
+     * @param id
+     * @return the node number or -1 if the id is not part of the graph
+     */
+    public int node(final byte[] id) {
+        return find(this.ids, id);
+    }
+
+    /**
+     * @param node
+     * @return the number of nodes which link to the given node
+     */
+    public int referrerCount(final int node) {
+        return this.offsets[node + 1] - this.offsets[node];
+    }
+
+    private static int find(final byte[] ids, final byte[] id) {
+        if (id == null || id.length != HASHLEN) return -1;
+        int low = 0, high = ids.length / HASHLEN - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            final int c = compare(ids, mid * HASHLEN, id);
+            if (c < 0) low = mid + 1; else if (c > 0) high = mid - 1; else return mid;
+        }
+        return -1;
+    }
+
+    private static int compare(final byte[] ids, final int offset, final byte[] id) {
+        for (int i = 0; i < HASHLEN; i++) {
+            final int d = (ids[offset + i] & 0xff) - (id[i] & 0xff);
+            if (d != 0) return d;
+        }
+        return 0;
+    }
+
+    /**
+     * compute the citation rank of all nodes: the rank of a node is the sum of the ranks of its referrers, each divided by the
+     * number of internal links of the referrer. The computation is repeated until the values converge.
+     * Large graphs are computed in parallel tasks of the given pool.
+     * @param pool the pool for the parallel computation
+     * @param damping the damping factor, the probability that a surfer follows a link
+     * @param convergeDigits the number of digits which must be equal in two successive steps for all nodes
+     * @param maxSteps the maximum number of steps
+     * @return the rank of each node
+     */
+    public double[] rank(final ForkJoinPool pool, final double damping, final int convergeDigits, final int maxSteps) {
+        final int n = size();
+        double[] cr = new double[n];
+        if (n == 0) return cr;
+        Arrays.fill(cr, 1.0d / n);
+        final double[] contribution = new double[n];
+        double[] next = new double[n];
+        final double df = (1.0d - damping) / n;
+        final double factor = Math.pow(10.0d, convergeDigits);
+        int step = 0;
+        while (step++ < maxSteps) {
+            for (int v = 0; v < n; v++) contribution[v] = this.outlinks[v] > 0 ? cr[v] / this.outlinks[v] : 0.0d;
+            final Step task = new Step(0, n, contribution, cr, next, df, damping, factor);
+            final boolean convergence = ForkJoinTask.inForkJoinPool() ? task.invoke().booleanValue() : pool.invoke(task).booleanValue();
+            final double[] t = cr; cr = next; next = t;
+            if (convergence) break;
+            if (MemoryControl.shortStatus()) {
+                ConcurrentLog.warn("LinkGraph", "terminated rank computation because of short memory");
+                break;
+            }
+        }
+        return cr;
+    }
+
+    /**
+     * one step of the rank computation for a range of nodes
+     */
+    private final class Step extends RecursiveTask<Boolean> {
+        private static final long serialVersionUID = 2478126474582730517L;
+        private final int from, to;
+        private final double[] contribution, cr, next;
+        private final double df, damping, factor;
+
+        private Step(final int from, final int to, final double[] contribution, final double[] cr, final double[] next, final double df, final double damping, final double factor) {
+            this.from = from;
+            this.to = to;
+            this.contribution = contribution;
+            this.cr = cr;
+            this.next = next;
+            this.df = df;
+            this.damping = damping;
+            this.factor = factor;
+        }
+
+        @Override
+        protected Boolean compute() {
+            if (this.to - this.from > PARALLEL_THRESHOLD) {
+                final int mid = (this.from + this.to) >>> 1;
+                final Step left = new Step(this.from, mid, this.contribution, this.cr, this.next, this.df, this.damping, this.factor);
+                final Step right = new Step(mid, this.to, this.contribution, this.cr, this.next, this.df, this.damping, this.factor);
+                left.fork();
+                final boolean r = right.compute().booleanValue();
+                return left.join().booleanValue() && r;
+            }
+            boolean convergence = true;
+            for (int v = this.from; v < this.to; v++) {
+                double ncr = 0.0d;
+                for (int e = LinkGraph.this.offsets[v]; e < LinkGraph.this.offsets[v + 1]; e++) ncr += this.contribution[LinkGraph.this.referrers[e]];
+                ncr = this.df + this.damping * ncr;
+                if (convergence && ((int) (ncr * this.factor)) != ((int) (this.cr[v] * this.factor))) convergence = false;
+                this.next[v] = ncr;
+            }
+            return convergence;
+        }
+    }
+
+    /**
+     * A builder for a link graph: first all nodes must be added, then the links.
+     */
+    public static class Builder {
+        private final List<byte[]> nodes;
+        private final List<Integer> nodeOutlinks;
+        private byte[] ids;
+        private int[] outlinks;
+        private int[] sources, targets;
+        private int links;
+
+        public Builder() {
+            this.nodes = new ArrayList<byte[]>();
+            this.nodeOutlinks = new ArrayList<Integer>();
+            this.ids = null;
+            this.sources = new int[64];
+            this.targets = new int[64];
+            this.links = 0;
+        }
+
+        /**
+         * add a node
+         * @param id the url hash
+         * @param outlinks the number of internal links of the document
+         */
+        public void addNode(final byte[] id, final int outlinks) {
+            assert this.ids == null : "nodes must be added before the links";
+            if (id == null || id.length != HASHLEN) return;
+            this.nodes.add(id);
+            this.nodeOutlinks.add(outlinks);
+        }
+
+        private void sortNodes() {
+            final Integer[] order = new Integer[this.nodes.size()];
+            for (int i = 0; i < order.length; i++) order[i] = i;
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(final Integer o1, final Integer o2) {
+                    final byte[] a = Builder.this.nodes.get(o1), b = Builder.this.nodes.get(o2);
+                    for (int i = 0; i < HASHLEN; i++) {
+                        final int d = (a[i] & 0xff) - (b[i] & 0xff);
+                        if (d != 0) return d;
+                    }
+                    return 0;
+                }
+            });
+            final byte[] sorted = new byte[order.length * HASHLEN];
+            final int[] ol = new int[order.length];
+            int c = 0;
+            for (int i = 0; i < order.length; i++) {
+                final byte[] id = this.nodes.get(order[i]);
+                if (c > 0 && compare(sorted, (c - 1) * HASHLEN, id) == 0) continue; // double entry
+                System.arraycopy(id, 0, sorted, c * HASHLEN, HASHLEN);
+                ol[c++] = this.nodeOutlinks.get(order[i]);
+            }
+            this.ids = c == order.length ? sorted : Arrays.copyOf(sorted, c * HASHLEN);
+            this.outlinks = c == order.length ? ol : Arrays.copyOf(ol, c);
+            this.nodes.clear();
+            this.nodeOutlinks.clear();
+        }
+
+        /**
+         * find the node number of an url hash; this finishes the addition of nodes
+         * @param id
+         * @return the node number or -1 if the id had not been added as node
+         */
+        public int node(final byte[] id) {
+            if (this.ids == null) sortNodes();
+            return find(this.ids, id);
+        }
+
+        /**
+         * @return the number of nodes; this finishes the addition of nodes
+         */
+        public int size() {
+            if (this.ids == null) sortNodes();
+            return this.outlinks.length;
+        }
+
+        /**
+         * @param node
+         * @return the url hash of the node
+         */
+        public byte[] id(final int node) {
+            if (this.ids == null) sortNodes();
+            return Arrays.copyOfRange(this.ids, node * HASHLEN, (node + 1) * HASHLEN);
+        }
+
+        /**
+         * add a link; links to or from documents which are not nodes of the graph are ignored
+         * @param source the url hash of the linking document
+         * @param target the url hash of the linked document
+         */
+        public void addLink(final byte[] source, final byte[] target) {
+            final int s = node(source), t = node(target);
+            if (s < 0 || t < 0) return;
+            if (this.links == this.sources.length) {
+                this.sources = Arrays.copyOf(this.sources, this.links * 2);
+                this.targets = Arrays.copyOf(this.targets, this.links * 2);
+            }
+            this.sources[this.links] = s;
+            this.targets[this.links] = t;
+            this.links++;
+        }
+
+        /**
+         * @return the number of links which had been added, including double links
+         */
+        public int links() {
+            return this.links;
+        }
+
+        /**
+         * create the graph; double links are counted only once
+         * @return the link graph
+         */
+        public LinkGraph build() {
+            if (this.ids == null) sortNodes();
+            final int n = this.outlinks.length;
+            // counting sort of the links by target
+            final int[] offsets = new int[n + 1];
+            for (int i = 0; i < this.links; i++) offsets[this.targets[i] + 1]++;
+            for (int v = 0; v < n; v++) offsets[v + 1] += offsets[v];
+            final int[] fill = Arrays.copyOf(offsets, n);
+            final int[] referrers = new int[this.links];
+            for (int i = 0; i < this.links; i++) referrers[fill[this.targets[i]]++] = this.sources[i];
+            this.sources = null;
+            this.targets = null;
+            // remove double links
+            int c = 0;
+            for (int v = 0; v < n; v++) {
+                final int start = offsets[v], end = offsets[v + 1];
+                Arrays.sort(referrers, start, end);
+                offsets[v] = c;
+                for (int e = start; e < end; e++) {
+                    if (e > start && referrers[e] == referrers[e - 1]) continue;
+                    referrers[c++] = referrers[e];
+                }
+            }
+            offsets[n] = c;
+            return new LinkGraph(this.ids, this.outlinks, offsets, c == referrers.length ? referrers : Arrays.copyOf(referrers, c));
+        }
+    }
+
+    /**
+     * load the internal link graph of a host. The nodes are all documents of the host in the collection;
+     * the links are read from the citation index, if it is connected, or from the webgraph.
+     * @param segment
+     * @param host the host name
+     * @return the link graph of the host
+     */
+    public static LinkGraph load(final Segment segment, final String host) {
+        final Builder builder = new Builder();
+        final SolrConnector connector = segment.fulltext().getDefaultConnector();
+        final BlockingQueue<SolrDocument> docs = connector.concurrentDocumentsByQuery(
+                "{!cache=false raw f=" + CollectionSchema.host_s.getSolrFieldName() + "}" + host, null, 0, 100000000, 86400000, 1000, 1, false,
+                CollectionSchema.id.getSolrFieldName(), CollectionSchema.inboundlinkscount_i.getSolrFieldName());
+        try {
+            SolrDocument doc;
+            while ((doc = docs.take()) != AbstractSolrConnector.POISON_DOCUMENT) {
+                final String id = (String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName());
+                if (id == null) continue;
+                final Object x = doc.getFieldValue(CollectionSchema.inboundlinkscount_i.getSolrFieldName());
+                builder.addNode(ASCII.getBytes(id), (x instanceof Number) ? ((Number) x).intValue() : 0);
+                if (MemoryControl.shortStatus()) {
+                    ConcurrentLog.warn("LinkGraph", "terminated node collection for host " + host + " because of short memory");
+                    break;
+                }
+            }
+        } catch (final InterruptedException e) {
+        }
+        if (segment.connectedCitation()) {
+            // the citation index has one container for each linked document
+            final int n = builder.size();
+            for (int v = 0; v < n; v++) {
+                final byte[] target = builder.id(v);
+                try {
+                    final ReferenceContainer<CitationReference> references = segment.urlCitation().get(target, null);
+                    if (references == null) continue;
+                    final Iterator<CitationReference> ri = references.entries();
+                    while (ri.hasNext()) {
+                        final CitationReference ref = ri.next();
+                        if (ByteBuffer.equals(ref.hosthash(), 0, target, 6, 6)) builder.addLink(ref.urlhash(), target);
+                    }
+                } catch (final IOException e) {
+                    ConcurrentLog.logException(e);
+                }
+            }
+        }
+        if (builder.links() == 0 && segment.fulltext().useWebgraph()) {
+            // read all internal links of the host in one scan of the webgraph
+            final SolrCursor cursor = new SolrCursor(segment.fulltext().getWebgraphConnector(),
+                    "{!cache=false raw f=" + WebgraphSchema.source_host_s.getSolrFieldName() + "}" + host, null, 1000,
+                    WebgraphSchema.source_id_s.getSolrFieldName(), WebgraphSchema.target_id_s.getSolrFieldName());
+            try {
+                while (!cursor.isExhausted()) {
+                    final SolrDocumentList sdl = cursor.nextPage();
+                    for (final SolrDocument doc: sdl) {
+                        final String source = (String) doc.getFieldValue(WebgraphSchema.source_id_s.getSolrFieldName());
+                        final String target = (String) doc.getFieldValue(WebgraphSchema.target_id_s.getSolrFieldName());
+                        if (source == null || target == null || source.equals(target)) continue;
+                        builder.addLink(ASCII.getBytes(source), ASCII.getBytes(target));
+                    }
+                    if (MemoryControl.shortStatus()) {
+                        ConcurrentLog.warn("LinkGraph", "terminated link collection for host " + host + " because of short memory");
+                        break;
+                    }
+                }
+            } catch (final IOException e) {
+                ConcurrentLog.logException(e);
+            }
+        }
+        return builder.build();
+    }
+
+}
@@ -53,6 +53,7 @@ import net.yacy.http.Jetty9HttpServerImpl;
 import net.yacy.http.YaCyHttpServer;
 import net.yacy.kelondro.util.FileUtils;
 import net.yacy.kelondro.util.Formatter;
+import net.yacy.kelondro.util.MemoryBudget;
 import net.yacy.kelondro.util.MemoryControl;
 import net.yacy.kelondro.util.OS;
 import net.yacy.peers.operation.yacyBuildProperties;
@@ -213,6 +214,9 @@ public final class yacy {
             // switch the memory strategy
             MemoryControl.setStandardStrategy(sb.getConfigBool("memory.standardStrategy", true));
 
+            // reduce the caches when the JVM signals that the heap is short
+            MemoryBudget.install();
+
             // save information about available memory at startup time
             sb.setConfig("memoryFreeAfterStartup", startupMemFree);
             sb.setConfig("memoryTotalAfterStartup", startupMemTotal);
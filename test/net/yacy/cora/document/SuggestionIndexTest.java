@@ -0,0 +1,54 @@
+package net.yacy.cora.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class SuggestionIndexTest {
+
+    private static final String[] words   = {"hell", "hello", "helmet", "help", "her", "hero", "word", "work", "world", "yacy"};
+    private static final int[]    weights = {10,     50,      5,        30,     60,    8,      20,     25,     40,      100};
+    private static final SuggestionIndex index = new SuggestionIndex(words, weights);
+
+    /**
+     * Test of weight and contains
+     */
+    @Test
+    public void testLookup() {
+        assertEquals(words.length, index.size());
+        assertEquals(50, index.weight("Hello"));
+        assertTrue(index.contains("yacy"));
+        assertFalse(index.contains("hel"));
+        assertFalse(index.contains("yacys"));
+    }
+
+    /**
+     * Test of completions ordered by weight
+     */
+    @Test
+    public void testComplete() {
+        assertEquals(Arrays.asList("hello", "help", "hell", "helmet"), index.complete("hel", 10));
+        assertEquals(Arrays.asList("her", "hello"), index.complete("HE", 2));
+        assertEquals(Arrays.asList("yacy", "her", "hello"), index.complete("", 3));
+        assertEquals(0, index.complete("x", 3).size());
+        // the exact prefix first, then prefixes with one edit operation
+        assertEquals(Arrays.asList("her", "hero", "hello", "help"), index.complete("her", 1, 4));
+        assertEquals(Arrays.asList("hello", "help", "hell", "helmet"), index.complete("hal", 1, 10));
+    }
+
+    /**
+     * Test of corrections ordered by distance and weight
+     */
+    @Test
+    public void testSimilar() {
+        assertEquals(Arrays.asList("work"), index.similar("wrok", 1, 10));
+        assertEquals(Arrays.asList("hello", "help", "hell", "hero"), index.similar("helo", 1, 10));
+        assertEquals(Arrays.asList("yacy"), index.similar("yaci", 2, 10));
+        assertFalse(index.similar("hello", 1, 10).contains("hello"));
+    }
+
+}
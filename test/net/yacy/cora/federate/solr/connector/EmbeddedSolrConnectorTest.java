@@ -2,10 +2,18 @@ package net.yacy.cora.federate.solr.connector;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
 import net.yacy.cora.federate.solr.instance.EmbeddedInstance;
 import net.yacy.search.schema.CollectionSchema;
 import net.yacy.search.schema.WebgraphSchema;
+import org.apache.solr.client.solrj.response.QueryResponse;
 import org.apache.solr.common.SolrInputDocument;
+import org.apache.solr.common.params.ModifiableSolrParams;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -13,6 +21,7 @@ import static org.junit.Assert.*;
 
 public class EmbeddedSolrConnectorTest {
 
+    EmbeddedInstance instance;
     EmbeddedSolrConnector solr;
 
     public EmbeddedSolrConnectorTest() {
@@ -25,8 +34,8 @@ public class EmbeddedSolrConnectorTest {
         storage.mkdirs();
         System.out.println("setup EmeddedSolrConnector using config dir: " + solr_config.getAbsolutePath());
         try {
-            EmbeddedInstance localCollectionInstance = new EmbeddedInstance(solr_config, storage, CollectionSchema.CORE_NAME, new String[]{CollectionSchema.CORE_NAME, WebgraphSchema.CORE_NAME});
-            solr = new EmbeddedSolrConnector(localCollectionInstance);
+            instance = new EmbeddedInstance(solr_config, storage, CollectionSchema.CORE_NAME, new String[]{CollectionSchema.CORE_NAME, WebgraphSchema.CORE_NAME});
+            solr = new EmbeddedSolrConnector(instance);
            
         } catch (final IOException ex) {
             fail("IOException starting Jetty");
@@ -36,6 +45,7 @@ public class EmbeddedSolrConnectorTest {
     @After
     public void tearDown() {
         solr.close();
+        instance.close(); // release the index lock for the next test
     }
 
     /**
@@ -59,4 +69,75 @@ public class EmbeddedSolrConnectorTest {
         System.out.println("found = " + result + " (expected = 1 )");
         assertEquals(expResult, result);
     }
+
+    /**
+     * Test of the bulk load time lookup
+     */
+    @Test
+    public void testGetLoadTimeURLs() throws IOException {
+        for (String id: new String[]{"ABCD0000efgh", "ABCD0000ijkl", "AB-D\\0\"0_q:r"}) {
+            SolrInputDocument doc = new SolrInputDocument();
+            doc.addField(CollectionSchema.id.name(), id);
+            doc.addField(CollectionSchema.sku.name(), "http://yacy.net/" + id);
+            doc.addField(CollectionSchema.load_date_dt.name(), new Date(1000000000000L));
+            solr.add(doc);
+        }
+        solr.commit(true);
+
+        Map<String, SolrConnector.LoadTimeURL> result = solr.getLoadTimeURLs(Arrays.asList("ABCD0000efgh", "ABCD0000mnop", "ABCD0000ijkl", "AB-D\\0\"0_q:r"));
+        assertEquals(3, result.size());
+        assertEquals(1000000000000L, result.get("ABCD0000efgh").date);
+        assertEquals(1000000000000L, result.get("ABCD0000ijkl").date);
+        assertFalse(result.containsKey("ABCD0000mnop"));
+        assertEquals(1000000000000L, result.get("AB-D\\0\"0_q:r").date);
+
+        // the remote connectors look up the ids with a query, where query syntax characters must be escaped
+        final SolrServerConnector byQuery = new SolrServerConnector() {
+            {init(instance.getDefaultServer());}
+            @Override
+            public QueryResponse getResponseByParams(ModifiableSolrParams params) throws IOException {
+                return solr.getResponseByParams(params);
+            }
+            @Override
+            public int bufferSize() {
+                return 0;
+            }
+            @Override
+            public void clearCaches() {
+            }
+        };
+        result = byQuery.getLoadTimeURLs(Arrays.asList("ABCD0000efgh", "ABCD0000mnop", "ABCD0000ijkl", "AB-D\\0\"0_q:r"));
+        assertEquals(3, result.size());
+        assertEquals(1000000000000L, result.get("AB-D\\0\"0_q:r").date);
+    }
+
+    /**
+     * Test of the deep iteration with cursor marks
+     */
+    @Test
+    public void testCursor() throws IOException, InterruptedException {
+        for (int i = 0; i < 25; i++) {
+            SolrInputDocument doc = new SolrInputDocument();
+            doc.addField(CollectionSchema.id.name(), "CURS" + (10000000 + i));
+            doc.addField(CollectionSchema.host_s.name(), "cursor.yacy.net");
+            solr.add(doc);
+        }
+        solr.commit(true);
+
+        final String query = CollectionSchema.host_s.name() + ":\"cursor.yacy.net\"";
+        SolrCursor cursor = new SolrCursor(solr, query, null, 10, CollectionSchema.id.name());
+        assertEquals(10, cursor.nextPage().size());
+        assertEquals(25, cursor.getNumFound());
+        assertEquals(10, cursor.nextPage().size());
+        assertEquals(5, cursor.nextPage().size());
+        assertTrue(cursor.isExhausted());
+        assertEquals(0, cursor.nextPage().size());
+
+        Set<String> ids = new HashSet<String>();
+        BlockingQueue<String> queue = solr.concurrentIDsByQuery(query, null, 3, 20, Long.MAX_VALUE, 100, 1);
+        String id;
+        while ((id = queue.take()) != AbstractSolrConnector.POISON_ID) assertTrue(ids.add(id));
+        assertEquals(20, ids.size());
+        assertFalse(ids.contains("CURS10000000"));
+    }
 }
@@ -0,0 +1,89 @@
+package net.yacy.cora.language.synonyms;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.lod.vocabulary.Tagging;
+import net.yacy.kelondro.util.FileUtils;
+
+import org.junit.Test;
+
+public class AutotaggingMatcherTest {
+
+    final String testDir = "test/DATA/AUTOTAGGING";
+
+    private Tagging vocabulary(final String name, final String lines) throws IOException {
+        final File dir = new File(this.testDir);
+        dir.mkdirs();
+        final File f = new File(dir, name + ".vocabulary");
+        FileUtils.copy(UTF8.getBytes(lines), f);
+        return new Tagging(name, f);
+    }
+
+    private static Set<String> match(final AutotaggingMatcher matcher, final String text) {
+        final Set<String> found = new TreeSet<String>();
+        int state = matcher.start();
+        for (final String word: text.split(" ")) {
+            state = matcher.next(state, word);
+            for (final Tagging.Metatag tag: matcher.tags(state)) found.add(tag.toString());
+        }
+        return found;
+    }
+
+    /**
+     * the matcher finds single-word and multi-word synonyms of all vocabularies, also if they overlap
+     */
+    @Test
+    public void testMatch() throws IOException {
+        final List<Tagging> vocabularies = new ArrayList<Tagging>();
+        vocabularies.add(vocabulary("City", "Frankfurt am Main:Frankfurt\nNew York:NYC,big apple\nYork\n"));
+        vocabularies.add(vocabulary("Fruit", "Apple:apples\nPear\n"));
+        final AutotaggingMatcher matcher = new AutotaggingMatcher(vocabularies);
+        assertFalse(matcher.isEmpty());
+        assertEquals("[City:Frankfurt_am_Main, City:New_York, City:York, Fruit:Apple]",
+                match(matcher, "from frankfurt am main to new york the big apple").toString());
+        assertEquals("[City:Frankfurt_am_Main, Fruit:Pear]", match(matcher, "a pear frankfurt am am").toString());
+        assertEquals("[]", match(matcher, "new new new").toString());
+
+        // a change of a vocabulary requires a new matcher
+        assertTrue(matcher.isCurrent(vocabularies));
+        vocabularies.get(1).put("Cherry", "", null);
+        assertFalse(matcher.isCurrent(vocabularies));
+        assertEquals("[Fruit:Cherry]", match(new AutotaggingMatcher(vocabularies), "cherry").toString());
+        FileUtils.deletedelete(new File(this.testDir));
+    }
+
+    /**
+     * a change of a vocabulary does not block the caller: the previous matcher is returned until the new one is compiled
+     */
+    @Test
+    public void testLibraryRecompile() throws IOException, InterruptedException {
+        FileUtils.deletedelete(new File(this.testDir));
+        vocabulary("Fruit", "Apple:apples\nPear\n");
+        final AutotaggingLibrary library = new AutotaggingLibrary(new File(this.testDir));
+        final AutotaggingMatcher first = library.getMatcher();
+        assertEquals("[Fruit:Apple]", match(first, "apples").toString());
+        assertTrue(first == library.getMatcher());
+
+        library.getVocabulary("Fruit").put("Cherry", "", null);
+        assertTrue(first == library.getMatcher());
+        AutotaggingMatcher m = first;
+        for (int i = 0; i < 100 && m == first; i++) {
+            Thread.sleep(50);
+            m = library.getMatcher();
+        }
+        assertEquals("[Fruit:Cherry]", match(m, "cherry").toString());
+        assertTrue(m.isCurrent(library.getVocabularies()));
+        FileUtils.deletedelete(new File(this.testDir));
+    }
+
+}
@@ -0,0 +1,84 @@
+package net.yacy.cora.sorting;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class StripedScoreMapTest {
+
+    /**
+     * Test of inc, dec, set and delete against the ConcurrentScoreMap as reference
+     */
+    @Test
+    public void testUpdates() {
+        final StringScoreMap m = new StringScoreMap();
+        final ConcurrentScoreMap<String> r = new ConcurrentScoreMap<String>();
+        final Random random = new Random(1);
+        for (int i = 0; i < 100000; i++) {
+            final String k = "k" + random.nextInt(2000);
+            final int op = random.nextInt(10);
+            if (op < 6) {m.inc(k); r.inc(k);}
+            else if (op < 8) {m.dec(k, 2); r.dec(k, 2);}
+            else if (op < 9) {m.delete(k); r.delete(k);}
+            else {m.set(k, 7); r.set(k, 7);}
+        }
+        assertEquals(r.size(), m.size());
+        for (final String k: r) assertEquals(r.get(k), m.get(k));
+        assertEquals(r.getMaxScore(), m.getMaxScore());
+        assertEquals(r.getMinScore(), m.getMinScore());
+    }
+
+    /**
+     * Test of the ordered keys iterator and of top-k
+     */
+    @Test
+    public void testKeys() {
+        final StringScoreMap m = new StringScoreMap();
+        for (int i = 0; i < 1000; i++) m.set("k" + i, i % 100);
+        int last = Integer.MAX_VALUE, count = 0;
+        final Iterator<String> i = m.keys(false);
+        while (i.hasNext()) {
+            final int score = m.get(i.next());
+            assertTrue(score <= last);
+            last = score;
+            count++;
+        }
+        assertEquals(1000, count);
+        final List<String> bottom = m.top(true, 10);
+        assertEquals(10, bottom.size());
+        for (final String k: bottom) assertEquals(0, m.get(k));
+        m.shrinkToMinScore(50);
+        assertEquals(500, m.size());
+        m.shrinkToMaxSize(100);
+        assertEquals(100, m.size());
+        assertEquals(90, m.getMinScore());
+    }
+
+    /**
+     * Test of concurrent counting
+     */
+    @Test
+    public void testConcurrentInc() throws InterruptedException {
+        final StringScoreMap m = new StringScoreMap();
+        final Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 30000; i++) m.inc("k" + (i % 3000));
+                }
+            };
+            threads[t].start();
+        }
+        for (final Thread t: threads) t.join();
+        assertEquals(3000, m.size());
+        assertEquals(8 * 30000, m.totalCount());
+        for (final String k: m) assertEquals(80, m.get(k));
+    }
+
+}
@@ -0,0 +1,55 @@
+package net.yacy.cora.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class MetricsTest {
+
+    /**
+     * the quantiles of a uniform distribution must be reproduced within the resolution of the buckets
+     */
+    @Test
+    public void testHistogramQuantiles() {
+        final Metrics.Histogram h = Metrics.histogram("test.uniform");
+        for (long v = 1; v <= 100000; v++) h.record(v * 1000L);
+        assertEquals(100000, h.count());
+        assertEquals(100000000L, h.max());
+        final double[] q = {0.5d, 0.9d, 0.99d, 1.0d};
+        final long[] r = h.quantiles(q);
+        for (int i = 0; i < q.length; i++) {
+            final double expected = q[i] * 100000000d;
+            assertTrue(q[i] + ": " + r[i], r[i] >= expected && r[i] <= expected * 1.125d);
+        }
+        assertEquals(100000000L, r[3]);
+    }
+
+    @Test
+    public void testSmallAndLargeValues() {
+        final Metrics.Histogram h = Metrics.histogram("test.range");
+        h.record(-5);
+        h.record(3);
+        h.record(Long.MAX_VALUE);
+        final long[] r = h.quantiles(0.0d, 0.5d, 1.0d);
+        assertEquals(0, r[0]);
+        assertEquals(3, r[1]);
+        assertEquals(Long.MAX_VALUE, r[2]);
+    }
+
+    @Test
+    public void testRegistry() {
+        assertSame(Metrics.counter("test.counter", "a"), Metrics.counter("test.counter", "a"));
+        Metrics.counter("test.counter", "a").add(2);
+        Metrics.counter("test.counter", "a").inc();
+        assertEquals(3, Metrics.counters().get("test.counter{a}").count());
+        Metrics.gauge("test.gauge", new Metrics.Gauge() {
+            @Override
+            public long value() {
+                return 42;
+            }
+        });
+        assertEquals(Long.valueOf(42), Metrics.gauges().get("test.gauge"));
+    }
+}
@@ -0,0 +1,186 @@
+package net.yacy.crawler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.storage.HandleSet;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.crawler.retrieval.Request;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.index.RowHandleSet;
+import net.yacy.kelondro.util.FileUtils;
+
+import org.junit.Test;
+
+/**
+ * test FrontierBalancer
+ * directorylayout is
+ *
+ *   stackDir                      (dir)
+ *      +-- frontier.log           (file)
+ */
+public class FrontierBalancerTest {
+    final String stackDir = "test/DATA/INDEX/QUEUE/CrawlerFrontierStacks";
+
+    private static Request request(final String url, final int depth) throws IOException {
+        return new Request(null, new DigestURL(url), null, "", null, null, depth, 0);
+    }
+
+    /**
+     * the content of the log must survive a restart, including removals
+     */
+    @Test
+    public void testReopen() throws IOException, SpaceExceededException {
+        final File stackDirFile = new File(this.stackDir);
+        FileUtils.deletedelete(stackDirFile);
+        FrontierBalancer fb = new FrontierBalancer(stackDirFile, true);
+        for (int i = 0; i < 10; i++) {
+            assertNull(fb.push(request("http://a.com/" + i + ".html", i % 3), null, null));
+            assertNull(fb.push(request("http://b.com/" + i + ".html", 1), null, null));
+        }
+        assertEquals(20, fb.size());
+        final byte[] removed = new DigestURL("http://a.com/4.html").hash();
+        final HandleSet remove = new RowHandleSet(Word.commonHashLength, Base64Order.enhancedCoder, 1);
+        remove.put(removed);
+        assertEquals(1, fb.remove(remove));
+        fb.close();
+
+        fb = new FrontierBalancer(stackDirFile, true);
+        assertEquals(19, fb.size());
+        assertFalse(fb.has(removed));
+        final Request r = fb.get(new DigestURL("http://b.com/7.html").hash());
+        assertNotNull(r);
+        assertEquals("http://b.com/7.html", r.url().toNormalform(true));
+        assertEquals(1, r.depth());
+
+        // the references of a host are returned from the lowest depth first
+        final List<Request> refs = fb.getDomainStackReferences("a.com", 100, Long.MAX_VALUE);
+        assertEquals(9, refs.size());
+        for (int i = 1; i < refs.size(); i++) assertTrue(refs.get(i - 1).depth() <= refs.get(i).depth());
+
+        final Set<String> hosthashes = new HashSet<String>();
+        hosthashes.add(ASCII.String(r.url().hash(), 6, 6));
+        assertEquals(10, fb.removeAllByHostHashes(hosthashes));
+        int c = 0;
+        final Iterator<Request> i = fb.iterator();
+        while (i.hasNext()) if (i.next() != null) c++;
+        assertEquals(9, c);
+        fb.clear();
+        assertTrue(fb.isEmpty());
+        fb.close();
+        assertFalse(new File(stackDirFile, FrontierBalancer.logName).exists());
+    }
+
+    /**
+     * host queues of the HostBalancer are imported into the log
+     */
+    @Test
+    public void testMigration() throws IOException, SpaceExceededException {
+        final File stackDirFile = new File(this.stackDir);
+        FileUtils.deletedelete(stackDirFile);
+        final HostQueue hq = new HostQueue(stackDirFile, "c.com", 80, true, true);
+        hq.push(request("http://c.com/x.html", 0), null, null);
+        hq.push(request("http://c.com/y.html", 2), null, null);
+        hq.close();
+
+        final FrontierBalancer fb = new FrontierBalancer(stackDirFile, true);
+        assertEquals(2, fb.size());
+        assertTrue(fb.has(new DigestURL("http://c.com/y.html").hash()));
+        assertFalse(new File(stackDirFile, "c.com.80").exists());
+        fb.clear();
+        fb.close();
+    }
+
+    /**
+     * a compaction removes the dead records while urls are pushed and removed concurrently
+     */
+    @Test
+    public void testConcurrentCompaction() throws IOException, SpaceExceededException, InterruptedException {
+        final File stackDirFile = new File(this.stackDir);
+        FileUtils.deletedelete(stackDirFile);
+        final FrontierBalancer fb = new FrontierBalancer(stackDirFile, true);
+        for (int i = 0; i < 3000; i++) assertNull(fb.push(request("http://h" + (i % 7) + ".com/" + i + ".html", i % 4), null, null));
+        final HandleSet remove = new RowHandleSet(Word.commonHashLength, Base64Order.enhancedCoder, 2000);
+        for (int i = 0; i < 2000; i++) remove.put(new DigestURL("http://h" + (i % 7) + ".com/" + i + ".html").hash());
+        assertEquals(2000, fb.remove(remove));
+        final File logFile = new File(stackDirFile, FrontierBalancer.logName);
+        final long before = logFile.length();
+
+        final Thread compactor = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    assertTrue(fb.compact());
+                } catch (final IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+        compactor.start();
+        for (int i = 3000; i < 3500; i++) fb.push(request("http://h" + (i % 7) + ".com/" + i + ".html", i % 4), null, null);
+        final HandleSet remove2 = new RowHandleSet(Word.commonHashLength, Base64Order.enhancedCoder, 100);
+        for (int i = 2000; i < 2100; i++) remove2.put(new DigestURL("http://h" + (i % 7) + ".com/" + i + ".html").hash());
+        assertEquals(100, fb.remove(remove2));
+        compactor.join();
+        assertTrue(logFile.length() < before);
+        assertFalse(new File(stackDirFile, FrontierBalancer.logName + ".tmp").exists());
+
+        // all live urls are readable at their translated positions
+        assertEquals(1400, fb.size());
+        for (int i = 0; i < 3500; i++) {
+            final Request r = fb.get(new DigestURL("http://h" + (i % 7) + ".com/" + i + ".html").hash());
+            if (i < 2100) {
+                assertNull(r);
+            } else {
+                assertNotNull(r);
+                assertEquals(i % 4, r.depth());
+            }
+        }
+        int c = 0;
+        for (int i = 0; i < 7; i++) c += fb.getDomainStackReferences("h" + i + ".com", 1000, Long.MAX_VALUE).size();
+        assertEquals(1400, c);
+        fb.close();
+
+        // the compacted log is read again after a restart
+        final FrontierBalancer reopened = new FrontierBalancer(stackDirFile, true);
+        assertEquals(1400, reopened.size());
+        assertNotNull(reopened.get(new DigestURL("http://h6.com/3499.html").hash()));
+        reopened.clear();
+        reopened.close();
+    }
+
+    /**
+     * a crash after the old log was deleted and before the new log was renamed must not lose the frontier
+     */
+    @Test
+    public void testCompactionRecovery() throws IOException, SpaceExceededException {
+        final File stackDirFile = new File(this.stackDir);
+        FileUtils.deletedelete(stackDirFile);
+        FrontierBalancer fb = new FrontierBalancer(stackDirFile, true);
+        for (int i = 0; i < 10; i++) assertNull(fb.push(request("http://a.com/" + i + ".html", 0), null, null));
+        fb.close();
+        final File logFile = new File(stackDirFile, FrontierBalancer.logName);
+        final File tmp = new File(stackDirFile, FrontierBalancer.logName + ".tmp");
+        assertTrue(logFile.renameTo(tmp));
+
+        fb = new FrontierBalancer(stackDirFile, true);
+        assertEquals(10, fb.size());
+        assertFalse(tmp.exists());
+        fb.clear();
+        fb.close();
+    }
+
+}
@@ -0,0 +1,44 @@
+package net.yacy.crawler.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import net.yacy.cora.document.encoding.ASCII;
+
+import org.junit.Test;
+
+public class CacheTest {
+
+    /**
+     * the counters of the access sketch saturate, are halved after a sample period
+     * and only entries which had been accessed repeatedly are retained
+     */
+    @Test
+    public void testAccessSketch() {
+        final Cache.AccessSketch sketch = new Cache.AccessSketch(1024); // sample period: 512 accesses
+        final byte[] hot = ASCII.getBytes("hothothothot");
+        final byte[] warm = ASCII.getBytes("warmwarmwarm");
+        final byte[] cold = ASCII.getBytes("coldcoldcold");
+        final byte[] other = ASCII.getBytes("otherotherot");
+        for (int i = 0; i < 20; i++) sketch.increment(hot);
+        for (int i = 0; i < Cache.AccessSketch.HOT; i++) sketch.increment(warm);
+        sketch.increment(cold);
+        assertEquals(15, sketch.frequency(hot)); // 4-bit counters saturate
+        assertEquals(Cache.AccessSketch.HOT, sketch.frequency(warm));
+        assertEquals(1, sketch.frequency(cold));
+        assertTrue(sketch.retain(hot));
+        assertTrue(sketch.retain(warm));
+        assertFalse(sketch.retain(cold));
+
+        // aging: the counters are halved at the end of the sample period
+        for (int i = 20 + Cache.AccessSketch.HOT + 1; i < 512; i++) sketch.increment(other);
+        assertEquals(7, sketch.frequency(hot));
+        assertEquals(7, sketch.frequency(other));
+        assertEquals(Cache.AccessSketch.HOT / 2, sketch.frequency(warm));
+        assertEquals(0, sketch.frequency(cold));
+        assertTrue(sketch.retain(hot));
+        assertFalse(sketch.retain(warm));
+    }
+
+}
@@ -0,0 +1,100 @@
+package net.yacy.crawler.data;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.kelondro.util.FileUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ThumbnailCacheTest {
+
+    final String testDir = "test/DATA/THUMBNAILS";
+
+    @Before
+    public void setUp() {
+        FileUtils.deletedelete(new File(this.testDir));
+        ThumbnailCache.init(new File(this.testDir), "salt", 16L * 1024L * 1024L);
+    }
+
+    @After
+    public void tearDown() {
+        ThumbnailCache.close();
+        FileUtils.deletedelete(new File(this.testDir));
+    }
+
+    /**
+     * the key depends on the url hash and on the variant
+     */
+    @Test
+    public void testKey() {
+        final byte[] urlhash = ASCII.getBytes("AAAAAAAAAAAA");
+        final byte[] k = ThumbnailCache.key(urlhash, "96x96 png");
+        assertEquals(12, k.length);
+        assertArrayEquals(k, ThumbnailCache.key(urlhash, "96x96 png"));
+        assertFalse(Arrays.equals(k, ThumbnailCache.key(urlhash, "96x96 jpg")));
+        assertFalse(Arrays.equals(k, ThumbnailCache.key(ASCII.getBytes("BBBBBBBBBBBB"), "96x96 png")));
+    }
+
+    /**
+     * concurrent requests of the same image are rendered once, later requests are served from the cache
+     */
+    @Test
+    public void testCoalescing() throws Exception {
+        final byte[] key = ThumbnailCache.key(ASCII.getBytes("AAAAAAAAAAAA"), "96x96 png");
+        final byte[] image = ASCII.getBytes("rendered image");
+        final AtomicInteger renderings = new AtomicInteger(0);
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final Callable<byte[]> renderer = new Callable<byte[]>() {
+            @Override
+            public byte[] call() throws Exception {
+                renderings.incrementAndGet();
+                started.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                return image;
+            }
+        };
+        final ExecutorService service = Executors.newFixedThreadPool(4);
+        final List<Future<byte[]>> results = new ArrayList<Future<byte[]>>();
+        results.add(service.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                return ThumbnailCache.get(key, renderer);
+            }
+        }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 3; i++) results.add(service.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                return ThumbnailCache.get(key, renderer);
+            }
+        }));
+        Thread.sleep(100);
+        release.countDown();
+        for (final Future<byte[]> f: results) assertArrayEquals(image, f.get());
+        service.shutdown();
+        assertEquals(1, renderings.get());
+
+        assertArrayEquals(image, ThumbnailCache.get(key, renderer));
+        assertEquals(1, renderings.get());
+    }
+
+}
@@ -0,0 +1,76 @@
+package net.yacy.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.junit.Test;
+
+public class CharTokenizerTest {
+
+    /**
+     * the tokenizer produces the same words as a WordTokenizer, lower-cased
+     */
+    @Test
+    public void testSameAsWordTokenizer() {
+        final String[] testTxtArr = new String[]{
+            "  word word..... (word) [word] . 'word word' \"word word\" word ?  word! ",
+            "word-word word . word.word@word.word ....word... word,word ",
+            "Grüße aus Frankfurt!\r\nIndex of /\tLast modified İstanbul ΣΟΦΟΣ 中文"
+        };
+        final CharTokenizer tokenizer = new CharTokenizer();
+        for (final String testTxt : testTxtArr) {
+            final List<String> expected = new ArrayList<String>();
+            final WordTokenizer wt = new WordTokenizer(new SentenceReader(testTxt), null);
+            while (wt.hasMoreElements()) expected.add(wt.nextElement().toString().toLowerCase(Locale.ENGLISH));
+            wt.close();
+
+            final List<String> words = new ArrayList<String>();
+            tokenizer.reset(testTxt);
+            while (tokenizer.next()) words.add(new String(tokenizer.buffer(), 0, tokenizer.length()));
+            assertEquals(expected, words);
+        }
+    }
+
+    /**
+     * the term table assigns one id to each distinct term and counts the occurrences
+     */
+    @Test
+    public void testTermTable() {
+        final TermTable terms = new TermTable();
+        final CharTokenizer tokenizer = new CharTokenizer();
+        tokenizer.reset("one two three two three three");
+        while (tokenizer.next()) terms.put(tokenizer.buffer(), tokenizer.length());
+        assertEquals(3, terms.size());
+        assertEquals("three", terms.term(2));
+        assertEquals(3, terms.count(2));
+        terms.clear();
+        assertEquals(0, terms.size());
+    }
+
+    /**
+     * a very long word does not leave a large buffer behind for the next text
+     */
+    @Test
+    public void testLongWord() {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000000; i++) sb.append('x');
+        final TermTable terms = new TermTable();
+        final CharTokenizer tokenizer = new CharTokenizer();
+        tokenizer.reset(sb.toString() + " short");
+        while (tokenizer.next()) terms.put(tokenizer.buffer(), tokenizer.length());
+        assertEquals(2, terms.size());
+        assertTrue(tokenizer.buffer().length >= 1000000);
+
+        terms.clear();
+        tokenizer.reset("short short");
+        assertTrue(tokenizer.buffer().length < 1000000);
+        while (tokenizer.next()) terms.put(tokenizer.buffer(), tokenizer.length());
+        assertEquals(1, terms.size());
+        assertEquals(2, terms.count(0));
+    }
+
+}
@@ -0,0 +1,51 @@
+package net.yacy.document;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+public class ImageParserTest {
+
+    private static byte[] png(final int width, final int height) throws IOException {
+        final BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int x = 0; x < width; x++) image.setRGB(x, x * height / width, 0xFFFFFF);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+
+    /**
+     * a large image is decoded with a subsampling, but at least twice as large as the target size
+     */
+    @Test
+    public void testSubsampling() throws IOException {
+        final Image image = ImageParser.parse("test.png", png(800, 600), 100, 100);
+        assertTrue(image instanceof BufferedImage);
+        // subsampling min(800 / 200, 600 / 200) = 3
+        assertEquals(267, image.getWidth(null));
+        assertEquals(200, image.getHeight(null));
+
+        final Image wide = ImageParser.parse("test.png", png(800, 600), 100, 0);
+        assertEquals(200, wide.getWidth(null));
+        assertEquals(150, wide.getHeight(null));
+    }
+
+    /**
+     * an image which is not much larger than the target size is decoded completely
+     */
+    @Test
+    public void testNoSubsampling() throws IOException {
+        final Image image = ImageParser.parse("test.png", png(300, 200), 100, 100);
+        assertEquals(300, image.getWidth(null));
+        assertEquals(200, image.getHeight(null));
+    }
+
+}
@@ -0,0 +1,148 @@
+package net.yacy.document.importer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import net.yacy.cora.document.encoding.UTF8;
+
+import org.junit.Test;
+
+public class WarcReaderTest {
+
+    private static final String[] URLS = {"http://example.org/", "http://example.org/a.html", "http://example.net/b.html"};
+
+    private static byte[] httpResponse(final String body) {
+        return UTF8.getBytes("HTTP/1.1 200 OK\r\nContent-Type: text/html\r\nContent-Length: " + body.length() + "\r\n\r\n" + body);
+    }
+
+    private static byte[] warcRecord(final String type, final String uri, final byte[] block) {
+        final String header =
+                "WARC/1.0\r\n" +
+                "WARC-Type: " + type + "\r\n" +
+                (uri == null ? "" : "WARC-Target-URI: " + uri + "\r\n") +
+                "WARC-Date: 2015-06-23T10:00:00Z\r\n" +
+                "Content-Type: " + ("response".equals(type) ? "application/http; msgtype=response" : "application/warc-fields") + "\r\n" +
+                "Content-Length: " + block.length + "\r\n\r\n";
+        final ByteArrayOutputStream r = new ByteArrayOutputStream();
+        r.write(UTF8.getBytes(header), 0, header.length());
+        r.write(block, 0, block.length);
+        r.write(UTF8.getBytes("\r\n\r\n"), 0, 4);
+        return r.toByteArray();
+    }
+
+    /**
+     * write a synthetic WARC file with a warcinfo record and a response record for each url
+     * @return the offsets of the records
+     */
+    private static List<Long> writeWarc(final File f, final boolean gzip) throws IOException {
+        final List<Long> offsets = new ArrayList<Long>();
+        final List<byte[]> records = new ArrayList<byte[]>();
+        records.add(warcRecord("warcinfo", null, UTF8.getBytes("software: test\r\n")));
+        for (final String url: URLS) records.add(warcRecord("response", url, httpResponse("<html><body>" + url + "</body></html>")));
+        final FileOutputStream os = new FileOutputStream(f);
+        long offset = 0;
+        for (final byte[] record: records) {
+            offsets.add(offset);
+            byte[] b = record;
+            if (gzip) {
+                final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                final OutputStream gos = new GZIPOutputStream(baos);
+                gos.write(record);
+                gos.close();
+                b = baos.toByteArray();
+            }
+            os.write(b);
+            offset += b.length;
+        }
+        os.close();
+        return offsets;
+    }
+
+    private static void checkRead(final File f, final List<Long> offsets) throws IOException {
+        final WarcReader reader = new WarcReader(f, 0, 1024 * 1024);
+        WarcReader.Record record = reader.next();
+        assertNotNull(record);
+        assertEquals("warcinfo", record.type());
+        assertFalse(record.isHttpResponse());
+        for (int i = 0; i < URLS.length; i++) {
+            record = reader.next();
+            assertNotNull(record);
+            assertEquals(offsets.get(i + 1).longValue(), record.offset());
+            assertTrue(record.isHttpResponse());
+            assertEquals(URLS[i], record.targetURI());
+            final WarcReader.HttpResponse http = WarcReader.parseHttpResponse(record, 1024 * 1024);
+            assertEquals(200, http.header.getStatusCode());
+            assertEquals("<html><body>" + URLS[i] + "</body></html>", UTF8.String(http.content));
+        }
+        assertNull(reader.next());
+        reader.close();
+
+        // resume at the offset of the last record
+        final WarcReader resumed = new WarcReader(f, offsets.get(URLS.length), 1024 * 1024);
+        record = resumed.next();
+        assertEquals(URLS[URLS.length - 1], record.targetURI());
+        assertNull(resumed.next());
+        resumed.close();
+    }
+
+    @Test
+    public void testPlainWarc() throws IOException {
+        final File f = File.createTempFile("test", ".warc");
+        try {
+            checkRead(f, writeWarc(f, false));
+        } finally {
+            f.delete();
+        }
+    }
+
+    @Test
+    public void testGzipWarc() throws IOException {
+        final File f = File.createTempFile("test", ".warc.gz");
+        try {
+            checkRead(f, writeWarc(f, true));
+        } finally {
+            f.delete();
+        }
+    }
+
+    @Test
+    public void testLimitAndChunkedArc() throws IOException {
+        final File f = File.createTempFile("test", ".arc");
+        try {
+            final byte[] chunked = UTF8.getBytes("HTTP/1.0 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n5\r\nhello\r\n6\r\n world\r\n0\r\n\r\n");
+            final byte[] large = httpResponse("0123456789012345678901234567890123456789");
+            final FileOutputStream os = new FileOutputStream(f);
+            os.write(UTF8.getBytes("http://example.org/large 127.0.0.1 20150623100000 text/html " + large.length + "\n"));
+            os.write(large);
+            os.write(UTF8.getBytes("\nhttp://example.org/chunked 127.0.0.1 20150623100000 text/html " + chunked.length + "\n"));
+            os.write(chunked);
+            os.write(UTF8.getBytes("\n"));
+            os.close();
+            final WarcReader reader = new WarcReader(f, 0, 80);
+            WarcReader.Record record = reader.next();
+            assertEquals("http://example.org/large", record.targetURI());
+            assertNull(record.content()); // larger than the limit
+            assertFalse(record.isHttpResponse());
+            record = reader.next();
+            assertEquals("http://example.org/chunked", record.targetURI());
+            assertEquals("20150623100000", record.date());
+            assertEquals("hello world", UTF8.String(WarcReader.parseHttpResponse(record, 80).content));
+            assertNull(reader.next());
+            reader.close();
+        } finally {
+            f.delete();
+        }
+    }
+}
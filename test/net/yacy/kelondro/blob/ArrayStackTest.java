@@ -0,0 +1,90 @@
+package net.yacy.kelondro.blob;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.kelondro.util.FileUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ArrayStackTest {
+
+    final String testDir = "test/DATA/INDEX/ArrayStack";
+    private ArrayStack stack;
+
+    @Before
+    public void setUp() throws IOException {
+        FileUtils.deletedelete(new File(this.testDir));
+        this.stack = new ArrayStack(new File(this.testDir), "test", Base64Order.enhancedCoder, 12, 1, false, true); // flush every entry, so the file sizes are exact
+        this.stack.setMaxSize(100000); // a new BLOB file is started after 1000 bytes
+    }
+
+    @After
+    public void tearDown() {
+        this.stack.close(false);
+        FileUtils.deletedelete(new File(this.testDir));
+    }
+
+    private static byte[] key(final int i) {
+        final String k = Integer.toString(i);
+        return ASCII.getBytes("AAAAAAAAAAAA".substring(k.length()) + k);
+    }
+
+    private void fill(final int count) throws IOException {
+        final byte[] b = new byte[100];
+        for (int i = 0; i < count; i++) this.stack.insert(key(i), b);
+    }
+
+    /**
+     * entries of an evicted BLOB file which the retention wants to keep survive the rotation, the others are deleted
+     */
+    @Test
+    public void testRetention() throws IOException {
+        this.stack.setRetention(new ArrayStack.Retention() {
+            @Override
+            public boolean retain(final byte[] key) {
+                return ASCII.String(key).endsWith("0");
+            }
+        });
+        fill(3000);
+        assertTrue(this.stack.length() <= 100000);
+        for (int i = 0; i < 100; i++) {
+            if (i % 10 == 0) assertTrue("hot key " + i, this.stack.containsKey(key(i)));
+            else assertFalse("cold key " + i, this.stack.containsKey(key(i)));
+        }
+        assertTrue(this.stack.containsKey(key(2999)));
+    }
+
+    /**
+     * at most half of an evicted BLOB file is moved, so the eviction still reduces the size of the repository
+     */
+    @Test
+    public void testRetentionLimit() throws IOException {
+        this.stack.setRetention(new ArrayStack.Retention() {
+            @Override
+            public boolean retain(final byte[] key) {
+                return true;
+            }
+        });
+        fill(3000);
+        assertTrue(this.stack.length() <= 100000);
+        assertTrue(this.stack.size() < 3000);
+        assertTrue(this.stack.containsKey(key(2999)));
+        // without a retention all entries of the oldest files are deleted
+        final int retained = this.stack.size();
+        this.stack.setRetention(null);
+        this.stack.clear();
+        fill(3000);
+        assertTrue(this.stack.size() < retained);
+        assertFalse(this.stack.containsKey(key(0)));
+    }
+
+}
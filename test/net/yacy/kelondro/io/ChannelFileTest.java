@@ -0,0 +1,153 @@
+package net.yacy.kelondro.io;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.yacy.kelondro.util.FileUtils;
+
+import org.junit.Test;
+
+public class ChannelFileTest {
+
+    final String testDir = "test/DATA/INDEX/IO";
+
+    /**
+     * appends in the write-behind buffer must be visible to positional reads and writes
+     */
+    @Test
+    public void testAppendBuffer() throws IOException {
+        final File dir = new File(this.testDir);
+        dir.mkdirs();
+        final File f = new File(dir, "test.channel");
+        FileUtils.deletedelete(f);
+        ChannelFile c = new ChannelFile(f, true, 64);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i * 4, c.append(new byte[]{0, 0, 0, (byte) i}, 0, 4));
+        }
+        assertEquals(400, c.length());
+        assertEquals(99, c.readInt(396)); // inside the append buffer
+        assertEquals(3, c.readInt(12));   // inside the file
+        c.write(396, new byte[]{0, 0, 1, 0}, 0, 4);
+        c.write(400, new byte[]{0, 0, 1, 1}, 0, 4); // at the end: this is an append
+        assertEquals(404, c.length());
+        c.close();
+        assertEquals(404, f.length());
+
+        c = new ChannelFile(f, false, 0);
+        assertEquals(256, c.readInt(396));
+        assertEquals(257, c.readInt(400));
+        c.close();
+        FileUtils.deletedelete(f);
+    }
+
+    /**
+     * concurrent positional reads do not disturb each other
+     */
+    @Test
+    public void testConcurrentReads() throws IOException, InterruptedException {
+        final File dir = new File(this.testDir);
+        dir.mkdirs();
+        final File f = new File(dir, "test.channel");
+        FileUtils.deletedelete(f);
+        final ChannelFile c = new ChannelFile(f, true, 1024);
+        final int n = 10000;
+        for (int i = 0; i < n; i++) {
+            c.append(new byte[]{(byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i}, 0, 4);
+        }
+        final AtomicInteger errors = new AtomicInteger(0);
+        final List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            final int offset = t;
+            threads.add(new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = offset; i < n; i += 3) {
+                            if (c.readInt(i * 4) != i) errors.incrementAndGet();
+                        }
+                    } catch (final IOException e) {
+                        errors.incrementAndGet();
+                    }
+                }
+            });
+        }
+        for (final Thread t: threads) t.start();
+        for (final Thread t: threads) t.join();
+        assertEquals(0, errors.get());
+        c.close();
+        FileUtils.deletedelete(f);
+    }
+
+    /**
+     * an interrupt of a reading thread closes the FileChannel; the file must still be readable afterwards
+     */
+    @Test
+    public void testInterruptedRead() throws IOException, InterruptedException {
+        final File dir = new File(this.testDir);
+        dir.mkdirs();
+        final File f = new File(dir, "test.channel");
+        FileUtils.deletedelete(f);
+        final ChannelFile c = new ChannelFile(f, true, 0);
+        final int n = 10000;
+        for (int i = 0; i < n; i++) {
+            c.append(new byte[]{(byte) (i >>> 24), (byte) (i >>> 16), (byte) (i >>> 8), (byte) i}, 0, 4);
+        }
+        final AtomicInteger errors = new AtomicInteger(0);
+        final AtomicInteger interrupted = new AtomicInteger(0);
+        final Thread reader = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < n; i++) {
+                        if (i == n / 2) Thread.currentThread().interrupt(); // the next read is interrupted at once
+                        if (c.readInt(i * 4) != i) errors.incrementAndGet();
+                    }
+                } catch (final IOException e) {
+                    errors.incrementAndGet();
+                }
+                if (Thread.currentThread().isInterrupted()) interrupted.incrementAndGet();
+            }
+        };
+        reader.start();
+        reader.join();
+        assertEquals(0, errors.get());
+        assertEquals(1, interrupted.get()); // the interrupt flag is kept
+
+        // interrupt a thread which is reading concurrently to another thread
+        final Thread looper = new Thread() {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        for (int i = 0; i < n; i++) {
+                            if (c.readInt(i * 4) != i) errors.incrementAndGet();
+                        }
+                    } catch (final IOException e) {
+                        errors.incrementAndGet();
+                    }
+                    if (Thread.interrupted()) return;
+                }
+            }
+        };
+        looper.start();
+        Thread.sleep(50);
+        looper.interrupt();
+        for (int i = 0; i < n; i++) {
+            if (c.readInt(i * 4) != i) errors.incrementAndGet();
+        }
+        looper.join();
+        assertEquals(0, errors.get());
+
+        // the file is still writable
+        c.write(0, new byte[]{0, 0, 0, 7}, 0, 4);
+        assertEquals(7, c.readInt(0));
+        c.close();
+        FileUtils.deletedelete(f);
+    }
+
+}
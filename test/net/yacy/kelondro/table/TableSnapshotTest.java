@@ -0,0 +1,123 @@
+package net.yacy.kelondro.table;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.index.Row;
+import net.yacy.kelondro.util.FileUtils;
+
+import org.junit.Test;
+
+public class TableSnapshotTest {
+
+    final String testDir = "test/DATA/INDEX/TABLE";
+    final Row rowdef = new Row("byte[] key-12, byte[] value-8", Base64Order.enhancedCoder);
+
+    private Row.Entry entry(final int i) {
+        final String k = Integer.toString(i);
+        final Row.Entry e = this.rowdef.newEntry();
+        e.setCol(0, ASCII.getBytes("AAAAAAAAAAAA".substring(k.length()) + k));
+        e.setCol(1, ASCII.getBytes(k));
+        return e;
+    }
+
+    private static void copy(final File from, final File toDir) throws IOException {
+        if (from.exists()) FileUtils.copy(FileUtils.read(from), new File(toDir, from.getName()));
+    }
+
+    /**
+     * a clean close writes a snapshot; after an unclean stop the journal restores the changes
+     */
+    @Test
+    public void testSnapshotAndJournal() throws IOException, SpaceExceededException {
+        final File dir = new File(this.testDir);
+        FileUtils.deletedelete(dir);
+        dir.mkdirs();
+        final File f = new File(dir, "test.table");
+        final int n = TableSnapshot.MIN_RECORDS + 100;
+        Table t = new Table(f, this.rowdef, 0, 0, false, true, true);
+        for (int i = 0; i < n; i++) t.put(entry(i));
+        t.close();
+        assertTrue(new File(dir, "test.table" + TableSnapshot.snapshotSuffix).exists());
+
+        // open from the snapshot and change the table
+        t = new Table(f, this.rowdef, 0, 0, false, true, true);
+        assertEquals(n, t.size());
+        assertNotNull(t.get(entry(17).getPrimaryKeyBytes(), false));
+        for (int i = 0; i < 50; i++) t.remove(entry(i * 3).getPrimaryKeyBytes());
+        for (int i = n; i < n + 10; i++) t.put(entry(i));
+        t.put(entry(5)); // update in place
+
+        // simulate a crash: copy the files of the open table
+        t.rows(); // flushes the buffers
+        final File crashDir = new File(dir, "crash");
+        crashDir.mkdirs();
+        copy(f, crashDir);
+        copy(new File(dir, "test.table" + TableSnapshot.snapshotSuffix), crashDir);
+        copy(new File(dir, "test.table" + TableSnapshot.journalSuffix), crashDir);
+        t.close();
+
+        final Table c = new Table(new File(crashDir, "test.table"), this.rowdef, 0, 0, false, true, true);
+        assertTrue("the snapshot must be used", new File(crashDir, "test.table" + TableSnapshot.journalSuffix).exists());
+        assertEquals(n - 50 + 10, c.size());
+        assertTrue(c.consistencyCheck());
+        assertNull(c.get(entry(0).getPrimaryKeyBytes(), false));
+        assertNull(c.get(entry(147).getPrimaryKeyBytes(), false));
+        for (final int i: new int[]{1, 5, 148, n - 1, n + 9}) {
+            final Row.Entry e = c.get(entry(i).getPrimaryKeyBytes(), false);
+            assertNotNull(Integer.toString(i), e);
+            assertEquals(Integer.toString(i), ASCII.String(e.getColBytes(1, false)).trim());
+        }
+        c.close();
+        assertFalse(new File(crashDir, "test.table" + TableSnapshot.journalSuffix).exists());
+        FileUtils.deletedelete(dir);
+    }
+
+    /**
+     * appended records are not journaled, a position is journaled only once, and too many positions drop the snapshot
+     */
+    @Test
+    public void testJournalSize() throws IOException, SpaceExceededException {
+        final File dir = new File(this.testDir);
+        FileUtils.deletedelete(dir);
+        dir.mkdirs();
+        final File f = new File(dir, "test.table");
+        final File journal = new File(dir, "test.table" + TableSnapshot.journalSuffix);
+        final int n = TableSnapshot.MIN_RECORDS + 100;
+        Table t = new Table(f, this.rowdef, 0, 0, false, true, true);
+        for (int i = 0; i < n; i++) t.put(entry(i));
+        t.close();
+
+        t = new Table(f, this.rowdef, 0, 0, false, true, true);
+        for (int i = n; i < 2 * n; i++) t.put(entry(i));
+        assertEquals(0, journal.length());
+        // the gap of a removed record is filled with the last record; the same gap is journaled only once
+        for (int i = 0; i < 10; i++) {
+            t.remove(entry(0).getPrimaryKeyBytes());
+            t.put(entry(0));
+        }
+        assertEquals(4, journal.length());
+        for (int i = 1; i < n; i++) t.remove(entry(i).getPrimaryKeyBytes());
+        assertFalse("the snapshot must be dropped", journal.exists());
+        assertEquals(n + 1, t.size());
+        t.close();
+
+        // a clean close writes a new snapshot
+        t = new Table(f, this.rowdef, 0, 0, false, true, true);
+        assertEquals(n + 1, t.size());
+        assertTrue(journal.exists());
+        assertNotNull(t.get(entry(2 * n - 1).getPrimaryKeyBytes(), false));
+        t.close();
+        FileUtils.deletedelete(dir);
+    }
+
+}
@@ -0,0 +1,59 @@
+package net.yacy.peers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.yacy.cora.document.encoding.ASCII;
+
+import org.junit.Test;
+
+public class DHTRingTest {
+
+    private static Seed seed(final String hash, final boolean acceptRemoteIndex) {
+        final Seed seed = new Seed(hash, new ConcurrentHashMap<String, String>());
+        seed.setFlagAcceptRemoteIndex(acceptRemoteIndex);
+        seed.put(Seed.VERSION, "1.8");
+        return seed;
+    }
+
+    private static List<String> walk(final DHTRing ring, final String start, final Seed mySeed, final int max) {
+        final List<String> hashes = new ArrayList<String>();
+        final Iterator<Seed> i = ring.acceptRemoteIndexSeeds(ASCII.getBytes(start), mySeed, max, 0.486d);
+        while (i.hasNext()) hashes.add(i.next().hash);
+        return hashes;
+    }
+
+    @Test
+    public void testWalk() {
+        final List<Seed> seeds = new ArrayList<Seed>();
+        seeds.add(seed("QAAAAAAAAAAA", true));
+        seeds.add(seed("AAAAAAAAAAAA", true));
+        seeds.add(seed("gAAAAAAAAAAA", false)); // a robinson peer
+        seeds.add(seed("wAAAAAAAAAAA", true));
+        final DHTRing ring = new DHTRing(seeds.iterator());
+        assertEquals(4, ring.size());
+        assertEquals("AAAAAAAAAAAA", ASCII.String(ring.hash(0)));
+        assertEquals(1, ring.position(ASCII.getBytes("QAAAAAAAAAAA")));
+        assertEquals(2, ring.position(ASCII.getBytes("QAAAAAAAAAAB")));
+        assertEquals(0, ring.position(ASCII.getBytes("zzzzzzzzzzzz"))); // the ring is closed at its ends
+        assertEquals(0, ring.next(3));
+        assertTrue(ring.acceptRemoteIndex(1, 0.486d));
+        assertFalse(ring.acceptRemoteIndex(2, 0.486d));
+
+        // the walk skips the robinson peer and rotates at the end of the ring
+        assertEquals("[wAAAAAAAAAAA, AAAAAAAAAAAA, QAAAAAAAAAAA]", walk(ring, "RAAAAAAAAAAA", null, 4).toString());
+        assertEquals("[wAAAAAAAAAAA, AAAAAAAAAAAA]", walk(ring, "RAAAAAAAAAAA", null, 2).toString());
+
+        // the own peer is inserted at its position
+        final Seed mySeed = seed("kAAAAAAAAAAA", false);
+        assertEquals("[QAAAAAAAAAAA, kAAAAAAAAAAA, wAAAAAAAAAAA, AAAAAAAAAAAA]", walk(ring, "BAAAAAAAAAAA", mySeed, 4).toString());
+        assertEquals("[wAAAAAAAAAAA, AAAAAAAAAAAA, QAAAAAAAAAAA, kAAAAAAAAAAA]", walk(ring, "mAAAAAAAAAAA", mySeed, 4).toString());
+    }
+
+}
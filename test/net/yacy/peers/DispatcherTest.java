@@ -0,0 +1,115 @@
+package net.yacy.peers;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.yacy.cora.util.ConcurrentLog;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DispatcherTest {
+
+    private Dispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        this.dispatcher = new Dispatcher(null, null, false, 1000);
+    }
+
+    @After
+    public void tearDown() {
+        this.dispatcher.close();
+    }
+
+    private static Seed seed(final String hash, final boolean binaryFormat) {
+        final Seed seed = new Seed(hash, new ConcurrentHashMap<String, String>());
+        if (binaryFormat) seed.put(Seed.RWIFORMAT, Integer.toString(IndexTransferFormat.VERSION));
+        return seed;
+    }
+
+    /**
+     * chunks grow while transmissions are fast, up to the limit of the target peer,
+     * and shrink to the size that can be sent in the target time if they are slow
+     */
+    @Test
+    public void testChunkSize() {
+        final Dispatcher.Target target = this.dispatcher.target(seed("AAAAAAAAAAAA", false));
+        assertEquals(Dispatcher.INITIAL_CHUNK_SIZE, target.chunkSize());
+        target.success(100, Dispatcher.TARGET_TRANSMISSION_TIME / 4);
+        assertEquals(150, target.chunkSize());
+        for (int i = 0; i < 20; i++) target.success(target.chunkSize(), Dispatcher.TARGET_TRANSMISSION_TIME / 4);
+        assertEquals(Transmission.maxRWIsCount, target.chunkSize());
+
+        // a chunk which took twice the target time halves the chunk size
+        final Dispatcher.Target slow = this.dispatcher.target(seed("BBBBBBBBBBBB", false));
+        slow.success(Dispatcher.INITIAL_CHUNK_SIZE, 2 * Dispatcher.TARGET_TRANSMISSION_TIME);
+        assertEquals(Dispatcher.INITIAL_CHUNK_SIZE / 2, slow.chunkSize());
+        for (int i = 0; i < 30; i++) slow.success(1, 100 * Dispatcher.TARGET_TRANSMISSION_TIME);
+        assertEquals(Dispatcher.MIN_CHUNK_SIZE, slow.chunkSize());
+
+        // peers which accept the binary format take larger chunks
+        final Dispatcher.Target binary = this.dispatcher.target(seed("CCCCCCCCCCCC", true));
+        for (int i = 0; i < 30; i++) binary.success(binary.chunkSize(), Dispatcher.TARGET_TRANSMISSION_TIME / 4);
+        assertEquals(Transmission.maxBinaryRWIsCount, binary.chunkSize());
+    }
+
+    /**
+     * a failure halves the chunk size and lets the target rest for a back-off time
+     * which grows with every consecutive failure; a success resets the failure count
+     */
+    @Test
+    public void testBackoff() {
+        final Dispatcher.Target target = this.dispatcher.target(seed("AAAAAAAAAAAA", false));
+        assertFalse(target.inBackoff());
+        long before = System.currentTimeMillis();
+        target.failure();
+        assertTrue(target.inBackoff());
+        assertEquals(Dispatcher.INITIAL_CHUNK_SIZE / 2, target.chunkSize());
+        assertTrue(target.backoffUntil - before >= Dispatcher.BACKOFF_BASE);
+        assertTrue(target.backoffUntil - System.currentTimeMillis() <= Dispatcher.BACKOFF_BASE);
+
+        before = System.currentTimeMillis();
+        target.failure();
+        assertTrue(target.backoffUntil - before >= 2 * Dispatcher.BACKOFF_BASE);
+        for (int i = 0; i < 20; i++) target.failure();
+        assertEquals(Dispatcher.MIN_CHUNK_SIZE, target.chunkSize());
+        assertTrue(target.backoffUntil - System.currentTimeMillis() <= Dispatcher.BACKOFF_MAX);
+
+        target.success(Dispatcher.MIN_CHUNK_SIZE, Dispatcher.TARGET_TRANSMISSION_TIME);
+        assertEquals(0, target.consecutiveFailures);
+        before = System.currentTimeMillis();
+        target.failure();
+        assertTrue(target.backoffUntil - before >= Dispatcher.BACKOFF_BASE);
+        assertTrue(target.backoffUntil - System.currentTimeMillis() <= Dispatcher.BACKOFF_BASE);
+    }
+
+    /**
+     * chunks which wait in the send queue of a target are restored to the index when the dispatcher is closed
+     */
+    @Test
+    public void testCloseRestoresQueuedChunks() {
+        final Seed seed = seed("AAAAAAAAAAAA", false);
+        final Dispatcher.Target target = this.dispatcher.target(seed);
+        target.inFlight.set(Dispatcher.MAX_IN_FLIGHT_PER_TARGET); // the target is busy, so the chunks stay in the queue
+        final Transmission transmission = new Transmission(new ConcurrentLog("DispatcherTest"), null, null, false, 1000);
+        final AtomicInteger restored = new AtomicInteger(0);
+        for (int i = 0; i < 3; i++) target.enqueue(transmission.new Chunk(seed, 100) {
+            @Override
+            public void restore() {
+                restored.incrementAndGet();
+            }
+        });
+        assertEquals(3, this.dispatcher.transmissionSize());
+        assertEquals(0, restored.get());
+        this.dispatcher.close();
+        assertEquals(3, restored.get());
+        assertEquals(0, this.dispatcher.transmissionSize());
+    }
+
+}
@@ -0,0 +1,82 @@
+package net.yacy.search.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.kelondro.util.FileUtils;
+
+import org.junit.Test;
+
+public class ContentDigestIndexTest {
+
+    final String testDir = "test/DATA/INDEX/DIGEST";
+
+    private ContentDigestIndex open() throws IOException {
+        final File dir = new File(this.testDir);
+        dir.mkdirs();
+        return new ContentDigestIndex(new File(dir, "url2digest.index"), new File(dir, "digest2url.index"));
+    }
+
+    /**
+     * an unchanged document has the same digest as at the last indexing, a changed document has another one
+     */
+    @Test
+    public void testUnchanged() throws IOException {
+        FileUtils.deletedelete(new File(this.testDir));
+        final ContentDigestIndex index = open();
+        final byte[] urlhash = ASCII.getBytes("AAAAAAAAAAAA");
+        final long digest = ContentDigestIndex.digest(ASCII.getBytes("<html>content</html>"));
+        assertEquals(-1, index.get(urlhash));
+        index.put(urlhash, digest);
+        assertEquals(digest, index.get(urlhash));
+        assertEquals(digest, ContentDigestIndex.digest(ASCII.getBytes("<html>content</html>")));
+        assertFalse(digest == ContentDigestIndex.digest(ASCII.getBytes("<html>changed content</html>")));
+
+        // the relation is persistent
+        index.close();
+        final ContentDigestIndex reopened = open();
+        assertEquals(digest, reopened.get(urlhash));
+        reopened.clear();
+        assertEquals(-1, reopened.get(urlhash));
+        reopened.close();
+        FileUtils.deletedelete(new File(this.testDir));
+    }
+
+    /**
+     * the first document with a content is the original of all copies until it is removed
+     */
+    @Test
+    public void testDuplicates() throws IOException {
+        FileUtils.deletedelete(new File(this.testDir));
+        final ContentDigestIndex index = open();
+        final byte[] original = ASCII.getBytes("AAAAAAAAAAAA");
+        final byte[] copy = ASCII.getBytes("BBBBBBBBBBBB");
+        final long digest = ContentDigestIndex.digest(ASCII.getBytes("<html>content</html>"));
+        assertNull(index.getURL(digest));
+        index.put(original, digest);
+        index.put(copy, digest);
+        assertArrayEquals(original, index.getURL(digest)); // the copy does not replace the original
+        assertEquals(digest, index.get(copy));
+
+        // after the original is removed, the next document with that content is the original
+        index.remove(original);
+        assertEquals(-1, index.get(original));
+        assertNull(index.getURL(digest));
+        index.put(copy, digest);
+        assertArrayEquals(copy, index.getURL(digest));
+
+        // the removal of a copy does not remove the original
+        index.put(original, digest);
+        index.remove(original);
+        assertArrayEquals(copy, index.getURL(digest));
+        index.close();
+        FileUtils.deletedelete(new File(this.testDir));
+    }
+
+}
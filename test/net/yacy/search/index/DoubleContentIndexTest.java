@@ -0,0 +1,121 @@
+package net.yacy.search.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import net.yacy.cora.federate.solr.connector.EmbeddedSolrConnector;
+import net.yacy.cora.federate.solr.instance.EmbeddedInstance;
+import net.yacy.kelondro.util.FileUtils;
+import net.yacy.search.schema.CollectionConfiguration;
+import net.yacy.search.schema.CollectionSchema;
+import net.yacy.search.schema.WebgraphSchema;
+
+import org.apache.solr.common.SolrInputDocument;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DoubleContentIndexTest {
+
+    private static final String HOST = "hosthh"; // the host hash: characters 6 to 11 of the url hash
+
+    private EmbeddedInstance instance;
+    private EmbeddedSolrConnector solr;
+    private DoubleContentIndex index;
+
+    @Before
+    public void setUp() throws IOException {
+        final File data = new File("test/DATA/INDEX/DoubleContentIndex");
+        FileUtils.deletedelete(data);
+        data.mkdirs();
+        final File schema = new File(data, "solr.collection.schema");
+        FileUtils.copy(FileUtils.read(new File("defaults/solr.collection.schema")), schema);
+        this.instance = new EmbeddedInstance(new File("defaults/solr"), new File(data, "solr"), CollectionSchema.CORE_NAME, new String[]{CollectionSchema.CORE_NAME, WebgraphSchema.CORE_NAME});
+        this.solr = new EmbeddedSolrConnector(this.instance);
+        this.index = new DoubleContentIndex(new CollectionConfiguration(schema, true));
+    }
+
+    @After
+    public void tearDown() {
+        this.index.close();
+        this.solr.close();
+        this.instance.close();
+    }
+
+    private static String profile(final int from, final int to) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = from; i < to; i++) sb.append("(token").append(i).append("-3)");
+        return sb.toString();
+    }
+
+    private static SolrInputDocument doc(final String id, final long exact, final long fuzzy) {
+        final SolrInputDocument doc = new SolrInputDocument();
+        doc.addField(CollectionSchema.id.getSolrFieldName(), id);
+        doc.addField(CollectionSchema.host_id_s.getSolrFieldName(), HOST);
+        doc.addField(CollectionSchema.httpstatus_i.getSolrFieldName(), 200);
+        doc.addField(CollectionSchema.exact_signature_l.getSolrFieldName(), exact);
+        doc.addField(CollectionSchema.fuzzy_signature_l.getSolrFieldName(), fuzzy);
+        return doc;
+    }
+
+    private static int equal(final int[] a, final int[] b) {
+        int equal = 0;
+        for (int i = 0; i < a.length; i++) if (a[i] == b[i]) equal++;
+        return equal;
+    }
+
+    @Test
+    public void testMinhash() {
+        assertNull(DoubleContentIndex.minhash(null));
+        assertNull(DoubleContentIndex.minhash("no tokens"));
+        final int[] a = DoubleContentIndex.minhash(profile(0, 200));
+        assertNotNull(a);
+        // the counts of the tokens are not part of the min-hash
+        assertTrue(Arrays.equals(a, DoubleContentIndex.minhash(profile(0, 200).replace("-3)", ")"))));
+        // a profile with nearly the same tokens has nearly the same min-hash, a different profile has not
+        assertTrue(equal(a, DoubleContentIndex.minhash(profile(0, 201))) >= a.length - 2);
+        assertTrue(equal(a, DoubleContentIndex.minhash(profile(1000, 1200))) <= 2);
+    }
+
+    @Test
+    public void testCopiesAndRemoval() throws IOException {
+        this.solr.add(doc("aaaaaa" + HOST, 1, 10));
+        this.solr.add(doc("bbbbbb" + HOST, 1, 11));
+        this.solr.commit(true);
+
+        // the first request loads the host from the collection
+        assertEquals(set("bbbbbb" + HOST), this.index.copies(this.solr, HOST, "aaaaaa" + HOST, CollectionSchema.exact_signature_l, 1));
+        assertEquals(2, this.index.size());
+
+        // stored documents are added; near-duplicates are found with the bands of the min-hash
+        this.index.put(HOST, doc("aaaaaa" + HOST, 1, 10), profile(0, 200));
+        this.index.put(HOST, doc("cccccc" + HOST, 2, 12), profile(0, 201));
+        this.index.put(HOST, doc("dddddd" + HOST, 3, 13), profile(1000, 1200));
+        assertEquals(set("cccccc" + HOST), this.index.copies(this.solr, HOST, "aaaaaa" + HOST, CollectionSchema.fuzzy_signature_l, 10));
+        assertEquals(4, this.index.size());
+
+        // deleted documents are not counted as copies
+        this.index.remove("bbbbbb" + HOST);
+        assertEquals(set(), this.index.copies(this.solr, HOST, "aaaaaa" + HOST, CollectionSchema.exact_signature_l, 1));
+        this.index.remove(Arrays.asList("cccccc" + HOST));
+        assertEquals(set(), this.index.copies(this.solr, HOST, "aaaaaa" + HOST, CollectionSchema.fuzzy_signature_l, 10));
+        assertEquals(2, this.index.size());
+
+        // an invalidated host is loaded again from the collection
+        this.index.invalidate(Arrays.asList(HOST));
+        assertEquals(0, this.index.size());
+        assertEquals(set("bbbbbb" + HOST), this.index.copies(this.solr, HOST, "aaaaaa" + HOST, CollectionSchema.exact_signature_l, 1));
+    }
+
+    private static Set<String> set(final String... ids) {
+        return new HashSet<String>(Arrays.asList(ids));
+    }
+}
@@ -0,0 +1,56 @@
+package net.yacy.search.schema;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+
+import net.yacy.cora.document.encoding.ASCII;
+
+import org.junit.Test;
+
+public class LinkGraphTest {
+
+    private static byte[] id(final int i) {
+        return ASCII.getBytes("AAAA" + Integer.toString(10000000 + i));
+    }
+
+    /**
+     * a document which is linked by all other documents must get the highest rank
+     */
+    @Test
+    public void testRank() {
+        final LinkGraph.Builder builder = new LinkGraph.Builder();
+        for (int i = 0; i < 4; i++) builder.addNode(id(i), 1);
+        builder.addLink(id(1), id(0));
+        builder.addLink(id(2), id(0));
+        builder.addLink(id(3), id(0));
+        builder.addLink(id(3), id(0)); // double link
+        builder.addLink(id(0), id(1));
+        builder.addLink(id(0), id(9)); // not a node
+        final LinkGraph graph = builder.build();
+        assertEquals(4, graph.size());
+        assertEquals(4, graph.links());
+        assertEquals(3, graph.referrerCount(graph.node(id(0))));
+        final double[] cr = graph.rank(new ForkJoinPool(2), 0.85d, 6, 100);
+        final int n0 = graph.node(id(0));
+        for (int v = 0; v < cr.length; v++) if (v != n0) assertTrue(cr[n0] > cr[v]);
+        assertTrue(cr[graph.node(id(1))] > cr[graph.node(id(2))]);
+    }
+
+    /**
+     * the ranks of a ring are equal; the ring is large enough for a parallel computation
+     */
+    @Test
+    public void testParallelRing() {
+        final int n = 20000;
+        final LinkGraph.Builder builder = new LinkGraph.Builder();
+        for (int i = n - 1; i >= 0; i--) builder.addNode(id(i), 1);
+        for (int i = 0; i < n; i++) builder.addLink(id(i), id((i + 1) % n));
+        final LinkGraph graph = builder.build();
+        assertEquals(n, graph.links());
+        final double[] cr = graph.rank(new ForkJoinPool(4), 0.85d, 6, 30);
+        for (int v = 0; v < n; v++) assertEquals(1.0d / n, cr[v], 1e-12);
+        assertEquals("AAAA10000000", ASCII.String(graph.id(0)));
+    }
+}